@@ -0,0 +1,92 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.util.CurrencyConverter;
+import org.ydanilenko.budgettracker.util.MonthlyTotals;
+import org.ydanilenko.budgettracker.util.PieSlice;
+import org.ydanilenko.budgettracker.util.TransactionLedger;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Allocation rates: mvn -Pjmh test-compile exec:exec -Djmh.args="-prof gc AggregationBenchmark"
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AggregationBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Ledger {
+        @Param({"1000", "100000", "1000000"})
+        public int rows;
+
+        List<Transaction> expenses;
+        List<Transaction> incomes;
+        TransactionLedger ledger;
+        LocalDate monthStart;
+        LocalDate monthEnd;
+        Map<String, Double> categoryTotals;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            expenses = new ArrayList<>(rows);
+            incomes = new ArrayList<>(rows / 10);
+            BenchmarkLedger.generator().forEach(rows, t -> (t.getTypeId() == 1 ? incomes : expenses).add(t));
+            ledger = new TransactionLedger(expenses, CurrencyConverter.IDENTITY);
+            monthStart = LocalDate.of(2025, 6, 1);
+            monthEnd = LocalDate.of(2025, 6, 30);
+            categoryTotals = ledger.totalsByCategory(null, null);
+        }
+    }
+
+    @Benchmark
+    public TransactionLedger updateTransactionList(Ledger state) {
+        return new TransactionLedger(state.expenses, CurrencyConverter.IDENTITY);
+    }
+
+    @Benchmark
+    public void filterTransactionsByDateRange(Ledger state, Blackhole blackhole) {
+        String error = TransactionLedger.validateRange(state.monthStart, state.monthEnd, LocalDate.now());
+        blackhole.consume(error);
+        blackhole.consume(state.ledger.slice(state.monthStart, state.monthEnd));
+        blackhole.consume(state.ledger.total(state.monthStart, state.monthEnd));
+    }
+
+    @Benchmark
+    public Map<String, Double> groupByCategory(Ledger state) {
+        return state.ledger.totalsByCategory(state.monthStart, state.monthEnd);
+    }
+
+    @Benchmark
+    public Map<String, Double> groupByPaymentType(Ledger state) {
+        return state.ledger.totalsByPaymentType(state.monthStart, state.monthEnd);
+    }
+
+    @Benchmark
+    public List<PieSlice> updatePieChart(Ledger state) {
+        return PieSlice.of(state.categoryTotals, PieSlice.total(state.categoryTotals));
+    }
+
+    @Benchmark
+    public MonthlyTotals showIncomeExpenseHistogram(Ledger state) {
+        return MonthlyTotals.of(state.incomes, state.expenses, null, null, CurrencyConverter.IDENTITY);
+    }
+}
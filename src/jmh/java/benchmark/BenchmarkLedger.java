@@ -0,0 +1,45 @@
+package benchmark;
+
+import org.ydanilenko.budgettracker.util.LedgerGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+public class BenchmarkLedger {
+    public static final Path DATA_DIR = Path.of("target", "jmh-data");
+    public static final LocalDate FIRST_DAY = LocalDate.of(2021, 1, 1);
+    public static final LocalDate LAST_DAY = LocalDate.of(2025, 12, 31);
+
+    public static LedgerGenerator generator() {
+        return generator(LedgerGenerator.DEFAULT_SEED);
+    }
+
+    public static LedgerGenerator generator(long seed) {
+        return new LedgerGenerator(seed, FIRST_DAY, LAST_DAY);
+    }
+
+    public static synchronized Path ensure(int rows) throws IOException, SQLException {
+        Path file = DATA_DIR.resolve("ledger-" + rows + ".db");
+        if (!Files.exists(file)) {
+            generator().writeTo(file, rows);
+        }
+        return file;
+    }
+
+    public static Path copy(int rows, String suffix) throws IOException, SQLException {
+        Path source = ensure(rows);
+        Path target = DATA_DIR.resolve("ledger-" + rows + "-" + suffix + ".db");
+        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        return target;
+    }
+
+    public static Connection open(Path file) throws SQLException {
+        return DriverManager.getConnection("jdbc:sqlite:" + file);
+    }
+}
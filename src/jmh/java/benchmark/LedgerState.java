@@ -0,0 +1,51 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.ydanilenko.budgettracker.model.PaymentType;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.util.LedgerGenerator;
+
+import java.sql.Connection;
+
+@State(Scope.Benchmark)
+public class LedgerState {
+    @Param({"10000"})
+    public int rows;
+
+    public Connection connection;
+    public TransactionDAO dao;
+    public String[] categories;
+    public String[] paymentTypes;
+    public String[] places;
+    public String[] beneficiaries;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        connection = BenchmarkLedger.open(BenchmarkLedger.ensure(rows));
+        dao = new TransactionDAO(connection);
+        LedgerGenerator generator = BenchmarkLedger.generator();
+        categories = generator.getCategories().toArray(String[]::new);
+        paymentTypes = generator.getPaymentTypes().stream().map(PaymentType::getName).toArray(String[]::new);
+        places = LedgerGenerator.placeNames().toArray(String[]::new);
+        beneficiaries = LedgerGenerator.beneficiaryNames().toArray(String[]::new);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        connection.close();
+    }
+
+    public static String pick(String[] names, Cursor cursor) {
+        return names[(cursor.next++ & Integer.MAX_VALUE) % names.length];
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+}
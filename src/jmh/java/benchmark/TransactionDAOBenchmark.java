@@ -0,0 +1,81 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ydanilenko.budgettracker.model.Transaction;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionDAOBenchmark {
+
+    @Benchmark
+    public List<Transaction> getTransactionsByType(LedgerState ledger) {
+        return ledger.dao.getTransactionsByType(0);
+    }
+
+    @Benchmark
+    public int getCategoryIdByName(LedgerState ledger, LedgerState.Cursor cursor) {
+        return ledger.dao.getCategoryIdByName(LedgerState.pick(ledger.categories, cursor));
+    }
+
+    @Benchmark
+    public int getPaymentTypeIdByName(LedgerState ledger, LedgerState.Cursor cursor) {
+        return ledger.dao.getPaymentTypeIdByName(LedgerState.pick(ledger.paymentTypes, cursor));
+    }
+
+    @Benchmark
+    public int getPlaceIdByName(LedgerState ledger, LedgerState.Cursor cursor) {
+        return ledger.dao.getPlaceIdByName(LedgerState.pick(ledger.places, cursor));
+    }
+
+    @Benchmark
+    public int getBeneficiaryIdByName(LedgerState ledger, LedgerState.Cursor cursor) {
+        return ledger.dao.getBeneficiaryIdByName(LedgerState.pick(ledger.beneficiaries, cursor));
+    }
+
+    @Benchmark
+    public String getTopBeneficiaryByCategory(LedgerState ledger, LedgerState.Cursor cursor) {
+        return ledger.dao.getTopBeneficiaryByCategory(LedgerState.pick(ledger.categories, cursor));
+    }
+
+    @Benchmark
+    public double getTotalIncome(LedgerState ledger) {
+        return ledger.dao.getTotalIncome();
+    }
+
+    @Benchmark
+    public double getTotalExpense(LedgerState ledger) {
+        return ledger.dao.getTotalExpense();
+    }
+
+    @Benchmark
+    public int getTotalTransactions(LedgerState ledger) {
+        return ledger.dao.getTotalTransactions();
+    }
+
+    @Benchmark
+    public double getMaxTransactionAmount(LedgerState ledger) {
+        return ledger.dao.getMaxTransactionAmount();
+    }
+
+    @Benchmark
+    public String getMostUsedCategory(LedgerState ledger) {
+        return ledger.dao.getMostUsedCategory();
+    }
+
+    @Benchmark
+    public String getTopBeneficiary(LedgerState ledger) {
+        return ledger.dao.getTopBeneficiary();
+    }
+}
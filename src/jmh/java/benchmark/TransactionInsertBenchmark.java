@@ -0,0 +1,64 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionInsertBenchmark {
+    private static final int PENDING_ROWS = 100_000;
+
+    @State(Scope.Benchmark)
+    public static class WritableLedger {
+        @Param({"10000"})
+        public int rows;
+
+        Path file;
+        Connection connection;
+        TransactionDAO dao;
+        List<Transaction> pending;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            file = BenchmarkLedger.copy(rows, "insert");
+            connection = BenchmarkLedger.open(file);
+            dao = new TransactionDAO(connection);
+            pending = BenchmarkLedger.generator(7).generate(PENDING_ROWS);
+            next = 0;
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            connection.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Benchmark
+    public boolean addTransaction(WritableLedger ledger) {
+        return ledger.dao.addTransaction(ledger.pending.get(ledger.next++ % PENDING_ROWS));
+    }
+}
@@ -0,0 +1,34 @@
+package org.ydanilenko.budgettracker;
+
+import org.ydanilenko.budgettracker.io.LedgerReport;
+import org.ydanilenko.budgettracker.io.LedgerServer;
+import org.ydanilenko.budgettracker.io.LedgerSync;
+import org.ydanilenko.budgettracker.io.TransactionExporter;
+import org.ydanilenko.budgettracker.util.LedgerArchive;
+
+import java.util.Arrays;
+
+// Entry point of the shaded jar. Headless commands must not touch Main, which pulls in the JavaFX toolkit.
+public class Launcher {
+    public static void main(String[] args) {
+        String command = args.length == 0 ? "" : args[0];
+        String[] rest = args.length == 0 ? args : Arrays.copyOfRange(args, 1, args.length);
+
+        switch (command) {
+            case "report" -> System.exit(LedgerReport.run(rest, System.out, System.err));
+            case "export" -> TransactionExporter.main(rest);
+            case "serve" -> LedgerServer.main(rest);
+            case "sync" -> System.exit(LedgerSync.run(rest, System.out, System.err));
+            case "archive" -> System.exit(LedgerArchive.run(rest, System.out, System.err));
+            case "help", "--help" -> {
+                System.out.println("Usage: budget-tracker [--jfr[=file]]     start the desktop application");
+                System.out.println("       budget-tracker report <totals|categories|payment-types|monthly|stats> [options]");
+                System.out.println("       budget-tracker export [options] <file.csv|file.btc>[.gz] | -");
+                System.out.println("       budget-tracker serve [--db jdbc-url] [--bind address] [--port n]");
+                System.out.println("       budget-tracker sync [--db jdbc-url] <http://host:port | jdbc-url | ledger.db>");
+                System.out.println("       budget-tracker archive [--db jdbc-url] [--keep-years n]");
+            }
+            default -> Main.main(args);
+        }
+    }
+}
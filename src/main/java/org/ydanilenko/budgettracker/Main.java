@@ -4,27 +4,84 @@ import javafx.application.Application;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
 import org.ydanilenko.budgettracker.controller.ExpenseTransactionController;
-import org.ydanilenko.budgettracker.util.DatabaseConnection;
+import org.ydanilenko.budgettracker.util.ConnectionPool;
+import org.ydanilenko.budgettracker.util.DatabaseBackup;
+import org.ydanilenko.budgettracker.util.FlightRecording;
+import org.ydanilenko.budgettracker.util.LedgerProfile;
+import org.ydanilenko.budgettracker.util.LedgerProfiles;
+import org.ydanilenko.budgettracker.util.MetricsReporter;
+import org.ydanilenko.budgettracker.util.RecurringScheduler;
+import org.ydanilenko.budgettracker.util.SlowQueryLog;
+import org.ydanilenko.budgettracker.util.TransactionJournal;
 import org.ydanilenko.budgettracker.model.TransactionDAO;
 import org.ydanilenko.budgettracker.view.ExpenseTransactionView;
 
+import java.time.LocalDate;
+
 public class Main extends Application {
+    private static FlightRecording flightRecording;
+    private MetricsReporter metricsReporter;
+    private LedgerProfiles profiles;
+    private DatabaseBackup backup;
+    private Stage stage;
+    private ExpenseTransactionController transactionController;
+
     @Override
     public void start(Stage primaryStage) {
-        var connection = DatabaseConnection.getConnection();
+        metricsReporter = MetricsReporter.start();
+        profiles = LedgerProfiles.fromConfig();
+        stage = primaryStage;
 
-        TransactionDAO transactionDAO = new TransactionDAO(connection);
-        ExpenseTransactionView transactionView = new ExpenseTransactionView(primaryStage);
-        ExpenseTransactionController transactionController = new ExpenseTransactionController(transactionDAO, transactionView);
         Image icon = new Image(getClass().getResourceAsStream("/images/app_icon.png"));
         primaryStage.getIcons().add(icon);
 
+        showProfile(LedgerProfiles.DEFAULT_PROFILE);
+    }
+
+    private void showProfile(String name) {
+        LedgerProfile profile;
+        try {
+            profile = profiles.activate(name);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return;
+        }
+        if (transactionController != null) transactionController.dispose();
+
+        ConnectionPool pool = profile.getPool();
+        if (backup != null) backup.close();
+        backup = null;
+        if (DatabaseBackup.canBackUp(pool)) {
+            backup = DatabaseBackup.start(pool, name.equals(LedgerProfiles.DEFAULT_PROFILE)
+                    ? DatabaseBackup.DEFAULT_DIR : DatabaseBackup.DEFAULT_DIR.resolve(name));
+            backup.setJournal(profile.getJournal());
+        }
+        TransactionJournal.setDefault(profile.getJournal());
+
+        TransactionDAO transactionDAO = profile.getDao();
+        new RecurringScheduler(transactionDAO).catchUp(LocalDate.now());
+
+        ExpenseTransactionView transactionView = new ExpenseTransactionView(stage);
+        transactionController = new ExpenseTransactionController(transactionDAO, transactionView);
+        transactionController.setProfiles(profiles.getNames(), name, this::showProfile);
+
         transactionController.initialize();
 
-        transactionView.show(primaryStage);
+        transactionView.show(stage);
+    }
+
+    @Override
+    public void stop() {
+        if (metricsReporter != null) metricsReporter.close();
+        if (flightRecording != null) flightRecording.close();
+        if (backup != null) backup.close();
+        TransactionJournal.setDefault(null);
+        if (profiles != null) profiles.close();
+        SlowQueryLog.getDefault().close();
     }
 
     public static void main(String[] args) {
+        flightRecording = FlightRecording.fromArgs(args);
         launch(args);
     }
 }
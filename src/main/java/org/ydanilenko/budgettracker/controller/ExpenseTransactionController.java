@@ -1,7 +1,6 @@
 package org.ydanilenko.budgettracker.controller;
 
-import javafx.beans.binding.Bindings;
-import javafx.collections.FXCollections;
+import javafx.application.Platform;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
@@ -12,25 +11,47 @@ import javafx.stage.Modality;
 import javafx.stage.Stage;
 import org.ydanilenko.budgettracker.model.Transaction;
 import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.util.BudgetStatus;
+import org.ydanilenko.budgettracker.util.BudgetTracker;
+import org.ydanilenko.budgettracker.util.CashFlowForecaster;
+import org.ydanilenko.budgettracker.util.CommentSearch;
+import org.ydanilenko.budgettracker.util.DatabaseBackup;
+import org.ydanilenko.budgettracker.util.LedgerProfiles;
+import org.ydanilenko.budgettracker.util.Metrics;
+import org.ydanilenko.budgettracker.util.TransactionJournal;
+import org.ydanilenko.budgettracker.util.TransactionLedger;
 import org.ydanilenko.budgettracker.view.*;
 
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 public class ExpenseTransactionController {
+    private static final String NEW_PROFILE = "New Profile...";
 
     private final TransactionDAO transactionDAO;
     private final ExpenseTransactionView expenseTransactionView;
-    private List<Transaction> allTransactions;
+    private TransactionLedger ledger;
     private List<Transaction> visibleTransactions;
+    private LocalDate visibleStart;
+    private LocalDate visibleEnd;
+    private final BudgetTracker budgetTracker;
+    private final CashFlowForecaster forecaster;
+    private final LedgerUpdates ledgerUpdates;
 
     public ExpenseTransactionController(TransactionDAO transactionDAO, ExpenseTransactionView expenseTransactionView) {
         this.transactionDAO = transactionDAO;
         this.expenseTransactionView = expenseTransactionView;
+        this.budgetTracker = new BudgetTracker(transactionDAO);
+        transactionDAO.addListener(budgetTracker);
+        budgetTracker.addAlertListener(this::showBudgetAlert);
+        this.forecaster = new CashFlowForecaster(transactionDAO);
+        transactionDAO.addListener(forecaster);
+        expenseTransactionView.setForecaster(forecaster);
+        this.ledgerUpdates = new LedgerUpdates(transactionDAO, 0);
+        transactionDAO.addListener(ledgerUpdates);
         initializeListeners();
     }
 
@@ -38,6 +59,47 @@ public class ExpenseTransactionController {
         updateTransactionList();
     }
 
+    // Fills the profile picker; choosing another profile, or naming a new one, hands it to onSwitch.
+    public void setProfiles(List<String> names, String current, Consumer<String> onSwitch) {
+        ComboBox<String> profileBox = expenseTransactionView.getProfileBox();
+        profileBox.getItems().setAll(names);
+        profileBox.getItems().add(NEW_PROFILE);
+        profileBox.setValue(current);
+        profileBox.setOnAction(e -> {
+            String chosen = profileBox.getValue();
+            if (chosen == null || chosen.equals(current)) return;
+            if (chosen.equals(NEW_PROFILE)) {
+                profileBox.setValue(current);
+                TextInputDialog dialog = new TextInputDialog();
+                dialog.initOwner(expenseTransactionView.getStage());
+                dialog.setTitle("New Profile");
+                dialog.setHeaderText("Name the new ledger profile");
+                dialog.setContentText("Name:");
+                String name = dialog.showAndWait().map(String::trim).orElse(null);
+                if (name == null || name.isEmpty()) return;
+                if (!LedgerProfiles.isValidName(name)) {
+                    expenseTransactionView.showError("Profile names use letters, digits, '-' and '_' (up to 40 characters).");
+                    return;
+                }
+                chosen = name;
+            }
+            onSwitch.accept(chosen);
+        });
+    }
+
+    // Detaches from the DAO when the window switches to another profile.
+    public void dispose() {
+        transactionDAO.removeListener(budgetTracker);
+        transactionDAO.removeListener(forecaster);
+        transactionDAO.removeListener(ledgerUpdates);
+    }
+
+    // Back from the income view: this controller kept listening meanwhile, so only the list needs refreshing.
+    private void showAgain() {
+        updateTransactionList();
+        expenseTransactionView.show(expenseTransactionView.getStage());
+    }
+
     private void initializeListeners() {
         configureButtons();
         setupCharts();
@@ -50,6 +112,54 @@ public class ExpenseTransactionController {
             form.show(expenseTransactionView.getStage(), this::updateTransactionList);
         });
 
+        expenseTransactionView.getImportButton().setOnAction(e ->
+                new ImportDialog(expenseTransactionView.getStage(), transactionDAO, () -> {
+                    budgetTracker.invalidate();
+                    forecaster.invalidate();
+                    ledgerUpdates.invalidate();
+                    updateTransactionList();
+                }).show());
+
+        expenseTransactionView.getBudgetPanel().getManageButton().setOnAction(e ->
+                new BudgetManager(expenseTransactionView.getStage(), transactionDAO, () -> {
+                    budgetTracker.reloadBudgets();
+                    refreshBudgets();
+                }).show());
+
+        expenseTransactionView.getRecurringButton().setOnAction(e ->
+                new RecurringTransactionManager(expenseTransactionView.getStage(), transactionDAO, this::updateTransactionList).show());
+
+        expenseTransactionView.getDiagnosticsButton().setOnAction(e ->
+                new DiagnosticsWindow(expenseTransactionView.getStage()).show());
+
+        expenseTransactionView.getBackupButton().setOnAction(e -> {
+            DatabaseBackup backup = DatabaseBackup.getDefault();
+            if (backup == null) {
+                expenseTransactionView.showError("Backups are only available for SQLite database files.");
+                return;
+            }
+            new BackupDialog(expenseTransactionView.getStage(), backup, transactionDAO, () -> {
+                budgetTracker.reloadBudgets();
+                budgetTracker.invalidate();
+                forecaster.invalidate();
+                ledgerUpdates.invalidate();
+                updateTransactionList();
+            }).show();
+        });
+
+        expenseTransactionView.getUndoButton().setOnAction(e -> {
+            TransactionJournal journal = TransactionJournal.getDefault();
+            if (journal != null && journal.undo()) updateTransactionList();
+        });
+
+        expenseTransactionView.getRedoButton().setOnAction(e -> {
+            TransactionJournal journal = TransactionJournal.getDefault();
+            if (journal != null && journal.redo()) updateTransactionList();
+        });
+
+        expenseTransactionView.getExportButton().setOnAction(e ->
+                new ExportDialog(expenseTransactionView.getStage(), 0, visibleStart, visibleEnd).show());
+
         expenseTransactionView.getResetFilterButton().setOnAction(e -> {
             expenseTransactionView.getStartDatePicker().setValue(null);
             expenseTransactionView.getEndDatePicker().setValue(null);
@@ -59,69 +169,126 @@ public class ExpenseTransactionController {
         expenseTransactionView.getSwitchToIncomeButton().setOnAction(e -> {
             IncomeTransactionView incomeView = new IncomeTransactionView(expenseTransactionView.getStage());
             incomeView.setExpenseView(expenseTransactionView);
-            IncomeTransactionController incomeController = new IncomeTransactionController(transactionDAO, incomeView);
+            IncomeTransactionController incomeController = new IncomeTransactionController(transactionDAO, incomeView, this::showAgain);
             incomeController.initialize();
             incomeView.show();
         });
 
         expenseTransactionView.getManagePaymentTypesButton().setOnAction(e -> {
             new PaymentTypeManager(expenseTransactionView.getStage(), transactionDAO, expenseTransactionView, null).show();
+            budgetTracker.invalidate();
+            forecaster.invalidate();
+            ledgerUpdates.invalidate();
+            updateTransactionList();
         });
 
         expenseTransactionView.getFilterButton().setOnAction(e -> filterTransactionsByDateRange());
+
+        expenseTransactionView.getSearchField().textProperty().addListener((obs, oldVal, newVal) -> searchComments(newVal));
     }
 
     private void setupCharts() {
         expenseTransactionView.getShowCategoryChartButton().setOnAction(e ->
-                showPieChart("Spending by Category", groupByCategory(visibleTransactions)));
+                showPieChart("Spending by Category", groupByCategory()));
 
         expenseTransactionView.getShowPaymentChartButton().setOnAction(e ->
-                showPieChart("Spending by Payment Type", groupByPaymentType(visibleTransactions)));
+                showPieChart("Spending by Payment Type", groupByPaymentType()));
+
+        // The charts and statistics read through the profile's DAO, which also reads the archived years.
+        expenseTransactionView.getShowHistogramButton().setOnAction(e ->
+                expenseTransactionView.showIncomeExpenseHistogram(transactionDAO));
+
+        expenseTransactionView.getStatsButton().setOnAction(e -> new StatisticsView(transactionDAO).show());
     }
 
     public void updateTransactionList() {
-        allTransactions = transactionDAO.getTransactionsByType(0);
-        LocalDate now = LocalDate.now();
+        Metrics.time("ui.expense.updateTransactionList", () -> {
+            ledger = ledgerUpdates.refresh(ledger);
+            Metrics.recordRows(ledger.size());
+            LocalDate now = LocalDate.now();
 
-        visibleTransactions = allTransactions.stream()
-                .filter(t -> {
-                    LocalDate date = LocalDate.parse(t.getDate());
-                    return date.getMonth() == now.getMonth() && date.getYear() == now.getYear();
-                })
-                .collect(Collectors.toList());
+            showRange(now.withDayOfMonth(1), now.withDayOfMonth(now.lengthOfMonth()));
+            refreshUndo();
+        });
+    }
+
+    private void refreshUndo() {
+        TransactionJournal journal = TransactionJournal.getDefault();
+        Button undoButton = expenseTransactionView.getUndoButton();
+        Button redoButton = expenseTransactionView.getRedoButton();
+        undoButton.setDisable(journal == null || !journal.canUndo());
+        redoButton.setDisable(journal == null || !journal.canRedo());
+        undoButton.setTooltip(journal == null || !journal.canUndo() ? null : new Tooltip(journal.describeUndo()));
+        redoButton.setTooltip(journal == null || !journal.canRedo() ? null : new Tooltip(journal.describeRedo()));
+    }
+
+    private void searchComments(String text) {
+        if (ledger == null) return;
+
+        if (text == null || text.isBlank()) {
+            showRange(visibleStart, visibleEnd);
+            return;
+        }
+
+        List<Transaction> results = transactionDAO.searchTransactions(
+                text,
+                0,
+                expenseTransactionView.getStartDatePicker().getValue(),
+                expenseTransactionView.getEndDatePicker().getValue(),
+                null,
+                0,
+                CommentSearch.PAGE_SIZE
+        );
+        expenseTransactionView.displayTransactions(results);
+    }
+
+    private void showRange(LocalDate start, LocalDate end) {
+        visibleStart = start;
+        visibleEnd = end;
+        visibleTransactions = ledger.slice(start, end);
 
         expenseTransactionView.displayTransactions(visibleTransactions);
+        // The prefix-sum total, shown together with the rows it covers once the filter is applied.
+        expenseTransactionView.showTotal(ledger.total(start, end));
+        expenseTransactionView.updatePieChart(groupByCategory(), groupByPaymentType());
+        refreshBudgets();
+    }
+
+    private void refreshBudgets() {
+        YearMonth month = YearMonth.from(visibleStart != null ? visibleStart : LocalDate.now());
+        expenseTransactionView.getBudgetPanel().update(month, budgetTracker.getStatus(month));
+    }
+
+    private void showBudgetAlert(BudgetStatus status, int thresholdPercent) {
+        Platform.runLater(() -> {
+            Alert alert = new Alert(Alert.AlertType.WARNING);
+            alert.initOwner(expenseTransactionView.getStage());
+            alert.setTitle("Budget Alert");
+            alert.setHeaderText(thresholdPercent >= 100
+                    ? status.getBudget().getTargetName() + " is over budget"
+                    : status.getBudget().getTargetName() + " has reached " + thresholdPercent + "% of its budget");
+            alert.setContentText(String.format("Spent %.2f of %.2f in %s.",
+                    status.getSpent(), status.getBudget().getMonthlyLimit(), status.getMonth()));
+            alert.show();
+        });
     }
 
-    private Map<String, Double> groupByCategory(List<Transaction> transactions) {
-        return transactions.stream().collect(Collectors.groupingBy(
-                Transaction::getCategoryName,
-                Collectors.summingDouble(Transaction::getAmount)
-        ));
+    private Map<String, Double> groupByCategory() {
+        return ledger.totalsByCategory(visibleStart, visibleEnd);
     }
 
-    private Map<String, Double> groupByPaymentType(List<Transaction> transactions) {
-        return transactions.stream().collect(Collectors.groupingBy(
-                Transaction::getPaymentType,
-                Collectors.summingDouble(Transaction::getAmount)
-        ));
+    private Map<String, Double> groupByPaymentType() {
+        return ledger.totalsByPaymentType(visibleStart, visibleEnd);
     }
 
     private void showPieChart(String title, Map<String, Double> dataMap) {
+        Metrics.Sample started = Metrics.start("ui.expense.pieChartPopup");
         Stage popup = new Stage();
         popup.setTitle(title);
         popup.initOwner(expenseTransactionView.getStage());
         popup.initModality(Modality.WINDOW_MODAL);
 
-        double total = dataMap.values().stream().mapToDouble(Double::doubleValue).sum();
-        ObservableList<PieChart.Data> data = FXCollections.observableArrayList();
-
-        for (Map.Entry<String, Double> entry : dataMap.entrySet()) {
-            double percentage = (entry.getValue() / total) * 100;
-            PieChart.Data slice = new PieChart.Data(entry.getKey(), entry.getValue());
-            slice.nameProperty().bind(Bindings.concat(entry.getKey(), " (", String.format("%.2f", percentage), "%)"));
-            data.add(slice);
-        }
+        ObservableList<PieChart.Data> data = PieCharts.toData(dataMap);
 
         PieChart chart = new PieChart(data);
         chart.setLegendVisible(true);
@@ -132,11 +299,12 @@ public class ExpenseTransactionController {
         Scene scene = new Scene(layout, 500, 400);
 
         popup.setScene(scene);
+        started.stop();
         popup.showAndWait();
     }
 
     public void filterTransactionsByDateRange() {
-        if (allTransactions == null || allTransactions.isEmpty()) {
+        if (ledger == null || ledger.size() == 0) {
             expenseTransactionView.showError("No transactions to filter.");
             return;
         }
@@ -144,32 +312,13 @@ public class ExpenseTransactionController {
         LocalDate startDate = expenseTransactionView.getStartDatePicker().getValue();
         LocalDate endDate = expenseTransactionView.getEndDatePicker().getValue();
 
-        if (endDate != null && endDate.isAfter(LocalDate.now())) {
-            expenseTransactionView.showError("End date cannot be later than today.");
-            return;
-        }
-
-        if (startDate != null && endDate != null && startDate.isAfter(endDate)) {
-            expenseTransactionView.showError("Start date cannot be after end date.");
+        String error = TransactionLedger.validateRange(startDate, endDate, LocalDate.now());
+        if (error != null) {
+            expenseTransactionView.showError(error);
             return;
         }
 
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-M-d");
-
-        visibleTransactions = allTransactions.stream()
-                .filter(t -> {
-                    try {
-                        LocalDate transactionDate = LocalDate.parse(t.getDate(), formatter);
-                        return (startDate == null || !transactionDate.isBefore(startDate)) &&
-                                (endDate == null || !transactionDate.isAfter(endDate));
-                    } catch (DateTimeParseException e) {
-                        System.err.println("Invalid date format in transaction: " + t.getDate());
-                        return false;
-                    }
-                })
-                .collect(Collectors.toList());
-
-        expenseTransactionView.displayTransactions(visibleTransactions);
+        showRange(startDate, endDate);
     }
 
     private void setupContextMenu() {
@@ -202,7 +351,29 @@ public class ExpenseTransactionController {
             }
         });
 
-        ContextMenu contextMenu = new ContextMenu(editItem, copyItem);
+        MenuItem repeatItem = new MenuItem("Repeat...");
+        repeatItem.setOnAction(e -> {
+            Transaction selected = expenseTransactionView.getSelectedTransaction();
+            if (selected != null) {
+                new RecurringTransactionManager(expenseTransactionView.getStage(), transactionDAO, this::updateTransactionList)
+                        .showRepeatForm(selected);
+            }
+        });
+
+        MenuItem notDuplicateItem = new MenuItem("Not a Duplicate");
+        notDuplicateItem.setOnAction(e -> {
+            Transaction selected = expenseTransactionView.getSelectedTransaction();
+            if (selected != null && transactionDAO.clearDuplicateFlag(selected.getId())) {
+                ledgerUpdates.changed(selected.getId());
+                updateTransactionList();
+            }
+        });
+
+        ContextMenu contextMenu = new ContextMenu(editItem, copyItem, repeatItem, notDuplicateItem);
+        contextMenu.setOnShowing(e -> {
+            Transaction selected = expenseTransactionView.getSelectedTransaction();
+            notDuplicateItem.setVisible(selected != null && selected.getDuplicateOf() > 0);
+        });
         table.setContextMenu(contextMenu);
     }
 }
@@ -1,6 +1,5 @@
 package org.ydanilenko.budgettracker.controller;
 
-import javafx.beans.binding.Bindings;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
@@ -14,28 +13,39 @@ import javafx.stage.Modality;
 import javafx.stage.Stage;
 import org.ydanilenko.budgettracker.model.Transaction;
 import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.util.CommentSearch;
+import org.ydanilenko.budgettracker.util.Metrics;
+import org.ydanilenko.budgettracker.util.TransactionLedger;
 import org.ydanilenko.budgettracker.view.IncomeTransactionView;
-import org.ydanilenko.budgettracker.view.ExpenseTransactionView;
+import org.ydanilenko.budgettracker.view.ImportDialog;
+import org.ydanilenko.budgettracker.view.ExportDialog;
+import org.ydanilenko.budgettracker.view.RecurringTransactionManager;
 import org.ydanilenko.budgettracker.view.TransactionForm;
 import org.ydanilenko.budgettracker.view.PaymentTypeManager;
+import org.ydanilenko.budgettracker.view.PieCharts;
+import org.ydanilenko.budgettracker.view.StatisticsView;
 
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 public class IncomeTransactionController {
 
     private final TransactionDAO transactionDAO;
     private final IncomeTransactionView incomeView;
-    private List<Transaction> allTransactions;
+    private TransactionLedger ledger;
     private List<Transaction> visibleTransactions;
+    private LocalDate visibleStart;
+    private LocalDate visibleEnd;
+    private final LedgerUpdates ledgerUpdates;
 
-    public IncomeTransactionController(TransactionDAO transactionDAO, IncomeTransactionView incomeView) {
+    // onSwitchToExpense shows the expense controller that opened this view again, so switching back and forth
+    // never stacks up expense controllers and their DAO listeners.
+    public IncomeTransactionController(TransactionDAO transactionDAO, IncomeTransactionView incomeView, Runnable onSwitchToExpense) {
         this.transactionDAO = transactionDAO;
         this.incomeView = incomeView;
+        this.ledgerUpdates = new LedgerUpdates(transactionDAO, 1);
+        transactionDAO.addListener(ledgerUpdates);
 
         incomeView.getCategoryField().setItems(FXCollections.observableArrayList(transactionDAO.getAllCategories()));
         incomeView.getPaymentTypeField().setItems(FXCollections.observableArrayList(transactionDAO.getAllPaymentTypes()));
@@ -45,7 +55,20 @@ public class IncomeTransactionController {
             transactionForm.show(incomeView.getStage(), this::updateTransactionList);
         });
 
+        incomeView.getImportButton().setOnAction(e ->
+                new ImportDialog(incomeView.getStage(), transactionDAO, () -> {
+                    ledgerUpdates.invalidate();
+                    updateTransactionList();
+                }).show());
+
+        incomeView.getRecurringButton().setOnAction(e ->
+                new RecurringTransactionManager(incomeView.getStage(), transactionDAO, this::updateTransactionList).show());
+
+        incomeView.getExportButton().setOnAction(e ->
+                new ExportDialog(incomeView.getStage(), 1, visibleStart, visibleEnd).show());
+
         incomeView.getFilterButton().setOnAction(e -> filterTransactionsByDateRange());
+        incomeView.getSearchField().textProperty().addListener((obs, oldVal, newVal) -> searchComments(newVal));
 
         incomeView.getResetFilterButton().setOnAction(e -> {
             incomeView.getStartDatePicker().setValue(null);
@@ -54,19 +77,25 @@ public class IncomeTransactionController {
         });
 
         incomeView.getSwitchToExpenseButton().setOnAction(e -> {
-            ExpenseTransactionView expenseView = incomeView.getExpenseView();
-            new ExpenseTransactionController(transactionDAO, expenseView).initialize();
-            expenseView.show(expenseView.getStage());
+            transactionDAO.removeListener(ledgerUpdates);
+            onSwitchToExpense.run();
         });
 
         incomeView.getShowCategoryChartButton().setOnAction(e ->
-                showPieChart("Income by Category", groupByCategory(visibleTransactions)));
+                showPieChart("Income by Category", groupByCategory()));
 
         incomeView.getShowPaymentChartButton().setOnAction(e ->
-                showPieChart("Income by Payment Type", groupByPaymentType(visibleTransactions)));
+                showPieChart("Income by Payment Type", groupByPaymentType()));
+
+        // The charts and statistics read through the profile's DAO, which also reads the archived years.
+        incomeView.getShowHistogramButton().setOnAction(e -> incomeView.showIncomeExpenseHistogram(transactionDAO));
+
+        incomeView.getStatsButton().setOnAction(e -> new StatisticsView(transactionDAO).show());
 
         incomeView.getManagePaymentTypesButton().setOnAction(e -> {
             new PaymentTypeManager(incomeView.getStage(), transactionDAO, null, incomeView).show();
+            ledgerUpdates.invalidate();
+            updateTransactionList();
         });
 
         setupContextMenu();
@@ -119,21 +148,48 @@ public class IncomeTransactionController {
     }
 
     public void updateTransactionList() {
-        allTransactions = transactionDAO.getTransactionsByType(1);
-        LocalDate now = LocalDate.now();
+        Metrics.time("ui.income.updateTransactionList", () -> {
+            ledger = ledgerUpdates.refresh(ledger);
+            Metrics.recordRows(ledger.size());
+            LocalDate now = LocalDate.now();
+
+            showRange(now.withDayOfMonth(1), now.withDayOfMonth(now.lengthOfMonth()));
+        });
+    }
 
-        visibleTransactions = allTransactions.stream()
-                .filter(t -> {
-                    LocalDate date = LocalDate.parse(t.getDate());
-                    return date.getMonth() == now.getMonth() && date.getYear() == now.getYear();
-                })
-                .collect(Collectors.toList());
+    private void searchComments(String text) {
+        if (ledger == null) return;
+
+        if (text == null || text.isBlank()) {
+            showRange(visibleStart, visibleEnd);
+            return;
+        }
+
+        List<Transaction> results = transactionDAO.searchTransactions(
+                text,
+                1,
+                incomeView.getStartDatePicker().getValue(),
+                incomeView.getEndDatePicker().getValue(),
+                null,
+                0,
+                CommentSearch.PAGE_SIZE
+        );
+        incomeView.displayTransactions(results);
+    }
+
+    private void showRange(LocalDate start, LocalDate end) {
+        visibleStart = start;
+        visibleEnd = end;
+        visibleTransactions = ledger.slice(start, end);
 
         incomeView.displayTransactions(visibleTransactions);
+        // The prefix-sum total, shown together with the rows it covers once the filter is applied.
+        incomeView.showTotal(ledger.total(start, end));
+        incomeView.updateCharts(groupByCategory(), groupByPaymentType());
     }
 
     public void filterTransactionsByDateRange() {
-        if (allTransactions == null || allTransactions.isEmpty()) {
+        if (ledger == null || ledger.size() == 0) {
             incomeView.showError("No transactions to filter.");
             return;
         }
@@ -141,33 +197,13 @@ public class IncomeTransactionController {
         LocalDate startDate = incomeView.getStartDatePicker().getValue();
         LocalDate endDate = incomeView.getEndDatePicker().getValue();
 
-        if (endDate != null && endDate.isAfter(LocalDate.now())) {
-            incomeView.showError("End date cannot be later than today.");
+        String error = TransactionLedger.validateRange(startDate, endDate, LocalDate.now());
+        if (error != null) {
+            incomeView.showError(error);
             return;
         }
 
-        if (startDate != null && endDate != null && startDate.isAfter(endDate)) {
-            incomeView.showError("Start date cannot be after end date.");
-            return;
-        }
-
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-M-d");
-
-        List<Transaction> filteredTransactions = allTransactions.stream()
-                .filter(t -> {
-                    try {
-                        LocalDate transactionDate = LocalDate.parse(t.getDate(), formatter);
-                        return (startDate == null || !transactionDate.isBefore(startDate)) &&
-                                (endDate == null || !transactionDate.isAfter(endDate));
-                    } catch (DateTimeParseException e) {
-                        System.err.println("Invalid date format in transaction: " + t.getDate());
-                        return false;
-                    }
-                })
-                .collect(Collectors.toList());
-
-        visibleTransactions = filteredTransactions;
-        incomeView.displayTransactions(visibleTransactions);
+        showRange(startDate, endDate);
     }
 
     private void setupContextMenu() {
@@ -200,25 +236,40 @@ public class IncomeTransactionController {
             }
         });
 
-        ContextMenu contextMenu = new ContextMenu(editItem, copyItem);
+        MenuItem repeatItem = new MenuItem("Repeat...");
+        repeatItem.setOnAction(e -> {
+            Transaction selected = incomeView.getSelectedTransaction();
+            if (selected != null) {
+                new RecurringTransactionManager(incomeView.getStage(), transactionDAO, this::updateTransactionList)
+                        .showRepeatForm(selected);
+            }
+        });
+
+        MenuItem notDuplicateItem = new MenuItem("Not a Duplicate");
+        notDuplicateItem.setOnAction(e -> {
+            Transaction selected = incomeView.getSelectedTransaction();
+            if (selected != null && transactionDAO.clearDuplicateFlag(selected.getId())) {
+                ledgerUpdates.changed(selected.getId());
+                updateTransactionList();
+            }
+        });
+
+        ContextMenu contextMenu = new ContextMenu(editItem, copyItem, repeatItem, notDuplicateItem);
+        contextMenu.setOnShowing(e -> {
+            Transaction selected = incomeView.getSelectedTransaction();
+            notDuplicateItem.setVisible(selected != null && selected.getDuplicateOf() > 0);
+        });
         table.setContextMenu(contextMenu);
     }
 
     private void showPieChart(String title, Map<String, Double> dataMap) {
+        Metrics.Sample started = Metrics.start("ui.income.pieChartPopup");
         Stage popup = new Stage();
         popup.setTitle(title);
         popup.initOwner(incomeView.getStage());
         popup.initModality(Modality.WINDOW_MODAL);
 
-        double total = dataMap.values().stream().mapToDouble(Double::doubleValue).sum();
-        ObservableList<PieChart.Data> data = FXCollections.observableArrayList();
-
-        for (Map.Entry<String, Double> entry : dataMap.entrySet()) {
-            double percentage = (entry.getValue() / total) * 100;
-            PieChart.Data slice = new PieChart.Data(entry.getKey(), entry.getValue());
-            slice.nameProperty().bind(Bindings.concat(entry.getKey(), " (", String.format("%.2f", percentage), "%)"));
-            data.add(slice);
-        }
+        ObservableList<PieChart.Data> data = PieCharts.toData(dataMap);
 
         PieChart chart = new PieChart(data);
         chart.setLegendVisible(true);
@@ -229,20 +280,15 @@ public class IncomeTransactionController {
         Scene scene = new Scene(layout, 500, 400);
 
         popup.setScene(scene);
+        started.stop();
         popup.showAndWait();
     }
 
-    private Map<String, Double> groupByCategory(List<Transaction> transactions) {
-        return transactions.stream().collect(Collectors.groupingBy(
-                Transaction::getCategoryName,
-                Collectors.summingDouble(Transaction::getAmount)
-        ));
+    private Map<String, Double> groupByCategory() {
+        return ledger.totalsByCategory(visibleStart, visibleEnd);
     }
 
-    private Map<String, Double> groupByPaymentType(List<Transaction> transactions) {
-        return transactions.stream().collect(Collectors.groupingBy(
-                Transaction::getPaymentType,
-                Collectors.summingDouble(Transaction::getAmount)
-        ));
+    private Map<String, Double> groupByPaymentType() {
+        return ledger.totalsByPaymentType(visibleStart, visibleEnd);
     }
 }
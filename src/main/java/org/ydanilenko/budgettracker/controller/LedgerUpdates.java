@@ -0,0 +1,89 @@
+package org.ydanilenko.budgettracker.controller;
+
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.model.TransactionListener;
+import org.ydanilenko.budgettracker.util.TransactionLedger;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Collects the ids the DAO reports as written and applies them to a controller's ledger the next time it refreshes,
+// on the UI thread. Only the touched rows are read back; the ledger is reloaded after invalidate() or when more rows
+// changed than a reload costs.
+class LedgerUpdates implements TransactionListener {
+    private static final int RELOAD_THRESHOLD = 5_000;
+
+    private final TransactionDAO dao;
+    private final int typeId;
+    private final Set<Integer> changed = new HashSet<>();
+    private boolean stale = true;
+
+    LedgerUpdates(TransactionDAO dao, int typeId) {
+        this.dao = dao;
+        this.typeId = typeId;
+    }
+
+    synchronized void invalidate() {
+        stale = true;
+        changed.clear();
+    }
+
+    TransactionLedger refresh(TransactionLedger ledger) {
+        Set<Integer> ids;
+        synchronized (this) {
+            if (ledger == null || stale) {
+                stale = false;
+                changed.clear();
+                return new TransactionLedger(dao.getTransactionsByType(typeId), dao.getCurrencyConverter());
+            }
+            if (changed.isEmpty()) return ledger;
+            ids = new HashSet<>(changed);
+            changed.clear();
+        }
+
+        // A row that moved to the other type, or was deleted, is simply not read back.
+        for (int id : ids) {
+            ledger.remove(id);
+        }
+        for (Transaction transaction : dao.getTransactionsByIds(typeId, ids)) {
+            ledger.add(transaction);
+        }
+        return ledger;
+    }
+
+    @Override
+    public void onInserted(Transaction transaction) {
+        changed(transaction.getId());
+    }
+
+    @Override
+    public void onInserted(List<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            changed(transaction.getId());
+        }
+    }
+
+    @Override
+    public void onUpdated(Transaction oldTransaction, Transaction newTransaction) {
+        changed(newTransaction.getId());
+    }
+
+    @Override
+    public void onDeleted(Transaction transaction) {
+        changed(transaction.getId());
+    }
+
+    @Override
+    public void onReloaded() {
+        invalidate();
+    }
+
+    // Also for writes the DAO does not report, such as clearing a duplicate flag.
+    synchronized void changed(int id) {
+        if (stale) return;
+        changed.add(id);
+        if (changed.size() > RELOAD_THRESHOLD) invalidate();
+    }
+}
@@ -0,0 +1,39 @@
+package org.ydanilenko.budgettracker.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+final class ColumnarFormat {
+    static final byte[] MAGIC = {'B', 'T', 'C', 'O', 'L'};
+    static final byte VERSION = 1;
+    static final int ROW_GROUP_SIZE = 8192;
+
+    static final int DATE = 0;
+    static final int CATEGORY = 1;
+    static final int PAYMENT_TYPE = 2;
+    static final int PLACE = 3;
+    static final int BENEFICIARY = 4;
+    static final int DIMENSIONS = 5;
+
+    private ColumnarFormat() {
+    }
+
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint in columnar file.");
+    }
+}
@@ -0,0 +1,111 @@
+package org.ydanilenko.budgettracker.io;
+
+import org.ydanilenko.budgettracker.model.Transaction;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.ydanilenko.budgettracker.io.ColumnarFormat.*;
+
+public class ColumnarTransactionReader {
+
+    private ColumnarTransactionReader() {
+    }
+
+    public static long read(Path file, Consumer<Transaction> consumer) throws IOException {
+        InputStream input = Channels.newInputStream(FileChannel.open(file, StandardOpenOption.READ));
+        if (ExportFormat.isGzip(file)) {
+            input = new GZIPInputStream(input, 1 << 16);
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(input, 1 << 16))) {
+            return read(in, consumer);
+        }
+    }
+
+    static long read(DataInputStream in, Consumer<Transaction> consumer) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a columnar transaction file.");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported columnar file version " + version + ".");
+        }
+
+        List<List<String>> dictionaries = new ArrayList<>(DIMENSIONS);
+        for (int i = 0; i < DIMENSIONS; i++) {
+            List<String> dictionary = new ArrayList<>();
+            dictionary.add(null);
+            dictionaries.add(dictionary);
+        }
+
+        long total = 0;
+        int rows;
+        while ((rows = readVarInt(in)) > 0) {
+            for (List<String> dictionary : dictionaries) {
+                int added = readVarInt(in);
+                for (int i = 0; i < added; i++) {
+                    dictionary.add(in.readUTF());
+                }
+            }
+
+            int[] ids = new int[rows];
+            double[] amounts = new double[rows];
+            byte[] types = new byte[rows];
+            int[][] codes = new int[DIMENSIONS][rows];
+
+            for (int i = 0; i < rows; i++) ids[i] = readVarInt(in);
+            for (int i = 0; i < rows; i++) amounts[i] = in.readDouble();
+            in.readFully(types);
+            for (int[] column : codes) {
+                for (int i = 0; i < rows; i++) column[i] = readVarInt(in);
+            }
+
+            for (int i = 0; i < rows; i++) {
+                int length = readVarInt(in);
+                String comment = null;
+                if (length > 0) {
+                    byte[] bytes = new byte[length - 1];
+                    in.readFully(bytes);
+                    comment = new String(bytes, StandardCharsets.UTF_8);
+                }
+
+                Transaction transaction = new Transaction(
+                        ids[i],
+                        amounts[i],
+                        lookup(dictionaries, DATE, codes[DATE][i]),
+                        lookup(dictionaries, CATEGORY, codes[CATEGORY][i]),
+                        lookup(dictionaries, PAYMENT_TYPE, codes[PAYMENT_TYPE][i]),
+                        comment,
+                        lookup(dictionaries, PLACE, codes[PLACE][i]),
+                        lookup(dictionaries, BENEFICIARY, codes[BENEFICIARY][i])
+                );
+                transaction.setTypeId(types[i]);
+                consumer.accept(transaction);
+            }
+            total += rows;
+        }
+        return total;
+    }
+
+    private static String lookup(List<List<String>> dictionaries, int dimension, int code) throws IOException {
+        List<String> dictionary = dictionaries.get(dimension);
+        if (code < 0 || code >= dictionary.size()) {
+            throw new IOException("Dictionary code " + code + " out of range.");
+        }
+        return dictionary.get(code);
+    }
+}
@@ -0,0 +1,108 @@
+package org.ydanilenko.budgettracker.io;
+
+import org.ydanilenko.budgettracker.model.Transaction;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.ydanilenko.budgettracker.io.ColumnarFormat.*;
+
+public class ColumnarTransactionWriter implements TransactionWriter {
+    private final DataOutputStream out;
+    private final List<Map<String, Integer>> dictionaries = new ArrayList<>(DIMENSIONS);
+    private final List<List<String>> newEntries = new ArrayList<>(DIMENSIONS);
+
+    private final int[] ids = new int[ROW_GROUP_SIZE];
+    private final double[] amounts = new double[ROW_GROUP_SIZE];
+    private final byte[] types = new byte[ROW_GROUP_SIZE];
+    private final int[][] codes = new int[DIMENSIONS][ROW_GROUP_SIZE];
+    private final String[] comments = new String[ROW_GROUP_SIZE];
+    private int rows;
+
+    public ColumnarTransactionWriter(OutputStream output) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(output, 1 << 16));
+        for (int i = 0; i < DIMENSIONS; i++) {
+            dictionaries.add(new HashMap<>());
+            newEntries.add(new ArrayList<>());
+        }
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+    }
+
+    @Override
+    public void write(Transaction t) throws IOException {
+        ids[rows] = t.getId();
+        amounts[rows] = t.getAmount();
+        types[rows] = (byte) t.getTypeId();
+        codes[DATE][rows] = encode(DATE, t.getDate());
+        codes[CATEGORY][rows] = encode(CATEGORY, t.getCategoryName());
+        codes[PAYMENT_TYPE][rows] = encode(PAYMENT_TYPE, t.getPaymentType());
+        codes[PLACE][rows] = encode(PLACE, t.getPlaceName());
+        codes[BENEFICIARY][rows] = encode(BENEFICIARY, t.getBeneficiaryName());
+        comments[rows] = t.getComment();
+
+        if (++rows == ROW_GROUP_SIZE) {
+            flushRowGroup();
+        }
+    }
+
+    private int encode(int dimension, String value) {
+        if (value == null) return 0;
+        Map<String, Integer> dictionary = dictionaries.get(dimension);
+        Integer code = dictionary.get(value);
+        if (code == null) {
+            code = dictionary.size() + 1;
+            dictionary.put(value, code);
+            newEntries.get(dimension).add(value);
+        }
+        return code;
+    }
+
+    private void flushRowGroup() throws IOException {
+        if (rows == 0) return;
+
+        writeVarInt(out, rows);
+        for (List<String> entries : newEntries) {
+            writeVarInt(out, entries.size());
+            for (String entry : entries) {
+                out.writeUTF(entry);
+            }
+            entries.clear();
+        }
+
+        for (int i = 0; i < rows; i++) writeVarInt(out, ids[i]);
+        for (int i = 0; i < rows; i++) out.writeDouble(amounts[i]);
+        out.write(types, 0, rows);
+        for (int[] column : codes) {
+            for (int i = 0; i < rows; i++) writeVarInt(out, column[i]);
+        }
+        for (int i = 0; i < rows; i++) {
+            if (comments[i] == null) {
+                writeVarInt(out, 0);
+            } else {
+                byte[] bytes = comments[i].getBytes(StandardCharsets.UTF_8);
+                writeVarInt(out, bytes.length + 1);
+                out.write(bytes);
+            }
+            comments[i] = null;
+        }
+        rows = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushRowGroup();
+            writeVarInt(out, 0);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.ydanilenko.budgettracker.io;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class CsvStatementParser {
+    private final char delimiter;
+    private final boolean decimalComma;
+    private final int dateColumn;
+    private final int amountColumn;
+    private final int typeColumn;
+    private final int categoryColumn;
+    private final int paymentTypeColumn;
+    private final int placeColumn;
+    private final int beneficiaryColumn;
+    private final int commentColumn;
+
+    private CsvStatementParser(char delimiter, List<String> header) {
+        this.delimiter = delimiter;
+        this.decimalComma = delimiter == ';';
+        this.dateColumn = find(header, "date", "booking date", "transaction date", "buchungstag", "datum");
+        this.amountColumn = find(header, "amount", "betrag", "value");
+        this.typeColumn = find(header, "type", "transaction type");
+        this.categoryColumn = find(header, "category", "kategorie");
+        this.paymentTypeColumn = find(header, "payment type", "payment_type", "paymenttype", "account");
+        this.placeColumn = find(header, "place", "location", "ort");
+        this.beneficiaryColumn = find(header, "beneficiary", "payee", "name", "counterparty", "empfänger");
+        this.commentColumn = find(header, "comment", "memo", "description", "purpose", "verwendungszweck");
+
+        if (dateColumn < 0 || amountColumn < 0) {
+            throw new IllegalArgumentException("CSV header must contain date and amount columns.");
+        }
+    }
+
+    public static CsvStatementParser fromHeader(String headerLine) {
+        if (headerLine == null) {
+            throw new IllegalArgumentException("CSV file is empty.");
+        }
+        String header = headerLine.startsWith("\uFEFF") ? headerLine.substring(1) : headerLine;
+        char delimiter = detectDelimiter(header);
+        return new CsvStatementParser(delimiter, split(header, delimiter));
+    }
+
+    public StatementRow parse(String line) {
+        if (line == null || line.isBlank()) return null;
+
+        List<String> fields = split(line, delimiter);
+        LocalDate date = StatementDates.parse(field(fields, dateColumn));
+        Double amount = StatementDates.parseAmount(field(fields, amountColumn), decimalComma);
+        if (date == null || amount == null) return null;
+
+        String beneficiary = field(fields, beneficiaryColumn);
+        String place = placeColumn >= 0 ? field(fields, placeColumn) : beneficiary;
+        String comment = field(fields, commentColumn);
+
+        String type = field(fields, typeColumn);
+        int typeId;
+        if (type == null) {
+            typeId = amount < 0 ? 0 : 1;
+        } else {
+            String normalized = type.toLowerCase(Locale.ROOT);
+            typeId = normalized.equals("1") || normalized.startsWith("income") ? 1 : 0;
+        }
+
+        return new StatementRow(date, Math.abs(amount), typeId,
+                field(fields, categoryColumn), field(fields, paymentTypeColumn), place, beneficiary, comment);
+    }
+
+    public List<StatementRow> parseAll(List<String> lines) {
+        List<StatementRow> rows = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            StatementRow row = parse(line);
+            if (row != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    static List<String> split(String line, char delimiter) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private static char detectDelimiter(String header) {
+        char best = ',';
+        long bestCount = -1;
+        for (char candidate : new char[]{',', ';', '\t'}) {
+            long count = header.chars().filter(c -> c == candidate).count();
+            if (count > bestCount) {
+                best = candidate;
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+
+    private static int find(List<String> header, String... names) {
+        for (String name : names) {
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).trim().toLowerCase(Locale.ROOT).equals(name)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static String field(List<String> fields, int column) {
+        if (column < 0 || column >= fields.size()) return null;
+        String value = fields.get(column).trim();
+        return value.isEmpty() ? null : value;
+    }
+}
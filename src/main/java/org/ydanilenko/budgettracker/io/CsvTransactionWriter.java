@@ -0,0 +1,63 @@
+package org.ydanilenko.budgettracker.io;
+
+import org.ydanilenko.budgettracker.model.Transaction;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+public class CsvTransactionWriter implements TransactionWriter {
+    static final String HEADER = "Date,Amount,Type,Category,Payment Type,Place,Beneficiary,Comment";
+
+    private final Writer writer;
+
+    public CsvTransactionWriter(OutputStream output) throws IOException {
+        this.writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+        writer.write(HEADER);
+        writer.write('\n');
+    }
+
+    @Override
+    public void write(Transaction t) throws IOException {
+        writer.write(t.getDate() == null ? "" : t.getDate());
+        writer.write(',');
+        writer.write(Double.toString(t.getAmount()));
+        writer.write(',');
+        writer.write(t.getTypeId() == 1 ? "income" : "expense");
+        writer.write(',');
+        writeField(t.getCategoryName());
+        writer.write(',');
+        writeField(t.getPaymentType());
+        writer.write(',');
+        writeField(t.getPlaceName());
+        writer.write(',');
+        writeField(t.getBeneficiaryName());
+        writer.write(',');
+        writeField(t.getComment());
+        writer.write('\n');
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null || value.isEmpty()) return;
+
+        // The importer reads one record per line, so embedded line breaks are flattened.
+        String flat = value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0
+                ? value.replace("\r\n", " ").replace('\n', ' ').replace('\r', ' ')
+                : value;
+
+        if (flat.indexOf(',') >= 0 || flat.indexOf('"') >= 0) {
+            writer.write('"');
+            writer.write(flat.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(flat);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
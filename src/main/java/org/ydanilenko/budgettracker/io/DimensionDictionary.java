@@ -0,0 +1,64 @@
+package org.ydanilenko.budgettracker.io;
+
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class DimensionDictionary {
+    public static final String UNKNOWN_NAME = "Unknown";
+
+    private final TransactionDAO dao;
+    private final Map<String, Integer> categories;
+    private final Map<String, Integer> paymentTypes;
+    private final Map<String, Integer> places;
+    private final Map<String, Integer> beneficiaries;
+
+    public DimensionDictionary(TransactionDAO dao) {
+        this.dao = dao;
+        this.categories = dao.getCategoryIds();
+        this.paymentTypes = dao.getPaymentTypeIds();
+        this.places = dao.getPlaceIds();
+        this.beneficiaries = dao.getBeneficiaryIds();
+    }
+
+    public List<Transaction> resolve(List<StatementRow> rows, int defaultCategoryId, int defaultPaymentTypeId) {
+        Set<String> newPlaces = new LinkedHashSet<>();
+        Set<String> newBeneficiaries = new LinkedHashSet<>();
+        for (StatementRow row : rows) {
+            String place = nameOrUnknown(row.getPlaceName());
+            String beneficiary = nameOrUnknown(row.getBeneficiaryName());
+            if (!places.containsKey(place)) newPlaces.add(place);
+            if (!beneficiaries.containsKey(beneficiary)) newBeneficiaries.add(beneficiary);
+        }
+        places.putAll(dao.addPlaces(newPlaces));
+        beneficiaries.putAll(dao.addBeneficiaries(newBeneficiaries));
+
+        List<Transaction> transactions = new ArrayList<>(rows.size());
+        for (StatementRow row : rows) {
+            Integer placeId = places.get(nameOrUnknown(row.getPlaceName()));
+            Integer beneficiaryId = beneficiaries.get(nameOrUnknown(row.getBeneficiaryName()));
+            if (placeId == null || beneficiaryId == null) continue;
+
+            transactions.add(new Transaction(
+                    row.getAmount(),
+                    row.getDate().toString(),
+                    categories.getOrDefault(row.getCategoryName(), defaultCategoryId),
+                    paymentTypes.getOrDefault(row.getPaymentTypeName(), defaultPaymentTypeId),
+                    row.getComment(),
+                    placeId,
+                    beneficiaryId,
+                    row.getTypeId()
+            ));
+        }
+        return transactions;
+    }
+
+    private static String nameOrUnknown(String name) {
+        return name == null || name.isBlank() ? UNKNOWN_NAME : name.trim();
+    }
+}
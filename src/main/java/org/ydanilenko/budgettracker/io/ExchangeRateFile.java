@@ -0,0 +1,43 @@
+package org.ydanilenko.budgettracker.io;
+
+import org.ydanilenko.budgettracker.model.ExchangeRate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class ExchangeRateFile {
+
+    public static List<ExchangeRate> read(Path file) throws IOException {
+        List<ExchangeRate> rates = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                ExchangeRate rate = parseLine(line);
+                if (rate != null) rates.add(rate);
+            }
+        }
+        return rates;
+    }
+
+    static ExchangeRate parseLine(String line) {
+        String value = line.startsWith("\uFEFF") ? line.substring(1) : line;
+        if (value.isBlank() || value.startsWith("#")) return null;
+
+        String[] fields = value.split("[,;\t]");
+        if (fields.length < 3) return null;
+
+        LocalDate date = StatementDates.parse(fields[0]);
+        String currency = fields[1].trim().toUpperCase(Locale.ROOT);
+        Double rate = StatementDates.parseAmount(fields[2], false);
+        if (date == null || currency.isEmpty() || rate == null || rate <= 0) return null;
+
+        return new ExchangeRate(currency, date, rate);
+    }
+}
@@ -0,0 +1,32 @@
+package org.ydanilenko.budgettracker.io;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+public enum ExportFormat {
+    CSV(".csv"),
+    COLUMNAR(".btc");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static ExportFormat fromFile(Path file) {
+        String name = stripGzip(file.getFileName().toString().toLowerCase(Locale.ROOT));
+        return name.endsWith(COLUMNAR.extension) ? COLUMNAR : CSV;
+    }
+
+    public static boolean isGzip(Path file) {
+        return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz");
+    }
+
+    private static String stripGzip(String name) {
+        return name.endsWith(".gz") ? name.substring(0, name.length() - 3) : name;
+    }
+}
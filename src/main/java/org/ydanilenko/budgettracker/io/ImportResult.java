@@ -0,0 +1,20 @@
+package org.ydanilenko.budgettracker.io;
+
+public class ImportResult {
+    private final int imported;
+    private final int invalid;
+    private final int duplicates;
+    private final boolean cancelled;
+
+    public ImportResult(int imported, int invalid, int duplicates, boolean cancelled) {
+        this.imported = imported;
+        this.invalid = invalid;
+        this.duplicates = duplicates;
+        this.cancelled = cancelled;
+    }
+
+    public int getImported() { return imported; }
+    public int getInvalid() { return invalid; }
+    public int getDuplicates() { return duplicates; }
+    public boolean isCancelled() { return cancelled; }
+}
@@ -0,0 +1,274 @@
+package org.ydanilenko.budgettracker.io;
+
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.util.ConnectionPool;
+import org.ydanilenko.budgettracker.util.CurrencyConverter;
+import org.ydanilenko.budgettracker.util.DatabaseConnection;
+import org.ydanilenko.budgettracker.util.EpochDays;
+import org.ydanilenko.budgettracker.util.LedgerArchive;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+public class LedgerReport {
+    public enum Kind {
+        TOTALS, CATEGORIES, PAYMENT_TYPES, MONTHLY, STATS;
+
+        static Kind parse(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    public enum Format {
+        TEXT, CSV, JSON
+    }
+
+    private static final String[] TYPE_NAMES = {"expense", "income"};
+    private static final Pattern NUMBER = Pattern.compile("-?\\d+(\\.\\d+)?");
+
+    private final TransactionDAO dao;
+    private final Format format;
+    private String[] jsonKeys;
+    private boolean firstRow;
+
+    public LedgerReport(TransactionDAO dao, Format format) {
+        this.dao = dao;
+        this.format = format;
+    }
+
+    public long write(Kind kind, int typeId, LocalDate start, LocalDate end, Writer out) throws IOException {
+        jsonKeys = null;
+        firstRow = true;
+        if (format == Format.JSON) out.write('[');
+        long rows = writeRows(kind, typeId, start, end, out);
+        if (format == Format.JSON) out.write("]\n");
+        return rows;
+    }
+
+    private long writeRows(Kind kind, int typeId, LocalDate start, LocalDate end, Writer out) throws IOException {
+        try {
+            return switch (kind) {
+                case TOTALS -> writeTotals(typeId, start, end, out);
+                case CATEGORIES -> writeBreakdown("Category", Transaction::getCategoryName, typeId, start, end, out);
+                case PAYMENT_TYPES -> writeBreakdown("Payment Type", Transaction::getPaymentType, typeId, start, end, out);
+                case MONTHLY -> writeMonthly(typeId, start, end, out);
+                case STATS -> writeStats(out);
+            };
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long writeTotals(int typeId, LocalDate start, LocalDate end, Writer out) throws IOException {
+        double[] amounts = new double[2];
+        long[] counts = new long[2];
+        long rows = forEach(typeId, start, end, (t, amount) -> {
+            amounts[t.getTypeId()] += amount;
+            counts[t.getTypeId()]++;
+        });
+
+        row(out, "Type", "Amount", "Count");
+        for (int type = 1; type >= 0; type--) {
+            if (typeId < 0 || typeId == type) {
+                row(out, TYPE_NAMES[type], amount(amounts[type]), Long.toString(counts[type]));
+            }
+        }
+        if (typeId < 0) {
+            row(out, "net", amount(amounts[1] - amounts[0]), Long.toString(rows));
+        }
+        return rows;
+    }
+
+    private long writeBreakdown(String label, Function<Transaction, String> key,
+                                int typeId, LocalDate start, LocalDate end, Writer out) throws IOException {
+        List<Map<String, double[]>> totals = List.of(new HashMap<>(), new HashMap<>());
+        long rows = forEach(typeId, start, end, (t, amount) -> {
+            double[] total = totals.get(t.getTypeId()).computeIfAbsent(key.apply(t), k -> new double[2]);
+            total[0] += amount;
+            total[1]++;
+        });
+
+        row(out, "Type", label, "Amount", "Count");
+        for (int type = 1; type >= 0; type--) {
+            List<Map.Entry<String, double[]>> entries = new ArrayList<>(totals.get(type).entrySet());
+            entries.sort((a, b) -> Double.compare(b.getValue()[0], a.getValue()[0]));
+            for (Map.Entry<String, double[]> entry : entries) {
+                row(out, TYPE_NAMES[type], entry.getKey(), amount(entry.getValue()[0]),
+                        Long.toString((long) entry.getValue()[1]));
+            }
+        }
+        return rows;
+    }
+
+    private long writeMonthly(int typeId, LocalDate start, LocalDate end, Writer out) throws IOException {
+        String[] month = new String[1];
+        double[] amounts = new double[2];
+
+        row(out, "Month", "Income", "Expense", "Net");
+        // Rows arrive ordered by date, so each month is written as soon as the next one starts.
+        long rows = forEach(typeId, start, end, (t, amount) -> {
+            String current = t.getDate().substring(0, 7);
+            if (!current.equals(month[0])) {
+                if (month[0] != null) writeMonth(out, month[0], amounts);
+                month[0] = current;
+                amounts[0] = 0;
+                amounts[1] = 0;
+            }
+            amounts[t.getTypeId()] += amount;
+        });
+        if (month[0] != null) writeMonth(out, month[0], amounts);
+        return rows;
+    }
+
+    private void writeMonth(Writer out, String month, double[] amounts) {
+        try {
+            row(out, month, amount(amounts[1]), amount(amounts[0]), amount(amounts[1] - amounts[0]));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long writeStats(Writer out) throws IOException {
+        row(out, "Statistic", "Value");
+        row(out, "Total Income", amount(dao.getTotalIncome()));
+        row(out, "Total Expense", amount(dao.getTotalExpense()));
+        row(out, "Total Transactions", Integer.toString(dao.getTotalTransactions()));
+        row(out, "Max Transaction", amount(dao.getMaxTransactionAmount()));
+        row(out, "Top Category", dao.getMostUsedCategory());
+        row(out, "Top Beneficiary", dao.getTopBeneficiary());
+        return 6;
+    }
+
+    private interface AmountConsumer {
+        void accept(Transaction transaction, double baseAmount);
+    }
+
+    private long forEach(int typeId, LocalDate start, LocalDate end, AmountConsumer consumer) throws IOException {
+        CurrencyConverter.Lookup rates = dao.getCurrencyConverter().lookup();
+        long rows = dao.forEachTransaction(typeId, start, end, t -> {
+            double amount = t.getAmount();
+            if (t.getCurrency() != null) {
+                long day = EpochDays.parse(t.getDate());
+                if (day != EpochDays.INVALID) amount = rates.toBase(amount, t.getCurrency(), day);
+            }
+            if (t.getTypeId() == 0 || t.getTypeId() == 1) consumer.accept(t, amount);
+        });
+        if (rows < 0) throw new IOException("Could not read the transactions for the report");
+        return rows;
+    }
+
+    private void row(Writer out, String... values) throws IOException {
+        if (format == Format.JSON) {
+            jsonRow(out, values);
+            return;
+        }
+        for (int i = 0; i < values.length; i++) {
+            String value = values[i] == null ? "" : values[i];
+            if (format == Format.CSV) {
+                if (i > 0) out.write(',');
+                out.write(value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                        ? '"' + value.replace("\"", "\"\"") + '"'
+                        : value);
+            } else if (i == 0) {
+                out.write(String.format("%-24s", value));
+            } else {
+                out.write(String.format("%16s", value));
+            }
+        }
+        out.write('\n');
+    }
+
+    private void jsonRow(Writer out, String[] values) throws IOException {
+        if (jsonKeys == null) {
+            jsonKeys = new String[values.length];
+            for (int i = 0; i < values.length; i++) {
+                String key = values[i].replace(" ", "");
+                jsonKeys[i] = Character.toLowerCase(key.charAt(0)) + key.substring(1);
+            }
+            return;
+        }
+
+        if (!firstRow) out.write(',');
+        firstRow = false;
+        JsonWriter json = new JsonWriter(out);
+        json.beginObject();
+        for (int i = 0; i < values.length; i++) {
+            json.name(jsonKeys[i]);
+            if (values[i] != null && NUMBER.matcher(values[i]).matches()) {
+                json.value(Double.parseDouble(values[i]));
+            } else {
+                json.value(values[i]);
+            }
+        }
+        json.endObject();
+    }
+
+    private static String amount(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    public static int run(String[] args, PrintStream stdout, PrintStream stderr) {
+        String url = null;
+        Kind kind = null;
+        int typeId = TransactionExporter.ALL_TYPES;
+        LocalDate start = null;
+        LocalDate end = null;
+        Path target = null;
+        Format format = Format.TEXT;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--db" -> url = args[++i];
+                    case "--type" -> typeId = TransactionExporter.parseType(args[++i]);
+                    case "--from" -> start = LocalDate.parse(args[++i]);
+                    case "--to" -> end = LocalDate.parse(args[++i]);
+                    case "--out" -> target = Path.of(args[++i]);
+                    case "--csv" -> format = Format.CSV;
+                    case "--json" -> format = Format.JSON;
+                    default -> kind = Kind.parse(args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            kind = null;
+        }
+
+        if (kind == null) {
+            stderr.println("Usage: report <totals|categories|payment-types|monthly|stats> [--db jdbc-url] "
+                    + "[--type expense|income|all] [--from yyyy-MM-dd] [--to yyyy-MM-dd] [--csv|--json] [--out file]");
+            return 2;
+        }
+
+        try (ConnectionPool pool = url == null ? DatabaseConnection.createPool() : DatabaseConnection.createPool(url);
+             LedgerArchive archive = LedgerArchive.canArchive(pool) ? new LedgerArchive(pool) : null) {
+            TransactionDAO dao = new TransactionDAO(pool);
+            dao.setArchive(archive);
+            LedgerReport report = new LedgerReport(dao, format);
+            try (Writer out = target == null
+                    ? new BufferedWriter(new OutputStreamWriter(TransactionExporter.unclosable(stdout), StandardCharsets.UTF_8))
+                    : Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+                report.write(kind, typeId, start, end, out);
+            }
+            return 0;
+        } catch (IOException | RuntimeException e) {
+            stderr.println("Report failed: " + e.getMessage());
+            return 1;
+        }
+    }
+}
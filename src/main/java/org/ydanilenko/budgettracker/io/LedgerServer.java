@@ -0,0 +1,534 @@
+package org.ydanilenko.budgettracker.io;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.util.ConnectionPool;
+import org.ydanilenko.budgettracker.util.DatabaseConnection;
+import org.ydanilenko.budgettracker.util.LedgerArchive;
+import org.ydanilenko.budgettracker.util.Metrics;
+import org.ydanilenko.budgettracker.util.MetricsSnapshot;
+import org.ydanilenko.budgettracker.util.NameSuggestionIndex;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LedgerServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 8086;
+    public static final int DEFAULT_PAGE = 100;
+    public static final int MAX_PAGE = 1000;
+    private static final int MAX_BODY = 64 * 1024;
+    private static final int MAX_SYNC_BODY = 32 * 1024 * 1024;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final TransactionDAO dao;
+    private final String token;
+
+    private LedgerServer(TransactionDAO dao, InetSocketAddress address, String token) throws IOException {
+        this.dao = dao;
+        this.token = token;
+        this.executor = newExecutor();
+        this.server = HttpServer.create(address, 256);
+        server.createContext("/api/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    public static LedgerServer start(TransactionDAO dao, InetSocketAddress address, String token) throws IOException {
+        LedgerServer ledgerServer = new LedgerServer(dao, address, token);
+        ledgerServer.server.start();
+        return ledgerServer;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // Before Java 21 there are no virtual threads, so requests share a bounded pool instead.
+            AtomicInteger count = new AtomicInteger();
+            ThreadFactory factory = runnable -> {
+                Thread thread = new Thread(runnable, "ledger-http-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            return Executors.newFixedThreadPool(Math.max(8, Runtime.getRuntime().availableProcessors() * 4), factory);
+        }
+    }
+
+    private static class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().substring("/api/".length()).split("/");
+        String route = route(path);
+        String verb = switch (method) {
+            case "GET", "POST", "PUT", "DELETE" -> method;
+            default -> "OTHER";
+        };
+        Metrics.Sample sample = Metrics.start("http." + verb + " " + route);
+        try {
+            if (token != null && !("Bearer " + token).equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                throw new HttpError(401, "Missing or invalid token");
+            }
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            dispatch(exchange, method, path, query);
+        } catch (HttpError e) {
+            sendError(exchange, e.status, e.getMessage());
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (IOException e) {
+            sample.failed();
+        } catch (RuntimeException e) {
+            sample.failed();
+            e.printStackTrace();
+            sendError(exchange, 500, "Internal error");
+        } finally {
+            exchange.close();
+            sample.stop();
+        }
+    }
+
+    // Timer names come from route templates, never raw paths, so clients cannot grow the registry.
+    private static String route(String[] path) {
+        return switch (path[0]) {
+            case "transactions" -> path.length == 1 ? "/api/transactions" : "/api/transactions/{id}";
+            case "reports", "suggestions", "sync" -> "/api/" + path[0] + "/{name}";
+            case "categories", "payment-types", "metrics" -> "/api/" + path[0];
+            default -> "/api/*";
+        };
+    }
+
+    private void dispatch(HttpExchange exchange, String method, String[] path, Map<String, String> query) throws IOException {
+        switch (path[0]) {
+            case "transactions" -> {
+                if (path.length == 1 && method.equals("GET")) listTransactions(exchange, query);
+                else if (path.length == 1 && method.equals("POST")) createTransaction(exchange);
+                else if (path.length == 2) transaction(exchange, method, parseId(path[1]));
+                else throw new HttpError(405, "Method not allowed");
+            }
+            case "reports" -> {
+                requireGet(method);
+                if (path.length != 2) throw new HttpError(404, "Unknown report");
+                report(exchange, LedgerReport.Kind.parse(path[1]), query);
+            }
+            case "suggestions" -> {
+                requireGet(method);
+                if (path.length != 2) throw new HttpError(404, "Unknown suggestion list");
+                suggestions(exchange, path[1], query);
+            }
+            case "categories" -> {
+                requireGet(method);
+                sendList(exchange, dao.getAllCategories());
+            }
+            case "payment-types" -> {
+                requireGet(method);
+                sendList(exchange, dao.getAllPaymentTypes());
+            }
+            case "metrics" -> {
+                requireGet(method);
+                sendMetrics(exchange);
+            }
+            case "sync" -> {
+                if (!method.equals("POST")) throw new HttpError(405, "Method not allowed");
+                if (path.length != 2) throw new HttpError(404, "Unknown sync action");
+                sync(exchange, path[1]);
+            }
+            default -> throw new HttpError(404, "Not found");
+        }
+    }
+
+    private static void requireGet(String method) {
+        if (!method.equals("GET")) throw new HttpError(405, "Method not allowed");
+    }
+
+    private void listTransactions(HttpExchange exchange, Map<String, String> query) throws IOException {
+        int typeId = query.containsKey("type") ? TransactionExporter.parseType(query.get("type")) : TransactionExporter.ALL_TYPES;
+        LocalDate from = query.containsKey("from") ? LocalDate.parse(query.get("from")) : null;
+        LocalDate to = query.containsKey("to") ? LocalDate.parse(query.get("to")) : null;
+        String category = query.get("category");
+        String text = query.get("q");
+        int offset = Math.max(0, intParam(query, "offset", 0));
+        int limit = Math.min(MAX_PAGE, Math.max(1, intParam(query, "limit", DEFAULT_PAGE)));
+
+        // The page is read first and streamed to the client afterwards, so a slow reader never holds a connection.
+        List<Transaction> page = text == null
+                ? dao.listTransactions(typeId, from, to, category, offset, limit)
+                : dao.searchTransactions(text, typeId, from, to, category, offset, limit);
+
+        try (JsonWriter json = openJson(exchange, 200)) {
+            json.beginObject();
+            json.name("offset").value(offset);
+            json.name("limit").value(limit);
+            json.name("transactions").beginArray();
+            for (Transaction transaction : page) {
+                writeTransaction(json, transaction);
+            }
+            json.endArray();
+            json.endObject();
+        }
+    }
+
+    private void transaction(HttpExchange exchange, String method, int id) throws IOException {
+        switch (method) {
+            case "GET" -> {
+                Transaction transaction = dao.getTransactionById(id);
+                if (transaction == null) throw new HttpError(404, "Transaction " + id + " not found");
+                sendTransaction(exchange, 200, transaction);
+            }
+            case "PUT" -> {
+                Map<String, Object> body = readBody(exchange);
+                Transaction[] previous = new Transaction[1];
+                Transaction updated = dao.inTransaction(() -> {
+                    previous[0] = dao.getTransactionById(id);
+                    if (previous[0] == null) throw new HttpError(404, "Transaction " + id + " not found");
+                    Transaction transaction = toTransaction(body);
+                    transaction.setId(id);
+                    if (!dao.updateTransaction(transaction)) throw new IllegalStateException("Update failed");
+                    return dao.getTransactionById(id);
+                });
+                recordUse(previous[0], updated);
+                sendTransaction(exchange, 200, updated);
+            }
+            case "DELETE" -> {
+                boolean deleted = dao.deleteTransaction(id);
+                if (!deleted) throw new HttpError(404, "Transaction " + id + " not found");
+                exchange.sendResponseHeaders(204, -1);
+            }
+            default -> throw new HttpError(405, "Method not allowed");
+        }
+    }
+
+    private void createTransaction(HttpExchange exchange) throws IOException {
+        Map<String, Object> body = readBody(exchange);
+        // Places and beneficiaries created for the request are rolled back with it if the insert fails.
+        Transaction created = dao.inTransaction(() -> {
+            Transaction transaction = toTransaction(body);
+            if (!dao.addTransaction(transaction)) throw new IllegalStateException("Insert failed");
+            return dao.getTransactionById(transaction.getId());
+        });
+        recordUse(null, created);
+        sendTransaction(exchange, 201, created);
+    }
+
+    private Transaction toTransaction(Map<String, Object> body) {
+        LocalDate date = LocalDate.parse(requiredString(body, "date"));
+        if (!(body.get("amount") instanceof Double amount) || amount.isNaN() || amount.isInfinite()) {
+            throw new IllegalArgumentException("amount must be a number");
+        }
+        int typeId = body.get("type") == null ? 0 : TransactionExporter.parseType(string(body, "type"));
+        if (typeId < 0) throw new IllegalArgumentException("type must be expense or income");
+
+        int categoryId = dao.getCategoryIdByName(requiredString(body, "category"));
+        if (categoryId == -1) throw new IllegalArgumentException("Unknown category: " + body.get("category"));
+        int paymentTypeId = dao.getPaymentTypeIdByName(requiredString(body, "paymentType"));
+        if (paymentTypeId == -1) throw new IllegalArgumentException("Unknown payment type: " + body.get("paymentType"));
+
+        String place = string(body, "place");
+        String beneficiary = string(body, "beneficiary");
+        int placeId = place == null ? 0 : placeId(place);
+        int beneficiaryId = beneficiary == null ? 0 : beneficiaryId(beneficiary);
+
+        Transaction transaction = new Transaction(amount, date.toString(), categoryId, paymentTypeId,
+                string(body, "comment"), placeId, beneficiaryId, typeId);
+        transaction.setCurrency(string(body, "currency"));
+        return transaction;
+    }
+
+    // Only names the write newly attaches count as a use, so re-sending an unchanged row does not raise their rank.
+    private void recordUse(Transaction before, Transaction after) {
+        boolean placeChanged = before == null || before.getPlaceId() != after.getPlaceId();
+        boolean beneficiaryChanged = before == null || before.getBeneficiaryId() != after.getBeneficiaryId();
+        dao.recordNameUse(placeChanged ? after.getPlaceName() : null,
+                beneficiaryChanged ? after.getBeneficiaryName() : null, after.getDate());
+    }
+
+    private int placeId(String name) {
+        int id = dao.getPlaceIdByName(name);
+        if (id == -1) {
+            dao.addPlace(name);
+            id = dao.getPlaceIdByName(name);
+        }
+        return id;
+    }
+
+    private int beneficiaryId(String name) {
+        int id = dao.getBeneficiaryIdByName(name);
+        if (id == -1) {
+            dao.addBeneficiary(name);
+            id = dao.getBeneficiaryIdByName(name);
+        }
+        return id;
+    }
+
+    private void report(HttpExchange exchange, LedgerReport.Kind kind, Map<String, String> query) throws IOException {
+        int typeId = query.containsKey("type") ? TransactionExporter.parseType(query.get("type")) : TransactionExporter.ALL_TYPES;
+        LocalDate from = query.containsKey("from") ? LocalDate.parse(query.get("from")) : null;
+        LocalDate to = query.containsKey("to") ? LocalDate.parse(query.get("to")) : null;
+
+        // Aggregates are small, so they are built in memory and sent once the DAO is done with them.
+        StringWriter buffer = new StringWriter();
+        new LedgerReport(dao, LedgerReport.Format.JSON).write(kind, typeId, from, to, buffer);
+        try (Writer out = openWriter(exchange, 200)) {
+            out.write(buffer.toString());
+        }
+    }
+
+    private void suggestions(HttpExchange exchange, String list, Map<String, String> query) throws IOException {
+        int limit = Math.min(MAX_PAGE, Math.max(1, intParam(query, "limit", NameSuggestionIndex.DEFAULT_LIMIT)));
+        NameSuggestionIndex index = switch (list) {
+            case "places" -> dao.getPlaceSuggestions();
+            case "beneficiaries" -> dao.getBeneficiarySuggestions();
+            default -> throw new HttpError(404, "Unknown suggestion list: " + list);
+        };
+        List<String> names = index.suggest(query.get("q"), limit);
+        sendList(exchange, names);
+    }
+
+    private void sync(HttpExchange exchange, String action) throws IOException {
+        byte[] body;
+        try (InputStream input = exchange.getRequestBody()) {
+            body = input.readNBytes(MAX_SYNC_BODY + 1);
+        }
+        if (body.length > MAX_SYNC_BODY) throw new HttpError(413, "Sync batch too large");
+
+        LedgerSync sync = new LedgerSync(dao);
+        switch (action) {
+            case "pull" -> {
+                byte[] batch;
+                try {
+                    batch = sync.answerPull(body);
+                } catch (IOException e) {
+                    throw new HttpError(400, e.getMessage());
+                }
+                exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+                exchange.sendResponseHeaders(200, batch.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(batch);
+                }
+            }
+            case "push" -> {
+                int applied;
+                try {
+                    applied = sync.acceptPush(body);
+                } catch (IOException e) {
+                    throw new HttpError(400, e.getMessage());
+                }
+                if (applied < 0) throw new IllegalStateException("Could not apply sync batch");
+                try (JsonWriter json = openJson(exchange, 200)) {
+                    json.beginObject().name("applied").value(applied).endObject();
+                }
+            }
+            default -> throw new HttpError(404, "Unknown sync action: " + action);
+        }
+    }
+
+    private void sendMetrics(HttpExchange exchange) throws IOException {
+        try (JsonWriter json = openJson(exchange, 200)) {
+            json.beginArray();
+            for (MetricsSnapshot snapshot : Metrics.snapshot()) {
+                json.beginObject();
+                json.name("name").value(snapshot.getName());
+                json.name("calls").value(snapshot.getCalls());
+                json.name("errors").value(snapshot.getErrors());
+                json.name("meanMillis").value(snapshot.getMeanMillis());
+                json.name("p50Millis").value(snapshot.getP50Millis());
+                json.name("p90Millis").value(snapshot.getP90Millis());
+                json.name("p99Millis").value(snapshot.getP99Millis());
+                json.name("maxMillis").value(snapshot.getMaxMillis());
+                json.endObject();
+            }
+            json.endArray();
+        }
+    }
+
+    private static void writeTransaction(JsonWriter json, Transaction transaction) throws IOException {
+        json.beginObject();
+        json.name("id").value(transaction.getId());
+        json.name("date").value(transaction.getDate());
+        json.name("amount").value(transaction.getAmount());
+        json.name("type").value(transaction.getTypeId() == 1 ? "income" : "expense");
+        json.field("category", transaction.getCategoryName());
+        json.field("paymentType", transaction.getPaymentType());
+        json.field("place", transaction.getPlaceName());
+        json.field("beneficiary", transaction.getBeneficiaryName());
+        json.field("comment", transaction.getComment());
+        json.field("currency", transaction.getCurrency());
+        json.endObject();
+    }
+
+    // Single rows are read with only their own currency, so the payment type's is filled in as the listings do.
+    private void sendTransaction(HttpExchange exchange, int status, Transaction transaction) throws IOException {
+        transaction.setCurrency(dao.getEffectiveCurrency(transaction));
+        try (JsonWriter json = openJson(exchange, status)) {
+            writeTransaction(json, transaction);
+        }
+    }
+
+    private static void sendList(HttpExchange exchange, List<String> values) throws IOException {
+        try (JsonWriter json = openJson(exchange, 200)) {
+            json.beginArray();
+            for (String value : values) {
+                json.value(value);
+            }
+            json.endArray();
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        try (JsonWriter json = openJson(exchange, status)) {
+            json.beginObject().name("error").value(message == null ? "Bad request" : message).endObject();
+        } catch (IOException e) {
+            // The client went away or the response was already started; nothing left to tell it.
+        }
+    }
+
+    private static JsonWriter openJson(HttpExchange exchange, int status) throws IOException {
+        return new JsonWriter(openWriter(exchange, status));
+    }
+
+    private static Writer openWriter(HttpExchange exchange, int status) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, 0);
+        return new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 1 << 13);
+    }
+
+    private static Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        try (InputStream input = exchange.getRequestBody()) {
+            byte[] body = input.readNBytes(MAX_BODY + 1);
+            if (body.length > MAX_BODY) throw new HttpError(413, "Request body too large");
+            return JsonReader.parseObject(new String(body, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String string(Map<String, Object> body, String name) {
+        Object value = body.get(name);
+        if (value == null) return null;
+        if (!(value instanceof String text)) throw new IllegalArgumentException(name + " must be a string");
+        return text.isBlank() ? null : text.trim();
+    }
+
+    private static String requiredString(Map<String, Object> body, String name) {
+        String value = string(body, name);
+        if (value == null) throw new IllegalArgumentException(name + " is required");
+        return value;
+    }
+
+    private static int parseId(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new HttpError(404, "Not found");
+        }
+    }
+
+    private static int intParam(Map<String, String> query, String name, int defaultValue) {
+        String value = query.get(name);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return params;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            if (!value.isEmpty()) params.put(name, value);
+        }
+        return params;
+    }
+
+    public static void main(String[] args) {
+        String url = null;
+        String host = "127.0.0.1";
+        int port = DEFAULT_PORT;
+        String token = System.getenv("BUDGET_TRACKER_TOKEN");
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--db" -> url = args[++i];
+                    case "--bind" -> host = args[++i];
+                    case "--port" -> port = Integer.parseInt(args[++i]);
+                    default -> throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Usage: serve [--db jdbc-url] [--bind address] [--port n]");
+            System.err.println("Set BUDGET_TRACKER_TOKEN to require 'Authorization: Bearer <token>'.");
+            System.exit(2);
+        }
+
+        // Pooled connections wait for the desktop app's write transactions instead of failing with SQLITE_BUSY.
+        ConnectionPool pool = url == null ? DatabaseConnection.createPool() : DatabaseConnection.createPool(url);
+
+        InetSocketAddress address = new InetSocketAddress(host, port);
+        if (token == null && !address.getAddress().isLoopbackAddress()) {
+            System.err.println("Warning: serving on " + host + " without BUDGET_TRACKER_TOKEN; anyone on the network can edit the ledger.");
+        }
+
+        LedgerArchive archive = LedgerArchive.canArchive(pool) ? new LedgerArchive(pool) : null;
+        try {
+            TransactionDAO dao = new TransactionDAO(pool);
+            dao.setArchive(archive);
+            LedgerServer server = start(dao, address, token);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.close();
+                if (archive != null) archive.close();
+                pool.close();
+            }));
+            System.out.println("Serving ledger API on http://" + host + ":" + server.getPort() + "/api/");
+        } catch (IOException e) {
+            System.err.println("Could not start server: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package org.ydanilenko.budgettracker.io;
+
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.util.ConnectionPool;
+import org.ydanilenko.budgettracker.util.DatabaseConnection;
+import org.ydanilenko.budgettracker.util.DatabaseSchema;
+import org.ydanilenko.budgettracker.util.LedgerArchive;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+// Two-way delta sync. A pull sends this replica's version vector and gets back the peer's vector plus every change
+// it has that this replica has not seen; a push then sends back the local changes the peer's vector is missing.
+// Conflicts are settled per row by SyncChange.supersedes, the same way on both sides.
+public class LedgerSync {
+    public interface Peer {
+        byte[] pull(byte[] request) throws IOException;
+
+        int push(byte[] batch) throws IOException;
+    }
+
+    private final TransactionDAO dao;
+
+    public LedgerSync(TransactionDAO dao) {
+        this.dao = dao;
+    }
+
+    public SyncResult sync(Peer peer) throws IOException {
+        byte[] request = new SyncBatch(dao.getSyncVector(), List.of()).encode();
+        byte[] response = peer.pull(request);
+        SyncBatch pulled = SyncBatch.decode(response);
+        int applied = dao.applyChanges(pulled.getVector(), pulled.getChanges());
+        if (applied < 0) throw new IOException("Could not apply changes from peer.");
+
+        SyncBatch outgoing = answer(pulled.getVector());
+        int pushed = outgoing.getChanges().size();
+        long sent = request.length;
+        if (pushed > 0) {
+            byte[] batch = outgoing.encode();
+            if (peer.push(batch) < 0) throw new IOException("Peer could not apply changes.");
+            sent += batch.length;
+        }
+        return new SyncResult(pulled.getChanges().size(), applied, pushed, response.length, sent);
+    }
+
+    public byte[] answerPull(byte[] request) throws IOException {
+        return answer(SyncBatch.decode(request).getVector()).encode();
+    }
+
+    public int acceptPush(byte[] batch) throws IOException {
+        SyncBatch pushed = SyncBatch.decode(batch);
+        return dao.applyChanges(pushed.getVector(), pushed.getChanges());
+    }
+
+    private SyncBatch answer(Map<String, Long> since) {
+        // The vector is read before the changes: a write landing in between is then sent without being claimed
+        // as seen, never claimed without being sent.
+        Map<String, Long> vector = dao.getSyncVector();
+        return new SyncBatch(vector, dao.getChangesSince(since));
+    }
+
+    public static Peer local(TransactionDAO peerDao) {
+        LedgerSync peer = new LedgerSync(peerDao);
+        return new Peer() {
+            @Override
+            public byte[] pull(byte[] request) throws IOException {
+                return peer.answerPull(request);
+            }
+
+            @Override
+            public int push(byte[] batch) throws IOException {
+                return peer.acceptPush(batch);
+            }
+        };
+    }
+
+    // Talks to LedgerServer's /api/sync/pull and /api/sync/push.
+    public static Peer http(URI base, String token) {
+        HttpClient client = HttpClient.newHttpClient();
+        return new Peer() {
+            @Override
+            public byte[] pull(byte[] request) throws IOException {
+                return post("pull", request);
+            }
+
+            @Override
+            public int push(byte[] batch) throws IOException {
+                Object applied = JsonReader.parseObject(new String(post("push", batch), StandardCharsets.UTF_8)).get("applied");
+                return applied instanceof Double count ? count.intValue() : -1;
+            }
+
+            private byte[] post(String action, byte[] body) throws IOException {
+                HttpRequest.Builder request = HttpRequest.newBuilder(base.resolve("/api/sync/" + action))
+                        .header("Content-Type", "application/octet-stream")
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+                if (token != null) request.header("Authorization", "Bearer " + token);
+                try {
+                    HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+                    if (response.statusCode() != 200) {
+                        throw new IOException("Sync " + action + " failed with HTTP " + response.statusCode());
+                    }
+                    return response.body();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Sync interrupted", e);
+                }
+            }
+        };
+    }
+
+    public static int run(String[] args, PrintStream stdout, PrintStream stderr) {
+        String url = null;
+        String target = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--db")) url = args[++i];
+                else if (target == null && !args[i].startsWith("--")) target = args[i];
+                else throw new IllegalArgumentException(args[i]);
+            }
+        } catch (RuntimeException e) {
+            target = null;
+        }
+
+        if (target == null) {
+            stderr.println("Usage: sync [--db jdbc-url] <http://host:port | jdbc-url | ledger.db>");
+            stderr.println("Set BUDGET_TRACKER_TOKEN when the peer server requires one.");
+            return 2;
+        }
+
+        boolean remote = target.startsWith("http://") || target.startsWith("https://");
+        String peerUrl = target.startsWith("jdbc:") ? target : "jdbc:sqlite:" + target;
+        try (ConnectionPool pool = url == null ? DatabaseConnection.createPool() : DatabaseConnection.createPool(url);
+             ConnectionPool peerPool = remote ? null : DatabaseConnection.createPool(peerUrl);
+             LedgerArchive archive = LedgerArchive.canArchive(pool) ? new LedgerArchive(pool) : null;
+             LedgerArchive peerArchive = peerPool != null && LedgerArchive.canArchive(peerPool) ? new LedgerArchive(peerPool) : null) {
+            initialize(pool);
+            Peer peer;
+            if (remote) {
+                peer = http(URI.create(target), System.getenv("BUDGET_TRACKER_TOKEN"));
+            } else {
+                initialize(peerPool);
+                TransactionDAO peerDao = new TransactionDAO(peerPool);
+                peerDao.setArchive(peerArchive);
+                peer = local(peerDao);
+            }
+
+            TransactionDAO dao = new TransactionDAO(pool);
+            dao.setArchive(archive);
+            SyncResult result = new LedgerSync(dao).sync(peer);
+            stdout.printf("Pulled %d changes (%d applied), pushed %d; %d bytes received, %d bytes sent.%n",
+                    result.getPulled(), result.getApplied(), result.getPushed(),
+                    result.getBytesReceived(), result.getBytesSent());
+            return 0;
+        } catch (IOException | RuntimeException e) {
+            stderr.println("Sync failed: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private static void initialize(ConnectionPool pool) {
+        pool.write(connection -> {
+            DatabaseSchema.initialize(connection);
+            return null;
+        });
+    }
+}
@@ -0,0 +1,58 @@
+package org.ydanilenko.budgettracker.io;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public class OfxStatementParser {
+
+    public static int parse(BufferedReader reader, Consumer<StatementRow> sink) throws IOException {
+        int invalid = 0;
+        Map<String, String> fields = null;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            for (String segment : line.split("<")) {
+                int close = segment.indexOf('>');
+                if (close < 0) continue;
+
+                String tag = segment.substring(0, close).trim().toUpperCase(Locale.ROOT);
+                String value = segment.substring(close + 1).trim();
+
+                if (tag.equals("STMTTRN")) {
+                    fields = new HashMap<>();
+                } else if (tag.equals("/STMTTRN")) {
+                    if (fields != null) {
+                        StatementRow row = toRow(fields);
+                        if (row != null) {
+                            sink.accept(row);
+                        } else {
+                            invalid++;
+                        }
+                    }
+                    fields = null;
+                } else if (fields != null && !tag.startsWith("/") && !value.isEmpty()) {
+                    fields.put(tag, unescape(value));
+                }
+            }
+        }
+        return invalid;
+    }
+
+    private static StatementRow toRow(Map<String, String> fields) {
+        LocalDate date = StatementDates.parse(fields.get("DTPOSTED"));
+        Double amount = StatementDates.parseAmount(fields.get("TRNAMT"), false);
+        if (date == null || amount == null) return null;
+
+        String payee = fields.getOrDefault("NAME", fields.get("PAYEE"));
+        return StatementRow.fromSignedAmount(date, amount, payee, fields.get("MEMO"));
+    }
+
+    private static String unescape(String value) {
+        return value.replace("&lt;", "<").replace("&gt;", ">").replace("&amp;", "&");
+    }
+}
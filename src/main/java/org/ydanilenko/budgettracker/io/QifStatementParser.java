@@ -0,0 +1,55 @@
+package org.ydanilenko.budgettracker.io;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+public class QifStatementParser {
+
+    public static int parse(BufferedReader reader, Consumer<StatementRow> sink) throws IOException {
+        int invalid = 0;
+        String date = null;
+        String amount = null;
+        String payee = null;
+        String memo = null;
+        String category = null;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty() || line.startsWith("!")) continue;
+
+            char code = line.charAt(0);
+            String value = line.substring(1).trim();
+            switch (code) {
+                case 'D' -> date = value.replace(" ", "");
+                case 'T', 'U' -> amount = value;
+                case 'P' -> payee = value;
+                case 'M' -> memo = value;
+                case 'L' -> category = value.startsWith("[") ? null : value;
+                case '^' -> {
+                    if (date != null || amount != null) {
+                        StatementRow row = toRow(date, amount, payee, memo, category);
+                        if (row != null) {
+                            sink.accept(row);
+                        } else {
+                            invalid++;
+                        }
+                    }
+                    date = amount = payee = memo = category = null;
+                }
+                default -> {
+                }
+            }
+        }
+        return invalid;
+    }
+
+    private static StatementRow toRow(String dateText, String amountText, String payee, String memo, String category) {
+        LocalDate date = StatementDates.parse(dateText);
+        Double amount = StatementDates.parseAmount(amountText, false);
+        if (date == null || amount == null) return null;
+
+        return new StatementRow(date, Math.abs(amount), amount < 0 ? 0 : 1, category, null, payee, payee, memo);
+    }
+}
@@ -0,0 +1,46 @@
+package org.ydanilenko.budgettracker.io;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+class StatementDates {
+    private static final DateTimeFormatter[] FORMATS = {
+            DateTimeFormatter.ofPattern("yyyy-M-d"),
+            DateTimeFormatter.ofPattern("d.M.yyyy"),
+            DateTimeFormatter.ofPattern("M/d/yyyy"),
+            DateTimeFormatter.ofPattern("M/d/yy"),
+            DateTimeFormatter.ofPattern("M/d''yy"),
+            DateTimeFormatter.ofPattern("yyyyMMdd")
+    };
+
+    static LocalDate parse(String text) {
+        if (text == null) return null;
+        String value = text.trim();
+        if (value.length() >= 8 && value.chars().limit(8).allMatch(Character::isDigit)) {
+            value = value.substring(0, 8);
+        }
+        for (DateTimeFormatter format : FORMATS) {
+            try {
+                return LocalDate.parse(value, format);
+            } catch (DateTimeParseException ignored) {
+            }
+        }
+        return null;
+    }
+
+    static Double parseAmount(String text, boolean decimalComma) {
+        if (text == null) return null;
+        String value = text.trim().replace(" ", "").replace("\u00A0", "");
+        if (decimalComma) {
+            value = value.replace(".", "").replace(',', '.');
+        } else {
+            value = value.replace(",", "");
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
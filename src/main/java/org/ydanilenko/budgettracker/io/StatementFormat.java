@@ -0,0 +1,15 @@
+package org.ydanilenko.budgettracker.io;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+public enum StatementFormat {
+    CSV, OFX, QIF;
+
+    public static StatementFormat fromFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".ofx") || name.endsWith(".qfx")) return OFX;
+        if (name.endsWith(".qif")) return QIF;
+        return CSV;
+    }
+}
@@ -0,0 +1,190 @@
+package org.ydanilenko.budgettracker.io;
+
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+public class StatementImporter {
+    public static final int CHUNK_SIZE = 20_000;
+    public static final int BATCH_SIZE = 50_000;
+
+    public interface ProgressListener {
+        void onProgress(long processedBytes, long totalBytes);
+    }
+
+    private final TransactionDAO dao;
+    private final DimensionDictionary dictionary;
+    private final int defaultCategoryId;
+    private final int defaultPaymentTypeId;
+    private final int parserThreads;
+
+    private final List<StatementRow> pending = new ArrayList<>();
+    private int imported;
+    private int invalid;
+    private int duplicates;
+
+    public StatementImporter(TransactionDAO dao, int defaultCategoryId, int defaultPaymentTypeId) {
+        this.dao = dao;
+        this.dictionary = new DimensionDictionary(dao);
+        this.defaultCategoryId = defaultCategoryId;
+        this.defaultPaymentTypeId = defaultPaymentTypeId;
+        this.parserThreads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    public ImportResult importFile(Path file, ProgressListener progress, BooleanSupplier cancelled) throws IOException {
+        imported = 0;
+        invalid = 0;
+        duplicates = 0;
+        pending.clear();
+
+        long totalBytes = Files.size(file);
+        boolean wasCancelled;
+
+        try (CountingInputStream input = new CountingInputStream(Files.newInputStream(file));
+             BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16)) {
+
+            Runnable reportProgress = () -> progress.onProgress(input.getCount(), totalBytes);
+
+            switch (StatementFormat.fromFile(file)) {
+                case OFX -> invalid += OfxStatementParser.parse(reader, row -> accept(row, reportProgress, cancelled));
+                case QIF -> invalid += QifStatementParser.parse(reader, row -> accept(row, reportProgress, cancelled));
+                default -> importCsv(reader, reportProgress, cancelled);
+            }
+
+            wasCancelled = cancelled.getAsBoolean();
+            if (!wasCancelled) {
+                flush();
+            }
+            progress.onProgress(wasCancelled ? input.getCount() : totalBytes, totalBytes);
+        }
+
+        return new ImportResult(imported, invalid, duplicates, wasCancelled);
+    }
+
+    private void importCsv(BufferedReader reader, Runnable reportProgress, BooleanSupplier cancelled) throws IOException {
+        CsvStatementParser parser = CsvStatementParser.fromHeader(reader.readLine());
+        ExecutorService pool = Executors.newFixedThreadPool(parserThreads, runnable -> {
+            Thread thread = new Thread(runnable, "statement-parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Deque<Future<List<StatementRow>>> inFlight = new ArrayDeque<>();
+        Deque<Integer> chunkSizes = new ArrayDeque<>();
+        try {
+            List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+            String line;
+            while ((line = reader.readLine()) != null && !cancelled.getAsBoolean()) {
+                if (line.isBlank()) continue;
+                chunk.add(line);
+
+                if (chunk.size() == CHUNK_SIZE) {
+                    List<String> lines = chunk;
+                    inFlight.add(pool.submit(() -> parser.parseAll(lines)));
+                    chunkSizes.add(lines.size());
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+
+                    if (inFlight.size() > parserThreads * 2) {
+                        drainOne(inFlight, chunkSizes);
+                        reportProgress.run();
+                    }
+                }
+            }
+
+            if (!chunk.isEmpty() && !cancelled.getAsBoolean()) {
+                List<String> lines = chunk;
+                inFlight.add(pool.submit(() -> parser.parseAll(lines)));
+                chunkSizes.add(lines.size());
+            }
+
+            while (!inFlight.isEmpty() && !cancelled.getAsBoolean()) {
+                drainOne(inFlight, chunkSizes);
+                reportProgress.run();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void drainOne(Deque<Future<List<StatementRow>>> inFlight, Deque<Integer> chunkSizes) throws IOException {
+        try {
+            List<StatementRow> rows = inFlight.poll().get();
+            invalid += chunkSizes.poll() - rows.size();
+            pending.addAll(rows);
+            if (pending.size() >= BATCH_SIZE) {
+                flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to parse statement", e.getCause());
+        }
+    }
+
+    private void accept(StatementRow row, Runnable reportProgress, BooleanSupplier cancelled) {
+        if (cancelled.getAsBoolean()) return;
+        pending.add(row);
+        if (pending.size() >= BATCH_SIZE) {
+            flush();
+            reportProgress.run();
+        }
+    }
+
+    private void flush() {
+        if (pending.isEmpty()) return;
+        List<Transaction> transactions = dictionary.resolve(pending, defaultCategoryId, defaultPaymentTypeId);
+        invalid += pending.size() - transactions.size();
+        int added = dao.addTransactions(transactions);
+        imported += added;
+        if (added > 0) {
+            for (Transaction transaction : transactions) {
+                if (transaction.getDuplicateOf() > 0) duplicates++;
+            }
+        }
+        pending.clear();
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+}
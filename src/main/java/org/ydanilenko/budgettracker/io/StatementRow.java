@@ -0,0 +1,40 @@
+package org.ydanilenko.budgettracker.io;
+
+import java.time.LocalDate;
+
+public class StatementRow {
+    private final LocalDate date;
+    private final double amount;
+    private final int typeId;
+    private final String categoryName;
+    private final String paymentTypeName;
+    private final String placeName;
+    private final String beneficiaryName;
+    private final String comment;
+
+    public StatementRow(LocalDate date, double amount, int typeId, String categoryName, String paymentTypeName,
+                        String placeName, String beneficiaryName, String comment) {
+        this.date = date;
+        this.amount = amount;
+        this.typeId = typeId;
+        this.categoryName = categoryName;
+        this.paymentTypeName = paymentTypeName;
+        this.placeName = placeName;
+        this.beneficiaryName = beneficiaryName;
+        this.comment = comment;
+    }
+
+    public static StatementRow fromSignedAmount(LocalDate date, double signedAmount, String payee, String memo) {
+        int typeId = signedAmount < 0 ? 0 : 1;
+        return new StatementRow(date, Math.abs(signedAmount), typeId, null, null, payee, payee, memo);
+    }
+
+    public LocalDate getDate() { return date; }
+    public double getAmount() { return amount; }
+    public int getTypeId() { return typeId; }
+    public String getCategoryName() { return categoryName; }
+    public String getPaymentTypeName() { return paymentTypeName; }
+    public String getPlaceName() { return placeName; }
+    public String getBeneficiaryName() { return beneficiaryName; }
+    public String getComment() { return comment; }
+}
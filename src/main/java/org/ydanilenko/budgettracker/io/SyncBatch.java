@@ -0,0 +1,123 @@
+package org.ydanilenko.budgettracker.io;
+
+import org.ydanilenko.budgettracker.model.SyncChange;
+import org.ydanilenko.budgettracker.model.Transaction;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Wire format for sync: the sender's version vector followed by its changes, gzip-compressed. Rows carry names
+// instead of ids, and repeated names compress well, so a year of edits is a few kilobytes.
+public class SyncBatch {
+    private static final byte[] MAGIC = {'B', 'T', 'S', 'Y', 'N'};
+    private static final byte VERSION = 1;
+    private static final int MAX_ENTRIES = 10_000_000;
+
+    private final Map<String, Long> vector;
+    private final List<SyncChange> changes;
+
+    public SyncBatch(Map<String, Long> vector, List<SyncChange> changes) {
+        this.vector = vector;
+        this.changes = changes;
+    }
+
+    public Map<String, Long> getVector() { return vector; }
+    public List<SyncChange> getChanges() { return changes; }
+
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            ColumnarFormat.writeVarInt(out, vector.size());
+            for (Map.Entry<String, Long> entry : vector.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+
+            ColumnarFormat.writeVarInt(out, changes.size());
+            for (SyncChange change : changes) {
+                out.writeUTF(change.getSyncId());
+                out.writeUTF(change.getOrigin());
+                out.writeLong(change.getClock());
+                Transaction t = change.getTransaction();
+                out.writeBoolean(t != null);
+                if (t == null) continue;
+
+                out.writeByte(t.getTypeId());
+                out.writeDouble(t.getAmount());
+                out.writeUTF(t.getDate());
+                writeNullable(out, t.getCategoryName());
+                writeNullable(out, t.getPaymentType());
+                writeNullable(out, t.getPlaceName());
+                writeNullable(out, t.getBeneficiaryName());
+                writeNullable(out, t.getComment());
+                writeNullable(out, t.getCurrency());
+                writeNullable(out, t.getOccurrenceKey());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    public static SyncBatch decode(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(data)))) {
+            if (!Arrays.equals(in.readNBytes(MAGIC.length), MAGIC) || in.readByte() != VERSION) {
+                throw new IOException("Not a sync batch.");
+            }
+            int origins = count(in);
+            Map<String, Long> vector = new HashMap<>();
+            for (int i = 0; i < origins; i++) {
+                vector.put(in.readUTF(), in.readLong());
+            }
+
+            int size = count(in);
+            List<SyncChange> changes = new ArrayList<>(Math.min(size, 1024));
+            for (int i = 0; i < size; i++) {
+                String syncId = in.readUTF();
+                String origin = in.readUTF();
+                long clock = in.readLong();
+                Transaction transaction = null;
+                if (in.readBoolean()) {
+                    int typeId = in.readByte();
+                    double amount = in.readDouble();
+                    String date = in.readUTF();
+                    String category = readNullable(in);
+                    String paymentType = readNullable(in);
+                    String place = readNullable(in);
+                    String beneficiary = readNullable(in);
+                    transaction = new Transaction(0, amount, date, category, paymentType, readNullable(in), place, beneficiary);
+                    transaction.setTypeId(typeId);
+                    transaction.setCurrency(readNullable(in));
+                    transaction.setOccurrenceKey(readNullable(in));
+                }
+                changes.add(new SyncChange(syncId, origin, clock, transaction));
+            }
+            return new SyncBatch(vector, changes);
+        }
+    }
+
+    private static int count(DataInputStream in) throws IOException {
+        int count = ColumnarFormat.readVarInt(in);
+        if (count < 0 || count > MAX_ENTRIES) throw new IOException("Sync batch is too large.");
+        return count;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,23 @@
+package org.ydanilenko.budgettracker.io;
+
+public class SyncResult {
+    private final int pulled;
+    private final int applied;
+    private final int pushed;
+    private final long bytesReceived;
+    private final long bytesSent;
+
+    public SyncResult(int pulled, int applied, int pushed, long bytesReceived, long bytesSent) {
+        this.pulled = pulled;
+        this.applied = applied;
+        this.pushed = pushed;
+        this.bytesReceived = bytesReceived;
+        this.bytesSent = bytesSent;
+    }
+
+    public int getPulled() { return pulled; }
+    public int getApplied() { return applied; }
+    public int getPushed() { return pushed; }
+    public long getBytesReceived() { return bytesReceived; }
+    public long getBytesSent() { return bytesSent; }
+}
@@ -0,0 +1,166 @@
+package org.ydanilenko.budgettracker.io;
+
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.util.DatabaseConnection;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.zip.GZIPOutputStream;
+
+public class TransactionExporter {
+    public static final int ALL_TYPES = -1;
+
+    private final TransactionDAO dao;
+
+    public TransactionExporter(TransactionDAO dao) {
+        this.dao = dao;
+    }
+
+    public long export(int typeId, LocalDate start, LocalDate end, Path target) throws IOException {
+        return export(typeId, start, end, target, ExportFormat.fromFile(target), ExportFormat.isGzip(target), () -> false);
+    }
+
+    public long export(int typeId, LocalDate start, LocalDate end, Path target,
+                       ExportFormat format, boolean gzip, BooleanSupplier cancelled) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".part");
+        long rows;
+
+        try {
+            try (TransactionWriter writer = open(temp, format, gzip)) {
+                rows = dao.forEachTransaction(typeId, start, end, transaction -> {
+                    if (cancelled.getAsBoolean()) throw new CancellationException();
+                    write(writer, transaction);
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            // A partial read leaves the target as it was; the temp file is removed below.
+            if (rows < 0) throw new IOException("Could not read the transactions to export");
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return rows;
+    }
+
+    public long export(int typeId, LocalDate start, LocalDate end, OutputStream output,
+                       ExportFormat format, boolean gzip) throws IOException {
+        long rows;
+        try (TransactionWriter writer = open(output, format, gzip)) {
+            rows = dao.forEachTransaction(typeId, start, end, transaction -> write(writer, transaction));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (rows < 0) throw new IOException("Could not read the transactions to export");
+        return rows;
+    }
+
+    private static void write(TransactionWriter writer, Transaction transaction) {
+        try {
+            writer.write(transaction);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static TransactionWriter open(Path file, ExportFormat format, boolean gzip) throws IOException {
+        return open(Channels.newOutputStream(FileChannel.open(file,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)), format, gzip);
+    }
+
+    private static TransactionWriter open(OutputStream output, ExportFormat format, boolean gzip) throws IOException {
+        if (gzip) {
+            output = new GZIPOutputStream(output, 1 << 16);
+        }
+        return format == ExportFormat.COLUMNAR
+                ? new ColumnarTransactionWriter(output)
+                : new CsvTransactionWriter(new BufferedOutputStream(output, 1 << 16));
+    }
+
+    public static void main(String[] args) {
+        String url = null;
+        int typeId = ALL_TYPES;
+        LocalDate start = null;
+        LocalDate end = null;
+        Path target = null;
+        boolean toStdout = false;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--db" -> url = args[++i];
+                    case "--type" -> typeId = parseType(args[++i]);
+                    case "--from" -> start = LocalDate.parse(args[++i]);
+                    case "--to" -> end = LocalDate.parse(args[++i]);
+                    case "-" -> toStdout = true;
+                    default -> target = Path.of(args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            target = null;
+        }
+
+        if (target == null == !toStdout) {
+            System.err.println("Usage: TransactionExporter [--db jdbc-url] [--type expense|income|all] "
+                    + "[--from yyyy-MM-dd] [--to yyyy-MM-dd] <file.csv|file.btc>[.gz] | -");
+            System.exit(2);
+        }
+
+        try (Connection connection = url == null ? DatabaseConnection.getConnection() : DatabaseConnection.getConnection(url)) {
+            if (connection == null) {
+                System.err.println("Could not open database connection.");
+                System.exit(1);
+            }
+            TransactionExporter exporter = new TransactionExporter(new TransactionDAO(connection));
+            if (toStdout) {
+                long rows = exporter.export(typeId, start, end, unclosable(System.out), ExportFormat.CSV, false);
+                System.err.println("Exported " + rows + " transactions");
+            } else {
+                long rows = exporter.export(typeId, start, end, target);
+                System.out.println("Exported " + rows + " transactions to " + target);
+            }
+        } catch (IOException | SQLException e) {
+            System.err.println("Export failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    static OutputStream unclosable(OutputStream output) {
+        return new FilterOutputStream(output) {
+            @Override
+            public void write(byte[] buffer, int offset, int length) throws IOException {
+                out.write(buffer, offset, length);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+    }
+
+    static int parseType(String type) {
+        return switch (type.toLowerCase()) {
+            case "expense", "0" -> 0;
+            case "income", "1" -> 1;
+            case "all" -> ALL_TYPES;
+            default -> throw new IllegalArgumentException("Unknown type: " + type);
+        };
+    }
+}
@@ -0,0 +1,10 @@
+package org.ydanilenko.budgettracker.io;
+
+import org.ydanilenko.budgettracker.model.Transaction;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+public interface TransactionWriter extends Closeable {
+    void write(Transaction transaction) throws IOException;
+}
@@ -0,0 +1,41 @@
+package org.ydanilenko.budgettracker.model;
+
+public class Budget {
+    public enum Scope {
+        CATEGORY("Category"),
+        PAYMENT_TYPE("Payment Type");
+
+        private final String label;
+
+        Scope(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private int id;
+    private final Scope scope;
+    private final int targetId;
+    private final String targetName;
+    private final double monthlyLimit;
+
+    public Budget(int id, Scope scope, int targetId, String targetName, double monthlyLimit) {
+        this.id = id;
+        this.scope = scope;
+        this.targetId = targetId;
+        this.targetName = targetName;
+        this.monthlyLimit = monthlyLimit;
+    }
+
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+
+    public Scope getScope() { return scope; }
+    public int getTargetId() { return targetId; }
+    public String getTargetName() { return targetName; }
+    public double getMonthlyLimit() { return monthlyLimit; }
+}
@@ -0,0 +1,19 @@
+package org.ydanilenko.budgettracker.model;
+
+import java.time.LocalDate;
+
+public class ExchangeRate {
+    private final String currency;
+    private final LocalDate date;
+    private final double rate;
+
+    public ExchangeRate(String currency, LocalDate date, double rate) {
+        this.currency = currency;
+        this.date = date;
+        this.rate = rate;
+    }
+
+    public String getCurrency() { return currency; }
+    public LocalDate getDate() { return date; }
+    public double getRate() { return rate; }
+}
@@ -10,14 +10,20 @@ public class PaymentType {
     private final StringProperty issuer = new SimpleStringProperty();
     private final StringProperty issueDate = new SimpleStringProperty();
     private final StringProperty expirationDate = new SimpleStringProperty();
+    private final StringProperty currency = new SimpleStringProperty();
 
     public PaymentType(int id, String name, String bank, String issuer, String issueDate, String expirationDate) {
+        this(id, name, bank, issuer, issueDate, expirationDate, null);
+    }
+
+    public PaymentType(int id, String name, String bank, String issuer, String issueDate, String expirationDate, String currency) {
         this.id = id;
         this.name.set(name);
         this.bank.set(bank);
         this.issuer.set(issuer);
         this.issueDate.set(issueDate);
         this.expirationDate.set(expirationDate);
+        this.currency.set(currency);
     }
 
     public int getId() {
@@ -33,16 +39,19 @@ public class PaymentType {
     public StringProperty issuerProperty() { return issuer; }
     public StringProperty issueDateProperty() { return issueDate; }
     public StringProperty expirationDateProperty() { return expirationDate; }
+    public StringProperty currencyProperty() { return currency; }
 
     public String getName() { return name.get(); }
     public String getBank() { return bank.get(); }
     public String getIssuer() { return issuer.get(); }
     public String getIssueDate() { return issueDate.get(); }
     public String getExpirationDate() { return expirationDate.get(); }
+    public String getCurrency() { return currency.get(); }
 
     public void setName(String value) { name.set(value); }
     public void setBank(String value) { bank.set(value); }
     public void setIssuer(String value) { issuer.set(value); }
     public void setIssueDate(String value) { issueDate.set(value); }
     public void setExpirationDate(String value) { expirationDate.set(value); }
+    public void setCurrency(String value) { currency.set(value); }
 }
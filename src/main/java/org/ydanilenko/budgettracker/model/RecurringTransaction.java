@@ -0,0 +1,86 @@
+package org.ydanilenko.budgettracker.model;
+
+public class RecurringTransaction {
+    private int id;
+    private String uid;
+    private double amount;
+    private int categoryId;
+    private int paymentTypeId;
+    private String comment;
+    private int placeId;
+    private int beneficiaryId;
+    private int typeId;
+    private String rule;
+    private String startDate;
+    private String endDate;
+    private String lastGenerated;
+    private String categoryName;
+    private String paymentType;
+    private String placeName;
+    private String beneficiaryName;
+
+    public RecurringTransaction(double amount, int categoryId, int paymentTypeId, String comment, int placeId,
+                                int beneficiaryId, int typeId, String rule, String startDate, String endDate) {
+        this.amount = amount;
+        this.categoryId = categoryId;
+        this.paymentTypeId = paymentTypeId;
+        this.comment = comment;
+        this.placeId = placeId;
+        this.beneficiaryId = beneficiaryId;
+        this.typeId = typeId;
+        this.rule = rule;
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+
+    public String getUid() { return uid; }
+    public void setUid(String uid) { this.uid = uid; }
+
+    public double getAmount() { return amount; }
+    public void setAmount(double amount) { this.amount = amount; }
+
+    public int getCategoryId() { return categoryId; }
+    public void setCategoryId(int categoryId) { this.categoryId = categoryId; }
+
+    public int getPaymentTypeId() { return paymentTypeId; }
+    public void setPaymentTypeId(int paymentTypeId) { this.paymentTypeId = paymentTypeId; }
+
+    public String getComment() { return comment; }
+    public void setComment(String comment) { this.comment = comment; }
+
+    public int getPlaceId() { return placeId; }
+    public void setPlaceId(int placeId) { this.placeId = placeId; }
+
+    public int getBeneficiaryId() { return beneficiaryId; }
+    public void setBeneficiaryId(int beneficiaryId) { this.beneficiaryId = beneficiaryId; }
+
+    public int getTypeId() { return typeId; }
+    public void setTypeId(int typeId) { this.typeId = typeId; }
+
+    public String getRule() { return rule; }
+    public void setRule(String rule) { this.rule = rule; }
+
+    public String getStartDate() { return startDate; }
+    public void setStartDate(String startDate) { this.startDate = startDate; }
+
+    public String getEndDate() { return endDate; }
+    public void setEndDate(String endDate) { this.endDate = endDate; }
+
+    public String getLastGenerated() { return lastGenerated; }
+    public void setLastGenerated(String lastGenerated) { this.lastGenerated = lastGenerated; }
+
+    public String getCategoryName() { return categoryName; }
+    public void setCategoryName(String categoryName) { this.categoryName = categoryName; }
+
+    public String getPaymentType() { return paymentType; }
+    public void setPaymentType(String paymentType) { this.paymentType = paymentType; }
+
+    public String getPlaceName() { return placeName; }
+    public void setPlaceName(String placeName) { this.placeName = placeName; }
+
+    public String getBeneficiaryName() { return beneficiaryName; }
+    public void setBeneficiaryName(String beneficiaryName) { this.beneficiaryName = beneficiaryName; }
+}
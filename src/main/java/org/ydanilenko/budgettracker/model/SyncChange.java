@@ -0,0 +1,27 @@
+package org.ydanilenko.budgettracker.model;
+
+public class SyncChange {
+    private final String syncId;
+    private final String origin;
+    private final long clock;
+    private final Transaction transaction;
+
+    // A null transaction is a tombstone. Live rows carry names rather than ids, which differ between replicas.
+    public SyncChange(String syncId, String origin, long clock, Transaction transaction) {
+        this.syncId = syncId;
+        this.origin = origin;
+        this.clock = clock;
+        this.transaction = transaction;
+    }
+
+    public String getSyncId() { return syncId; }
+    public String getOrigin() { return origin; }
+    public long getClock() { return clock; }
+    public Transaction getTransaction() { return transaction; }
+    public boolean isDeleted() { return transaction == null; }
+
+    // Last writer wins: the higher logical clock, with the origin id breaking ties, so every replica picks the same version.
+    public boolean supersedes(long otherClock, String otherOrigin) {
+        return clock != otherClock ? clock > otherClock : origin.compareTo(otherOrigin) > 0;
+    }
+}
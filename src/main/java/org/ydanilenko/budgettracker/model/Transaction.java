@@ -14,6 +14,10 @@ public class Transaction {
     private int beneficiaryId;
     private String placeName;
     private String beneficiaryName;
+    private int duplicateOf;
+    private String occurrenceKey;
+    private String currency;
+    private double baseAmount = Double.NaN;
 
     public Transaction(double amount, String date, int categoryId, int paymentTypeId, String comment, int placeId, int beneficiaryId, int typeId)
     {
@@ -94,7 +98,7 @@ public class Transaction {
         return paymentTypeId;
     }
 
-    public void setPaymentTypeId(int paymentType) {
+    public void setPaymentTypeId(int paymentTypeId) {
         this.paymentTypeId = paymentTypeId;
     }
 
@@ -128,4 +132,16 @@ public class Transaction {
 
     public String getBeneficiaryName() { return beneficiaryName; }
     public void setBeneficiaryName(String beneficiaryName) { this.beneficiaryName = beneficiaryName; }
+
+    public int getDuplicateOf() { return duplicateOf; }
+    public void setDuplicateOf(int duplicateOf) { this.duplicateOf = duplicateOf; }
+
+    public String getOccurrenceKey() { return occurrenceKey; }
+    public void setOccurrenceKey(String occurrenceKey) { this.occurrenceKey = occurrenceKey; }
+
+    public String getCurrency() { return currency; }
+    public void setCurrency(String currency) { this.currency = currency; }
+
+    public double getBaseAmount() { return Double.isNaN(baseAmount) ? amount : baseAmount; }
+    public void setBaseAmount(double baseAmount) { this.baseAmount = baseAmount; }
 }
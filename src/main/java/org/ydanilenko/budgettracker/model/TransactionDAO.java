@@ -1,455 +1,2184 @@
 package org.ydanilenko.budgettracker.model;
 
-import org.ydanilenko.budgettracker.util.DatabaseConnection;
+import org.ydanilenko.budgettracker.util.CommentSearch;
+import org.ydanilenko.budgettracker.util.ConnectionPool;
+import org.ydanilenko.budgettracker.util.CurrencyConverter;
+import org.ydanilenko.budgettracker.util.DatabaseSchema;
+import org.ydanilenko.budgettracker.util.EpochDays;
+import org.ydanilenko.budgettracker.util.FingerprintIndex;
+import org.ydanilenko.budgettracker.util.LedgerArchive;
+import org.ydanilenko.budgettracker.util.Metrics;
+import org.ydanilenko.budgettracker.util.NameSuggestionIndex;
+import org.ydanilenko.budgettracker.util.SlowQueryLog;
+import org.ydanilenko.budgettracker.util.TransactionFingerprint;
 
 import java.sql.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class TransactionDAO {
-    private final Connection connection;
+    private static final DateTimeFormatter LENIENT_DATE = DateTimeFormatter.ofPattern("yyyy-M-d");
+    private static final int ID_BATCH = 500;
+    // Rows as the transaction lists show them: names instead of ids, and the payment type's currency as the fallback.
+    private static final String LISTED_TRANSACTIONS = "SELECT t.id, t.amount, t.date, c.name AS categoryName, " +
+            "p.name AS paymentType, t.comment, t.duplicate_of, COALESCE(t.currency, p.currency) AS currency, " +
+            "pl.name AS placeName, b.name AS beneficiaryName " +
+            "FROM Transactions t " +
+            "JOIN Categories c ON t.category_id = c.id " +
+            "JOIN PaymentTypes p ON t.payment_type_id = p.id " +
+            "LEFT JOIN Places pl ON t.place_id = pl.id " +
+            "LEFT JOIN Beneficiaries b ON t.beneficiary_id = b.id " +
+            "WHERE t.type_id = ?";
+
+    private final ConnectionPool pool;
+    // Only updated while holding the pool's writer connection, but clearCaches may drop it from any thread, so each
+    // call reads the field once and works on that index.
+    private volatile FingerprintIndex fingerprints;
+    private volatile CurrencyConverter currencyConverter;
+    private volatile Map<Integer, String> paymentTypeCurrencies;
+    // Built once from the whole ledger, then kept current by the forms that save rows; see recordNameUse.
+    private volatile NameSuggestionIndex placeSuggestions;
+    private volatile NameSuggestionIndex beneficiarySuggestions;
+    private final List<TransactionListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile LedgerArchive archive;
+    private final LedgerArchive.ArchiveListener archiveListener = (year, moved) -> reload();
 
     public TransactionDAO(Connection connection) {
-        this.connection = connection;
+        this.pool = ConnectionPool.of(SlowQueryLog.getDefault().wrap(connection));
+    }
+
+    public TransactionDAO(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    public <T> T inTransaction(Supplier<T> body) {
+        try {
+            return pool.transaction(connection -> body.get());
+        } catch (SQLException | RuntimeException e) {
+            clearCaches();
+            if (e instanceof RuntimeException runtime) throw runtime;
+            throw new IllegalStateException("Transaction failed", e);
+        }
+    }
+
+    // For when the database changed underneath the DAO, e.g. after a restore.
+    public void clearCaches() {
+        fingerprints = null;
+        currencyConverter = null;
+        paymentTypeCurrencies = null;
+        placeSuggestions = null;
+        beneficiarySuggestions = null;
+    }
+
+    // Builds the lazily loaded caches ahead of first use, e.g. in the background after switching ledgers.
+    public void warmCaches() {
+        Metrics.time("dao.warmCaches", () -> pool.write(connection -> {
+            getCurrencyConverter();
+            getPaymentTypeCurrencies(connection);
+            getFingerprintIndex(connection);
+            getPlaceSuggestions();
+            getBeneficiarySuggestions();
+            return null;
+        }));
+    }
+
+    // Streaming reports and the base-currency totals also read the years the archive has moved out.
+    public void setArchive(LedgerArchive archive) {
+        LedgerArchive previous = this.archive;
+        if (previous != null) previous.removeArchiveListener(archiveListener);
+        this.archive = archive;
+        if (archive != null) archive.addArchiveListener(archiveListener);
+    }
+
+    // For when rows moved underneath the DAO without row events: drops the caches and has the listeners rebuild.
+    public void reload() {
+        clearCaches();
+        for (TransactionListener listener : listeners) {
+            listener.onReloaded();
+        }
+    }
+
+    // Listeners hear about a write once it is committed. Inside inTransaction the events wait for the outermost
+    // commit and are dropped if it rolls back, so nothing downstream sees changes that never happened.
+    private void fire(Consumer<TransactionListener> event) {
+        if (listeners.isEmpty()) return;
+        pool.afterCommit(() -> {
+            for (TransactionListener listener : listeners) {
+                event.accept(listener);
+            }
+        });
+    }
+
+    public void addListener(TransactionListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(TransactionListener listener) {
+        listeners.remove(listener);
     }
 
     public boolean addTransaction(Transaction transaction) {
-        String sql = "INSERT INTO Transactions (amount, date, category_id, payment_type_id, comment, place_id, beneficiary_id, type_id) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        return Metrics.time("dao.addTransaction", () -> pool.write(connection -> {
+            String sql = "INSERT INTO Transactions (amount, date, category_id, payment_type_id, comment, place_id, beneficiary_id, type_id, " +
+                    "fingerprint, duplicate_of, occurrence_key, currency) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setDouble(1, transaction.getAmount());
-            ps.setString(2, transaction.getDate());
-            ps.setInt(3, transaction.getCategoryId());
-            ps.setInt(4, transaction.getPaymentTypeId());
-            ps.setString(5, transaction.getComment());
-            ps.setInt(6, transaction.getPlaceId());
-            ps.setInt(7, transaction.getBeneficiaryId());
-            ps.setInt(8, transaction.getTypeId());
-
-            return ps.executeUpdate() > 0;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
+            try (PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                long fingerprint = screen(connection, transaction);
+                bindTransaction(ps, transaction, fingerprint);
+                if (ps.executeUpdate() == 0) return false;
+
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        transaction.setId(keys.getInt(1));
+                        FingerprintIndex index = fingerprints;
+                        if (index != null) index.add(fingerprint, transaction.getId());
+                    }
+                }
+                fire(listener -> listener.onInserted(transaction));
+                return true;
+            } catch (SQLException e) {
+                failed(e);
+                return false;
+            }
+        }));
+    }
+
+    // Puts a deleted row back under its original id, e.g. to undo the delete.
+    public boolean restoreTransaction(Transaction transaction) {
+        return Metrics.time("dao.restoreTransaction", () -> pool.write(connection -> {
+            String sql = "INSERT INTO Transactions (amount, date, category_id, payment_type_id, comment, place_id, beneficiary_id, type_id, " +
+                    "fingerprint, duplicate_of, occurrence_key, currency, id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                long fingerprint = screen(connection, transaction);
+                bindTransaction(ps, transaction, fingerprint);
+                ps.setInt(13, transaction.getId());
+                if (ps.executeUpdate() == 0) return false;
+                FingerprintIndex index = fingerprints;
+                if (index != null) index.add(fingerprint, transaction.getId());
+                fire(listener -> listener.onInserted(transaction));
+                return true;
+            } catch (SQLException e) {
+                failed(e);
+                return false;
+            }
+        }));
+    }
+
+    public int addTransactions(List<Transaction> transactions) {
+        return Metrics.time("dao.addTransactions", () -> pool.write(connection -> {
+            if (transactions.isEmpty()) return 0;
+
+            String sql = "INSERT INTO Transactions (amount, date, category_id, payment_type_id, comment, place_id, beneficiary_id, type_id, " +
+                    "fingerprint, duplicate_of, occurrence_key, currency) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+            FingerprintIndex index = getFingerprintIndex(connection);
+            try {
+                long lastId = pool.transaction(tx -> insertBatch(tx, sql, transactions));
+
+                // The batch took consecutive ids in list order, so listeners get the same ids the rows were stored under.
+                int next = 0;
+                try (Statement stmt = connection.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT id, fingerprint FROM Transactions WHERE id > " + lastId + " ORDER BY id")) {
+                    while (rs.next()) {
+                        index.add(rs.getLong(2), rs.getInt(1));
+                        if (next < transactions.size()) transactions.get(next++).setId(rs.getInt(1));
+                    }
+                }
+                fire(listener -> listener.onInserted(transactions));
+                // Bulk imports are rare enough that the suggestion counts are simply rebuilt on next use.
+                placeSuggestions = null;
+                beneficiarySuggestions = null;
+                Metrics.recordRows(transactions.size());
+                return transactions.size();
+            } catch (SQLException e) {
+                fingerprints = null;
+                failed(e);
+                return 0;
+            }
+        }));
+    }
+
+    private long insertBatch(Connection connection, String sql, List<Transaction> transactions) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(sql);
+             Statement stmt = connection.createStatement()) {
+            long lastId;
+            try (ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM Transactions")) {
+                lastId = rs.next() ? rs.getLong(1) : 0;
+            }
+            stmt.executeUpdate("UPDATE SearchIndexState SET deferred = 1");
+
+            // Rows repeated within the batch are not in the index yet, so they are matched against the first
+            // row of the batch with the same fingerprint and flagged once the batch has its ids.
+            Map<Long, Integer> firstInBatch = new HashMap<>();
+            int[] repeatOf = new int[transactions.size()];
+            for (int i = 0; i < transactions.size(); i++) {
+                Transaction transaction = transactions.get(i);
+                long fingerprint = screen(connection, transaction);
+                Integer first = firstInBatch.putIfAbsent(fingerprint, i);
+                repeatOf[i] = first != null && transaction.getDuplicateOf() == 0 ? first + 1 : 0;
+                bindTransaction(ps, transaction, fingerprint);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            flagRepeats(connection, lastId, transactions, repeatOf);
+
+            stmt.executeUpdate("INSERT INTO TransactionSearch (rowid, comment) " +
+                    "SELECT id, comment FROM Transactions WHERE id > " + lastId);
+            stmt.executeUpdate("UPDATE SearchIndexState SET deferred = 0");
+            return lastId;
         }
     }
 
-    public boolean updateTransaction(Transaction transaction) {
-        String query = "UPDATE transactions SET amount = ?, date = ?, category_id = ?, payment_type_id = ?, comment = ?, place_id = ?, beneficiary_id = ?, type_id = ? WHERE id = ?";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            stmt.setDouble(1, transaction.getAmount());
-            stmt.setString(2, transaction.getDate());
-            stmt.setInt(3, transaction.getCategoryId());
-            stmt.setInt(4, transaction.getPaymentTypeId());
-            stmt.setString(5, transaction.getComment());
-            stmt.setInt(6, transaction.getPlaceId());
-            stmt.setInt(7, transaction.getBeneficiaryId());
-            stmt.setInt(8, transaction.getTypeId());
-            stmt.setInt(9, transaction.getId());
-
-            return stmt.executeUpdate() > 0;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
+    private static void flagRepeats(Connection connection, long lastId, List<Transaction> transactions, int[] repeatOf) throws SQLException {
+        if (Arrays.stream(repeatOf).allMatch(position -> position == 0)) return;
+        int[] ids = new int[transactions.size()];
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id FROM Transactions WHERE id > " + lastId + " ORDER BY id")) {
+            for (int i = 0; i < ids.length && rs.next(); i++) ids[i] = rs.getInt(1);
+        }
+        try (PreparedStatement ps = connection.prepareStatement("UPDATE Transactions SET duplicate_of = ? WHERE id = ?")) {
+            for (int i = 0; i < ids.length; i++) {
+                if (repeatOf[i] == 0) continue;
+                int original = ids[repeatOf[i] - 1];
+                transactions.get(i).setDuplicateOf(original);
+                ps.setInt(1, original);
+                ps.setInt(2, ids[i]);
+                ps.addBatch();
+            }
+            ps.executeBatch();
         }
     }
 
-    public boolean deleteTransaction(int id) {
-        String sql = "DELETE FROM transactions WHERE id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, id);
-            return stmt.executeUpdate() > 0;
+    private void bindTransaction(PreparedStatement ps, Transaction transaction, long fingerprint) throws SQLException {
+        ps.setDouble(1, transaction.getAmount());
+        ps.setString(2, transaction.getDate());
+        ps.setInt(3, transaction.getCategoryId());
+        ps.setInt(4, transaction.getPaymentTypeId());
+        ps.setString(5, transaction.getComment());
+        ps.setInt(6, transaction.getPlaceId());
+        ps.setInt(7, transaction.getBeneficiaryId());
+        ps.setInt(8, transaction.getTypeId());
+        ps.setLong(9, fingerprint);
+        if (transaction.getDuplicateOf() > 0) {
+            ps.setInt(10, transaction.getDuplicateOf());
+        } else {
+            ps.setNull(10, Types.INTEGER);
+        }
+        ps.setString(11, transaction.getOccurrenceKey());
+        ps.setString(12, normalizeCurrency(transaction.getCurrency()));
+    }
+
+    private long screen(Connection connection, Transaction transaction) {
+        long fingerprint = TransactionFingerprint.of(transaction);
+        int match = getFingerprintIndex(connection).find(fingerprint);
+        if (match > 0 && transaction.getDuplicateOf() == 0) {
+            transaction.setDuplicateOf(match);
+        }
+        return fingerprint;
+    }
+
+    public int findDuplicate(Transaction transaction) {
+        return Metrics.time("dao.findDuplicate", () -> pool.write(connection -> {
+            int match = getFingerprintIndex(connection).find(TransactionFingerprint.of(transaction));
+            return match == transaction.getId() ? -1 : match;
+        }));
+    }
+
+    public boolean clearDuplicateFlag(int id) {
+        return Metrics.time("dao.clearDuplicateFlag", () -> pool.write(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement("UPDATE Transactions SET duplicate_of = NULL WHERE id = ?")) {
+                ps.setInt(1, id);
+                return ps.executeUpdate() > 0;
+            } catch (SQLException e) {
+                failed(e);
+                return false;
+            }
+        }));
+    }
+
+    private FingerprintIndex getFingerprintIndex(Connection connection) {
+        FingerprintIndex index = fingerprints;
+        if (index == null) {
+            backfillFingerprints(connection);
+            index = loadFingerprints(connection);
+            fingerprints = index;
+        }
+        return index;
+    }
+
+    private static Long storedFingerprint(Connection connection, int id) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT fingerprint FROM Transactions WHERE id = ?")) {
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                long fingerprint = rs.getLong(1);
+                return rs.wasNull() ? null : fingerprint;
+            }
+        }
+    }
+
+    // Called once the row no longer carries the fingerprint. If the index pointed at it, the next lowest id with the
+    // same fingerprint (a flagged duplicate) takes its place.
+    private static void unindexFingerprint(Connection connection, FingerprintIndex index, Long fingerprint, int id)
+            throws SQLException {
+        if (fingerprint == null || index.find(fingerprint) != id) return;
+        index.remove(fingerprint);
+        try (PreparedStatement ps = connection.prepareStatement("SELECT MIN(id) FROM Transactions WHERE fingerprint = ?")) {
+            ps.setLong(1, fingerprint);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next() && rs.getInt(1) > 0) index.add(fingerprint, rs.getInt(1));
+            }
+        }
+    }
+
+    private FingerprintIndex loadFingerprints(Connection connection) {
+        FingerprintIndex index = new FingerprintIndex(getTotalTransactions());
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id, fingerprint FROM Transactions WHERE fingerprint IS NOT NULL ORDER BY id")) {
+            while (rs.next()) {
+                index.add(rs.getLong(2), rs.getInt(1));
+            }
         } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
+            failed(e);
         }
+        return index;
     }
 
-    public List<Transaction> getAllTransactions() {
-        List<Transaction> transactions = new ArrayList<>();
-        String sql = "SELECT t.id, t.amount, t.date, c.name AS categoryName,\n" +
-                "       p.name AS paymentType, t.comment,\n" +
-                "       pl.name AS placeName, b.name AS beneficiaryName\n" +
-                "FROM Transactions t\n" +
-                "JOIN Categories c ON t.category_id = c.id\n" +
-                "JOIN PaymentTypes p ON t.payment_type_id = p.id\n" +
-                "LEFT JOIN Places pl ON t.place_id = pl.id\n" +
-                "LEFT JOIN Beneficiaries b ON t.beneficiary_id = b.id";
+    private void backfillFingerprints(Connection connection) {
+        int[] ids = new int[1024];
+        long[] values = new long[1024];
+        int count = 0;
 
+        String sql = "SELECT id, amount, type_id, date, place_id, beneficiary_id, comment FROM Transactions WHERE fingerprint IS NULL";
         try (Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
-                int id = rs.getInt("id");
-                double amount = rs.getDouble("amount");
-                String date = rs.getString("date");
-                String categoryName = rs.getString("categoryName");
-                String paymentType = rs.getString("paymentType");
-                String comment = rs.getString("comment");
-                String placeName = rs.getString("placeName");
-                String beneficiaryName = rs.getString("beneficiaryName");
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, count * 2);
+                    values = Arrays.copyOf(values, count * 2);
+                }
+                ids[count] = rs.getInt(1);
+                values[count] = TransactionFingerprint.of(rs.getDouble(2), rs.getInt(3), rs.getString(4),
+                        rs.getInt(5), rs.getInt(6), rs.getString(7));
+                count++;
+            }
+        } catch (SQLException e) {
+            failed(e);
+            return;
+        }
+        if (count == 0) return;
 
-                transactions.add(new Transaction(id, amount, date, categoryName, paymentType, comment, placeName, beneficiaryName));
+        int total = count;
+        int[] backfillIds = ids;
+        long[] backfillValues = values;
+        try {
+            pool.transaction(tx -> {
+                try (PreparedStatement ps = tx.prepareStatement("UPDATE Transactions SET fingerprint = ? WHERE id = ?")) {
+                    for (int i = 0; i < total; i++) {
+                        ps.setLong(1, backfillValues[i]);
+                        ps.setInt(2, backfillIds[i]);
+                        ps.addBatch();
+                    }
+                    return ps.executeBatch();
+                }
+            });
+        } catch (SQLException e) {
+            failed(e);
+        }
+    }
+
+    private static void failed(SQLException e) {
+        Metrics.recordError();
+        e.printStackTrace();
+    }
 
+    private interface ArchiveQuery<T> {
+        T run(Connection connection, String sql) throws SQLException;
+    }
+
+    // Runs a query written against "FROM Transactions t" over each archived year that overlaps the range, reading
+    // the year's rows instead. Results come back oldest year first, and there are none without an archive.
+    private <T> List<T> fanOutArchive(LocalDate start, LocalDate end, String sql, ArchiveQuery<T> query) throws SQLException {
+        LedgerArchive ledgerArchive = archive;
+        if (ledgerArchive == null) return List.of();
+        String archiveSql = sql.replace("FROM Transactions t", "FROM archive.Transactions t");
+        return ledgerArchive.fanOut(start, end, archiveConnection -> query.run(archiveConnection, archiveSql));
+    }
 
+    public boolean updateTransaction(Transaction transaction) {
+        return Metrics.time("dao.updateTransaction", () -> pool.write(connection -> {
+            Transaction previous = listeners.isEmpty() ? null : getTransactionById(transaction.getId());
+            long fingerprint = TransactionFingerprint.of(transaction);
+            String query = "UPDATE transactions SET amount = ?, date = ?, category_id = ?, payment_type_id = ?, comment = ?, place_id = ?, beneficiary_id = ?, type_id = ?, fingerprint = ?, currency = ? WHERE id = ?";
+
+            try (PreparedStatement stmt = connection.prepareStatement(query)) {
+
+                stmt.setDouble(1, transaction.getAmount());
+                stmt.setString(2, transaction.getDate());
+                stmt.setInt(3, transaction.getCategoryId());
+                stmt.setInt(4, transaction.getPaymentTypeId());
+                stmt.setString(5, transaction.getComment());
+                stmt.setInt(6, transaction.getPlaceId());
+                stmt.setInt(7, transaction.getBeneficiaryId());
+                stmt.setInt(8, transaction.getTypeId());
+                stmt.setLong(9, fingerprint);
+                stmt.setString(10, normalizeCurrency(transaction.getCurrency()));
+                stmt.setInt(11, transaction.getId());
+
+                FingerprintIndex index = fingerprints;
+                Long stored = index == null ? null : storedFingerprint(connection, transaction.getId());
+                if (stmt.executeUpdate() == 0) return false;
+                if (index != null) {
+                    unindexFingerprint(connection, index, stored, transaction.getId());
+                    index.add(fingerprint, transaction.getId());
+                }
+            } catch (SQLException e) {
+                fingerprints = null;
+                failed(e);
+                return false;
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
 
-        return transactions;
+            fire(listener -> listener.onUpdated(previous, transaction));
+            return true;
+        }));
+    }
+
+    public boolean deleteTransaction(int id) {
+        return Metrics.time("dao.deleteTransaction", () -> pool.write(connection -> {
+            Transaction previous = listeners.isEmpty() ? null : getTransactionById(id);
+            String sql = "DELETE FROM transactions WHERE id = ?";
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, id);
+                FingerprintIndex index = fingerprints;
+                Long stored = index == null ? null : storedFingerprint(connection, id);
+                if (stmt.executeUpdate() == 0) return false;
+                if (index != null) unindexFingerprint(connection, index, stored, id);
+            } catch (SQLException e) {
+                fingerprints = null;
+                failed(e);
+                return false;
+            }
+
+            if (previous != null) {
+                fire(listener -> listener.onDeleted(previous));
+            }
+            return true;
+        }));
+    }
+
+    public Transaction getTransactionById(int id) {
+        return Metrics.time("dao.getTransactionById", () -> pool.read(connection -> {
+            String sql = "SELECT t.id, t.amount, t.date, t.category_id, t.payment_type_id, t.comment, t.type_id, " +
+                    "t.place_id, t.beneficiary_id, t.currency, t.occurrence_key, c.name AS categoryName, " +
+                    "p.name AS paymentType, pl.name AS placeName, b.name AS beneficiaryName " +
+                    "FROM Transactions t " +
+                    "LEFT JOIN Categories c ON t.category_id = c.id " +
+                    "LEFT JOIN PaymentTypes p ON t.payment_type_id = p.id " +
+                    "LEFT JOIN Places pl ON t.place_id = pl.id " +
+                    "LEFT JOIN Beneficiaries b ON t.beneficiary_id = b.id " +
+                    "WHERE t.id = ?";
+
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, id);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) return null;
+                    Transaction transaction = new Transaction(
+                            rs.getInt("id"),
+                            rs.getDouble("amount"),
+                            rs.getString("date"),
+                            rs.getInt("category_id"),
+                            rs.getInt("payment_type_id"),
+                            rs.getString("comment"),
+                            rs.getInt("type_id")
+                    );
+                    transaction.setPlaceId(rs.getInt("place_id"));
+                    transaction.setBeneficiaryId(rs.getInt("beneficiary_id"));
+                    transaction.setCurrency(rs.getString("currency"));
+                    transaction.setOccurrenceKey(rs.getString("occurrence_key"));
+                    transaction.setCategoryName(rs.getString("categoryName"));
+                    transaction.setPaymentType(rs.getString("paymentType"));
+                    transaction.setPlaceName(rs.getString("placeName"));
+                    transaction.setBeneficiaryName(rs.getString("beneficiaryName"));
+                    return transaction;
+                }
+            } catch (SQLException e) {
+                failed(e);
+                return null;
+            }
+        }));
+    }
+
+    // Stored rows by id with their foreign keys rather than names, in id order. Returns the row count, or -1 if
+    // reading failed part-way, so callers never mistake a truncated stream for the whole ledger.
+    public long forEachTransactionRow(Consumer<Transaction> consumer) {
+        return Metrics.time("dao.forEachTransactionRow", () -> pool.read(connection -> {
+            String sql = "SELECT id, amount, date, category_id, payment_type_id, comment, type_id, place_id, beneficiary_id, currency " +
+                    "FROM Transactions ORDER BY id";
+            long count = 0;
+            try (Statement stmt = connection.createStatement()) {
+                stmt.setFetchSize(1000);
+                try (ResultSet rs = stmt.executeQuery(sql)) {
+                    while (rs.next()) {
+                        Transaction transaction = new Transaction(rs.getInt(1), rs.getDouble(2), rs.getString(3),
+                                rs.getInt(4), rs.getInt(5), rs.getString(6), rs.getInt(7));
+                        transaction.setPlaceId(rs.getInt(8));
+                        transaction.setBeneficiaryId(rs.getInt(9));
+                        transaction.setCurrency(rs.getString(10));
+                        consumer.accept(transaction);
+                        count++;
+                    }
+                }
+            } catch (SQLException e) {
+                failed(e);
+                return -1L;
+            }
+            Metrics.recordRows(count);
+            return count;
+        }));
+    }
+
+    public List<Transaction> getAllTransactions() {
+        return Metrics.time("dao.getAllTransactions", () -> pool.read(connection -> {
+            List<Transaction> transactions = new ArrayList<>();
+            String sql = "SELECT t.id, t.amount, t.date, c.name AS categoryName,\n" +
+                    "       p.name AS paymentType, t.comment,\n" +
+                    "       pl.name AS placeName, b.name AS beneficiaryName\n" +
+                    "FROM Transactions t\n" +
+                    "JOIN Categories c ON t.category_id = c.id\n" +
+                    "JOIN PaymentTypes p ON t.payment_type_id = p.id\n" +
+                    "LEFT JOIN Places pl ON t.place_id = pl.id\n" +
+                    "LEFT JOIN Beneficiaries b ON t.beneficiary_id = b.id";
+
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    int id = rs.getInt("id");
+                    double amount = rs.getDouble("amount");
+                    String date = rs.getString("date");
+                    String categoryName = rs.getString("categoryName");
+                    String paymentType = rs.getString("paymentType");
+                    String comment = rs.getString("comment");
+                    String placeName = rs.getString("placeName");
+                    String beneficiaryName = rs.getString("beneficiaryName");
+
+                    transactions.add(new Transaction(id, amount, date, categoryName, paymentType, comment, placeName, beneficiaryName));
+
+
+                }
+            } catch (SQLException e) {
+                failed(e);
+            }
+
+            return transactions;
+        }));
     }
 
     public List<Transaction> getTransactionsByType(int typeId) {
-        List<Transaction> transactions = new ArrayList<>();
+        return Metrics.time("dao.getTransactionsByType", () -> pool.read(connection -> {
+            List<Transaction> transactions = new ArrayList<>();
 
-        String sql = "SELECT t.id, t.amount, t.date, c.name AS categoryName, " +
-                "p.name AS paymentType, t.comment, " +
-                "pl.name AS placeName, b.name AS beneficiaryName " +
-                "FROM Transactions t " +
-                "JOIN Categories c ON t.category_id = c.id " +
-                "JOIN PaymentTypes p ON t.payment_type_id = p.id " +
-                "LEFT JOIN Places pl ON t.place_id = pl.id " +
-                "LEFT JOIN Beneficiaries b ON t.beneficiary_id = b.id " +
-                "WHERE t.type_id = ?";
+            try {
+                readListed(connection, LISTED_TRANSACTIONS, typeId, transactions);
+                for (List<Transaction> year : fanOutArchive(null, null, LISTED_TRANSACTIONS, (archiveConnection, sql) -> {
+                    List<Transaction> rows = new ArrayList<>();
+                    readListed(archiveConnection, sql, typeId, rows);
+                    return rows;
+                })) {
+                    transactions.addAll(year);
+                }
+            } catch (SQLException e) {
+                failed(e);
+            }
+
+            return transactions;
+        }));
+    }
 
+    // The listed rows of one type among the given ids, so a list can pick up a few changed rows without a reload.
+    public List<Transaction> getTransactionsByIds(int typeId, Collection<Integer> ids) {
+        return Metrics.time("dao.getTransactionsByIds", () -> pool.read(connection -> {
+            List<Transaction> transactions = new ArrayList<>();
+            List<Integer> remaining = new ArrayList<>(ids);
+
+            try {
+                for (int from = 0; from < remaining.size(); from += ID_BATCH) {
+                    List<Integer> batch = remaining.subList(from, Math.min(remaining.size(), from + ID_BATCH));
+                    String sql = LISTED_TRANSACTIONS + " AND t.id IN (" + "?,".repeat(batch.size() - 1) + "?)";
+                    try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                        ps.setInt(1, typeId);
+                        for (int i = 0; i < batch.size(); i++) {
+                            ps.setInt(i + 2, batch.get(i));
+                        }
+                        readListed(ps.executeQuery(), typeId, transactions);
+                    }
+                }
+            } catch (SQLException e) {
+                failed(e);
+            }
+
+            return transactions;
+        }));
+    }
+
+    private static void readListed(Connection connection, String sql, int typeId, List<Transaction> transactions) throws SQLException {
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setInt(1, typeId);
-            ResultSet rs = ps.executeQuery();
+            readListed(ps.executeQuery(), typeId, transactions);
+        }
+    }
 
+    private static void readListed(ResultSet rs, int typeId, List<Transaction> transactions) throws SQLException {
+        try (rs) {
             while (rs.next()) {
-                int id = rs.getInt("id");
-                double amount = rs.getDouble("amount");
-                String date = rs.getString("date");
-                String categoryName = rs.getString("categoryName");
-                String paymentType = rs.getString("paymentType");
-                String comment = rs.getString("comment");
-                String placeName = rs.getString("placeName");
-                String beneficiaryName = rs.getString("beneficiaryName");
-
                 Transaction transaction = new Transaction(
-                        id, amount, date, categoryName, paymentType, comment, placeName, beneficiaryName
+                        rs.getInt("id"),
+                        rs.getDouble("amount"),
+                        rs.getString("date"),
+                        rs.getString("categoryName"),
+                        rs.getString("paymentType"),
+                        rs.getString("comment"),
+                        rs.getString("placeName"),
+                        rs.getString("beneficiaryName")
                 );
                 transaction.setTypeId(typeId);
+                transaction.setDuplicateOf(rs.getInt("duplicate_of"));
+                transaction.setCurrency(rs.getString("currency"));
                 transactions.add(transaction);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
+    }
 
-        return transactions;
+    // Returns the row count, or -1 if reading failed part-way.
+    public long forEachTransaction(int typeId, LocalDate start, LocalDate end, Consumer<Transaction> consumer) {
+        return Metrics.time("dao.forEachTransaction", () -> pool.read(connection -> {
+            String sql = "SELECT t.id, t.amount, t.date, t.type_id, c.name AS categoryName, " +
+                    "p.name AS paymentType, t.comment, " +
+                    "pl.name AS placeName, b.name AS beneficiaryName, " +
+                    "COALESCE(t.currency, p.currency) AS currency " +
+                    "FROM Transactions t " +
+                    "JOIN Categories c ON t.category_id = c.id " +
+                    "JOIN PaymentTypes p ON t.payment_type_id = p.id " +
+                    "LEFT JOIN Places pl ON t.place_id = pl.id " +
+                    "LEFT JOIN Beneficiaries b ON t.beneficiary_id = b.id " +
+                    "WHERE (? < 0 OR t.type_id = ?) " +
+                    "AND (? IS NULL OR t.date >= ?) " +
+                    "AND (? IS NULL OR t.date <= ?) " +
+                    "ORDER BY t.date, t.id";
+
+            String startDate = start == null ? null : start.toString();
+            String endDate = end == null ? null : end.toString();
+            long count = 0;
+
+            // The ledger and each archived year are read through cursors of their own and merged by date and id, so
+            // no year is held in memory. The ledger can still hold old dates entered after their year was archived.
+            List<TransactionCursor> cursors = new ArrayList<>();
+            try {
+                cursors.add(new TransactionCursor(null, connection, sql, typeId, startDate, endDate));
+                LedgerArchive ledgerArchive = archive;
+                if (ledgerArchive != null) {
+                    String archiveSql = sql.replace("FROM Transactions t", "FROM archive.Transactions t");
+                    for (int year : ledgerArchive.getArchivedYears(start, end)) {
+                        Connection archiveConnection = ledgerArchive.openYear(year);
+                        try {
+                            cursors.add(new TransactionCursor(archiveConnection, archiveConnection, archiveSql,
+                                    typeId, startDate, endDate));
+                        } catch (SQLException e) {
+                            archiveConnection.close();
+                            throw e;
+                        }
+                    }
+                }
+
+                PriorityQueue<TransactionCursor> merge = new PriorityQueue<>(TransactionCursor.ORDER);
+                for (TransactionCursor cursor : cursors) {
+                    if (cursor.next()) merge.add(cursor);
+                }
+                while (!merge.isEmpty()) {
+                    TransactionCursor cursor = merge.poll();
+                    consumer.accept(cursor.current);
+                    count++;
+                    if (cursor.next()) merge.add(cursor);
+                }
+            } catch (SQLException e) {
+                failed(e);
+                return -1L;
+            } finally {
+                for (TransactionCursor cursor : cursors) cursor.close();
+            }
+
+            Metrics.recordRows(count);
+            return count;
+        }));
     }
 
-    public List<String> getAllPaymentTypes() {
-        List<String> types = new ArrayList<>();
-        String sql = "SELECT name FROM PaymentTypes";
+    // One date-ordered query in forEachTransaction's merge, holding the row it is positioned on.
+    private static class TransactionCursor {
+        static final Comparator<TransactionCursor> ORDER = Comparator
+                .comparing((TransactionCursor cursor) -> cursor.current.getDate())
+                .thenComparingInt(cursor -> cursor.current.getId());
 
-        try (PreparedStatement ps = connection.prepareStatement(sql);
+        private final Connection owned;
+        private final PreparedStatement ps;
+        private final ResultSet rs;
+        Transaction current;
+
+        // Closes owned, if given, along with the cursor.
+        TransactionCursor(Connection owned, Connection connection, String sql, int typeId, String startDate,
+                          String endDate) throws SQLException {
+            this.owned = owned;
+            this.ps = connection.prepareStatement(sql);
+            try {
+                ps.setInt(1, typeId);
+                ps.setInt(2, typeId);
+                ps.setString(3, startDate);
+                ps.setString(4, startDate);
+                ps.setString(5, endDate);
+                ps.setString(6, endDate);
+                ps.setFetchSize(1000);
+                this.rs = ps.executeQuery();
+            } catch (SQLException e) {
+                ps.close();
+                throw e;
+            }
+        }
+
+        boolean next() throws SQLException {
+            if (!rs.next()) return false;
+            current = new Transaction(
+                    rs.getInt("id"),
+                    rs.getDouble("amount"),
+                    rs.getString("date"),
+                    rs.getString("categoryName"),
+                    rs.getString("paymentType"),
+                    rs.getString("comment"),
+                    rs.getString("placeName"),
+                    rs.getString("beneficiaryName")
+            );
+            current.setTypeId(rs.getInt("type_id"));
+            current.setCurrency(rs.getString("currency"));
+            return true;
+        }
+
+        void close() {
+            try {
+                rs.close();
+                ps.close();
+                if (owned != null) owned.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public List<Transaction> listTransactions(int typeId, LocalDate start, LocalDate end,
+                                             String categoryName, int offset, int limit) {
+        return Metrics.time("dao.listTransactions", () -> pool.read(connection -> {
+            String sql = "SELECT t.id, t.amount, t.date, t.type_id, c.name AS categoryName, " +
+                    "p.name AS paymentType, t.comment, " +
+                    "pl.name AS placeName, b.name AS beneficiaryName, " +
+                    "COALESCE(t.currency, p.currency) AS currency " +
+                    "FROM Transactions t " +
+                    "JOIN Categories c ON t.category_id = c.id " +
+                    "JOIN PaymentTypes p ON t.payment_type_id = p.id " +
+                    "LEFT JOIN Places pl ON t.place_id = pl.id " +
+                    "LEFT JOIN Beneficiaries b ON t.beneficiary_id = b.id " +
+                    "WHERE (? < 0 OR t.type_id = ?) " +
+                    "AND (? IS NULL OR t.date >= ?) " +
+                    "AND (? IS NULL OR t.date <= ?) " +
+                    "AND (? IS NULL OR c.name = ?) " +
+                    "ORDER BY t.date DESC, t.id DESC " +
+                    "LIMIT ? OFFSET ?";
+
+            String startDate = start == null ? null : start.toString();
+            String endDate = end == null ? null : end.toString();
+            // With archived years in range, every source is read up to the end of the page and the page is cut from
+            // the merged rows.
+            int through = (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+            Object[] pageParams = {typeId, typeId, startDate, startDate, endDate, endDate, categoryName, categoryName, limit, offset};
+            Object[] throughParams = {typeId, typeId, startDate, startDate, endDate, endDate, categoryName, categoryName, through, 0};
+
+            try {
+                List<List<Transaction>> archived = fanOutArchive(start, end, sql,
+                        (archiveConnection, archiveSql) -> readTransactions(archiveConnection, archiveSql, throughParams));
+                if (archived.isEmpty()) return readTransactions(connection, sql, pageParams);
+
+                List<Transaction> merged = new ArrayList<>(readTransactions(connection, sql, throughParams));
+                archived.forEach(merged::addAll);
+                merged.sort(Comparator.comparing(Transaction::getDate).thenComparingInt(Transaction::getId).reversed());
+                return new ArrayList<>(merged.subList(Math.min(offset, merged.size()), Math.min(through, merged.size())));
+            } catch (SQLException e) {
+                failed(e);
+                return new ArrayList<>();
+            }
+        }));
+    }
+
+    // Rows as listTransactions and searchTransactions select them, in query order.
+    private static List<Transaction> readTransactions(Connection connection, String sql, Object[] params) throws SQLException {
+        List<Transaction> transactions = new ArrayList<>();
+        try (PreparedStatement ps = prepare(connection, sql, params);
              ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) transactions.add(readTransaction(rs));
+        }
+        return transactions;
+    }
 
-            while (rs.next()) {
-                types.add(rs.getString("name"));
+    private static PreparedStatement prepare(Connection connection, String sql, Object[] params) throws SQLException {
+        PreparedStatement ps = connection.prepareStatement(sql);
+        try {
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
             }
+            return ps;
         } catch (SQLException e) {
-            e.printStackTrace();
+            ps.close();
+            throw e;
         }
+    }
 
-        return types;
+    private static Transaction readTransaction(ResultSet rs) throws SQLException {
+        Transaction transaction = new Transaction(
+                rs.getInt("id"),
+                rs.getDouble("amount"),
+                rs.getString("date"),
+                rs.getString("categoryName"),
+                rs.getString("paymentType"),
+                rs.getString("comment"),
+                rs.getString("placeName"),
+                rs.getString("beneficiaryName")
+        );
+        transaction.setTypeId(rs.getInt("type_id"));
+        transaction.setCurrency(rs.getString("currency"));
+        return transaction;
     }
 
+    public List<Transaction> searchTransactions(String text, int typeId, LocalDate start, LocalDate end,
+                                               String categoryName, int offset, int limit) {
+        return Metrics.time("dao.searchTransactions", () -> pool.read(connection -> {
+            String matchQuery = CommentSearch.toMatchQuery(text);
+            if (matchQuery == null) return new ArrayList<>();
 
-    public List<String> getAllCategories() {
-        List<String> categories = new ArrayList<>();
-        String sql = "SELECT name FROM Categories";
+            String sql = "SELECT t.id, t.amount, t.date, t.type_id, c.name AS categoryName, " +
+                    "p.name AS paymentType, t.comment, " +
+                    "pl.name AS placeName, b.name AS beneficiaryName, " +
+                    "COALESCE(t.currency, p.currency) AS currency " +
+                    "FROM TransactionSearch s " +
+                    "JOIN Transactions t ON t.id = s.rowid " +
+                    "JOIN Categories c ON t.category_id = c.id " +
+                    "JOIN PaymentTypes p ON t.payment_type_id = p.id " +
+                    "LEFT JOIN Places pl ON t.place_id = pl.id " +
+                    "LEFT JOIN Beneficiaries b ON t.beneficiary_id = b.id " +
+                    "WHERE TransactionSearch MATCH ? " +
+                    "AND (? < 0 OR t.type_id = ?) " +
+                    "AND (? IS NULL OR t.date >= ?) " +
+                    "AND (? IS NULL OR t.date <= ?) " +
+                    "AND (? IS NULL OR c.name = ?) " +
+                    "ORDER BY bm25(TransactionSearch), t.date DESC " +
+                    "LIMIT ? OFFSET ?";
 
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                categories.add(rs.getString("name"));
+            String startDate = start == null ? null : start.toString();
+            String endDate = end == null ? null : end.toString();
+            int through = (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+            Object[] pageParams = {matchQuery, typeId, typeId, startDate, startDate, endDate, endDate,
+                    categoryName, categoryName, limit, offset};
+            Object[] throughParams = {matchQuery, typeId, typeId, startDate, startDate, endDate, endDate,
+                    categoryName, categoryName, through, 0};
+
+            try {
+                // Each archived year matches against the comment index in its own file. Scores from different
+                // indexes are close enough to interleave the years by relevance.
+                String rankedSql = sql.replace("t.id, t.amount", "bm25(TransactionSearch) AS rank, t.id, t.amount");
+                List<List<Ranked>> archived = fanOutArchive(start, end, rankedSql.replace(
+                                "FROM TransactionSearch s JOIN Transactions t", "FROM archive.TransactionSearch s JOIN archive.Transactions t"),
+                        (archiveConnection, archiveSql) -> readRanked(archiveConnection, archiveSql, throughParams));
+                if (archived.isEmpty()) return readTransactions(connection, sql, pageParams);
+
+                List<Ranked> merged = new ArrayList<>(readRanked(connection, rankedSql, throughParams));
+                archived.forEach(merged::addAll);
+                merged.sort(Comparator.comparingDouble(Ranked::rank)
+                        .thenComparing(ranked -> ranked.transaction().getDate(), Comparator.reverseOrder()));
+                List<Transaction> transactions = new ArrayList<>();
+                for (Ranked ranked : merged.subList(Math.min(offset, merged.size()), Math.min(through, merged.size()))) {
+                    transactions.add(ranked.transaction());
+                }
+                return transactions;
+            } catch (SQLException e) {
+                failed(e);
+                return new ArrayList<>();
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
+        }));
+    }
+
+    private record Ranked(double rank, Transaction transaction) {
+    }
+
+    private static List<Ranked> readRanked(Connection connection, String sql, Object[] params) throws SQLException {
+        List<Ranked> ranked = new ArrayList<>();
+        try (PreparedStatement ps = prepare(connection, sql, params);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) ranked.add(new Ranked(rs.getDouble("rank"), readTransaction(rs)));
         }
+        return ranked;
+    }
+
+    public List<String> getAllPaymentTypes() {
+        return Metrics.time("dao.getAllPaymentTypes", () -> pool.read(connection -> {
+            List<String> types = new ArrayList<>();
+            String sql = "SELECT name FROM PaymentTypes";
+
+            try (PreparedStatement ps = connection.prepareStatement(sql);
+                 ResultSet rs = ps.executeQuery()) {
+
+                while (rs.next()) {
+                    types.add(rs.getString("name"));
+                }
+            } catch (SQLException e) {
+                failed(e);
+            }
+
+            return types;
+        }));
+    }
+
+
+    public List<String> getAllCategories() {
+        return Metrics.time("dao.getAllCategories", () -> pool.read(connection -> {
+            List<String> categories = new ArrayList<>();
+            String sql = "SELECT name FROM Categories";
+
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    categories.add(rs.getString("name"));
+                }
+            } catch (SQLException e) {
+                failed(e);
+            }
 
-        return categories;
+            return categories;
+        }));
     }
 
     public boolean addPlace(String name) {
-        String sql = "INSERT INTO Places (name) VALUES (?)";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, name);
-            return stmt.executeUpdate() > 0;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
-        }
+        return Metrics.time("dao.addPlace", () -> pool.write(connection -> {
+            String sql = "INSERT INTO Places (name) VALUES (?)";
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, name);
+                if (stmt.executeUpdate() == 0) return false;
+                NameSuggestionIndex index = placeSuggestions;
+                if (index != null) index.add(name, 0, null);
+                return true;
+            } catch (SQLException e) {
+                failed(e);
+                return false;
+            }
+        }));
     }
 
     public boolean addBeneficiary(String name) {
-        String sql = "INSERT INTO Beneficiaries (name) VALUES (?)";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, name);
-            return stmt.executeUpdate() > 0;
+        return Metrics.time("dao.addBeneficiary", () -> pool.write(connection -> {
+            String sql = "INSERT INTO Beneficiaries (name) VALUES (?)";
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, name);
+                if (stmt.executeUpdate() == 0) return false;
+                NameSuggestionIndex index = beneficiarySuggestions;
+                if (index != null) index.add(name, 0, null);
+                return true;
+            } catch (SQLException e) {
+                failed(e);
+                return false;
+            }
+        }));
+    }
+
+
+    public Map<String, Integer> getCategoryIds() {
+        return Metrics.time("dao.getCategoryIds", () -> pool.read(connection -> {
+            return getIdsByName(connection, "Categories");
+        }));
+    }
+
+    public Map<String, Integer> getPaymentTypeIds() {
+        return Metrics.time("dao.getPaymentTypeIds", () -> pool.read(connection -> {
+            return getIdsByName(connection, "PaymentTypes");
+        }));
+    }
+
+    public Map<String, Integer> getPlaceIds() {
+        return Metrics.time("dao.getPlaceIds", () -> pool.read(connection -> {
+            return getIdsByName(connection, "Places");
+        }));
+    }
+
+    public Map<String, Integer> getBeneficiaryIds() {
+        return Metrics.time("dao.getBeneficiaryIds", () -> pool.read(connection -> {
+            return getIdsByName(connection, "Beneficiaries");
+        }));
+    }
+
+    private Map<String, Integer> getIdsByName(Connection connection, String table) {
+        Map<String, Integer> ids = new HashMap<>();
+        String sql = "SELECT id, name FROM " + table;
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) ids.put(rs.getString("name"), rs.getInt("id"));
         } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
+            failed(e);
         }
+        return ids;
     }
 
+    public Map<String, Integer> addPlaces(Collection<String> names) {
+        return Metrics.time("dao.addPlaces", () -> pool.write(connection -> {
+            return addNames(connection, "Places", names);
+        }));
+    }
 
-    public int getCategoryIdByName(String categoryName) {
-        String sql = "SELECT id FROM Categories WHERE name = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, categoryName);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt("id");
-            }
+    public Map<String, Integer> addBeneficiaries(Collection<String> names) {
+        return Metrics.time("dao.addBeneficiaries", () -> pool.write(connection -> {
+            return addNames(connection, "Beneficiaries", names);
+        }));
+    }
+
+    private Map<String, Integer> addNames(Connection connection, String table, Collection<String> names) {
+        Map<String, Integer> ids = new HashMap<>();
+        if (names.isEmpty()) return ids;
+
+        String sql = "INSERT INTO " + table + " (name) VALUES (?)";
+        try {
+            pool.transaction(tx -> {
+                try (PreparedStatement stmt = tx.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    for (String name : names) {
+                        stmt.setString(1, name);
+                        stmt.executeUpdate();
+                        try (ResultSet keys = stmt.getGeneratedKeys()) {
+                            if (keys.next()) ids.put(name, keys.getInt(1));
+                        }
+                    }
+                }
+                return ids;
+            });
         } catch (SQLException e) {
-            e.printStackTrace();
+            failed(e);
+            ids.clear();
         }
-        return -1;
+        return ids;
+    }
+
+    public int getCategoryIdByName(String categoryName) {
+        return Metrics.time("dao.getCategoryIdByName", () -> pool.read(connection -> {
+            String sql = "SELECT id FROM Categories WHERE name = ?";
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                pstmt.setString(1, categoryName);
+                ResultSet rs = pstmt.executeQuery();
+                if (rs.next()) {
+                    return rs.getInt("id");
+                }
+            } catch (SQLException e) {
+                failed(e);
+            }
+            return -1;
+        }));
     }
 
     public int getPaymentTypeIdByName(String paymentTypeName) {
-        String sql = "SELECT id FROM PaymentTypes WHERE name = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, paymentTypeName);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt("id");
+        return Metrics.time("dao.getPaymentTypeIdByName", () -> pool.read(connection -> {
+            String sql = "SELECT id FROM PaymentTypes WHERE name = ?";
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                pstmt.setString(1, paymentTypeName);
+                ResultSet rs = pstmt.executeQuery();
+                if (rs.next()) {
+                    return rs.getInt("id");
+                }
+            } catch (SQLException e) {
+                failed(e);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return -1;
+            return -1;
+        }));
     }
 
     public int getPlaceIdByName(String placeName) {
-        String sql = "SELECT id FROM Places WHERE name = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, placeName);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) return rs.getInt("id");
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return -1;
+        return Metrics.time("dao.getPlaceIdByName", () -> pool.read(connection -> {
+            String sql = "SELECT id FROM Places WHERE name = ?";
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                pstmt.setString(1, placeName);
+                ResultSet rs = pstmt.executeQuery();
+                if (rs.next()) return rs.getInt("id");
+            } catch (SQLException e) {
+                failed(e);
+            }
+            return -1;
+        }));
     }
 
     public int getBeneficiaryIdByName(String beneficiaryName) {
-        String sql = "SELECT id FROM Beneficiaries WHERE name = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            pstmt.setString(1, beneficiaryName);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) return rs.getInt("id");
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return -1;
+        return Metrics.time("dao.getBeneficiaryIdByName", () -> pool.read(connection -> {
+            String sql = "SELECT id FROM Beneficiaries WHERE name = ?";
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                pstmt.setString(1, beneficiaryName);
+                ResultSet rs = pstmt.executeQuery();
+                if (rs.next()) return rs.getInt("id");
+            } catch (SQLException e) {
+                failed(e);
+            }
+            return -1;
+        }));
     }
 
     public List<String> getAllPlaces() {
-        List<String> places = new ArrayList<>();
-        String sql = "SELECT name FROM Places";
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) places.add(rs.getString("name"));
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return places;
+        return Metrics.time("dao.getAllPlaces", () -> pool.read(connection -> {
+            List<String> places = new ArrayList<>();
+            String sql = "SELECT name FROM Places";
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) places.add(rs.getString("name"));
+            } catch (SQLException e) {
+                failed(e);
+            }
+            return places;
+        }));
     }
 
     public List<String> getAllBeneficiaries() {
-        List<String> beneficiaries = new ArrayList<>();
-        String sql = "SELECT name FROM Beneficiaries";
+        return Metrics.time("dao.getAllBeneficiaries", () -> pool.read(connection -> {
+            List<String> beneficiaries = new ArrayList<>();
+            String sql = "SELECT name FROM Beneficiaries";
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) beneficiaries.add(rs.getString("name"));
+            } catch (SQLException e) {
+                failed(e);
+            }
+            return beneficiaries;
+        }));
+    }
+
+    public NameSuggestionIndex getPlaceSuggestions() {
+        NameSuggestionIndex index = placeSuggestions;
+        if (index == null) {
+            index = loadPlaceSuggestions();
+            placeSuggestions = index;
+        }
+        return index;
+    }
+
+    public NameSuggestionIndex getBeneficiarySuggestions() {
+        NameSuggestionIndex index = beneficiarySuggestions;
+        if (index == null) {
+            index = loadBeneficiarySuggestions();
+            beneficiarySuggestions = index;
+        }
+        return index;
+    }
+
+    // Counts a saved row's place and beneficiary in the cached suggestions instead of reloading them.
+    public void recordNameUse(String placeName, String beneficiaryName, String date) {
+        LocalDate used;
+        try {
+            used = LocalDate.parse(date, LENIENT_DATE);
+        } catch (DateTimeParseException e) {
+            used = null;
+        }
+        NameSuggestionIndex places = placeSuggestions;
+        if (places != null) places.recordUse(placeName, used);
+        NameSuggestionIndex beneficiaries = beneficiarySuggestions;
+        if (beneficiaries != null) beneficiaries.recordUse(beneficiaryName, used);
+    }
+
+    private NameSuggestionIndex loadPlaceSuggestions() {
+        return Metrics.time("dao.getPlaceSuggestions", () -> pool.read(connection -> {
+            return getNameSuggestions(connection, """
+            SELECT pl.name, COUNT(t.id) AS uses, MAX(t.date) AS lastUsed
+            FROM Places pl
+            LEFT JOIN Transactions t ON t.place_id = pl.id
+            GROUP BY pl.id
+            """);
+        }));
+    }
+
+    private NameSuggestionIndex loadBeneficiarySuggestions() {
+        return Metrics.time("dao.getBeneficiarySuggestions", () -> pool.read(connection -> {
+            return getNameSuggestions(connection, """
+            SELECT b.name, COUNT(t.id) AS uses, MAX(t.date) AS lastUsed
+            FROM Beneficiaries b
+            LEFT JOIN Transactions t ON t.beneficiary_id = b.id
+            GROUP BY b.id
+            """);
+        }));
+    }
+
+    private NameSuggestionIndex getNameSuggestions(Connection connection, String sql) {
+        NameSuggestionIndex index = new NameSuggestionIndex();
         try (Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) beneficiaries.add(rs.getString("name"));
+            while (rs.next()) {
+                String lastUsed = rs.getString("lastUsed");
+                LocalDate lastUsedDate = null;
+                if (lastUsed != null) {
+                    try {
+                        lastUsedDate = LocalDate.parse(lastUsed, LENIENT_DATE);
+                    } catch (DateTimeParseException e) {
+                        System.err.println("Invalid date format in transaction: " + lastUsed);
+                    }
+                }
+                index.add(rs.getString("name"), rs.getInt("uses"), lastUsedDate);
+            }
         } catch (SQLException e) {
-            e.printStackTrace();
+            failed(e);
         }
-        return beneficiaries;
+        return index;
     }
 
     public List<PaymentType> getAllPaymentTypeObjects() {
-        List<PaymentType> paymentTypes = new ArrayList<>();
-        String sql = "SELECT id, name, bank, issuer, issue_date, expiration_date FROM PaymentTypes";
+        return Metrics.time("dao.getAllPaymentTypeObjects", () -> pool.read(connection -> {
+            List<PaymentType> paymentTypes = new ArrayList<>();
+            String sql = "SELECT id, name, bank, issuer, issue_date, expiration_date, currency FROM PaymentTypes";
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
+            try (PreparedStatement stmt = connection.prepareStatement(sql);
+                 ResultSet rs = stmt.executeQuery()) {
 
-            while (rs.next()) {
-                paymentTypes.add(new PaymentType(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getString("bank"),
-                        rs.getString("issuer"),
-                        rs.getString("issue_date"),
-                        rs.getString("expiration_date")
-                ));
+                while (rs.next()) {
+                    paymentTypes.add(new PaymentType(
+                            rs.getInt("id"),
+                            rs.getString("name"),
+                            rs.getString("bank"),
+                            rs.getString("issuer"),
+                            rs.getString("issue_date"),
+                            rs.getString("expiration_date"),
+                            rs.getString("currency")
+                    ));
+                }
+
+            } catch (SQLException e) {
+                failed(e);
             }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
+            return paymentTypes;
+        }));
+    }
+
+    public boolean addPaymentType(PaymentType pt) {
+        return Metrics.time("dao.addPaymentType", () -> pool.write(connection -> {
+            String sql = "INSERT INTO PaymentTypes (name, bank, issuer, issue_date, expiration_date, currency) VALUES (?, ?, ?, ?, ?, ?)";
+
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, pt.getName());
+                stmt.setString(2, pt.getBank());
+                stmt.setString(3, pt.getIssuer());
+                stmt.setString(4, pt.getIssueDate());
+                stmt.setString(5, pt.getExpirationDate());
+                stmt.setString(6, normalizeCurrency(pt.getCurrency()));
+                paymentTypeCurrencies = null;
+                return stmt.executeUpdate() > 0;
+            } catch (SQLException e) {
+                failed(e);
+                return false;
+            }
+        }));
+    }
+
+    public boolean updatePaymentType(PaymentType pt) {
+        return Metrics.time("dao.updatePaymentType", () -> pool.write(connection -> {
+            String sql = "UPDATE PaymentTypes SET name = ?, bank = ?, issuer = ?, issue_date = ?, expiration_date = ?, currency = ? WHERE id = ?";
+
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, pt.getName());
+                stmt.setString(2, pt.getBank());
+                stmt.setString(3, pt.getIssuer());
+                stmt.setString(4, pt.getIssueDate());
+                stmt.setString(5, pt.getExpirationDate());
+                stmt.setString(6, normalizeCurrency(pt.getCurrency()));
+                stmt.setInt(7, pt.getId());
+                paymentTypeCurrencies = null;
+                return stmt.executeUpdate() > 0;
+            } catch (SQLException e) {
+                failed(e);
+                return false;
+            }
+        }));
+    }
+
+    public boolean deletePaymentType(int id) {
+        return Metrics.time("dao.deletePaymentType", () -> pool.write(connection -> {
+            String sql = "DELETE FROM PaymentTypes WHERE id = ?";
+
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setInt(1, id);
+                return stmt.executeUpdate() > 0;
+            } catch (SQLException e) {
+                Metrics.recordError();
+                System.err.println("Attempted to delete payment type in use: " + e.getMessage());
+                return false;
+            }
+        }));
+    }
+
+    public CurrencyConverter getCurrencyConverter() {
+        return Metrics.time("dao.getCurrencyConverter", () -> pool.read(connection -> {
+            if (currencyConverter == null) {
+                currencyConverter = new CurrencyConverter(getExchangeRates());
+            }
+            return currencyConverter;
+        }));
+    }
+
+    public List<ExchangeRate> getExchangeRates() {
+        return Metrics.time("dao.getExchangeRates", () -> pool.read(connection -> {
+            List<ExchangeRate> rates = new ArrayList<>();
+            String sql = "SELECT currency, date, rate FROM ExchangeRates ORDER BY currency, date";
+
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    try {
+                        rates.add(new ExchangeRate(rs.getString(1), LocalDate.parse(rs.getString(2), LENIENT_DATE), rs.getDouble(3)));
+                    } catch (DateTimeParseException e) {
+                        System.err.println("Invalid exchange rate date: " + rs.getString(2));
+                    }
+                }
+            } catch (SQLException e) {
+                failed(e);
+            }
+            return rates;
+        }));
+    }
+
+    public int saveExchangeRates(Collection<ExchangeRate> rates) {
+        return Metrics.time("dao.saveExchangeRates", () -> pool.write(connection -> {
+            if (rates.isEmpty()) return 0;
+
+            String sql = "INSERT INTO ExchangeRates (currency, date, rate) VALUES (?, ?, ?) " +
+                    "ON CONFLICT(currency, date) DO UPDATE SET rate = excluded.rate";
+
+            try {
+                pool.transaction(tx -> {
+                    try (PreparedStatement ps = tx.prepareStatement(sql)) {
+                        for (ExchangeRate rate : rates) {
+                            ps.setString(1, normalizeCurrency(rate.getCurrency()));
+                            ps.setString(2, rate.getDate().toString());
+                            ps.setDouble(3, rate.getRate());
+                            ps.addBatch();
+                        }
+                        return ps.executeBatch();
+                    }
+                });
+                currencyConverter = null;
+                return rates.size();
+            } catch (SQLException e) {
+                failed(e);
+                return 0;
+            }
+        }));
+    }
+
+    public double toBaseAmount(Transaction transaction) {
+        return Metrics.time("dao.toBaseAmount", () -> pool.read(connection -> getCurrencyConverter().toBase(
+                transaction.getAmount(), effectiveCurrency(connection, transaction), transaction.getDate())));
+    }
+
+    // The currency the amount is in: the row's own, else its payment type's, or null for the base currency.
+    public String getEffectiveCurrency(Transaction transaction) {
+        return pool.read(connection -> effectiveCurrency(connection, transaction));
+    }
+
+    private String effectiveCurrency(Connection connection, Transaction transaction) {
+        String currency = transaction.getCurrency();
+        return currency != null ? currency : getPaymentTypeCurrencies(connection).get(transaction.getPaymentTypeId());
+    }
+
+    private Map<Integer, String> getPaymentTypeCurrencies(Connection connection) {
+        if (paymentTypeCurrencies == null) {
+            Map<Integer, String> currencies = new HashMap<>();
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT id, currency FROM PaymentTypes WHERE currency IS NOT NULL")) {
+                while (rs.next()) {
+                    currencies.put(rs.getInt(1), rs.getString(2));
+                }
+            } catch (SQLException e) {
+                failed(e);
+            }
+            paymentTypeCurrencies = currencies;
         }
+        return paymentTypeCurrencies;
+    }
 
-        return paymentTypes;
+    private static String normalizeCurrency(String currency) {
+        if (currency == null || currency.isBlank()) return null;
+        return currency.trim().toUpperCase(Locale.ROOT);
     }
 
-    public boolean addPaymentType(PaymentType pt) {
-        String sql = "INSERT INTO PaymentTypes (name, bank, issuer, issue_date, expiration_date) VALUES (?, ?, ?, ?, ?)";
+    public List<RecurringTransaction> getRecurringTransactions() {
+        return Metrics.time("dao.getRecurringTransactions", () -> pool.read(connection -> {
+            List<RecurringTransaction> list = new ArrayList<>();
+            String sql = "SELECT r.*, c.name AS categoryName, p.name AS paymentType, " +
+                    "pl.name AS placeName, b.name AS beneficiaryName " +
+                    "FROM RecurringTransactions r " +
+                    "JOIN Categories c ON r.category_id = c.id " +
+                    "JOIN PaymentTypes p ON r.payment_type_id = p.id " +
+                    "LEFT JOIN Places pl ON r.place_id = pl.id " +
+                    "LEFT JOIN Beneficiaries b ON r.beneficiary_id = b.id " +
+                    "ORDER BY r.id";
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, pt.getName());
-            stmt.setString(2, pt.getBank());
-            stmt.setString(3, pt.getIssuer());
-            stmt.setString(4, pt.getIssueDate());
-            stmt.setString(5, pt.getExpirationDate());
-            return stmt.executeUpdate() > 0;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
+            try (PreparedStatement stmt = connection.prepareStatement(sql);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    RecurringTransaction recurring = new RecurringTransaction(
+                            rs.getDouble("amount"),
+                            rs.getInt("category_id"),
+                            rs.getInt("payment_type_id"),
+                            rs.getString("comment"),
+                            rs.getInt("place_id"),
+                            rs.getInt("beneficiary_id"),
+                            rs.getInt("type_id"),
+                            rs.getString("rule"),
+                            rs.getString("start_date"),
+                            rs.getString("end_date")
+                    );
+                    recurring.setId(rs.getInt("id"));
+                    recurring.setUid(rs.getString("uid"));
+                    recurring.setLastGenerated(rs.getString("last_generated"));
+                    recurring.setCategoryName(rs.getString("categoryName"));
+                    recurring.setPaymentType(rs.getString("paymentType"));
+                    recurring.setPlaceName(rs.getString("placeName"));
+                    recurring.setBeneficiaryName(rs.getString("beneficiaryName"));
+                    list.add(recurring);
+                }
+            } catch (SQLException e) {
+                failed(e);
+            }
+            return list;
+        }));
+    }
+
+    public boolean addRecurringTransaction(RecurringTransaction recurring) {
+        return Metrics.time("dao.addRecurringTransaction", () -> pool.write(connection -> {
+            String sql = "INSERT INTO RecurringTransactions (amount, category_id, payment_type_id, comment, place_id, " +
+                    "beneficiary_id, type_id, rule, start_date, end_date, last_generated, uid) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+            try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                if (recurring.getUid() == null) recurring.setUid(UUID.randomUUID().toString());
+                stmt.setDouble(1, recurring.getAmount());
+                stmt.setInt(2, recurring.getCategoryId());
+                stmt.setInt(3, recurring.getPaymentTypeId());
+                stmt.setString(4, recurring.getComment());
+                stmt.setInt(5, recurring.getPlaceId());
+                stmt.setInt(6, recurring.getBeneficiaryId());
+                stmt.setInt(7, recurring.getTypeId());
+                stmt.setString(8, recurring.getRule());
+                stmt.setString(9, recurring.getStartDate());
+                stmt.setString(10, recurring.getEndDate());
+                stmt.setString(11, recurring.getLastGenerated());
+                stmt.setString(12, recurring.getUid());
+                if (stmt.executeUpdate() == 0) return false;
+
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    if (keys.next()) recurring.setId(keys.getInt(1));
+                }
+                return true;
+            } catch (SQLException e) {
+                failed(e);
+                return false;
+            }
+        }));
+    }
+
+    public boolean deleteRecurringTransaction(int id) {
+        return Metrics.time("dao.deleteRecurringTransaction", () -> pool.write(connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement("DELETE FROM RecurringTransactions WHERE id = ?")) {
+                stmt.setInt(1, id);
+                return stmt.executeUpdate() > 0;
+            } catch (SQLException e) {
+                failed(e);
+                return false;
+            }
+        }));
+    }
+
+    public boolean setRecurringLastGenerated(Map<Integer, LocalDate> lastGenerated) {
+        return Metrics.time("dao.setRecurringLastGenerated", () -> pool.write(connection -> {
+            if (lastGenerated.isEmpty()) return true;
+
+            try {
+                pool.transaction(tx -> {
+                    try (PreparedStatement stmt = tx.prepareStatement(
+                            "UPDATE RecurringTransactions SET last_generated = ? WHERE id = ?")) {
+                        for (Map.Entry<Integer, LocalDate> entry : lastGenerated.entrySet()) {
+                            stmt.setString(1, entry.getValue().toString());
+                            stmt.setInt(2, entry.getKey());
+                            stmt.addBatch();
+                        }
+                        return stmt.executeBatch();
+                    }
+                });
+                return true;
+            } catch (SQLException e) {
+                failed(e);
+                return false;
+            }
+        }));
+    }
+
+    public Set<String> getOccurrenceKeys(String prefix, LocalDate from) {
+        return Metrics.time("dao.getOccurrenceKeys", () -> pool.read(connection -> {
+            Set<String> keys = new HashSet<>();
+            String sql = "SELECT occurrence_key FROM Transactions WHERE occurrence_key >= ? AND occurrence_key < ? AND date >= ?";
+
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, prefix);
+                stmt.setString(2, prefix + Character.MAX_VALUE);
+                stmt.setString(3, from.toString());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        keys.add(rs.getString(1));
+                    }
+                }
+            } catch (SQLException e) {
+                failed(e);
+            }
+            return keys;
+        }));
+    }
+
+    public List<Budget> getBudgets() {
+        return Metrics.time("dao.getBudgets", () -> pool.read(connection -> {
+            List<Budget> budgets = new ArrayList<>();
+            String sql = "SELECT b.id, b.scope, b.target_id, b.monthly_limit, " +
+                    "CASE b.scope WHEN 'CATEGORY' THEN c.name ELSE p.name END AS targetName " +
+                    "FROM Budgets b " +
+                    "LEFT JOIN Categories c ON b.scope = 'CATEGORY' AND b.target_id = c.id " +
+                    "LEFT JOIN PaymentTypes p ON b.scope = 'PAYMENT_TYPE' AND b.target_id = p.id " +
+                    "ORDER BY b.scope, targetName";
+
+            try (PreparedStatement stmt = connection.prepareStatement(sql);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    budgets.add(new Budget(
+                            rs.getInt("id"),
+                            Budget.Scope.valueOf(rs.getString("scope")),
+                            rs.getInt("target_id"),
+                            rs.getString("targetName"),
+                            rs.getDouble("monthly_limit")
+                    ));
+                }
+            } catch (SQLException e) {
+                failed(e);
+            }
+            return budgets;
+        }));
+    }
+
+    public boolean saveBudget(Budget budget) {
+        return Metrics.time("dao.saveBudget", () -> pool.write(connection -> {
+            String sql = "INSERT INTO Budgets (scope, target_id, monthly_limit) VALUES (?, ?, ?) " +
+                    "ON CONFLICT(scope, target_id) DO UPDATE SET monthly_limit = excluded.monthly_limit";
+
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, budget.getScope().name());
+                stmt.setInt(2, budget.getTargetId());
+                stmt.setDouble(3, budget.getMonthlyLimit());
+                return stmt.executeUpdate() > 0;
+            } catch (SQLException e) {
+                failed(e);
+                return false;
+            }
+        }));
+    }
+
+    public boolean deleteBudget(int id) {
+        return Metrics.time("dao.deleteBudget", () -> pool.write(connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement("DELETE FROM Budgets WHERE id = ?")) {
+                stmt.setInt(1, id);
+                return stmt.executeUpdate() > 0;
+            } catch (SQLException e) {
+                failed(e);
+                return false;
+            }
+        }));
+    }
+
+    public Map<Integer, Double> getMonthlyExpensesByCategoryId(YearMonth month) {
+        return Metrics.time("dao.getMonthlyExpensesByCategoryId", () -> pool.read(connection -> {
+            return getMonthlyExpensesBy(connection, "category_id", month);
+        }));
+    }
+
+    public Map<Integer, Double> getMonthlyExpensesByPaymentTypeId(YearMonth month) {
+        return Metrics.time("dao.getMonthlyExpensesByPaymentTypeId", () -> pool.read(connection -> {
+            return getMonthlyExpensesBy(connection, "payment_type_id", month);
+        }));
+    }
+
+    // One row per type, category and month with the month's total in the base currency, dated the first of the month.
+    // Rows generated from recurring definitions are left out, since forecasts take those from the definitions.
+    public List<Transaction> getMonthlyCategoryTotals() {
+        return Metrics.time("dao.getMonthlyCategoryTotals", () -> pool.read(connection -> {
+            String sql = "SELECT t.type_id, t.category_id, COALESCE(t.currency, p.currency), t.date, SUM(t.amount) " +
+                    "FROM Transactions t JOIN PaymentTypes p ON t.payment_type_id = p.id " +
+                    "WHERE t.occurrence_key IS NULL GROUP BY 1, 2, 3, 4";
+
+            CurrencyConverter.Lookup rates = getCurrencyConverter().lookup();
+            Map<Long, Transaction> totals = new HashMap<>();
+            try {
+                monthlyTotalsInto(connection, sql, rates, totals);
+                LedgerArchive ledgerArchive = archive;
+                if (ledgerArchive != null) {
+                    String archiveSql = sql.replace("FROM Transactions t", "FROM archive.Transactions t");
+                    for (Map<Long, Transaction> partial : ledgerArchive.fanOut(null, null, archiveConnection -> {
+                        Map<Long, Transaction> yearTotals = new HashMap<>();
+                        monthlyTotalsInto(archiveConnection, archiveSql, rates, yearTotals);
+                        return yearTotals;
+                    })) {
+                        partial.forEach((key, total) -> totals.merge(key, total, (a, b) -> {
+                            a.setAmount(a.getAmount() + b.getAmount());
+                            return a;
+                        }));
+                    }
+                }
+            } catch (SQLException e) {
+                failed(e);
+            }
+            Metrics.recordRows(totals.size());
+            return new ArrayList<>(totals.values());
+        }));
+    }
+
+    private static void monthlyTotalsInto(Connection connection, String sql, CurrencyConverter.Lookup rates,
+                                          Map<Long, Transaction> totals) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                long day = EpochDays.parse(rs.getString(4));
+                if (day == EpochDays.INVALID) continue;
+                int typeId = rs.getInt(1);
+                int categoryId = rs.getInt(2);
+                String currency = rs.getString(3);
+                double amount = currency == null ? rs.getDouble(5) : rates.toBase(rs.getDouble(5), currency, day);
+                int month = EpochDays.monthIndex(day);
+
+                long key = ((long) month << 33) | ((long) typeId << 32) | (categoryId & 0xFFFFFFFFL);
+                Transaction total = totals.get(key);
+                if (total == null) {
+                    String date = YearMonth.of(month / 12, month % 12 + 1).atDay(1).toString();
+                    totals.put(key, new Transaction(amount, date, categoryId, 0, null, 0, 0, typeId));
+                } else {
+                    total.setAmount(total.getAmount() + amount);
+                }
+            }
         }
     }
 
-    public boolean updatePaymentType(PaymentType pt) {
-        String sql = "UPDATE PaymentTypes SET name = ?, bank = ?, issuer = ?, issue_date = ?, expiration_date = ? WHERE id = ?";
+    private Map<Integer, Double> getMonthlyExpensesBy(Connection connection, String column, YearMonth month) {
+        return aggregateInBaseCurrency(connection, "t." + column, "SUM", month.atDay(1), month.atEndOfMonth(),
+                "t.type_id = 0 AND t.date >= ? AND t.date <= ?",
+                month.atDay(1).toString(), month.atEndOfMonth().toString());
+    }
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, pt.getName());
-            stmt.setString(2, pt.getBank());
-            stmt.setString(3, pt.getIssuer());
-            stmt.setString(4, pt.getIssueDate());
-            stmt.setString(5, pt.getExpirationDate());
-            stmt.setInt(6, pt.getId());
-            return stmt.executeUpdate() > 0;
+    private Map<Integer, Double> aggregateInBaseCurrency(Connection connection, String keyColumn, String aggregate,
+                                                         LocalDate from, LocalDate to, String where, Object... params) {
+        boolean max = aggregate.equals("MAX");
+        Map<Integer, Double> totals = new HashMap<>();
+        String sql = "SELECT " + keyColumn + ", COALESCE(t.currency, p.currency), t.date, " + aggregate + "(t.amount) " +
+                "FROM Transactions t JOIN PaymentTypes p ON t.payment_type_id = p.id " +
+                "WHERE " + where + " GROUP BY 1, 2, 3";
+
+        CurrencyConverter.Lookup rates = getCurrencyConverter().lookup();
+        try {
+            aggregateInto(connection, sql, params, rates, max, totals);
+            LedgerArchive ledgerArchive = archive;
+            if (ledgerArchive != null) {
+                String archiveSql = sql.replace("FROM Transactions t", "FROM archive.Transactions t");
+                for (Map<Integer, Double> partial : ledgerArchive.fanOut(from, to, archiveConnection -> {
+                    Map<Integer, Double> yearTotals = new HashMap<>();
+                    aggregateInto(archiveConnection, archiveSql, params, rates, max, yearTotals);
+                    return yearTotals;
+                })) {
+                    partial.forEach((key, amount) -> totals.merge(key, amount, max ? Math::max : Double::sum));
+                }
+            }
         } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
+            failed(e);
         }
+        return totals;
     }
 
-    public boolean deletePaymentType(int id) {
-        String sql = "DELETE FROM PaymentTypes WHERE id = ?";
-
+    private static void aggregateInto(Connection connection, String sql, Object[] params, CurrencyConverter.Lookup rates,
+                                      boolean max, Map<Integer, Double> totals) throws SQLException {
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, id);
-            return stmt.executeUpdate() > 0;
-        } catch (SQLException e) {
-            //e.printStackTrace();
-            System.err.println("Attempted to delete payment type in use: " + e.getMessage());
-            return false;
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String currency = rs.getString(2);
+                    double amount = rs.getDouble(4);
+                    if (currency != null) {
+                        long day = EpochDays.parse(rs.getString(3));
+                        if (day != EpochDays.INVALID) amount = rates.toBase(amount, currency, day);
+                    }
+                    totals.merge(rs.getInt(1), amount, max ? Math::max : Double::sum);
+                }
+            }
         }
     }
 
     public String getTopBeneficiaryByCategory(String categoryName) {
-        String sql = """
-        SELECT b.name, COUNT(*) AS freq
-        FROM Transactions t
-        JOIN Categories c ON t.category_id = c.id
-        JOIN Beneficiaries b ON t.beneficiary_id = b.id
-        WHERE c.name = ?
-        GROUP BY b.name
-        ORDER BY freq DESC
-        LIMIT 1
-    """;
+        return Metrics.time("dao.getTopBeneficiaryByCategory", () -> pool.read(connection -> {
+            String sql = """
+            SELECT b.name, COUNT(*) AS freq
+            FROM Transactions t
+            JOIN Categories c ON t.category_id = c.id
+            JOIN Beneficiaries b ON t.beneficiary_id = b.id
+            WHERE c.name = ?
+            GROUP BY b.name
+            """;
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, categoryName);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return rs.getString("name");
+            try {
+                return mostUsed(countByName(connection, sql, categoryName));
+            } catch (SQLException e) {
+                failed(e);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
+            return null;
+        }));
+    }
+
+    // Uses per name across the ledger and every archived year, from a query selecting a name and its count.
+    private Map<String, Long> countByName(Connection connection, String sql, Object... params) throws SQLException {
+        Map<String, Long> counts = new HashMap<>();
+        countByName(connection, sql, params, counts);
+        for (Map<String, Long> year : fanOutArchive(null, null, sql, (archiveConnection, archiveSql) -> {
+            Map<String, Long> yearCounts = new HashMap<>();
+            countByName(archiveConnection, archiveSql, params, yearCounts);
+            return yearCounts;
+        })) {
+            year.forEach((name, count) -> counts.merge(name, count, Long::sum));
         }
-        return null;
+        return counts;
+    }
+
+    private static void countByName(Connection connection, String sql, Object[] params, Map<String, Long> counts) throws SQLException {
+        try (PreparedStatement ps = prepare(connection, sql, params);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) counts.merge(rs.getString(1), rs.getLong(2), Long::sum);
+        }
+    }
+
+    private static String mostUsed(Map<String, Long> counts) {
+        return counts.entrySet().stream()
+                .max(Map.Entry.<String, Long>comparingByValue().thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                .map(Map.Entry::getKey)
+                .orElse(null);
     }
 
     public double getTotalIncome() {
-        return getSumByType(1);
+        return Metrics.time("dao.getTotalIncome", () -> pool.read(connection -> {
+            return getSumByType(connection, 1);
+        }));
     }
 
     public double getTotalExpense() {
-        return getSumByType(0);
+        return Metrics.time("dao.getTotalExpense", () -> pool.read(connection -> {
+            return getSumByType(connection, 0);
+        }));
     }
 
-    private double getSumByType(int typeId) {
-        String sql = "SELECT SUM(amount) FROM Transactions WHERE type_id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, typeId);
-            ResultSet rs = stmt.executeQuery();
-            return rs.next() ? rs.getDouble(1) : 0.0;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return 0.0;
-        }
+    private double getSumByType(Connection connection, int typeId) {
+        return aggregateInBaseCurrency(connection, "t.type_id", "SUM", null, null, "t.type_id = ?", typeId).getOrDefault(typeId, 0.0);
     }
 
     public int getTotalTransactions() {
-        String sql = "SELECT COUNT(*) FROM Transactions";
-        try (PreparedStatement stmt = connection.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            return rs.next() ? rs.getInt(1) : 0;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return 0;
-        }
+        return Metrics.time("dao.getTotalTransactions", () -> pool.read(connection -> {
+            String sql = "SELECT COUNT(*) FROM Transactions t";
+            ArchiveQuery<Integer> count = (countConnection, countSql) -> {
+                try (PreparedStatement stmt = countConnection.prepareStatement(countSql);
+                     ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
+            };
+            try {
+                int total = count.run(connection, sql);
+                for (int year : fanOutArchive(null, null, sql, count)) total += year;
+                return total;
+            } catch (SQLException e) {
+                failed(e);
+                return 0;
+            }
+        }));
     }
 
     public double getMaxTransactionAmount() {
-        String sql = "SELECT MAX(amount) FROM Transactions";
-        try (PreparedStatement stmt = connection.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            return rs.next() ? rs.getDouble(1) : 0.0;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return 0.0;
-        }
+        return Metrics.time("dao.getMaxTransactionAmount", () -> pool.read(connection -> {
+            return aggregateInBaseCurrency(connection, "0", "MAX", null, null, "1 = 1").getOrDefault(0, 0.0);
+        }));
     }
 
     public String getMostUsedCategory() {
-        String sql = """
-        SELECT c.name, COUNT(*) as count
-        FROM Transactions t
-        JOIN Categories c ON t.category_id = c.id
-        GROUP BY c.name
-        ORDER BY count DESC
-        LIMIT 1
-        """;
-        try (PreparedStatement stmt = connection.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            return rs.next() ? rs.getString("name") : "N/A";
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return "N/A";
-        }
+        return Metrics.time("dao.getMostUsedCategory", () -> pool.read(connection -> {
+            String sql = """
+            SELECT c.name, COUNT(*) as count
+            FROM Transactions t
+            JOIN Categories c ON t.category_id = c.id
+            GROUP BY c.name
+            """;
+            try {
+                String name = mostUsed(countByName(connection, sql));
+                return name == null ? "N/A" : name;
+            } catch (SQLException e) {
+                failed(e);
+                return "N/A";
+            }
+        }));
     }
 
     public String getTopBeneficiary() {
-        String sql = """
-        SELECT b.name, COUNT(*) as count
-        FROM Transactions t
-        JOIN Beneficiaries b ON t.beneficiary_id = b.id
-        GROUP BY b.name
-        ORDER BY count DESC
-        LIMIT 1
-        """;
-        try (PreparedStatement stmt = connection.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            return rs.next() ? rs.getString("name") : "N/A";
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return "N/A";
+        return Metrics.time("dao.getTopBeneficiary", () -> pool.read(connection -> {
+            String sql = """
+            SELECT b.name, COUNT(*) as count
+            FROM Transactions t
+            JOIN Beneficiaries b ON t.beneficiary_id = b.id
+            GROUP BY b.name
+            """;
+            try {
+                String name = mostUsed(countByName(connection, sql));
+                return name == null ? "N/A" : name;
+            } catch (SQLException e) {
+                failed(e);
+                return "N/A";
+            }
+        }));
+    }
+
+    public String getReplicaId() {
+        return Metrics.time("dao.getReplicaId", () -> pool.read(connection -> {
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT replica FROM SyncState")) {
+                return rs.next() ? rs.getString(1) : null;
+            } catch (SQLException e) {
+                failed(e);
+                return null;
+            }
+        }));
+    }
+
+    // The highest logical clock seen from each replica, this one included.
+    public Map<String, Long> getSyncVector() {
+        return Metrics.time("dao.getSyncVector", () -> pool.read(connection -> {
+            try {
+                return readSyncVector(connection);
+            } catch (SQLException e) {
+                failed(e);
+                return Map.of();
+            }
+        }));
+    }
+
+    private static Map<String, Long> readSyncVector(Connection connection) throws SQLException {
+        Map<String, Long> vector = new HashMap<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT origin, clock FROM SyncVector UNION ALL SELECT replica, clock FROM SyncState")) {
+            while (rs.next()) {
+                vector.merge(rs.getString(1), rs.getLong(2), Math::max);
+            }
+        }
+        return vector;
+    }
+
+    // Latest version of every row changed after the given vector: one entry per row however often it was edited.
+    public List<SyncChange> getChangesSince(Map<String, Long> since) {
+        return Metrics.time("dao.getChangesSince", () -> pool.read(connection -> {
+            List<SyncChange> changes = new ArrayList<>();
+            String sql = """
+                SELECT c.sync_id, c.origin, c.clock, c.deleted, t.amount, t.date, t.type_id, cat.name, p.name,
+                       pl.name, b.name, t.comment, t.currency, t.occurrence_key
+                FROM ChangeLog c
+                LEFT JOIN Transactions t ON t.sync_id = c.sync_id
+                LEFT JOIN Categories cat ON t.category_id = cat.id
+                LEFT JOIN PaymentTypes p ON t.payment_type_id = p.id
+                LEFT JOIN Places pl ON t.place_id = pl.id
+                LEFT JOIN Beneficiaries b ON t.beneficiary_id = b.id
+                WHERE c.clock > ?
+                ORDER BY c.clock
+                """;
+
+            try {
+                // Narrow the scan by the oldest clock the peer may be missing, then filter per origin.
+                long floor = Long.MAX_VALUE;
+                for (String origin : readSyncVector(connection).keySet()) {
+                    floor = Math.min(floor, since.getOrDefault(origin, 0L));
+                }
+                if (floor == Long.MAX_VALUE) return changes;
+
+                // Rows whose year was archived are no longer joined here; they are read from the year files
+                // afterwards and put back in their place.
+                List<Integer> archived = new ArrayList<>();
+                try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    stmt.setLong(1, floor);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            String origin = rs.getString(2);
+                            long clock = rs.getLong(3);
+                            if (clock <= since.getOrDefault(origin, 0L)) continue;
+
+                            Transaction transaction = null;
+                            if (rs.getInt(4) == 0) {
+                                if (rs.getString(6) == null) archived.add(changes.size());
+                                else transaction = syncTransaction(rs);
+                            }
+                            changes.add(new SyncChange(rs.getString(1), origin, clock, transaction));
+                        }
+                    }
+                }
+
+                if (!archived.isEmpty()) {
+                    Map<String, Transaction> rows = new HashMap<>();
+                    long oldest = floor;
+                    String archiveSql = sql.replace("LEFT JOIN Transactions t", "JOIN archive.Transactions t");
+                    for (Map<String, Transaction> year : fanOutArchive(null, null, archiveSql, (archiveConnection, yearSql) -> {
+                        Map<String, Transaction> yearRows = new HashMap<>();
+                        try (PreparedStatement stmt = archiveConnection.prepareStatement(yearSql)) {
+                            stmt.setLong(1, oldest);
+                            try (ResultSet rs = stmt.executeQuery()) {
+                                while (rs.next()) yearRows.put(rs.getString(1), syncTransaction(rs));
+                            }
+                        }
+                        return yearRows;
+                    })) {
+                        rows.putAll(year);
+                    }
+                    for (int index : archived) {
+                        SyncChange change = changes.get(index);
+                        Transaction row = rows.get(change.getSyncId());
+                        changes.set(index, row == null ? null
+                                : new SyncChange(change.getSyncId(), change.getOrigin(), change.getClock(), row));
+                    }
+                    changes.removeIf(Objects::isNull);
+                }
+            } catch (SQLException e) {
+                failed(e);
+                changes.clear();
+            }
+            return changes;
+        }));
+    }
+
+    private static Transaction syncTransaction(ResultSet rs) throws SQLException {
+        Transaction transaction = new Transaction(0, rs.getDouble(5), rs.getString(6), rs.getString(8),
+                rs.getString(9), rs.getString(12), rs.getString(10), rs.getString(11));
+        transaction.setTypeId(rs.getInt(7));
+        transaction.setCurrency(rs.getString(13));
+        transaction.setOccurrenceKey(rs.getString(14));
+        return transaction;
+    }
+
+    // Applies a peer's changes and returns how many won their conflict, or -1 if nothing was applied. Changes to rows
+    // the archive has moved out are written to their year's file, one transaction per year; the ledger's own
+    // transaction comes last and is the one that records the peer's vector, so an interrupted run is sent again.
+    public int applyChanges(Map<String, Long> vector, List<SyncChange> changes) {
+        return Metrics.time("dao.applyChanges", () -> pool.write(connection -> {
+            try {
+                Map<String, Integer> archivedYears = findArchived(connection, changes);
+                Map<Integer, List<SyncChange>> archived = new TreeMap<>();
+                List<SyncChange> hot = new ArrayList<>();
+                for (SyncChange change : changes) {
+                    Integer year = archivedYears.get(change.getSyncId());
+                    if (year == null) hot.add(change);
+                    else archived.computeIfAbsent(year, y -> new ArrayList<>()).add(change);
+                }
+
+                int applied = 0;
+                LedgerArchive ledgerArchive = archive;
+                for (Map.Entry<Integer, List<SyncChange>> year : archived.entrySet()) {
+                    applied += ledgerArchive.withYear(connection, year.getKey(), yearConnection ->
+                            pool.transaction(tx -> applyChanges(tx, year.getKey(), year.getValue())));
+                }
+                applied += pool.transaction(tx -> {
+                    int hotApplied = applyChanges(tx, 0, hot);
+                    recordSeen(tx, vector, changes);
+                    return hotApplied;
+                });
+                fingerprints = null;
+                paymentTypeCurrencies = null;
+                placeSuggestions = null;
+                beneficiarySuggestions = null;
+                return applied;
+            } catch (SQLException e) {
+                failed(e);
+                return -1;
+            }
+        }));
+    }
+
+    // The year each archived row among the changes was moved to. Rows the ledger still holds are left out, and
+    // so are new rows, which are always added to the ledger.
+    private Map<String, Integer> findArchived(Connection connection, List<SyncChange> changes) throws SQLException {
+        if (archive == null) return Map.of();
+        List<String> missing = new ArrayList<>();
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT 1 FROM Transactions WHERE sync_id = ?")) {
+            for (SyncChange change : changes) {
+                stmt.setString(1, change.getSyncId());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) missing.add(change.getSyncId());
+                }
+            }
         }
+        if (missing.isEmpty()) return Map.of();
+
+        Map<String, Integer> years = new HashMap<>();
+        String sql = "SELECT CAST(substr(t.date, 1, 4) AS INTEGER) FROM Transactions t WHERE t.sync_id = ?";
+        for (Map<String, Integer> year : fanOutArchive(null, null, sql, (archiveConnection, archiveSql) -> {
+            Map<String, Integer> found = new HashMap<>();
+            try (PreparedStatement stmt = archiveConnection.prepareStatement(archiveSql)) {
+                for (String syncId : missing) {
+                    stmt.setString(1, syncId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) found.put(syncId, rs.getInt(1));
+                    }
+                }
+            }
+            return found;
+        })) {
+            years.putAll(year);
+        }
+        return years;
+    }
+
+    // Applies the changes to the ledger's rows, or with archivedYear set, to the rows of that year's file attached as
+    // "archive". An edit that dates an archived row outside its year moves it back into the ledger.
+    private int applyChanges(Connection connection, int archivedYear, List<SyncChange> changes) throws SQLException {
+        Map<String, Map<String, Integer>> ids = new HashMap<>();
+        String table = archivedYear == 0 ? "Transactions" : "archive.Transactions";
+        int applied = 0;
+
+        try (Statement stmt = connection.createStatement();
+             PreparedStatement current = connection.prepareStatement("SELECT origin, clock FROM ChangeLog WHERE sync_id = ?");
+             PreparedStatement log = connection.prepareStatement(
+                     "INSERT OR REPLACE INTO ChangeLog (sync_id, origin, clock, deleted) VALUES (?, ?, ?, ?)");
+             PreparedStatement delete = connection.prepareStatement("DELETE FROM " + table + " WHERE sync_id = ?");
+             PreparedStatement taken = connection.prepareStatement(
+                     "SELECT 1 FROM Transactions WHERE occurrence_key = ? AND sync_id IS NOT ?");
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE " + table + " SET amount = ?, date = ?, category_id = ?, payment_type_id = ?, comment = ?, place_id = ?, " +
+                     "beneficiary_id = ?, type_id = ?, fingerprint = ?, duplicate_of = ?, occurrence_key = ?, currency = ? WHERE sync_id = ?");
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO Transactions (amount, date, category_id, payment_type_id, comment, place_id, beneficiary_id, type_id, " +
+                     "fingerprint, duplicate_of, occurrence_key, currency, sync_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            stmt.executeUpdate("UPDATE SyncState SET applying = 1");
+
+            for (SyncChange change : changes) {
+                current.setString(1, change.getSyncId());
+                try (ResultSet rs = current.executeQuery()) {
+                    if (rs.next() && !change.supersedes(rs.getLong(2), rs.getString(1))) continue;
+                }
+
+                if (change.isDeleted()) {
+                    delete.setString(1, change.getSyncId());
+                    delete.executeUpdate();
+                } else {
+                    Transaction transaction = change.getTransaction();
+                    transaction.setCategoryId(syncNameId(connection, ids, "Categories", transaction.getCategoryName()));
+                    transaction.setPaymentTypeId(syncNameId(connection, ids, "PaymentTypes", transaction.getPaymentType()));
+                    transaction.setPlaceId(syncNameId(connection, ids, "Places", transaction.getPlaceName()));
+                    transaction.setBeneficiaryId(syncNameId(connection, ids, "Beneficiaries", transaction.getBeneficiaryName()));
+                    // A peer that has not migrated yet can still send a key from local definition ids, which may be
+                    // one of this replica's own; the row then keeps a key qualified by its origin.
+                    if (transaction.getOccurrenceKey() != null) {
+                        taken.setString(1, transaction.getOccurrenceKey());
+                        taken.setString(2, change.getSyncId());
+                        try (ResultSet rs = taken.executeQuery()) {
+                            if (rs.next()) transaction.setOccurrenceKey(change.getOrigin() + ":" + transaction.getOccurrenceKey());
+                        }
+                    }
+
+                    if (archivedYear != 0 && !transaction.getDate().startsWith(archivedYear + "-")) {
+                        delete.setString(1, change.getSyncId());
+                        delete.executeUpdate();
+                    }
+                    bindTransaction(update, transaction, TransactionFingerprint.of(transaction));
+                    update.setString(13, change.getSyncId());
+                    if (update.executeUpdate() == 0) {
+                        bindTransaction(insert, transaction, TransactionFingerprint.of(transaction));
+                        insert.setString(13, change.getSyncId());
+                        insert.executeUpdate();
+                    }
+                }
+
+                log.setString(1, change.getSyncId());
+                log.setString(2, change.getOrigin());
+                log.setLong(3, change.getClock());
+                log.setInt(4, change.isDeleted() ? 1 : 0);
+                log.executeUpdate();
+                applied++;
+            }
+            stmt.executeUpdate("UPDATE SyncState SET applying = 0");
+        }
+        return applied;
     }
 
+    private static void recordSeen(Connection connection, Map<String, Long> vector, List<SyncChange> changes) throws SQLException {
+        Map<String, Long> merged = new HashMap<>(vector);
+        for (SyncChange change : changes) {
+            merged.merge(change.getOrigin(), change.getClock(), Math::max);
+        }
+
+        long maxClock = 0;
+        try (Statement stmt = connection.createStatement();
+             PreparedStatement seen = connection.prepareStatement(
+                     "INSERT INTO SyncVector (origin, clock) VALUES (?, ?) ON CONFLICT(origin) DO UPDATE SET clock = MAX(clock, excluded.clock)")) {
+            for (Map.Entry<String, Long> entry : merged.entrySet()) {
+                seen.setString(1, entry.getKey());
+                seen.setLong(2, entry.getValue());
+                seen.executeUpdate();
+                maxClock = Math.max(maxClock, entry.getValue());
+            }
+            // Lamport clock: later local edits must order after everything this replica has seen.
+            stmt.executeUpdate("UPDATE SyncState SET clock = MAX(clock, " + maxClock + ")");
+        }
+    }
+
+    private static int syncNameId(Connection connection, Map<String, Map<String, Integer>> ids,
+                                  String table, String name) throws SQLException {
+        if (name == null || name.isBlank()) return 0;
+        Map<String, Integer> cache = ids.computeIfAbsent(table, t -> new HashMap<>());
+        Integer cached = cache.get(name);
+        if (cached != null) return cached;
 
+        int id = 0;
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT id FROM " + table + " WHERE name = ?")) {
+            stmt.setString(1, name);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) id = rs.getInt(1);
+            }
+        }
+        if (id == 0) {
+            try (PreparedStatement stmt = connection.prepareStatement(
+                    "INSERT INTO " + table + " (name) VALUES (?)", Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setString(1, name);
+                stmt.executeUpdate();
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    if (keys.next()) id = keys.getInt(1);
+                }
+            }
+        }
+        cache.put(name, id);
+        return id;
+    }
 }
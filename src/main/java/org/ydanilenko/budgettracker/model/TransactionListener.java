@@ -0,0 +1,24 @@
+package org.ydanilenko.budgettracker.model;
+
+import java.util.List;
+
+public interface TransactionListener {
+    default void onInserted(Transaction transaction) {
+    }
+
+    default void onInserted(List<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            onInserted(transaction);
+        }
+    }
+
+    default void onUpdated(Transaction oldTransaction, Transaction newTransaction) {
+    }
+
+    default void onDeleted(Transaction transaction) {
+    }
+
+    // Rows changed in bulk without events of their own, e.g. a year moved to the archive; rebuild anything derived.
+    default void onReloaded() {
+    }
+}
@@ -0,0 +1,29 @@
+package org.ydanilenko.budgettracker.util;
+
+import org.ydanilenko.budgettracker.model.Budget;
+
+import java.time.YearMonth;
+
+public class BudgetStatus {
+    private final Budget budget;
+    private final YearMonth month;
+    private final double spent;
+
+    public BudgetStatus(Budget budget, YearMonth month, double spent) {
+        this.budget = budget;
+        this.month = month;
+        this.spent = spent;
+    }
+
+    public Budget getBudget() { return budget; }
+    public YearMonth getMonth() { return month; }
+    public double getSpent() { return spent; }
+
+    public double getRatio() {
+        return budget.getMonthlyLimit() <= 0 ? 0 : spent / budget.getMonthlyLimit();
+    }
+
+    public double getRemaining() {
+        return budget.getMonthlyLimit() - spent;
+    }
+}
@@ -0,0 +1,211 @@
+package org.ydanilenko.budgettracker.util;
+
+import org.ydanilenko.budgettracker.model.Budget;
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.model.TransactionListener;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class BudgetTracker implements TransactionListener {
+    public static final int[] THRESHOLDS = {80, 100};
+
+    private static final DateTimeFormatter LENIENT_DATE = DateTimeFormatter.ofPattern("yyyy-M-d");
+
+    public interface AlertListener {
+        void onThresholdReached(BudgetStatus status, int thresholdPercent);
+    }
+
+    private final TransactionDAO dao;
+    private final List<AlertListener> alertListeners = new CopyOnWriteArrayList<>();
+    // Listener callbacks arrive on whichever thread wrote, while the UI reads status; both go through this lock.
+    private final Map<YearMonth, MonthCounters> months = new HashMap<>();
+    private List<Budget> budgets;
+
+    public BudgetTracker(TransactionDAO dao) {
+        this.dao = dao;
+        this.budgets = dao.getBudgets();
+    }
+
+    public void addAlertListener(AlertListener listener) {
+        alertListeners.add(listener);
+    }
+
+    public synchronized void reloadBudgets() {
+        budgets = dao.getBudgets();
+    }
+
+    public synchronized void invalidate() {
+        months.clear();
+    }
+
+    public synchronized List<BudgetStatus> getStatus(YearMonth month) {
+        MonthCounters counters = counters(month);
+        List<BudgetStatus> statuses = new ArrayList<>(budgets.size());
+        for (Budget budget : budgets) {
+            statuses.add(new BudgetStatus(budget, month, counters.spent(budget)));
+        }
+        return statuses;
+    }
+
+    @Override
+    public void onInserted(Transaction transaction) {
+        fire(inserted(transaction));
+    }
+
+    private synchronized List<Alert> inserted(Transaction transaction) {
+        if (!applyOrLoad(transaction)) return List.of();
+        double amount = dao.toBaseAmount(transaction);
+        return checkThresholds(transaction, amount, amount);
+    }
+
+    @Override
+    public synchronized void onInserted(List<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            apply(transaction, 1);
+        }
+    }
+
+    @Override
+    public void onUpdated(Transaction oldTransaction, Transaction newTransaction) {
+        fire(updated(oldTransaction, newTransaction));
+    }
+
+    private synchronized List<Alert> updated(Transaction oldTransaction, Transaction newTransaction) {
+        if (oldTransaction != null) {
+            apply(oldTransaction, -1);
+        }
+        if (!applyOrLoad(newTransaction)) return List.of();
+
+        double categoryDelta = dao.toBaseAmount(newTransaction);
+        double paymentTypeDelta = categoryDelta;
+        if (oldTransaction != null && oldTransaction.getTypeId() == 0
+                && newTransaction.getTypeId() == 0
+                && monthOf(newTransaction.getDate()).equals(monthOf(oldTransaction.getDate()))) {
+            if (oldTransaction.getCategoryId() == newTransaction.getCategoryId()) {
+                categoryDelta -= dao.toBaseAmount(oldTransaction);
+            }
+            if (oldTransaction.getPaymentTypeId() == newTransaction.getPaymentTypeId()) {
+                paymentTypeDelta -= dao.toBaseAmount(oldTransaction);
+            }
+        }
+        return checkThresholds(newTransaction, categoryDelta, paymentTypeDelta);
+    }
+
+    @Override
+    public synchronized void onDeleted(Transaction transaction) {
+        apply(transaction, -1);
+    }
+
+    @Override
+    public void onReloaded() {
+        invalidate();
+    }
+
+    private void apply(Transaction transaction, int sign) {
+        if (transaction.getTypeId() != 0) return;
+        YearMonth month = monthOf(transaction.getDate());
+        MonthCounters counters = month == null ? null : months.get(month);
+        if (counters == null) return;
+
+        double delta = sign * dao.toBaseAmount(transaction);
+        counters.categories.merge(transaction.getCategoryId(), delta, Double::sum);
+        counters.paymentTypes.merge(transaction.getPaymentTypeId(), delta, Double::sum);
+    }
+
+    private boolean applyOrLoad(Transaction transaction) {
+        if (transaction.getTypeId() != 0 || budgets.isEmpty()) {
+            apply(transaction, 1);
+            return false;
+        }
+        YearMonth month = monthOf(transaction.getDate());
+        if (month == null) return false;
+
+        if (months.containsKey(month)) {
+            apply(transaction, 1);
+        } else {
+            counters(month);
+        }
+        return true;
+    }
+
+    private List<Alert> checkThresholds(Transaction transaction, double categoryDelta, double paymentTypeDelta) {
+        YearMonth month = monthOf(transaction.getDate());
+        MonthCounters counters = months.get(month);
+        List<Alert> alerts = new ArrayList<>();
+
+        for (Budget budget : budgets) {
+            boolean category = budget.getScope() == Budget.Scope.CATEGORY;
+            int target = category ? transaction.getCategoryId() : transaction.getPaymentTypeId();
+            if (budget.getTargetId() != target || budget.getMonthlyLimit() <= 0) continue;
+
+            double after = counters.spent(budget);
+            double before = after - (category ? categoryDelta : paymentTypeDelta);
+            for (int i = THRESHOLDS.length - 1; i >= 0; i--) {
+                double limit = budget.getMonthlyLimit() * THRESHOLDS[i] / 100.0;
+                if (before < limit && after >= limit) {
+                    alerts.add(new Alert(new BudgetStatus(budget, month, after), THRESHOLDS[i]));
+                    break;
+                }
+            }
+        }
+        return alerts;
+    }
+
+    // Outside the lock, so a listener may read the tracker's status without blocking another writer's callback.
+    private void fire(List<Alert> alerts) {
+        for (Alert alert : alerts) {
+            for (AlertListener listener : alertListeners) {
+                listener.onThresholdReached(alert.status, alert.thresholdPercent);
+            }
+        }
+    }
+
+    private MonthCounters counters(YearMonth month) {
+        return months.computeIfAbsent(month, m -> new MonthCounters(
+                dao.getMonthlyExpensesByCategoryId(m),
+                dao.getMonthlyExpensesByPaymentTypeId(m)));
+    }
+
+    private static YearMonth monthOf(String date) {
+        if (date == null) return null;
+        try {
+            return YearMonth.from(LocalDate.parse(date, LENIENT_DATE));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static class Alert {
+        final BudgetStatus status;
+        final int thresholdPercent;
+
+        Alert(BudgetStatus status, int thresholdPercent) {
+            this.status = status;
+            this.thresholdPercent = thresholdPercent;
+        }
+    }
+
+    private static class MonthCounters {
+        final Map<Integer, Double> categories;
+        final Map<Integer, Double> paymentTypes;
+
+        MonthCounters(Map<Integer, Double> categories, Map<Integer, Double> paymentTypes) {
+            this.categories = categories;
+            this.paymentTypes = paymentTypes;
+        }
+
+        double spent(Budget budget) {
+            Map<Integer, Double> totals = budget.getScope() == Budget.Scope.CATEGORY ? categories : paymentTypes;
+            return totals.getOrDefault(budget.getTargetId(), 0.0);
+        }
+    }
+}
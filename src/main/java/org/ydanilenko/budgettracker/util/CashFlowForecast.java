@@ -0,0 +1,30 @@
+package org.ydanilenko.budgettracker.util;
+
+import java.time.YearMonth;
+import java.util.List;
+
+public class CashFlowForecast {
+    private final double startingBalance;
+    private final List<YearMonth> months;
+    private final double[] income;
+    private final double[] expense;
+    private final double[] balance;
+
+    public CashFlowForecast(double startingBalance, List<YearMonth> months, double[] income, double[] expense, double[] balance) {
+        this.startingBalance = startingBalance;
+        this.months = months;
+        this.income = income;
+        this.expense = expense;
+        this.balance = balance;
+    }
+
+    public double getStartingBalance() { return startingBalance; }
+    public List<YearMonth> getMonths() { return months; }
+    public double[] getIncome() { return income; }
+    public double[] getExpense() { return expense; }
+    public double[] getBalance() { return balance; }
+
+    public double getEndingBalance() {
+        return balance.length == 0 ? startingBalance : balance[balance.length - 1];
+    }
+}
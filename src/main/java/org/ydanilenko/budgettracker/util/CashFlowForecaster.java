@@ -0,0 +1,269 @@
+package org.ydanilenko.budgettracker.util;
+
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.model.TransactionListener;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Projects monthly income and expense per category, plus the occurrences of recurring definitions. Each category keeps
+// an exponential moving average of its monthly totals and, per calendar month, a seasonal average across years. Once a
+// year has been seen, a month is forecast from its seasonal average shifted by how much the recent average differs
+// from the same average a year earlier. Closed months are folded in once; later changes only add their weighted
+// difference, so each transaction costs O(1). Only an entry older than its category's first month refolds that
+// category.
+public class CashFlowForecaster implements TransactionListener {
+    public static final double LEVEL_SMOOTHING = 0.3;
+    public static final double SEASONAL_SMOOTHING = 0.4;
+    public static final int DEFAULT_MONTHS = 3;
+    private static final int SEASON = 12;
+
+    private final TransactionDAO dao;
+    private final double alpha;
+    private final double gamma;
+    private final Map<Long, Series> series = new HashMap<>();
+    private boolean loaded;
+    // Months before this one are folded into the averages.
+    private int openMonth;
+    private double balance;
+
+    public CashFlowForecaster(TransactionDAO dao) {
+        this(dao, LEVEL_SMOOTHING, SEASONAL_SMOOTHING);
+    }
+
+    public CashFlowForecaster(TransactionDAO dao, double levelSmoothing, double seasonalSmoothing) {
+        if (levelSmoothing <= 0 || levelSmoothing > 1 || seasonalSmoothing <= 0 || seasonalSmoothing > 1) {
+            throw new IllegalArgumentException("Smoothing factors must be in (0, 1].");
+        }
+        this.dao = dao;
+        this.alpha = levelSmoothing;
+        this.gamma = seasonalSmoothing;
+    }
+
+    public synchronized void invalidate() {
+        loaded = false;
+        series.clear();
+    }
+
+    public synchronized CashFlowForecast forecast(LocalDate today, int months) {
+        int current = advanceTo(today);
+        double[] income = new double[months];
+        double[] expense = new double[months];
+        // What is still expected to come in or go out, by month; slot 0 is the rest of the current month.
+        double[] net = new double[months + 1];
+
+        for (Map.Entry<Long, Series> entry : series.entrySet()) {
+            boolean isIncome = typeOf(entry.getKey()) == 1;
+            Series s = entry.getValue();
+            for (int offset = 0; offset <= months; offset++) {
+                double actual = s.totals.getOrDefault(current + offset, 0.0);
+                double projected = Math.max(expected(s, current + offset), actual);
+                net[offset] += isIncome ? projected - actual : actual - projected;
+                if (offset > 0) (isIncome ? income : expense)[offset - 1] += projected;
+            }
+        }
+
+        YearMonth first = YearMonth.from(today);
+        LocalDate end = first.plusMonths(months).atEndOfMonth();
+        for (Transaction occurrence : new RecurringScheduler(dao).forecast(today.plusDays(1), end)) {
+            int offset = EpochDays.monthIndex(EpochDays.parse(occurrence.getDate())) - current;
+            double amount = dao.toBaseAmount(occurrence);
+            boolean isIncome = occurrence.getTypeId() == 1;
+            net[offset] += isIncome ? amount : -amount;
+            if (offset > 0) (isIncome ? income : expense)[offset - 1] += amount;
+        }
+
+        List<YearMonth> projectedMonths = new ArrayList<>(months);
+        double[] balances = new double[months];
+        double running = balance + net[0];
+        for (int i = 0; i < months; i++) {
+            projectedMonths.add(first.plusMonths(i + 1));
+            running += net[i + 1];
+            balances[i] = running;
+        }
+        return new CashFlowForecast(balance, projectedMonths, income, expense, balances);
+    }
+
+    // The model's total for one type and category in the given month, before actual and recurring amounts.
+    public synchronized double expected(int typeId, int categoryId, YearMonth month, LocalDate today) {
+        advanceTo(today);
+        Series s = series.get(key(typeId, categoryId));
+        return s == null ? 0 : expected(s, month.getYear() * 12 + month.getMonthValue() - 1);
+    }
+
+    public synchronized double getBalance(LocalDate today) {
+        advanceTo(today);
+        return balance;
+    }
+
+    @Override
+    public void onInserted(Transaction transaction) {
+        apply(transaction, 1, transaction.getOccurrenceKey() != null);
+    }
+
+    @Override
+    public void onInserted(List<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            onInserted(transaction);
+        }
+    }
+
+    @Override
+    public void onUpdated(Transaction oldTransaction, Transaction newTransaction) {
+        // Updates keep the row's occurrence key, so the old row tells whether it came from a recurring definition.
+        boolean recurring = oldTransaction != null ? oldTransaction.getOccurrenceKey() != null
+                : newTransaction.getOccurrenceKey() != null;
+        if (oldTransaction != null) apply(oldTransaction, -1, recurring);
+        apply(newTransaction, 1, recurring);
+    }
+
+    @Override
+    public void onDeleted(Transaction transaction) {
+        apply(transaction, -1, transaction.getOccurrenceKey() != null);
+    }
+
+    @Override
+    public void onReloaded() {
+        invalidate();
+    }
+
+    private synchronized void apply(Transaction transaction, int sign, boolean recurring) {
+        if (!loaded) return;
+        long day = EpochDays.parse(transaction.getDate());
+        if (day == EpochDays.INVALID) return;
+
+        double amount = sign * dao.toBaseAmount(transaction);
+        balance += transaction.getTypeId() == 1 ? amount : -amount;
+        // Recurring occurrences are forecast from their definitions instead.
+        if (!recurring) add(transaction.getTypeId(), transaction.getCategoryId(), EpochDays.monthIndex(day), amount);
+    }
+
+    private int advanceTo(LocalDate today) {
+        int current = EpochDays.monthIndex(today.toEpochDay());
+        if (!loaded) {
+            load(current);
+        } else if (current > openMonth) {
+            openMonth = current;
+            for (Series s : series.values()) fold(s);
+        }
+        return current;
+    }
+
+    private void load(int current) {
+        series.clear();
+        openMonth = current;
+        balance = dao.getTotalIncome() - dao.getTotalExpense();
+        for (Transaction total : dao.getMonthlyCategoryTotals()) {
+            add(total.getTypeId(), total.getCategoryId(), EpochDays.monthIndex(EpochDays.parse(total.getDate())), total.getAmount());
+        }
+        for (Series s : series.values()) fold(s);
+        loaded = true;
+    }
+
+    private void add(int typeId, int categoryId, int month, double amount) {
+        Series s = series.computeIfAbsent(key(typeId, categoryId), k -> new Series());
+        s.totals.merge(month, amount, Double::sum);
+        if (s.folded > 0 && month < s.first) {
+            s.reset();
+            fold(s);
+        } else if (s.folded > 0 && month < s.next) {
+            correct(s, month, amount);
+        } else if (loaded && month < openMonth) {
+            fold(s);
+        }
+    }
+
+    // Folds every closed month into the averages, including months without transactions.
+    private void fold(Series s) {
+        if (s.folded == 0) {
+            if (s.totals.isEmpty() || s.totals.firstKey() >= openMonth) return;
+            s.first = s.totals.firstKey();
+            s.next = s.first;
+        }
+        while (s.next < openMonth) {
+            int month = s.next;
+            double total = s.totals.getOrDefault(month, 0.0);
+            s.level = s.folded == 0 ? total : s.level + alpha * (total - s.level);
+            // The same average a year behind, fed with the total of the month twelve months earlier.
+            if (s.folded >= SEASON) {
+                double lagged = s.recent[month % SEASON];
+                s.laggedLevel = s.folded == SEASON ? lagged : s.laggedLevel + alpha * (lagged - s.laggedLevel);
+            }
+            s.recent[month % SEASON] = total;
+
+            int season = month % SEASON;
+            if (s.seasonStart[season] < 0) {
+                s.seasonal[season] = total;
+                s.seasonStart[season] = month;
+            } else {
+                s.seasonal[season] += gamma * (total - s.seasonal[season]);
+            }
+            s.folded++;
+            s.next = month + 1;
+        }
+    }
+
+    // A change to a month that is already folded in. The averages are linear in their inputs, so the change is added
+    // with the weight its month carries now instead of refolding the later months.
+    private void correct(Series s, int month, double delta) {
+        int later = s.next - 1 - month;
+        double weight = month == s.first ? 1 : alpha;
+        s.level += weight * Math.pow(1 - alpha, later) * delta;
+        if (later >= SEASON) {
+            s.laggedLevel += weight * Math.pow(1 - alpha, later - SEASON) * delta;
+        } else {
+            s.recent[month % SEASON] += delta;
+        }
+
+        int season = month % SEASON;
+        s.seasonal[season] += (month == s.seasonStart[season] ? 1 : gamma) * Math.pow(1 - gamma, later / SEASON) * delta;
+    }
+
+    private double expected(Series s, int month) {
+        if (s.folded == 0) return 0;
+        double value = s.folded > SEASON ? s.seasonal[month % SEASON] + s.level - s.laggedLevel : s.level;
+        return Math.max(0, value);
+    }
+
+    private static long key(int typeId, int categoryId) {
+        return ((long) typeId << 32) | (categoryId & 0xFFFFFFFFL);
+    }
+
+    private static int typeOf(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static class Series {
+        // Monthly totals, including the open month and future-dated entries that are not folded in yet.
+        final TreeMap<Integer, Double> totals = new TreeMap<>();
+        final double[] seasonal = new double[SEASON];
+        final int[] seasonStart = new int[SEASON];
+        // Totals of the last twelve folded months, by calendar month.
+        final double[] recent = new double[SEASON];
+        double level;
+        double laggedLevel;
+        int folded;
+        int first;
+        int next;
+
+        Series() {
+            reset();
+        }
+
+        void reset() {
+            Arrays.fill(seasonal, 0);
+            Arrays.fill(seasonStart, -1);
+            Arrays.fill(recent, 0);
+            level = 0;
+            laggedLevel = 0;
+            folded = 0;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.ydanilenko.budgettracker.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CommentSearch {
+    public static final int PAGE_SIZE = 200;
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                current.append(Character.toLowerCase(c));
+            } else if (current.length() > 0) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+
+    public static String toMatchQuery(String text) {
+        List<String> tokens = tokenize(text);
+        if (tokens.isEmpty()) return null;
+
+        StringBuilder query = new StringBuilder();
+        for (String token : tokens) {
+            if (query.length() > 0) query.append(' ');
+            query.append('"').append(token).append("\"*");
+        }
+        return query.toString();
+    }
+}
@@ -0,0 +1,295 @@
+package org.ydanilenko.budgettracker.util;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+// SQLite allows many readers but a single writer, so the pool keeps one writer connection behind a lock and a
+// queue of reader connections. Leases are per thread and re-entrant: a DAO method called from inside another
+// runs on the connection (and inside the transaction) its caller already holds.
+public class ConnectionPool implements AutoCloseable {
+    public static final int DEFAULT_READERS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final int BUSY_TIMEOUT_MILLIS = 5000;
+
+    public interface SqlWork<T> {
+        T run(Connection connection) throws SQLException;
+    }
+
+    private static class Lease {
+        final Connection connection;
+        final boolean writer;
+        int depth;
+
+        Lease(Connection connection, boolean writer) {
+            this.connection = connection;
+            this.writer = writer;
+        }
+    }
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final BlockingQueue<Connection> idleReaders;
+    private final List<Connection> opened = new ArrayList<>();
+    private final ThreadLocal<Lease> current = new ThreadLocal<>();
+    private final boolean shared;
+    private final int readers;
+    private Connection writer;
+    // Actions waiting for the writer's open transaction to commit; null outside one. Guarded by writeLock.
+    private List<Runnable> afterCommit;
+    private int openedReaders;
+    private volatile boolean closed;
+    private volatile String metricsScope;
+
+    public ConnectionPool(String url, String user, String password, int readers) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        // Every connection to an in-memory database sees a different database, so those get one shared connection.
+        this.shared = url.contains(":memory:") || url.contains("mode=memory");
+        this.readers = shared ? 0 : Math.max(1, readers);
+        this.idleReaders = new ArrayBlockingQueue<>(Math.max(1, this.readers));
+    }
+
+    public ConnectionPool(String url, int readers) {
+        this(url, null, null, readers);
+    }
+
+    private ConnectionPool(Connection connection) {
+        this.url = null;
+        this.user = null;
+        this.password = null;
+        this.shared = true;
+        this.readers = 0;
+        this.idleReaders = new ArrayBlockingQueue<>(1);
+        this.writer = connection;
+    }
+
+    // Wraps one existing connection. Reads and writes then take turns on it, which confines it to one thread at a time.
+    public static ConnectionPool of(Connection connection) {
+        return new ConnectionPool(connection);
+    }
+
+    // Operations that lease a connection are also recorded under this scope in Metrics.
+    public void setMetricsScope(String scope) {
+        this.metricsScope = scope;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    // The SQLite database file behind the pool, or null for other databases and in-memory ones.
+    public Path getFile() {
+        if (url == null || shared || !url.startsWith("jdbc:sqlite:")) return null;
+        String name = url.substring("jdbc:sqlite:".length());
+        if (name.startsWith("file:")) name = name.substring("file:".length());
+        int query = name.indexOf('?');
+        if (query >= 0) name = name.substring(0, query);
+        return name.isEmpty() ? null : Path.of(name);
+    }
+
+    public <T> T read(Function<Connection, T> body) {
+        Lease lease = current.get();
+        if (lease != null) return reenter(lease, body);
+        if (shared) return write(body);
+
+        Connection connection = borrowReader();
+        lease = new Lease(connection, false);
+        current.set(lease);
+        try {
+            return reenter(lease, body);
+        } finally {
+            current.remove();
+            idleReaders.add(connection);
+        }
+    }
+
+    public <T> T write(Function<Connection, T> body) {
+        Lease lease = current.get();
+        if (lease != null && lease.writer) return reenter(lease, body);
+
+        writeLock.lock();
+        Lease outer = lease;
+        try {
+            lease = new Lease(writerConnection(), true);
+            current.set(lease);
+            return reenter(lease, body);
+        } finally {
+            if (outer == null) current.remove(); else current.set(outer);
+            writeLock.unlock();
+        }
+    }
+
+    // Runs the work in a transaction on the writer connection. Inside an enclosing transaction it runs under a
+    // savepoint instead, so a failure undoes only its own changes and the caller decides about the rest.
+    public <T> T transaction(SqlWork<T> work) throws SQLException {
+        SQLException[] failure = new SQLException[1];
+        T result = write(connection -> {
+            try {
+                return connection.getAutoCommit() ? runTransaction(connection, work) : runNested(connection, work);
+            } catch (SQLException e) {
+                failure[0] = e;
+                return null;
+            }
+        });
+        if (failure[0] != null) throw failure[0];
+        return result;
+    }
+
+    // Runs the action once the writer's open transaction commits, or right away when there is none. Actions queued
+    // inside a transaction or savepoint that rolls back are dropped with its changes.
+    public void afterCommit(Runnable action) {
+        if (writeLock.isHeldByCurrentThread() && afterCommit != null) {
+            afterCommit.add(action);
+        } else {
+            action.run();
+        }
+    }
+
+    private <T> T runTransaction(Connection connection, SqlWork<T> work) throws SQLException {
+        List<Runnable> committed = new ArrayList<>();
+        afterCommit = committed;
+        T result;
+        connection.setAutoCommit(false);
+        try {
+            result = work.run(connection);
+            connection.commit();
+        } catch (SQLException | RuntimeException | Error e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackFailure) {
+                e.addSuppressed(rollbackFailure);
+            }
+            throw e;
+        } finally {
+            afterCommit = null;
+            connection.setAutoCommit(true);
+        }
+        for (Runnable action : committed) {
+            action.run();
+        }
+        return result;
+    }
+
+    private <T> T runNested(Connection connection, SqlWork<T> work) throws SQLException {
+        int queued = afterCommit == null ? 0 : afterCommit.size();
+        Savepoint savepoint = connection.setSavepoint();
+        try {
+            T result = work.run(connection);
+            connection.releaseSavepoint(savepoint);
+            return result;
+        } catch (SQLException | RuntimeException | Error e) {
+            try {
+                connection.rollback(savepoint);
+            } catch (SQLException rollbackFailure) {
+                e.addSuppressed(rollbackFailure);
+            }
+            if (afterCommit != null) afterCommit.subList(queued, afterCommit.size()).clear();
+            throw e;
+        }
+    }
+
+    private <T> T reenter(Lease lease, Function<Connection, T> body) {
+        String scope = metricsScope;
+        if (scope != null) Metrics.attribute(scope);
+        lease.depth++;
+        try {
+            return body.apply(lease.connection);
+        } finally {
+            lease.depth--;
+        }
+    }
+
+    private Connection writerConnection() {
+        if (writer == null) {
+            writer = open();
+        }
+        return writer;
+    }
+
+    private Connection borrowReader() {
+        Connection connection = idleReaders.poll();
+        if (connection != null) return connection;
+
+        synchronized (opened) {
+            if (openedReaders < readers) {
+                openedReaders++;
+                try {
+                    return open();
+                } catch (RuntimeException e) {
+                    openedReaders--;
+                    throw e;
+                }
+            }
+        }
+        try {
+            return idleReaders.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a database connection", e);
+        }
+    }
+
+    private Connection open() {
+        if (closed) throw new IllegalStateException("Connection pool is closed");
+        try {
+            Connection connection = connect();
+            synchronized (opened) {
+                opened.add(connection);
+            }
+            return SlowQueryLog.getDefault().wrap(connection);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not open " + url, e);
+        }
+    }
+
+    // A connection set up like the pool's own but outside it, for work that attaches other files or must not tie up
+    // a pooled connection. The caller closes it.
+    public Connection openUnpooled() throws SQLException {
+        if (closed) throw new SQLException("Connection pool is closed");
+        if (url == null) throw new SQLException("The pool wraps a single connection");
+        return SlowQueryLog.getDefault().wrap(connect());
+    }
+
+    private Connection connect() throws SQLException {
+        Connection connection = user == null
+                ? DriverManager.getConnection(url)
+                : DriverManager.getConnection(url, user, password);
+        try (Statement stmt = connection.createStatement()) {
+            if (url.startsWith("jdbc:sqlite:")) {
+                stmt.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MILLIS);
+                if (!shared) stmt.execute("PRAGMA journal_mode = WAL");
+            }
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        return connection;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (opened) {
+            for (Connection connection : opened) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+            opened.clear();
+        }
+    }
+}
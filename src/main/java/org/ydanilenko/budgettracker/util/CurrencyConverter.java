@@ -0,0 +1,99 @@
+package org.ydanilenko.budgettracker.util;
+
+import org.ydanilenko.budgettracker.model.ExchangeRate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+public class CurrencyConverter {
+    public static final CurrencyConverter IDENTITY = new CurrencyConverter(List.of());
+
+    private final Map<String, RateSeries> series = new HashMap<>();
+
+    public CurrencyConverter(Collection<ExchangeRate> rates) {
+        Map<String, List<ExchangeRate>> byCurrency = new HashMap<>();
+        for (ExchangeRate rate : rates) {
+            byCurrency.computeIfAbsent(normalize(rate.getCurrency()), k -> new ArrayList<>()).add(rate);
+        }
+        byCurrency.forEach((currency, list) -> series.put(currency, new RateSeries(list)));
+    }
+
+    public Set<String> getCurrencies() {
+        return series.keySet();
+    }
+
+    public boolean hasRates(String currency) {
+        return currency == null || series.containsKey(normalize(currency));
+    }
+
+    public double rate(String currency, long epochDay) {
+        if (currency == null || currency.isEmpty()) return 1.0;
+        RateSeries rates = series.get(normalize(currency));
+        return rates == null ? 1.0 : rates.rateOn(epochDay);
+    }
+
+    public double toBase(double amount, String currency, String date) {
+        if (currency == null || currency.isEmpty()) return amount;
+        long day = EpochDays.parse(date);
+        return day == EpochDays.INVALID ? amount : amount * rate(currency, day);
+    }
+
+    public Lookup lookup() {
+        return new Lookup();
+    }
+
+    public class Lookup {
+        private String lastCurrency;
+        private RateSeries lastSeries;
+
+        private Lookup() {
+        }
+
+        public double toBase(double amount, String currency, long epochDay) {
+            if (currency == null || currency.isEmpty()) return amount;
+            if (!currency.equals(lastCurrency)) {
+                lastCurrency = currency;
+                lastSeries = series.get(normalize(currency));
+            }
+            return lastSeries == null ? amount : amount * lastSeries.rateOn(epochDay);
+        }
+    }
+
+    private static String normalize(String currency) {
+        return currency.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static class RateSeries {
+        private final long firstDay;
+        private final double[] byDay;
+
+        RateSeries(List<ExchangeRate> rates) {
+            rates.sort(Comparator.comparing(ExchangeRate::getDate));
+            firstDay = rates.get(0).getDate().toEpochDay();
+            long lastDay = rates.get(rates.size() - 1).getDate().toEpochDay();
+            byDay = new double[(int) (lastDay - firstDay + 1)];
+
+            int next = 0;
+            double current = rates.get(0).getRate();
+            for (int i = 0; i < byDay.length; i++) {
+                while (next < rates.size() && rates.get(next).getDate().toEpochDay() <= firstDay + i) {
+                    current = rates.get(next++).getRate();
+                }
+                byDay[i] = current;
+            }
+        }
+
+        double rateOn(long epochDay) {
+            long offset = epochDay - firstDay;
+            if (offset <= 0) return byDay[0];
+            if (offset >= byDay.length) return byDay[byDay.length - 1];
+            return byDay[(int) offset];
+        }
+    }
+}
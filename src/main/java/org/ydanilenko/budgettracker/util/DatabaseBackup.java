@@ -0,0 +1,295 @@
+package org.ydanilenko.budgettracker.util;
+
+import org.sqlite.SQLiteConnection;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Online backups through SQLite's backup API. The copy runs on its own connection inside a read transaction, so
+// it sees one consistent snapshot and, with the pool's WAL journal, never blocks the app's writes. Pages are
+// copied a few at a time so progress can be reported and the copy yields between steps.
+public class DatabaseBackup implements AutoCloseable {
+    public static final Path DEFAULT_DIR = Path.of(System.getProperty("user.home"), ".budget-tracker", "backups");
+    public static final long DEFAULT_INTERVAL_HOURS = 24;
+    public static final int DEFAULT_KEEP = 7;
+    public static final int PAGES_PER_STEP = 64;
+    private static final int STEP_PAUSE_MILLIS = 1;
+    private static final int BUSY_RETRIES = 1000;
+    private static final String PREFIX = "ledger-";
+    private static final String SUFFIX = ".db.gz";
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    public interface ProgressListener {
+        void onProgress(long copiedPages, long totalPages);
+    }
+
+    private static DatabaseBackup defaultBackup;
+
+    private final ConnectionPool pool;
+    private final Path directory;
+    private final int keep;
+    private final ScheduledExecutorService scheduler;
+    private volatile TransactionJournal journal;
+
+    public DatabaseBackup(ConnectionPool pool, Path directory, int keep) {
+        if (!canBackUp(pool)) {
+            throw new IllegalArgumentException("Only SQLite database files can be backed up");
+        }
+        this.pool = pool;
+        this.directory = directory;
+        this.keep = Math.max(1, keep);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "database-backup");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static boolean canBackUp(ConnectionPool pool) {
+        return pool.getFile() != null;
+    }
+
+    // Starts the app's scheduled backups and makes them the default instance for the UI.
+    public static DatabaseBackup start(ConnectionPool pool) {
+        return start(pool, DEFAULT_DIR);
+    }
+
+    public static synchronized DatabaseBackup start(ConnectionPool pool, Path directory) {
+        DatabaseBackup backup = new DatabaseBackup(pool, directory, DEFAULT_KEEP);
+        backup.start(DEFAULT_INTERVAL_HOURS, TimeUnit.HOURS);
+        defaultBackup = backup;
+        return backup;
+    }
+
+    public static synchronized DatabaseBackup getDefault() {
+        return defaultBackup;
+    }
+
+    public void start(long interval, TimeUnit unit) {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                backUp((copied, total) -> {});
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, interval, interval, unit);
+    }
+
+    // Restores start this journal's history over, since its undo entries refer to rows the restore replaced.
+    public void setJournal(TransactionJournal journal) {
+        this.journal = journal;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public synchronized Path backUp(ProgressListener progress) throws IOException {
+        Metrics.Sample sample = Metrics.start("backup.create");
+        Files.createDirectories(directory);
+        Path copy = directory.resolve("backup.db.part");
+        Path archive = directory.resolve(PREFIX + LocalDateTime.now().format(STAMP) + SUFFIX);
+        try {
+            Files.deleteIfExists(copy);
+            Map<String, Long> expected = copySnapshot(copy, progress);
+            verify(copy, expected);
+            compress(copy, archive);
+            rotate();
+            return archive;
+        } catch (IOException | RuntimeException e) {
+            sample.failed();
+            throw e;
+        } finally {
+            deleteCopy(copy);
+            sample.stop();
+        }
+    }
+
+    private Map<String, Long> copySnapshot(Path copy, ProgressListener progress) throws IOException {
+        try (Connection source = DriverManager.getConnection(pool.getUrl())) {
+            try (Statement stmt = source.createStatement()) {
+                stmt.execute("PRAGMA busy_timeout = 5000");
+            }
+            source.setAutoCommit(false);
+            try {
+                // Counting opens the read transaction; the backup then copies exactly the snapshot that was counted.
+                Map<String, Long> counts = countRows(source);
+                int rc = source.unwrap(SQLiteConnection.class).getDatabase().backup("main", copy.toString(),
+                        (remaining, pages) -> {
+                            progress.onProgress(pages - remaining, pages);
+                            Thread.yield();
+                        }, STEP_PAUSE_MILLIS, BUSY_RETRIES, PAGES_PER_STEP);
+                if (rc != 0) throw new IOException("Backup failed with SQLite error " + rc);
+                return counts;
+            } finally {
+                source.rollback();
+            }
+        } catch (SQLException e) {
+            throw new IOException("Backup failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static void verify(Path copy, Map<String, Long> expected) throws IOException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + copy)) {
+            checkIntegrity(connection);
+            Map<String, Long> actual = countRows(connection);
+            if (!actual.equals(expected)) {
+                throw new IOException("Backup row counts " + actual + " do not match the database " + expected);
+            }
+        } catch (SQLException e) {
+            throw new IOException("Could not verify backup: " + e.getMessage(), e);
+        }
+    }
+
+    private static void checkIntegrity(Connection connection) throws SQLException, IOException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA integrity_check")) {
+            String result = rs.next() ? rs.getString(1) : null;
+            if (!"ok".equals(result)) throw new IOException("Integrity check failed: " + result);
+        }
+    }
+
+    private static Map<String, Long> countRows(Connection connection) throws SQLException {
+        List<String> tables = new ArrayList<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT name FROM sqlite_master WHERE type = 'table' " +
+                     "AND name NOT LIKE 'sqlite_%' AND sql NOT LIKE 'CREATE VIRTUAL%' ORDER BY name")) {
+            while (rs.next()) tables.add(rs.getString(1));
+        }
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        try (Statement stmt = connection.createStatement()) {
+            for (String table : tables) {
+                try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM \"" + table.replace("\"", "\"\"") + "\"")) {
+                    counts.put(table, rs.next() ? rs.getLong(1) : 0);
+                }
+            }
+        }
+        return counts;
+    }
+
+    private static void compress(Path copy, Path archive) throws IOException {
+        Path partial = archive.resolveSibling(archive.getFileName() + ".part");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(partial), 1 << 16)) {
+            Files.copy(copy, out);
+        }
+        Files.move(partial, archive, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void rotate() throws IOException {
+        List<Path> archives = listArchives();
+        for (Path old : archives.subList(Math.min(keep, archives.size()), archives.size())) {
+            Files.deleteIfExists(old);
+        }
+    }
+
+    // Newest first.
+    public List<Path> listArchives() throws IOException {
+        if (!Files.isDirectory(directory)) return List.of();
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted(Comparator.comparing((Path path) -> path.getFileName().toString()).reversed())
+                    .toList();
+        }
+    }
+
+    // Replaces the live database with an archive. The current state is backed up first, so a restore can be undone.
+    // The replica keeps its id, so its sync clock never goes back: peers already hold the pre-restore clock for it
+    // and would skip later edits numbered below that.
+    public synchronized Path restore(Path archive, ProgressListener progress) throws IOException {
+        Metrics.Sample sample = Metrics.start("backup.restore");
+        Path copy = directory.resolve("restore.db.part");
+        try {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(archive), 1 << 16)) {
+                Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+            }
+            try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + copy)) {
+                checkIntegrity(connection);
+            } catch (SQLException e) {
+                throw new IOException("Could not read backup: " + e.getMessage(), e);
+            }
+
+            Path undo = backUp((copied, total) -> {});
+            String error = pool.write(connection -> {
+                try {
+                    long clock = readClock(connection);
+                    int rc = connection.unwrap(SQLiteConnection.class).getDatabase().restore("main", copy.toString(),
+                            (remaining, pages) -> progress.onProgress(pages - remaining, pages),
+                            STEP_PAUSE_MILLIS, BUSY_RETRIES, PAGES_PER_STEP);
+                    if (rc != 0) return "SQLite error " + rc;
+                    // Older backups may predate columns and tables the app now expects.
+                    DatabaseSchema.initialize(connection);
+                    try (PreparedStatement stmt = connection.prepareStatement("UPDATE SyncState SET clock = MAX(clock, ?)")) {
+                        stmt.setLong(1, clock);
+                        stmt.executeUpdate();
+                    }
+                    return null;
+                } catch (SQLException e) {
+                    return e.getMessage();
+                }
+            });
+            if (error != null) throw new IOException("Restore failed: " + error);
+            TransactionJournal restoredJournal = journal;
+            if (restoredJournal != null) restoredJournal.rebase();
+            return undo;
+        } catch (IOException | RuntimeException e) {
+            sample.failed();
+            throw e;
+        } finally {
+            deleteCopy(copy);
+            sample.stop();
+        }
+    }
+
+    private static long readClock(Connection connection) throws SQLException {
+        if (!DatabaseSchema.tableExists(connection, "SyncState")) return 0;
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT clock FROM SyncState")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static void deleteCopy(Path copy) {
+        for (String suffix : new String[]{"", "-wal", "-shm", "-journal"}) {
+            try {
+                Files.deleteIfExists(copy.resolveSibling(copy.getFileName() + suffix));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        synchronized (DatabaseBackup.class) {
+            if (defaultBackup == this) defaultBackup = null;
+        }
+    }
+}
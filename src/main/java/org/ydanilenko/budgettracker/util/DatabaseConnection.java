@@ -4,12 +4,69 @@ import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
 
 public class DatabaseConnection {
     private static final String PROPERTIES_FILE = "/config.properties";
+    private static final String PROFILE_PREFIX = "profile.";
+    private static final String PROFILE_SUFFIX = ".url";
+    private static volatile String activeUrl;
+
+    // Points getConnection() at the active ledger profile instead of the configured db.url.
+    public static void setActiveUrl(String url) {
+        activeUrl = url;
+    }
 
     public static Connection getConnection() {
+        String url = activeUrl;
+        if (url != null) return getConnection(url);
+        Properties props = loadProperties();
+        try {
+            return DriverManager.getConnection(props.getProperty("db.url"),
+                    props.getProperty("db.user"), props.getProperty("db.password"));
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    public static Connection getConnection(String url) {
+        try {
+            return DriverManager.getConnection(url);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    public static ConnectionPool createPool() {
+        Properties props = loadProperties();
+        return new ConnectionPool(props.getProperty("db.url"), props.getProperty("db.user"),
+                props.getProperty("db.password"), ConnectionPool.DEFAULT_READERS);
+    }
+
+    public static ConnectionPool createPool(String url) {
+        return new ConnectionPool(url, ConnectionPool.DEFAULT_READERS);
+    }
+
+    // The configured db.url as the default profile, plus one profile per profile.<name>.url entry.
+    public static Map<String, String> getProfileUrls() {
+        Properties props = loadProperties();
+        Map<String, String> urls = new TreeMap<>();
+        String url = props.getProperty("db.url");
+        if (url != null) urls.put(LedgerProfiles.DEFAULT_PROFILE, url);
+        for (String key : props.stringPropertyNames()) {
+            if (key.startsWith(PROFILE_PREFIX) && key.endsWith(PROFILE_SUFFIX)
+                    && key.length() > PROFILE_PREFIX.length() + PROFILE_SUFFIX.length()) {
+                urls.put(key.substring(PROFILE_PREFIX.length(), key.length() - PROFILE_SUFFIX.length()), props.getProperty(key));
+            }
+        }
+        return urls;
+    }
+
+    private static Properties loadProperties() {
         try (InputStream input = DatabaseConnection.class.getResourceAsStream(PROPERTIES_FILE)) {
             if (input == null) {
                 throw new RuntimeException("Unable to find config.properties");
@@ -17,16 +74,7 @@ public class DatabaseConnection {
 
             Properties props = new Properties();
             props.load(input);
-
-            String url = props.getProperty("db.url");
-            String user = props.getProperty("db.user");
-            String password = props.getProperty("db.password");
-
-            return DriverManager.getConnection(url, user, password);
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return null;
+            return props;
         } catch (Exception e) {
             throw new RuntimeException("Failed to load database configuration", e);
         }
@@ -0,0 +1,301 @@
+package org.ydanilenko.budgettracker.util;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+
+public class DatabaseSchema {
+
+    private static final String[] BASE_TABLES = {
+            """
+            CREATE TABLE IF NOT EXISTS Categories (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                name TEXT NOT NULL UNIQUE
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS PaymentTypes (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                name TEXT NOT NULL UNIQUE,
+                bank TEXT,
+                issuer TEXT,
+                issue_date TEXT,
+                expiration_date TEXT
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS Places (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                name TEXT NOT NULL UNIQUE
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS Beneficiaries (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                name TEXT NOT NULL UNIQUE
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS Transactions (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                amount REAL NOT NULL,
+                date TEXT NOT NULL,
+                category_id INTEGER NOT NULL REFERENCES Categories(id),
+                payment_type_id INTEGER NOT NULL REFERENCES PaymentTypes(id),
+                comment TEXT,
+                place_id INTEGER REFERENCES Places(id),
+                beneficiary_id INTEGER REFERENCES Beneficiaries(id),
+                type_id INTEGER NOT NULL
+            )""",
+            "CREATE INDEX IF NOT EXISTS idx_transactions_type_date ON Transactions(type_id, date)",
+            """
+            CREATE TABLE IF NOT EXISTS RecurringTransactions (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                amount REAL NOT NULL,
+                category_id INTEGER NOT NULL REFERENCES Categories(id),
+                payment_type_id INTEGER NOT NULL REFERENCES PaymentTypes(id),
+                comment TEXT,
+                place_id INTEGER REFERENCES Places(id),
+                beneficiary_id INTEGER REFERENCES Beneficiaries(id),
+                type_id INTEGER NOT NULL,
+                rule TEXT NOT NULL,
+                start_date TEXT NOT NULL,
+                end_date TEXT,
+                last_generated TEXT
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS Budgets (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                scope TEXT NOT NULL,
+                target_id INTEGER NOT NULL,
+                monthly_limit REAL NOT NULL,
+                UNIQUE (scope, target_id)
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS Archives (
+                year INTEGER PRIMARY KEY,
+                file TEXT NOT NULL,
+                rows INTEGER NOT NULL
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS ExchangeRates (
+                currency TEXT NOT NULL,
+                date TEXT NOT NULL,
+                rate REAL NOT NULL,
+                PRIMARY KEY (currency, date)
+            )"""
+    };
+
+    private static final String[][] TRANSACTION_COLUMNS = {
+            {"fingerprint", "INTEGER"},
+            {"duplicate_of", "INTEGER"},
+            {"occurrence_key", "TEXT"},
+            {"currency", "TEXT"},
+            {"sync_id", "TEXT"}
+    };
+
+    private static final String[][] PAYMENT_TYPE_COLUMNS = {
+            {"currency", "TEXT"}
+    };
+
+    private static final String[] COMMENT_SEARCH = {
+            "CREATE VIRTUAL TABLE TransactionSearch USING fts5(comment, content='Transactions', content_rowid='id')",
+            """
+            CREATE TRIGGER IF NOT EXISTS transactions_search_delete AFTER DELETE ON Transactions BEGIN
+                INSERT INTO TransactionSearch(TransactionSearch, rowid, comment) VALUES ('delete', old.id, old.comment);
+            END""",
+            """
+            CREATE TRIGGER IF NOT EXISTS transactions_search_update AFTER UPDATE OF comment ON Transactions BEGIN
+                INSERT INTO TransactionSearch(TransactionSearch, rowid, comment) VALUES ('delete', old.id, old.comment);
+                INSERT INTO TransactionSearch(rowid, comment) VALUES (new.id, new.comment);
+            END""",
+            "INSERT INTO TransactionSearch(TransactionSearch) VALUES ('rebuild')"
+    };
+
+    // Bulk inserts set SearchIndexState.deferred and index their rows in one statement afterwards. Ledgers whose
+    // search index predates this still have an insert trigger without the WHEN clause, so it is replaced.
+    private static final String[] DEFERRED_SEARCH_INDEX = {
+            "CREATE TABLE IF NOT EXISTS SearchIndexState (deferred INTEGER NOT NULL)",
+            "INSERT INTO SearchIndexState (deferred) SELECT 0 WHERE NOT EXISTS (SELECT 1 FROM SearchIndexState)",
+            "DROP TRIGGER IF EXISTS transactions_search_insert",
+            """
+            CREATE TRIGGER transactions_search_insert AFTER INSERT ON Transactions
+            WHEN (SELECT deferred FROM SearchIndexState) = 0 BEGIN
+                INSERT INTO TransactionSearch(rowid, comment) VALUES (new.id, new.comment);
+            END"""
+    };
+
+    // Recurring definitions are never synced and their ids are local, so occurrence keys name the definition by a
+    // random uid instead. Keys generated before the uid existed are rewritten to use it; rows whose definition is
+    // gone get a random one, which keeps them marked as generated without claiming anyone else's key.
+    private static final String[] RECURRING_UIDS = {
+            "ALTER TABLE RecurringTransactions ADD COLUMN uid TEXT",
+            "UPDATE RecurringTransactions SET uid = lower(hex(randomblob(16)))",
+            """
+            UPDATE Transactions SET occurrence_key = 'R' || COALESCE(
+                    (SELECT r.uid FROM RecurringTransactions r WHERE Transactions.occurrence_key LIKE 'R' || r.id || ':%'),
+                    lower(hex(randomblob(16))))
+                || substr(occurrence_key, instr(occurrence_key, ':'))
+            WHERE occurrence_key IS NOT NULL"""
+    };
+
+    // Ledgers that already sync moved their generated rows to new sync ids above. The old ids are tombstoned and the
+    // rows logged under their new ids, so peers drop the copies that shared an id and pull each replica's own.
+    private static final String[] RECURRING_SYNC_IDS = {
+            "UPDATE SyncState SET clock = clock + 1",
+            """
+            INSERT OR REPLACE INTO ChangeLog (sync_id, origin, clock, deleted)
+                SELECT t.sync_id, s.replica, s.clock, 1 FROM Transactions t, SyncState s
+                WHERE t.sync_id LIKE 'occ:%' AND t.sync_id <> 'occ:' || t.occurrence_key""",
+            "UPDATE Transactions SET sync_id = 'occ:' || occurrence_key WHERE sync_id LIKE 'occ:%' AND sync_id <> 'occ:' || occurrence_key",
+            """
+            INSERT INTO ChangeLog (sync_id, origin, clock, deleted)
+                SELECT t.sync_id, s.replica, s.clock, 0 FROM Transactions t, SyncState s
+                WHERE t.sync_id LIKE 'occ:%' AND NOT EXISTS (SELECT 1 FROM ChangeLog c WHERE c.sync_id = t.sync_id)"""
+    };
+
+    // Every write to Transactions bumps the replica's logical clock and records the row's latest version in
+    // ChangeLog; deletes leave a tombstone there. Rows get a sync_id that is stable across replicas (generated
+    // occurrences use their occurrence key, which carries the definition's uid and so is unique across replicas).
+    // Applying a peer's changes sets SyncState.applying so they are not logged again as local edits.
+    private static final String[] CHANGE_LOG = {
+            "CREATE TABLE IF NOT EXISTS SyncState (replica TEXT NOT NULL, clock INTEGER NOT NULL, applying INTEGER NOT NULL)",
+            "INSERT INTO SyncState (replica, clock, applying) SELECT lower(hex(randomblob(8))), 0, 0 WHERE NOT EXISTS (SELECT 1 FROM SyncState)",
+            "CREATE TABLE IF NOT EXISTS SyncVector (origin TEXT PRIMARY KEY, clock INTEGER NOT NULL)",
+            """
+            CREATE TABLE ChangeLog (
+                sync_id TEXT PRIMARY KEY,
+                origin TEXT NOT NULL,
+                clock INTEGER NOT NULL,
+                deleted INTEGER NOT NULL
+            )""",
+            "CREATE INDEX IF NOT EXISTS idx_changelog_clock ON ChangeLog(clock)",
+            "UPDATE Transactions SET sync_id = COALESCE('occ:' || occurrence_key, (SELECT replica FROM SyncState) || ':' || id) WHERE sync_id IS NULL",
+            "UPDATE SyncState SET clock = clock + 1 WHERE EXISTS (SELECT 1 FROM Transactions)",
+            "INSERT INTO ChangeLog (sync_id, origin, clock, deleted) SELECT t.sync_id, s.replica, s.clock, 0 FROM Transactions t, SyncState s",
+            """
+            CREATE TRIGGER IF NOT EXISTS transactions_sync_insert AFTER INSERT ON Transactions
+            WHEN (SELECT applying FROM SyncState) = 0 BEGIN
+                UPDATE SyncState SET clock = clock + 1;
+                UPDATE Transactions SET sync_id = COALESCE('occ:' || new.occurrence_key, (SELECT replica FROM SyncState) || ':' || new.id)
+                    WHERE id = new.id;
+                INSERT OR REPLACE INTO ChangeLog (sync_id, origin, clock, deleted)
+                    SELECT t.sync_id, s.replica, s.clock, 0 FROM Transactions t, SyncState s WHERE t.id = new.id;
+            END""",
+            """
+            CREATE TRIGGER IF NOT EXISTS transactions_sync_update
+            AFTER UPDATE OF amount, date, category_id, payment_type_id, comment, place_id, beneficiary_id, type_id, currency
+            ON Transactions WHEN (SELECT applying FROM SyncState) = 0 AND new.sync_id IS NOT NULL BEGIN
+                UPDATE SyncState SET clock = clock + 1;
+                INSERT OR REPLACE INTO ChangeLog (sync_id, origin, clock, deleted)
+                    SELECT new.sync_id, replica, clock, 0 FROM SyncState;
+            END""",
+            """
+            CREATE TRIGGER IF NOT EXISTS transactions_sync_delete AFTER DELETE ON Transactions
+            WHEN (SELECT applying FROM SyncState) = 0 AND old.sync_id IS NOT NULL BEGIN
+                UPDATE SyncState SET clock = clock + 1;
+                INSERT OR REPLACE INTO ChangeLog (sync_id, origin, clock, deleted)
+                    SELECT old.sync_id, replica, clock, 1 FROM SyncState;
+            END"""
+    };
+
+    // Older versions stored dates as typed, e.g. 2025-4-1. Queries filter and order dates as text, which only works
+    // when every date is zero-padded, so such rows are rewritten. The edit syncs like any other. The partial index
+    // holds only short dates, so checking for them on start costs nothing once they are gone.
+    private static final String UNPADDED_DATE_INDEX =
+            "CREATE INDEX IF NOT EXISTS idx_transactions_unpadded_date ON Transactions(date) WHERE length(date) < 10";
+
+    private static final String[] PADDED_DATES = {
+            """
+            UPDATE Transactions SET date = substr(date, 1, 5)
+                || printf('%02d', CAST(substr(date, 6, instr(substr(date, 6), '-') - 1) AS INTEGER)) || '-'
+                || printf('%02d', CAST(substr(date, 6 + instr(substr(date, 6), '-')) AS INTEGER))
+            WHERE length(date) < 10 AND (date GLOB '[0-9][0-9][0-9][0-9]-[0-9]-[0-9]'
+                OR date GLOB '[0-9][0-9][0-9][0-9]-[0-9]-[0-9][0-9]'
+                OR date GLOB '[0-9][0-9][0-9][0-9]-[0-9][0-9]-[0-9]')"""
+    };
+
+    // Each migration block below runs in one transaction, so a block that fails part-way leaves nothing behind and
+    // is retried in full on the next start. Failures are thrown rather than logged: a ledger that silently misses a
+    // block (e.g. the sync triggers) would keep running without it.
+    public static void initialize(Connection connection) {
+        try (Statement stmt = connection.createStatement()) {
+            for (String sql : BASE_TABLES) {
+                stmt.execute(sql);
+            }
+            addMissingColumns(connection, "Transactions", TRANSACTION_COLUMNS);
+            addMissingColumns(connection, "PaymentTypes", PAYMENT_TYPE_COLUMNS);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_transactions_fingerprint ON Transactions(fingerprint)");
+            stmt.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_transactions_occurrence ON Transactions(occurrence_key)");
+            if (!tableExists(connection, "TransactionSearch")) {
+                migrate(connection, COMMENT_SEARCH);
+            }
+            if (!tableExists(connection, "SearchIndexState")) {
+                migrate(connection, DEFERRED_SEARCH_INDEX);
+            }
+            stmt.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_transactions_sync ON Transactions(sync_id)");
+            if (!columnExists(connection, "RecurringTransactions", "uid")) {
+                if (tableExists(connection, "ChangeLog")) {
+                    migrate(connection, RECURRING_UIDS, RECURRING_SYNC_IDS);
+                } else {
+                    migrate(connection, RECURRING_UIDS);
+                }
+            }
+            if (!tableExists(connection, "ChangeLog")) {
+                migrate(connection, CHANGE_LOG);
+            }
+            stmt.execute(UNPADDED_DATE_INDEX);
+            boolean unpadded;
+            try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM Transactions WHERE length(date) < 10 LIMIT 1")) {
+                unpadded = rs.next();
+            }
+            if (unpadded) migrate(connection, PADDED_DATES);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not initialize the database schema", e);
+        }
+    }
+
+    // Inside a caller's transaction the blocks run under a savepoint instead.
+    private static void migrate(Connection connection, String[]... blocks) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        Savepoint savepoint = autoCommit ? null : connection.setSavepoint();
+        connection.setAutoCommit(false);
+        try (Statement stmt = connection.createStatement()) {
+            for (String[] block : blocks) {
+                for (String sql : block) {
+                    stmt.execute(sql);
+                }
+            }
+            if (autoCommit) connection.commit(); else connection.releaseSavepoint(savepoint);
+        } catch (SQLException | RuntimeException e) {
+            try {
+                if (autoCommit) connection.rollback(); else connection.rollback(savepoint);
+            } catch (SQLException rollbackFailure) {
+                e.addSuppressed(rollbackFailure);
+            }
+            throw e;
+        } finally {
+            if (autoCommit) connection.setAutoCommit(true);
+        }
+    }
+
+    private static void addMissingColumns(Connection connection, String table, String[][] columns) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            for (String[] column : columns) {
+                if (!columnExists(connection, table, column[0])) {
+                    stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column[0] + " " + column[1]);
+                }
+            }
+        }
+    }
+
+    public static boolean tableExists(Connection connection, String name) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getTables(null, null, name, null)) {
+            return rs.next();
+        }
+    }
+
+    public static boolean columnExists(Connection connection, String table, String column) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getColumns(null, null, table, column)) {
+            return rs.next();
+        }
+    }
+}
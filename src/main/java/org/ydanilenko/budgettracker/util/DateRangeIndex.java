@@ -0,0 +1,168 @@
+package org.ydanilenko.budgettracker.util;
+
+import org.ydanilenko.budgettracker.model.Transaction;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class DateRangeIndex {
+    private final CurrencyConverter converter;
+    private final List<Transaction> sorted;
+    private final List<Transaction> view;
+    private long[] days;
+    private double[] prefixSums;
+    private int size;
+
+    public DateRangeIndex(List<Transaction> transactions) {
+        this(transactions, CurrencyConverter.IDENTITY);
+    }
+
+    public DateRangeIndex(List<Transaction> transactions, CurrencyConverter converter) {
+        this.converter = converter;
+        CurrencyConverter.Lookup rates = converter.lookup();
+        long[] parsedDays = new long[transactions.size()];
+        long minDay = Long.MAX_VALUE;
+
+        for (int i = 0; i < parsedDays.length; i++) {
+            Transaction t = transactions.get(i);
+            long day = EpochDays.parse(t.getDate());
+            parsedDays[i] = day;
+            if (day == EpochDays.INVALID) {
+                System.err.println("Invalid date format in transaction: " + t.getDate());
+                continue;
+            }
+            if (t.getCurrency() != null) {
+                t.setBaseAmount(rates.toBase(t.getAmount(), t.getCurrency(), day));
+            }
+            minDay = Math.min(minDay, day);
+        }
+
+        // Day offset in the high bits and list position in the low bits, so one primitive sort keeps ties in input order.
+        long[] keys = new long[parsedDays.length];
+        int valid = 0;
+        for (int i = 0; i < parsedDays.length; i++) {
+            if (parsedDays[i] != EpochDays.INVALID) {
+                keys[valid++] = (parsedDays[i] - minDay) << 32 | i;
+            }
+        }
+        Arrays.sort(keys, 0, valid);
+
+        Transaction[] sortedTransactions = new Transaction[valid];
+        this.days = new long[valid];
+        this.prefixSums = new double[valid + 1];
+
+        for (int i = 0; i < valid; i++) {
+            Transaction t = transactions.get((int) keys[i]);
+            sortedTransactions[i] = t;
+            days[i] = (keys[i] >>> 32) + minDay;
+            prefixSums[i + 1] = prefixSums[i] + t.getBaseAmount();
+        }
+
+        this.size = valid;
+        this.sorted = new ArrayList<>(Arrays.asList(sortedTransactions));
+        this.view = Collections.unmodifiableList(sorted);
+    }
+
+    // Inserts after any entries on the same day. Shifting the arrays is a memory move, far cheaper than reloading.
+    public boolean add(Transaction transaction) {
+        long day = EpochDays.parse(transaction.getDate());
+        if (day == EpochDays.INVALID) {
+            System.err.println("Invalid date format in transaction: " + transaction.getDate());
+            return false;
+        }
+        if (transaction.getCurrency() != null) {
+            transaction.setBaseAmount(converter.lookup().toBase(transaction.getAmount(), transaction.getCurrency(), day));
+        }
+        if (size == days.length) {
+            days = Arrays.copyOf(days, Math.max(16, size * 2));
+            prefixSums = Arrays.copyOf(prefixSums, days.length + 1);
+        }
+
+        int position = lowerBound(day + 1);
+        double amount = transaction.getBaseAmount();
+        System.arraycopy(days, position, days, position + 1, size - position);
+        System.arraycopy(prefixSums, position + 1, prefixSums, position + 2, size - position);
+        days[position] = day;
+        prefixSums[position + 1] = prefixSums[position] + amount;
+        for (int i = position + 2; i <= size + 1; i++) {
+            prefixSums[i] += amount;
+        }
+        sorted.add(position, transaction);
+        size++;
+        return true;
+    }
+
+    // Removes the entry stored under the transaction's id on the transaction's date.
+    public Transaction remove(Transaction transaction) {
+        long day = EpochDays.parse(transaction.getDate());
+        if (day == EpochDays.INVALID) return null;
+
+        for (int position = lowerBound(day); position < size && days[position] == day; position++) {
+            Transaction stored = sorted.get(position);
+            if (stored.getId() != transaction.getId()) continue;
+
+            double amount = stored.getBaseAmount();
+            System.arraycopy(days, position + 1, days, position, size - position - 1);
+            System.arraycopy(prefixSums, position + 2, prefixSums, position + 1, size - position - 1);
+            for (int i = position + 1; i < size; i++) {
+                prefixSums[i] -= amount;
+            }
+            sorted.remove(position);
+            size--;
+            return stored;
+        }
+        return null;
+    }
+
+    public List<Transaction> slice(LocalDate start, LocalDate end) {
+        int from = fromIndex(start);
+        return view.subList(from, Math.max(from, toIndex(end)));
+    }
+
+    public double total(LocalDate start, LocalDate end) {
+        int from = fromIndex(start);
+        int to = toIndex(end);
+        return to > from ? prefixSums[to] - prefixSums[from] : 0.0;
+    }
+
+    public int count(LocalDate start, LocalDate end) {
+        return Math.max(0, toIndex(end) - fromIndex(start));
+    }
+
+    public List<Transaction> getAll() {
+        return view;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long dayAt(int position) {
+        return days[position];
+    }
+
+    private int fromIndex(LocalDate start) {
+        return start == null ? 0 : lowerBound(start.toEpochDay());
+    }
+
+    private int toIndex(LocalDate end) {
+        return end == null ? size : lowerBound(end.toEpochDay() + 1);
+    }
+
+    private int lowerBound(long day) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (days[mid] < day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,46 @@
+package org.ydanilenko.budgettracker.util;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+public class EpochDays {
+    public static final long INVALID = Long.MIN_VALUE;
+
+    public static long parse(String date) {
+        if (date == null) return INVALID;
+
+        int length = date.length();
+        int firstDash = date.indexOf('-');
+        int secondDash = firstDash < 0 ? -1 : date.indexOf('-', firstDash + 1);
+        if (firstDash != 4 || secondDash < 0 || secondDash - firstDash > 3 || length - secondDash > 3) {
+            return INVALID;
+        }
+
+        int year = digits(date, 0, firstDash);
+        int month = digits(date, firstDash + 1, secondDash);
+        int day = digits(date, secondDash + 1, length);
+        if (year < 0 || month < 0 || day < 0) return INVALID;
+
+        try {
+            return LocalDate.of(year, month, day).toEpochDay();
+        } catch (DateTimeException e) {
+            return INVALID;
+        }
+    }
+
+    public static int monthIndex(long epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    private static int digits(String text, int from, int to) {
+        if (from >= to) return -1;
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,52 @@
+package org.ydanilenko.budgettracker.util;
+
+public class FenwickTree {
+    private final double[] tree;
+
+    public FenwickTree(int size) {
+        this.tree = new double[size + 1];
+    }
+
+    public FenwickTree(double[] values) {
+        this.tree = new double[values.length + 1];
+        System.arraycopy(values, 0, tree, 1, values.length);
+        for (int i = 1; i < tree.length; i++) {
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    public int size() {
+        return tree.length - 1;
+    }
+
+    public void add(int index, double delta) {
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    public double prefixSum(int index) {
+        double sum = 0.0;
+        for (int i = Math.min(index + 1, tree.length - 1); i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    public double rangeSum(int from, int to) {
+        if (to < from || to < 0 || from >= size()) return 0.0;
+        double upper = prefixSum(to);
+        return from <= 0 ? upper : upper - prefixSum(from - 1);
+    }
+
+    public double[] toArray() {
+        double[] values = new double[size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = rangeSum(i, i);
+        }
+        return values;
+    }
+}
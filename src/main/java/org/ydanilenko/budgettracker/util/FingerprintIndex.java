@@ -0,0 +1,101 @@
+package org.ydanilenko.budgettracker.util;
+
+public class FingerprintIndex {
+    private static final int MIN_CAPACITY = 1024;
+
+    private long[] keys;
+    private int[] ids;
+    private int size;
+
+    public FingerprintIndex() {
+        this(0);
+    }
+
+    public FingerprintIndex(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) capacity <<= 1;
+        keys = new long[capacity];
+        ids = new int[capacity];
+    }
+
+    public int find(long fingerprint) {
+        long key = fingerprint == 0 ? 1 : fingerprint;
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) return ids[slot];
+        }
+        return -1;
+    }
+
+    public boolean contains(long fingerprint) {
+        return find(fingerprint) >= 0;
+    }
+
+    public void add(long fingerprint, int id) {
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length << 1);
+        }
+        if (insert(keys, ids, fingerprint == 0 ? 1 : fingerprint, id)) {
+            size++;
+        }
+    }
+
+    // Drops the fingerprint, shifting later entries of its probe run back so lookups never stop at the gap.
+    public boolean remove(long fingerprint) {
+        long key = fingerprint == 0 ? 1 : fingerprint;
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (keys[slot] != key) {
+            if (keys[slot] == 0) return false;
+            slot = (slot + 1) & mask;
+        }
+        int gap = slot;
+        for (int next = (gap + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+            int home = slot(keys[next], mask);
+            // Move the entry only if its home slot is not between the gap and where it sits now.
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                ids[gap] = ids[next];
+                gap = next;
+            }
+        }
+        keys[gap] = 0;
+        ids[gap] = 0;
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void resize(int capacity) {
+        long[] newKeys = new long[capacity];
+        int[] newIds = new int[capacity];
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) insert(newKeys, newIds, keys[i], ids[i]);
+        }
+        keys = newKeys;
+        ids = newIds;
+    }
+
+    private static boolean insert(long[] keys, int[] ids, long key, int id) {
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                // The lowest id stands for the fingerprint, as it would after reloading the index in id order.
+                if (id < ids[slot]) ids[slot] = id;
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        ids[slot] = id;
+        return true;
+    }
+
+    private static int slot(long key, int mask) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+}
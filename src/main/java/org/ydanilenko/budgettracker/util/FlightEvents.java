@@ -0,0 +1,60 @@
+package org.ydanilenko.budgettracker.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+public class FlightEvents {
+
+    private FlightEvents() {
+    }
+
+    static Call begin(String operation, boolean database) {
+        // Touching an event class boots the recorder, which costs a headless run more than its whole query.
+        if (!FlightRecorder.isInitialized()) return null;
+        Call event = database ? new DatabaseCall() : new UiOperation();
+        if (!event.isEnabled()) return null;
+        event.operation = operation;
+        event.begin();
+        return event;
+    }
+
+    static void commit(Call event, long rows, boolean failed) {
+        if (event == null) return;
+        event.end();
+        if (event.shouldCommit()) {
+            event.rows = rows;
+            event.failed = failed;
+            event.commit();
+        }
+    }
+
+    public abstract static class Call extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Rows")
+        @Description("Rows returned or written, -1 when the call does not work on a row set")
+        long rows;
+
+        @Label("Failed")
+        boolean failed;
+    }
+
+    @Name("org.ydanilenko.budgettracker.DatabaseCall")
+    @Label("Database Call")
+    @Category({"Budget Tracker", "Database"})
+    @StackTrace(false)
+    public static class DatabaseCall extends Call {
+    }
+
+    @Name("org.ydanilenko.budgettracker.UiOperation")
+    @Label("UI Operation")
+    @Category({"Budget Tracker", "UI"})
+    public static class UiOperation extends Call {
+    }
+}
@@ -0,0 +1,70 @@
+package org.ydanilenko.budgettracker.util;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+public class FlightRecording implements AutoCloseable {
+    public static final String FLAG = "--jfr";
+    public static final Path DEFAULT_FILE = Path.of(System.getProperty("user.home"), ".budget-tracker", "budget-tracker.jfr");
+    public static final Duration MAX_AGE = Duration.ofMinutes(30);
+    public static final long MAX_SIZE = 64L * 1024 * 1024;
+
+    private final Recording recording;
+    private final Path destination;
+
+    private FlightRecording(Recording recording, Path destination) {
+        this.recording = recording;
+        this.destination = destination;
+    }
+
+    public static FlightRecording fromArgs(String[] args) {
+        for (String arg : args) {
+            if (arg.equals(FLAG)) return start(DEFAULT_FILE);
+            if (arg.startsWith(FLAG + "=")) return start(Path.of(arg.substring(FLAG.length() + 1)));
+        }
+        return null;
+    }
+
+    public static FlightRecording start(Path destination) {
+        try {
+            Files.createDirectories(destination.toAbsolutePath().getParent());
+            Recording recording = new Recording(Configuration.getConfiguration("default"));
+            recording.setName("budget-tracker");
+            recording.setToDisk(true);
+            recording.setMaxAge(MAX_AGE);
+            recording.setMaxSize(MAX_SIZE);
+            recording.enable(FlightEvents.DatabaseCall.class);
+            recording.enable(FlightEvents.UiOperation.class);
+            recording.start();
+            return new FlightRecording(recording, destination);
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    public Path getDestination() {
+        return destination;
+    }
+
+    public void dump() throws IOException {
+        recording.dump(destination);
+    }
+
+    @Override
+    public void close() {
+        try {
+            dump();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            recording.close();
+        }
+    }
+}
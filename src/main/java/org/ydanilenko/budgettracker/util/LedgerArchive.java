@@ -0,0 +1,400 @@
+package org.ydanilenko.budgettracker.util;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Cold storage for closed years. Each archived year lives in its own SQLite file next to the ledger, holding the
+// year's Transactions rows under their original ids; the Archives table in the ledger records which years have
+// moved. Queries over old dates attach the matching files on their own connections and run in parallel.
+public class LedgerArchive implements AutoCloseable {
+    public static final int DEFAULT_KEEP_YEARS = 2;
+    private static final String ALIAS = "archive";
+    // Each year file carries its own comment index, kept current by the same triggers as the ledger's, so searches
+    // reach archived rows. Copies rebuild it, since replaced rows skip the delete trigger.
+    private static final String[] SEARCH_INDEX = {
+            "CREATE VIRTUAL TABLE IF NOT EXISTS " + ALIAS + ".TransactionSearch USING fts5(comment, content='Transactions', content_rowid='id')",
+            """
+            CREATE TRIGGER IF NOT EXISTS %s.transactions_search_delete AFTER DELETE ON Transactions BEGIN
+                INSERT INTO TransactionSearch(TransactionSearch, rowid, comment) VALUES ('delete', old.id, old.comment);
+            END""".formatted(ALIAS),
+            """
+            CREATE TRIGGER IF NOT EXISTS %s.transactions_search_update AFTER UPDATE OF comment ON Transactions BEGIN
+                INSERT INTO TransactionSearch(TransactionSearch, rowid, comment) VALUES ('delete', old.id, old.comment);
+                INSERT INTO TransactionSearch(rowid, comment) VALUES (new.id, new.comment);
+            END""".formatted(ALIAS)
+    };
+
+    private final ConnectionPool pool;
+    private final Path directory;
+    private final String stem;
+    private final ExecutorService executor;
+    private final List<ArchiveListener> listeners = new CopyOnWriteArrayList<>();
+
+    public interface ArchiveListener {
+        void onArchived(int year, int moved);
+    }
+
+    public LedgerArchive(ConnectionPool pool, Path directory) {
+        Path file = pool.getFile();
+        if (file == null) {
+            throw new IllegalArgumentException("Only SQLite database files can be archived");
+        }
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        this.pool = pool;
+        this.directory = directory;
+        this.stem = dot > 0 ? name.substring(0, dot) : name;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+            Thread thread = new Thread(runnable, "ledger-archive-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public LedgerArchive(ConnectionPool pool) {
+        this(pool, defaultDirectory(pool));
+    }
+
+    public static boolean canArchive(ConnectionPool pool) {
+        return pool.getFile() != null;
+    }
+
+    public static Path defaultDirectory(ConnectionPool pool) {
+        Path parent = pool.getFile().toAbsolutePath().getParent();
+        return parent.resolve("archive");
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    // Told after rows leave the ledger, which happens without the DAO's row events.
+    public void addArchiveListener(ArchiveListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeArchiveListener(ArchiveListener listener) {
+        listeners.remove(listener);
+    }
+
+    public Path fileFor(int year) {
+        return directory.resolve(stem + "-" + year + ".db");
+    }
+
+    // Archived years with their row counts, oldest first.
+    public Map<Integer, Long> getArchivedYears() {
+        return pool.read(connection -> {
+            Map<Integer, Long> years = new TreeMap<>();
+            try {
+                // Ledgers opened without DatabaseSchema.initialize, e.g. by a headless report, have nothing archived.
+                if (!DatabaseSchema.tableExists(connection, "Archives")) return years;
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return years;
+            }
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT year, rows FROM Archives ORDER BY year")) {
+                while (rs.next()) years.put(rs.getInt(1), rs.getLong(2));
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            return years;
+        });
+    }
+
+    // Moves every year older than the last keepYears (counting the current one) out of the ledger.
+    public Map<Integer, Integer> archiveClosedYears(LocalDate today, int keepYears) throws IOException {
+        String before = LocalDate.of(today.getYear() - Math.max(1, keepYears) + 1, 1, 1).toString();
+        List<Integer> years = pool.read(connection -> {
+            List<Integer> found = new ArrayList<>();
+            try (PreparedStatement stmt = connection.prepareStatement(
+                    "SELECT DISTINCT CAST(substr(date, 1, 4) AS INTEGER) FROM Transactions WHERE date < ? ORDER BY 1")) {
+                stmt.setString(1, before);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) found.add(rs.getInt(1));
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            return found;
+        });
+
+        Map<Integer, Integer> moved = new LinkedHashMap<>();
+        for (int year : years) {
+            if (year > 0) moved.put(year, archiveYear(year));
+        }
+        return moved;
+    }
+
+    // Returns the number of rows moved. Rows are copied and committed to the year's file before they are deleted
+    // from the ledger, so an interrupted run leaves duplicates that the next run replaces, never lost rows.
+    public synchronized int archiveYear(int year) throws IOException {
+        Metrics.Sample sample = Metrics.start("archive.year");
+        Files.createDirectories(directory);
+        Path file = fileFor(year);
+        String from = year + "-01-01";
+        String to = (year + 1) + "-01-01";
+        try {
+            String[] error = new String[1];
+            int moved = pool.write(connection -> {
+                try {
+                    attach(connection, file);
+                    try {
+                        int copied = pool.transaction(tx -> copyYear(tx, from, to));
+                        return pool.transaction(tx -> removeYear(tx, year, file, from, to, copied));
+                    } finally {
+                        try (Statement stmt = connection.createStatement()) {
+                            stmt.execute("DETACH DATABASE " + ALIAS);
+                        }
+                    }
+                } catch (SQLException e) {
+                    error[0] = e.getMessage();
+                    return -1;
+                }
+            });
+            if (error[0] != null) throw new IOException("Could not archive " + year + ": " + error[0]);
+            if (moved > 0) {
+                for (ArchiveListener listener : listeners) {
+                    listener.onArchived(year, moved);
+                }
+            }
+            return moved;
+        } catch (IOException | RuntimeException e) {
+            sample.failed();
+            throw e;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    private static void attach(Connection connection, Path file) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement("ATTACH DATABASE ? AS " + ALIAS)) {
+            stmt.setString(1, file.toString());
+            stmt.execute();
+        }
+    }
+
+    private int copyYear(Connection connection, String from, String to) throws SQLException {
+        List<String> columns = prepareTable(connection);
+        String list = String.join(", ", columns);
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "INSERT OR REPLACE INTO " + ALIAS + ".Transactions (" + list + ") SELECT " + list +
+                        " FROM main.Transactions WHERE date >= ? AND date < ?")) {
+            stmt.setString(1, from);
+            stmt.setString(2, to);
+            int copied = stmt.executeUpdate();
+            try (Statement rebuild = connection.createStatement()) {
+                rebuild.execute("INSERT INTO " + ALIAS + ".TransactionSearch(TransactionSearch) VALUES ('rebuild')");
+            }
+            return copied;
+        }
+    }
+
+    // Creates the archive's table and its indexes from the ledger's own definition, and adds any columns the ledger
+    // has gained since the file was first written.
+    private static List<String> prepareTable(Connection connection) throws SQLException {
+        String definition;
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                     "SELECT sql FROM main.sqlite_master WHERE type = 'table' AND name = 'Transactions'")) {
+            if (!rs.next()) throw new SQLException("The ledger has no Transactions table");
+            definition = rs.getString(1);
+        }
+
+        Map<String, String> columns = tableColumns(connection, "main");
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(definition.replaceFirst("(?i)^CREATE TABLE\\s+(IF NOT EXISTS\\s+)?\"?Transactions\"?",
+                    "CREATE TABLE IF NOT EXISTS " + ALIAS + ".Transactions"));
+            stmt.execute("CREATE INDEX IF NOT EXISTS " + ALIAS + ".idx_archive_date ON Transactions(date)");
+            Set<String> existing = tableColumns(connection, ALIAS).keySet();
+            for (Map.Entry<String, String> column : columns.entrySet()) {
+                if (!existing.contains(column.getKey())) {
+                    stmt.execute("ALTER TABLE " + ALIAS + ".Transactions ADD COLUMN " + column.getKey() + " " + column.getValue());
+                }
+            }
+            stmt.execute("CREATE INDEX IF NOT EXISTS " + ALIAS + ".idx_archive_sync ON Transactions(sync_id)");
+            for (String sql : SEARCH_INDEX) stmt.execute(sql);
+        }
+        return new ArrayList<>(columns.keySet());
+    }
+
+    private static Map<String, String> tableColumns(Connection connection, String schema) throws SQLException {
+        Map<String, String> columns = new LinkedHashMap<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA " + schema + ".table_info(Transactions)")) {
+            while (rs.next()) columns.put(rs.getString("name"), rs.getString("type"));
+        }
+        return columns;
+    }
+
+    private int removeYear(Connection connection, int year, Path file, String from, String to, int copied) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "SELECT COUNT(*), COUNT(a.id) FROM main.Transactions t LEFT JOIN " + ALIAS + ".Transactions a " +
+                        "ON a.id = t.id WHERE t.date >= ? AND t.date < ?")) {
+            stmt.setString(1, from);
+            stmt.setString(2, to);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                if (rs.getInt(1) != copied || rs.getInt(2) != copied) {
+                    throw new SQLException("Archive copy of " + year + " holds " + rs.getInt(2) + " of " + rs.getInt(1) + " rows");
+                }
+            }
+        }
+
+        int moved;
+        try (Statement stmt = connection.createStatement()) {
+            // Moving rows is not an edit: keep the sync triggers from recording the deletes as tombstones.
+            stmt.executeUpdate("UPDATE SyncState SET applying = 1");
+            try (PreparedStatement delete = connection.prepareStatement(
+                    "DELETE FROM main.Transactions WHERE date >= ? AND date < ?")) {
+                delete.setString(1, from);
+                delete.setString(2, to);
+                moved = delete.executeUpdate();
+            }
+            stmt.executeUpdate("UPDATE SyncState SET applying = 0");
+        }
+
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "INSERT INTO Archives (year, file, rows) VALUES (?, ?, (SELECT COUNT(*) FROM " + ALIAS + ".Transactions)) " +
+                        "ON CONFLICT(year) DO UPDATE SET file = excluded.file, rows = excluded.rows")) {
+            stmt.setInt(1, year);
+            stmt.setString(2, file.getFileName().toString());
+            stmt.executeUpdate();
+        }
+        return moved;
+    }
+
+    // Runs the query against every archived year that overlaps the date range, in parallel, each on its own
+    // connection with the year's file attached as "archive". Results come back oldest year first.
+    public <T> List<T> fanOut(LocalDate start, LocalDate end, ConnectionPool.SqlWork<T> query) throws SQLException {
+        List<Integer> years = getArchivedYears(start, end);
+        if (years.isEmpty()) return List.of();
+        if (years.size() == 1) return List.of(queryYear(years.get(0), query));
+
+        List<Future<T>> futures = new ArrayList<>();
+        for (int year : years) {
+            futures.add(executor.submit(() -> queryYear(year, query)));
+        }
+        List<T> results = new ArrayList<>();
+        try {
+            for (Future<T> future : futures) results.add(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while reading archives", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof SQLException cause) throw cause;
+            throw new SQLException("Could not read archives", e.getCause());
+        }
+        return results;
+    }
+
+    private <T> T queryYear(int year, ConnectionPool.SqlWork<T> query) throws SQLException {
+        try (Connection connection = openYear(year)) {
+            return query.run(connection);
+        }
+    }
+
+    // Archived years that overlap the date range, oldest first.
+    public List<Integer> getArchivedYears(LocalDate start, LocalDate end) {
+        List<Integer> years = new ArrayList<>();
+        for (int year : getArchivedYears().keySet()) {
+            if ((start == null || year >= start.getYear()) && (end == null || year <= end.getYear())) years.add(year);
+        }
+        return years;
+    }
+
+    // A connection of its own with the year's file attached as "archive", for reads that stream rather than fan out.
+    // The caller closes it.
+    public Connection openYear(int year) throws SQLException {
+        Path file = fileFor(year);
+        if (!Files.exists(file)) throw new SQLException("Missing archive file " + file);
+        Connection connection = pool.openUnpooled();
+        try {
+            attach(connection, file);
+            return connection;
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    // Runs the work on the caller's connection, normally the pool's writer, with the year's file attached as
+    // "archive", so changes to archived rows commit in the same transaction as the ledger's bookkeeping. The year's
+    // row count is refreshed afterwards. Not for use inside a transaction, where SQLite cannot attach.
+    public <T> T withYear(Connection connection, int year, ConnectionPool.SqlWork<T> work) throws SQLException {
+        Path file = fileFor(year);
+        if (!Files.exists(file)) throw new SQLException("Missing archive file " + file);
+        attach(connection, file);
+        try {
+            T result = work.run(connection);
+            try (PreparedStatement stmt = connection.prepareStatement(
+                    "UPDATE Archives SET rows = (SELECT COUNT(*) FROM " + ALIAS + ".Transactions) WHERE year = ?")) {
+                stmt.setInt(1, year);
+                stmt.executeUpdate();
+            }
+            return result;
+        } finally {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("DETACH DATABASE " + ALIAS);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    public static int run(String[] args, PrintStream stdout, PrintStream stderr) {
+        String url = null;
+        int keepYears = DEFAULT_KEEP_YEARS;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--db")) url = args[++i];
+                else if (args[i].equals("--keep-years")) keepYears = Integer.parseInt(args[++i]);
+                else throw new IllegalArgumentException(args[i]);
+            }
+        } catch (RuntimeException e) {
+            stderr.println("Usage: archive [--db jdbc-url] [--keep-years n]");
+            return 2;
+        }
+
+        try (ConnectionPool pool = url == null ? DatabaseConnection.createPool() : DatabaseConnection.createPool(url)) {
+            pool.write(connection -> {
+                DatabaseSchema.initialize(connection);
+                return null;
+            });
+            try (LedgerArchive archive = new LedgerArchive(pool)) {
+                Map<Integer, Integer> moved = archive.archiveClosedYears(LocalDate.now(), keepYears);
+                if (moved.isEmpty()) stdout.println("Nothing to archive.");
+                moved.forEach((year, rows) -> stdout.printf("Archived %d: %d rows to %s%n", year, rows, archive.fileFor(year)));
+            }
+            return 0;
+        } catch (IOException | RuntimeException e) {
+            stderr.println("Archive failed: " + e.getMessage());
+            return 1;
+        }
+    }
+}
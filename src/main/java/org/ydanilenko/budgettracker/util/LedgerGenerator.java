@@ -0,0 +1,365 @@
+package org.ydanilenko.budgettracker.util;
+
+import org.ydanilenko.budgettracker.model.PaymentType;
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+public class LedgerGenerator {
+    public static final long DEFAULT_SEED = 42;
+    public static final int BATCH_SIZE = 50_000;
+    public static final int PLACES = 400;
+    public static final int BENEFICIARIES = 600;
+    public static final String SALARY = "Salary";
+    public static final String EMPLOYER = "Employer";
+
+    private static final double ZIPF_EXPONENT = 1.1;
+    private static final int CARD_LIFETIME_YEARS = 4;
+
+    private static final Category[] EXPENSE_CATEGORIES = {
+            new Category("Food", 30, 18, 0.6, 12, 0.10, "Groceries", "Lunch", "Weekly shopping", null),
+            new Category("Transport", 12, 9, 0.7, 1, 0.15, "Fuel", "Ticket", "Taxi", null),
+            new Category("Utilities", 6, 70, 0.3, 1, 0.40, "Electricity", "Heating", "Internet"),
+            new Category("Rent", 2, 850, 0.05, 1, 0.0, "Monthly rent"),
+            new Category("Health", 5, 35, 0.8, 2, 0.20, "Pharmacy", "Doctor", null),
+            new Category("Entertainment", 10, 25, 0.7, 7, 0.30, "Cinema", "Concert", "Streaming", null),
+            new Category("Clothing", 6, 55, 0.6, 11, 0.35, "Shoes", "Jacket", null),
+            new Category("Travel", 3, 180, 0.9, 8, 0.80, "Hotel", "Flight", "Train"),
+            new Category("Education", 2, 60, 0.7, 9, 0.60, "Books", "Course"),
+            new Category("Gifts", 4, 40, 0.8, 12, 1.50, "Birthday", "Christmas", null),
+            new Category("Other", 8, 20, 1.0, 1, 0.0, "Misc", null)
+    };
+    private static final Category[] INCOME_CATEGORIES = {
+            new Category("Freelance", 3, 400, 0.6, 3, 0.20, "Invoice", "Consulting"),
+            new Category("Refunds", 2, 30, 0.8, 1, 0.30, "Return", "Cashback", null)
+    };
+
+    private final long seed;
+    private final LocalDate start;
+    private final LocalDate end;
+    private final List<String> categories = new ArrayList<>();
+    private final List<PaymentType> paymentTypes = new ArrayList<>();
+    private final double[] categoryWeights;
+    private final double[] placeWeights;
+    private final double[] beneficiaryWeights;
+    private final long[] cardIssued;
+    private final long[] cardExpires;
+
+    public LedgerGenerator(long seed, LocalDate start, LocalDate end) {
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("End date must not be before start date.");
+        }
+        this.seed = seed;
+        this.start = start;
+        this.end = end;
+
+        for (Category category : EXPENSE_CATEGORIES) categories.add(category.name);
+        for (Category category : INCOME_CATEGORIES) categories.add(category.name);
+        categories.add(SALARY);
+
+        paymentTypes.add(new PaymentType(1, "Cash", null, null, null, null));
+        paymentTypes.add(new PaymentType(2, "Bank Transfer", "Home Bank", null, null, null));
+        for (int year = start.getYear() - CARD_LIFETIME_YEARS + 1; year <= end.getYear(); year += CARD_LIFETIME_YEARS) {
+            addCard("Debit Card " + year, "Home Bank", LocalDate.of(year, 1, 1));
+            addCard("Credit Card " + (year + 2), "Travel Bank", LocalDate.of(year + 2, 6, 1));
+        }
+
+        this.categoryWeights = cumulative(EXPENSE_CATEGORIES);
+        this.placeWeights = zipf(PLACES);
+        this.beneficiaryWeights = zipf(BENEFICIARIES);
+
+        int cards = paymentTypes.size() - 2;
+        this.cardIssued = new long[cards];
+        this.cardExpires = new long[cards];
+        for (int i = 0; i < cards; i++) {
+            PaymentType card = paymentTypes.get(i + 2);
+            cardIssued[i] = LocalDate.parse(card.getIssueDate()).toEpochDay();
+            cardExpires[i] = LocalDate.parse(card.getExpirationDate()).toEpochDay();
+        }
+    }
+
+    public List<String> getCategories() {
+        return categories;
+    }
+
+    public List<PaymentType> getPaymentTypes() {
+        return paymentTypes;
+    }
+
+    public static List<String> placeNames() {
+        List<String> names = names("Place", PLACES);
+        names.add(EMPLOYER);
+        return names;
+    }
+
+    public static List<String> beneficiaryNames() {
+        List<String> names = names("Beneficiary", BENEFICIARIES);
+        names.add(EMPLOYER);
+        return names;
+    }
+
+    public List<Transaction> generate(int rows) {
+        List<Transaction> transactions = new ArrayList<>(rows);
+        forEach(rows, transactions::add);
+        return transactions;
+    }
+
+    public void forEach(int rows, Consumer<Transaction> consumer) {
+        Random random = new Random(seed);
+        long firstDay = start.toEpochDay();
+        long span = end.toEpochDay() - firstDay + 1;
+        long salaries = YearMonth.from(start).until(YearMonth.from(end), ChronoUnit.MONTHS) + 1;
+        double perRow = (double) span / Math.max(1, rows - salaries);
+        YearMonth lastPaid = null;
+
+        int produced = 0;
+        for (int i = 0; produced < rows; i++) {
+            LocalDate date = LocalDate.ofEpochDay(firstDay + Math.min(span - 1, (long) (i * perRow)));
+            YearMonth month = YearMonth.from(date);
+            if (!month.equals(lastPaid)) {
+                lastPaid = month;
+                consumer.accept(salary(random, date));
+                if (++produced == rows) break;
+            }
+            consumer.accept(random.nextInt(100) < 4 ? otherIncome(random, date) : expense(random, date));
+            produced++;
+        }
+    }
+
+    public int writeTo(Path file, int rows) throws IOException, SQLException {
+        if (Files.exists(file)) {
+            throw new FileAlreadyExistsException(file.toString());
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path partial = parent.resolve(file.getFileName() + ".part");
+        Files.deleteIfExists(partial);
+
+        int written;
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + partial)) {
+            written = writeTo(connection, rows);
+        }
+        Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE);
+        return written;
+    }
+
+    public int writeTo(Connection connection, int rows) throws SQLException {
+        DatabaseSchema.initialize(connection);
+        try (PreparedStatement ps = connection.prepareStatement("INSERT INTO Categories (name) VALUES (?)")) {
+            for (String category : categories) {
+                ps.setString(1, category);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+
+        TransactionDAO dao = new TransactionDAO(connection);
+        for (PaymentType paymentType : paymentTypes) {
+            dao.addPaymentType(paymentType);
+        }
+        dao.addPlaces(placeNames());
+        dao.addBeneficiaries(beneficiaryNames());
+
+        List<Transaction> batch = new ArrayList<>(BATCH_SIZE);
+        int[] written = {0};
+        forEach(rows, transaction -> {
+            batch.add(transaction);
+            if (batch.size() == BATCH_SIZE) {
+                written[0] += dao.addTransactions(batch);
+                batch.clear();
+            }
+        });
+        written[0] += dao.addTransactions(batch);
+        return written[0];
+    }
+
+    private Transaction salary(Random random, LocalDate date) {
+        double amount = round(2800 * (1 + 0.03 * (date.getYear() - start.getYear())) + random.nextInt(4) * 25);
+        return transaction(amount, date, categories.indexOf(SALARY), 2, "Monthly salary",
+                placeWeights.length, BENEFICIARIES + 1, 1);
+    }
+
+    private Transaction otherIncome(Random random, LocalDate date) {
+        int index = random.nextInt(INCOME_CATEGORIES.length);
+        Category category = INCOME_CATEGORIES[index];
+        return transaction(category.amount(random, date), date, EXPENSE_CATEGORIES.length + index,
+                paymentTypeOn(random, date, true), category.comment(random),
+                sample(random, placeWeights), sample(random, beneficiaryWeights) + 1, 1);
+    }
+
+    private Transaction expense(Random random, LocalDate date) {
+        int index = sample(random, categoryWeights);
+        Category category = EXPENSE_CATEGORIES[index];
+        return transaction(category.amount(random, date), date, index,
+                paymentTypeOn(random, date, false), category.comment(random),
+                sample(random, placeWeights), sample(random, beneficiaryWeights) + 1, 0);
+    }
+
+    private Transaction transaction(double amount, LocalDate date, int categoryIndex, int paymentTypeId,
+                                    String comment, int placeIndex, int beneficiaryId, int typeId) {
+        int placeId = placeIndex + 1;
+        Transaction transaction = new Transaction(amount, date.toString(), categoryIndex + 1, paymentTypeId,
+                comment, placeId, beneficiaryId, typeId);
+        transaction.setCategoryName(categories.get(categoryIndex));
+        transaction.setPaymentType(paymentTypes.get(paymentTypeId - 1).getName());
+        transaction.setPlaceName(placeId > PLACES ? EMPLOYER : "Place " + placeId);
+        transaction.setBeneficiaryName(beneficiaryId > BENEFICIARIES ? EMPLOYER : "Beneficiary " + beneficiaryId);
+        return transaction;
+    }
+
+    private int paymentTypeOn(Random random, LocalDate date, boolean income) {
+        if (income) return 2;
+        int roll = random.nextInt(100);
+        if (roll < 20) return 1;
+        if (roll < 25) return 2;
+
+        long day = date.toEpochDay();
+        int first = -1;
+        int second = -1;
+        for (int i = 0; i < cardIssued.length && second < 0; i++) {
+            if (day >= cardIssued[i] && day < cardExpires[i]) {
+                if (first < 0) first = i; else second = i;
+            }
+        }
+        if (first < 0) return 1;
+        return (roll < 75 || second < 0 ? first : second) + 3;
+    }
+
+    private void addCard(String name, String bank, LocalDate issued) {
+        paymentTypes.add(new PaymentType(paymentTypes.size() + 1, name, bank, "Visa",
+                issued.toString(), issued.plusYears(CARD_LIFETIME_YEARS).toString()));
+    }
+
+    private static int sample(Random random, double[] cumulativeWeights) {
+        double target = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        int low = 0;
+        int high = cumulativeWeights.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulativeWeights[mid] <= target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static double[] zipf(int count) {
+        double[] weights = new double[count];
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += 1 / Math.pow(i + 1, ZIPF_EXPONENT);
+            weights[i] = sum;
+        }
+        return weights;
+    }
+
+    private static double[] cumulative(Category[] categories) {
+        double[] weights = new double[categories.length];
+        double sum = 0;
+        for (int i = 0; i < categories.length; i++) {
+            sum += categories[i].weight;
+            weights[i] = sum;
+        }
+        return weights;
+    }
+
+    private static List<String> names(String prefix, int count) {
+        List<String> names = new ArrayList<>(count + 1);
+        for (int i = 1; i <= count; i++) {
+            names.add(prefix + " " + i);
+        }
+        return names;
+    }
+
+    private static double round(double amount) {
+        return Math.round(amount * 100) / 100.0;
+    }
+
+    private static class Category {
+        final String name;
+        final double weight;
+        final double median;
+        final double spread;
+        final int peakMonth;
+        final double seasonality;
+        final String[] comments;
+
+        Category(String name, double weight, double median, double spread, int peakMonth, double seasonality, String... comments) {
+            this.name = name;
+            this.weight = weight;
+            this.median = median;
+            this.spread = spread;
+            this.peakMonth = peakMonth;
+            this.seasonality = seasonality;
+            this.comments = comments;
+        }
+
+        double amount(Random random, LocalDate date) {
+            double season = 1 + seasonality * (1 + Math.cos(2 * Math.PI * (date.getMonthValue() - peakMonth) / 12)) / 2;
+            double weekend = date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY ? 1.2 : 1.0;
+            double amount = median * season * weekend * Math.exp(spread * random.nextGaussian());
+            return Math.max(0.5, round(amount));
+        }
+
+        String comment(Random random) {
+            return comments[random.nextInt(comments.length)];
+        }
+    }
+
+    public static void main(String[] args) {
+        long seed = DEFAULT_SEED;
+        int rows = 100_000;
+        LocalDate to = LocalDate.now();
+        LocalDate from = null;
+        Path target = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--rows" -> rows = Integer.parseInt(args[++i].replace("_", ""));
+                    case "--seed" -> seed = Long.parseLong(args[++i]);
+                    case "--from" -> from = LocalDate.parse(args[++i]);
+                    case "--to" -> to = LocalDate.parse(args[++i]);
+                    default -> target = Path.of(args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            target = null;
+        }
+
+        if (target == null || rows < 0) {
+            System.err.println("Usage: LedgerGenerator [--rows n] [--seed n] [--from yyyy-MM-dd] [--to yyyy-MM-dd] <file.db>");
+            System.exit(2);
+        }
+
+        try {
+            LedgerGenerator generator = new LedgerGenerator(seed, from != null ? from : to.minusYears(5).plusDays(1), to);
+            long started = System.nanoTime();
+            int written = generator.writeTo(target, rows);
+            System.out.printf("Generated %d transactions in %s (%d ms)%n",
+                    written, target, (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException | SQLException | IllegalArgumentException e) {
+            System.err.println("Generation failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
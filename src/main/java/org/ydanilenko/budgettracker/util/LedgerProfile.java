@@ -0,0 +1,92 @@
+package org.ydanilenko.budgettracker.util;
+
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// One open ledger: its connection pool, the DAO with its caches, and the archive and journal that belong to the
+// database file. Metrics for the pool's operations are recorded under the profile's name as well.
+public class LedgerProfile implements AutoCloseable {
+    private final String name;
+    private final ConnectionPool pool;
+    private final TransactionDAO dao;
+    private final LedgerArchive archive;
+    private final TransactionJournal journal;
+    private volatile long lastUsed = System.nanoTime();
+    private int leases;
+
+    LedgerProfile(String name, ConnectionPool pool) {
+        this.name = name;
+        this.pool = pool;
+        pool.setMetricsScope(name);
+        pool.write(connection -> {
+            DatabaseSchema.initialize(connection);
+            return null;
+        });
+        this.dao = new TransactionDAO(pool);
+
+        Path file = pool.getFile();
+        this.archive = file == null ? null : new LedgerArchive(pool);
+        dao.setArchive(archive);
+        TransactionJournal opened = null;
+        if (file != null) {
+            try {
+                opened = new TransactionJournal(Path.of(file + ".journal"), dao);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        this.journal = opened;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ConnectionPool getPool() {
+        return pool;
+    }
+
+    public TransactionDAO getDao() {
+        touch();
+        return dao;
+    }
+
+    public LedgerArchive getArchive() {
+        return archive;
+    }
+
+    public TransactionJournal getJournal() {
+        return journal;
+    }
+
+    void touch() {
+        lastUsed = System.nanoTime();
+    }
+
+    long getLastUsed() {
+        return lastUsed;
+    }
+
+    synchronized void lease() {
+        leases++;
+        touch();
+    }
+
+    synchronized void release() {
+        leases--;
+        touch();
+    }
+
+    synchronized boolean isLeased() {
+        return leases > 0;
+    }
+
+    @Override
+    public void close() {
+        if (journal != null) journal.close();
+        if (archive != null) archive.close();
+        pool.close();
+    }
+}
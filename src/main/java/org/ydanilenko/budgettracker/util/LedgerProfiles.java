@@ -0,0 +1,207 @@
+package org.ydanilenko.budgettracker.util;
+
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Named ledgers, e.g. personal, household and business books, each in its own database. A profile opens on first
+// use; switching to it warms its DAO caches in the background. Profiles that sit idle past the timeout, or the
+// least recently used ones beyond the open limit, are closed again. The active profile and profiles in use are
+// never closed.
+public class LedgerProfiles implements AutoCloseable {
+    public static final String DEFAULT_PROFILE = "default";
+    public static final Path DEFAULT_DIR = Path.of(System.getProperty("user.home"), ".budget-tracker", "profiles");
+    public static final long DEFAULT_IDLE_MINUTES = 10;
+    public static final int DEFAULT_MAX_OPEN = 3;
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9_-]{0,39}");
+    private static final String SUFFIX = ".db";
+
+    private final Map<String, String> configured;
+    private final Path directory;
+    private final Function<String, ConnectionPool> opener;
+    private final long idleNanos;
+    private final int maxOpen;
+    // Access order, so the first entry is the least recently used.
+    private final LinkedHashMap<String, LedgerProfile> open = new LinkedHashMap<>(8, 0.75f, true);
+    private final ScheduledExecutorService background;
+    private String active;
+
+    public LedgerProfiles(Map<String, String> urls, Path directory, Function<String, ConnectionPool> opener,
+                          long idleTimeout, TimeUnit unit, int maxOpen) {
+        this.configured = new TreeMap<>(urls);
+        this.directory = directory;
+        this.opener = opener;
+        this.idleNanos = unit.toNanos(idleTimeout);
+        this.maxOpen = Math.max(1, maxOpen);
+        this.background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ledger-profiles");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, unit.toSeconds(idleTimeout) / 2);
+        background.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.SECONDS);
+    }
+
+    public LedgerProfiles(Map<String, String> urls, Path directory) {
+        this(urls, directory, null, DEFAULT_IDLE_MINUTES, TimeUnit.MINUTES, DEFAULT_MAX_OPEN);
+    }
+
+    // Profiles from config.properties, plus any ledger files created in the profile directory.
+    public static LedgerProfiles fromConfig() {
+        Map<String, String> urls = DatabaseConnection.getProfileUrls();
+        // The default profile keeps the configured credentials.
+        return new LedgerProfiles(urls, DEFAULT_DIR, name -> name.equals(DEFAULT_PROFILE) && urls.containsKey(DEFAULT_PROFILE)
+                ? DatabaseConnection.createPool() : null, DEFAULT_IDLE_MINUTES, TimeUnit.MINUTES, DEFAULT_MAX_OPEN);
+    }
+
+    public static boolean isValidName(String name) {
+        return name != null && NAME.matcher(name).matches();
+    }
+
+    public synchronized List<String> getNames() {
+        TreeSet<String> names = new TreeSet<>(configured.keySet());
+        if (Files.isDirectory(directory)) {
+            try (Stream<Path> files = Files.list(directory)) {
+                files.map(path -> path.getFileName().toString())
+                        .filter(name -> name.endsWith(SUFFIX))
+                        .map(name -> name.substring(0, name.length() - SUFFIX.length()))
+                        .filter(LedgerProfiles::isValidName)
+                        .forEach(names::add);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        names.addAll(open.keySet());
+        List<String> ordered = new ArrayList<>();
+        if (names.remove(DEFAULT_PROFILE)) ordered.add(DEFAULT_PROFILE);
+        ordered.addAll(names);
+        return ordered;
+    }
+
+    public String urlFor(String name) {
+        String url = configured.get(name);
+        return url != null ? url : "jdbc:sqlite:" + directory.resolve(name + SUFFIX);
+    }
+
+    public synchronized String getActive() {
+        return active;
+    }
+
+    public synchronized boolean isOpen(String name) {
+        return open.containsKey(name);
+    }
+
+    // Opens the profile if needed. New names get a fresh ledger file in the profile directory.
+    public synchronized LedgerProfile get(String name) {
+        if (!isValidName(name)) throw new IllegalArgumentException("Invalid profile name: " + name);
+        LedgerProfile profile = open.get(name);
+        if (profile == null) {
+            if (!configured.containsKey(name)) {
+                try {
+                    Files.createDirectories(directory);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Could not create " + directory, e);
+                }
+            }
+            ConnectionPool pool = opener == null ? null : opener.apply(name);
+            if (pool == null) pool = new ConnectionPool(urlFor(name), ConnectionPool.DEFAULT_READERS);
+            try {
+                profile = new LedgerProfile(name, pool);
+            } catch (RuntimeException e) {
+                pool.close();
+                throw e;
+            }
+            open.put(name, profile);
+            evictOverflow();
+        }
+        profile.touch();
+        return profile;
+    }
+
+    // Makes the profile the one the app works on and warms its caches in the background.
+    public LedgerProfile activate(String name) {
+        LedgerProfile profile;
+        synchronized (this) {
+            profile = get(name);
+            active = name;
+            DatabaseConnection.setActiveUrl(profile.getPool().getUrl());
+        }
+        TransactionDAO dao = profile.getDao();
+        background.execute(dao::warmCaches);
+        return profile;
+    }
+
+    // Runs the body against the profile while holding it open, e.g. for a request served from another thread.
+    public <T> T use(String name, Function<TransactionDAO, T> body) {
+        LedgerProfile profile;
+        synchronized (this) {
+            profile = get(name);
+            profile.lease();
+        }
+        try {
+            return body.apply(profile.getDao());
+        } finally {
+            profile.release();
+        }
+    }
+
+    public int evictIdle() {
+        List<LedgerProfile> closing = new ArrayList<>();
+        synchronized (this) {
+            long now = System.nanoTime();
+            Iterator<Map.Entry<String, LedgerProfile>> entries = open.entrySet().iterator();
+            while (entries.hasNext()) {
+                LedgerProfile profile = entries.next().getValue();
+                if (evictable(profile) && now - profile.getLastUsed() >= idleNanos) {
+                    entries.remove();
+                    closing.add(profile);
+                }
+            }
+        }
+        closing.forEach(LedgerProfile::close);
+        return closing.size();
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, LedgerProfile>> entries = open.entrySet().iterator();
+        while (open.size() > maxOpen && entries.hasNext()) {
+            LedgerProfile profile = entries.next().getValue();
+            if (evictable(profile)) {
+                entries.remove();
+                profile.close();
+            }
+        }
+    }
+
+    private boolean evictable(LedgerProfile profile) {
+        return !profile.getName().equals(active) && !profile.isLeased();
+    }
+
+    @Override
+    public void close() {
+        background.shutdownNow();
+        List<LedgerProfile> closing;
+        synchronized (this) {
+            closing = new ArrayList<>(open.values());
+            open.clear();
+            if (active != null) DatabaseConnection.setActiveUrl(null);
+            active = null;
+        }
+        closing.forEach(LedgerProfile::close);
+    }
+}
@@ -0,0 +1,194 @@
+package org.ydanilenko.budgettracker.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+public class Metrics {
+    private static final ConcurrentHashMap<String, Timer> TIMERS = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Sample> CURRENT = new ThreadLocal<>();
+    // Timers per scope, e.g. per ledger profile; a sample tagged with a scope is recorded there as well.
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<String, Timer>> SCOPES = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    public static Timer timer(String name) {
+        Timer timer = TIMERS.get(name);
+        return timer != null ? timer : TIMERS.computeIfAbsent(name, Timer::new);
+    }
+
+    public static <T> T time(String name, Supplier<T> body) {
+        return timer(name).time(body);
+    }
+
+    public static void time(String name, Runnable body) {
+        timer(name).time(body);
+    }
+
+    public static Sample start(String name) {
+        return timer(name).start();
+    }
+
+    public static void recordError() {
+        Sample sample = CURRENT.get();
+        if (sample != null) sample.failed();
+    }
+
+    public static void recordRows(long rows) {
+        Sample sample = CURRENT.get();
+        if (sample != null) sample.rows(rows);
+    }
+
+    public static void attribute(String scope) {
+        Sample sample = CURRENT.get();
+        if (sample != null) sample.scope = scope;
+    }
+
+    private static Timer scopedTimer(String scope, String name) {
+        return SCOPES.computeIfAbsent(scope, key -> new ConcurrentHashMap<>()).computeIfAbsent(name, Timer::new);
+    }
+
+    public static List<MetricsSnapshot> snapshot(String scope) {
+        Map<String, Timer> timers = SCOPES.getOrDefault(scope, new ConcurrentHashMap<>());
+        List<MetricsSnapshot> snapshots = new ArrayList<>(timers.size());
+        for (Timer timer : timers.values()) {
+            snapshots.add(timer.snapshot());
+        }
+        snapshots.sort(Comparator.comparing(MetricsSnapshot::getName));
+        return snapshots;
+    }
+
+    public static void removeScope(String scope) {
+        SCOPES.remove(scope);
+    }
+
+    public static String currentOperation() {
+        Sample sample = CURRENT.get();
+        return sample == null ? null : sample.timer.name;
+    }
+
+    public static List<MetricsSnapshot> snapshot() {
+        List<MetricsSnapshot> snapshots = new ArrayList<>(TIMERS.size());
+        for (Timer timer : TIMERS.values()) {
+            snapshots.add(timer.snapshot());
+        }
+        snapshots.sort(Comparator.comparing(MetricsSnapshot::getName));
+        return snapshots;
+    }
+
+    public static void reset() {
+        for (Timer timer : TIMERS.values()) {
+            timer.reset();
+        }
+        SCOPES.clear();
+    }
+
+    private static long rowsOf(Object result) {
+        if (result instanceof Collection<?> collection) return collection.size();
+        if (result instanceof Map<?, ?> map) return map.size();
+        return -1;
+    }
+
+    public static class Timer {
+        private final String name;
+        private final boolean database;
+        private final LongAdder errors = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        Timer(String name) {
+            this.name = name;
+            this.database = name.startsWith("dao.");
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Sample start() {
+            return new Sample(this);
+        }
+
+        public <T> T time(Supplier<T> body) {
+            Sample sample = start();
+            Sample outer = CURRENT.get();
+            CURRENT.set(sample);
+            try {
+                T result = body.get();
+                long rows = rowsOf(result);
+                if (rows >= 0) sample.rows(rows);
+                return result;
+            } catch (RuntimeException | Error e) {
+                sample.failed();
+                throw e;
+            } finally {
+                CURRENT.set(outer);
+                sample.stop();
+            }
+        }
+
+        public void time(Runnable body) {
+            time(() -> {
+                body.run();
+                return null;
+            });
+        }
+
+        public void record(long nanos) {
+            latency.record(nanos);
+        }
+
+        public void error() {
+            errors.increment();
+        }
+
+        public MetricsSnapshot snapshot() {
+            return new MetricsSnapshot(name, latency.snapshot(), errors.sum());
+        }
+
+        void reset() {
+            latency.reset();
+            errors.reset();
+        }
+    }
+
+    public static class Sample {
+        private final Timer timer;
+        private final long started;
+        private final FlightEvents.Call event;
+        private long rows = -1;
+        private boolean failed;
+        private String scope;
+
+        Sample(Timer timer) {
+            this.timer = timer;
+            this.event = FlightEvents.begin(timer.name, timer.database);
+            this.started = System.nanoTime();
+        }
+
+        public void rows(long rows) {
+            this.rows = rows;
+        }
+
+        public void failed() {
+            if (!failed) timer.error();
+            failed = true;
+        }
+
+        public void stop() {
+            long nanos = System.nanoTime() - started;
+            timer.record(nanos);
+            if (scope != null) {
+                Timer scoped = scopedTimer(scope, timer.name);
+                scoped.record(nanos);
+                if (failed) scoped.error();
+            }
+            FlightEvents.commit(event, rows, failed);
+        }
+    }
+}
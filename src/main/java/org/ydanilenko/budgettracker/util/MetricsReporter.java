@@ -0,0 +1,84 @@
+package org.ydanilenko.budgettracker.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class MetricsReporter implements AutoCloseable {
+    public static final Path DEFAULT_FILE = Path.of(System.getProperty("user.home"), ".budget-tracker", "metrics.csv");
+    public static final long DEFAULT_INTERVAL_SECONDS = 60;
+
+    private final Path file;
+    private final ScheduledExecutorService scheduler;
+
+    public MetricsReporter(Path file) {
+        this.file = file;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static MetricsReporter start() {
+        MetricsReporter reporter = new MetricsReporter(DEFAULT_FILE);
+        reporter.start(DEFAULT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        return reporter;
+    }
+
+    public void start(long interval, TimeUnit unit) {
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                write();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, interval, interval, unit);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public void write() throws IOException {
+        write(file, Metrics.snapshot());
+    }
+
+    public static void write(Path file, List<MetricsSnapshot> snapshots) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path partial = parent.resolve(file.getFileName() + ".part");
+        try (BufferedWriter writer = Files.newBufferedWriter(partial)) {
+            writer.write("# " + LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            writer.newLine();
+            writer.write("name,calls,errors,mean_ms,p50_ms,p90_ms,p99_ms,max_ms");
+            writer.newLine();
+            for (MetricsSnapshot s : snapshots) {
+                writer.write(String.format(Locale.ROOT, "%s,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f",
+                        s.getName(), s.getCalls(), s.getErrors(), s.getMeanMillis(),
+                        s.getP50Millis(), s.getP90Millis(), s.getP99Millis(), s.getMaxMillis()));
+                writer.newLine();
+            }
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        try {
+            write();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.ydanilenko.budgettracker.util;
+
+public class MetricsSnapshot {
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final String name;
+    private final long calls;
+    private final long errors;
+    private final double meanMillis;
+    private final double p50Millis;
+    private final double p90Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+
+    public MetricsSnapshot(String name, LatencyHistogram.Snapshot latency, long errors) {
+        this.name = name;
+        this.calls = latency.getCount();
+        this.errors = errors;
+        this.meanMillis = latency.getMean() / NANOS_PER_MILLI;
+        this.p50Millis = latency.percentile(50) / NANOS_PER_MILLI;
+        this.p90Millis = latency.percentile(90) / NANOS_PER_MILLI;
+        this.p99Millis = latency.percentile(99) / NANOS_PER_MILLI;
+        this.maxMillis = latency.getMax() / NANOS_PER_MILLI;
+    }
+
+    public String getName() { return name; }
+    public long getCalls() { return calls; }
+    public long getErrors() { return errors; }
+    public double getMeanMillis() { return meanMillis; }
+    public double getP50Millis() { return p50Millis; }
+    public double getP90Millis() { return p90Millis; }
+    public double getP99Millis() { return p99Millis; }
+    public double getMaxMillis() { return maxMillis; }
+}
@@ -0,0 +1,98 @@
+package org.ydanilenko.budgettracker.util;
+
+import org.ydanilenko.budgettracker.model.Transaction;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class MonthlyTotals {
+    private final List<YearMonth> months;
+    private final double[] income;
+    private final double[] expense;
+
+    private MonthlyTotals(List<YearMonth> months, double[] income, double[] expense) {
+        this.months = months;
+        this.income = income;
+        this.expense = expense;
+    }
+
+    public static MonthlyTotals of(List<Transaction> incomes, List<Transaction> expenses,
+                                   LocalDate start, LocalDate end, CurrencyConverter converter) {
+        long from = start != null && end != null ? start.toEpochDay() : Long.MIN_VALUE;
+        long to = start != null && end != null ? end.toEpochDay() : Long.MAX_VALUE;
+
+        int[] incomeMonths = monthIndexes(incomes, from, to);
+        int[] expenseMonths = monthIndexes(expenses, from, to);
+
+        int first = Integer.MAX_VALUE;
+        int last = Integer.MIN_VALUE;
+        for (int[] indexes : new int[][]{incomeMonths, expenseMonths}) {
+            for (int month : indexes) {
+                if (month < 0) continue;
+                first = Math.min(first, month);
+                last = Math.max(last, month);
+            }
+        }
+        if (first == Integer.MAX_VALUE) {
+            return new MonthlyTotals(List.of(), new double[0], new double[0]);
+        }
+
+        int span = last - first + 1;
+        double[] incomeSums = new double[span];
+        double[] expenseSums = new double[span];
+        boolean[] present = new boolean[span];
+        accumulate(incomes, incomeMonths, first, incomeSums, present, converter);
+        accumulate(expenses, expenseMonths, first, expenseSums, present, converter);
+
+        List<YearMonth> months = new ArrayList<>();
+        int count = 0;
+        for (int i = 0; i < span; i++) {
+            if (!present[i]) continue;
+            months.add(YearMonth.of((first + i) / 12, (first + i) % 12 + 1));
+            incomeSums[count] = incomeSums[i];
+            expenseSums[count] = expenseSums[i];
+            count++;
+        }
+        return new MonthlyTotals(months, Arrays.copyOf(incomeSums, count), Arrays.copyOf(expenseSums, count));
+    }
+
+    private static int[] monthIndexes(List<Transaction> transactions, long from, long to) {
+        int[] months = new int[transactions.size()];
+        long cachedDay = EpochDays.INVALID;
+        int cachedMonth = -1;
+        for (int i = 0; i < months.length; i++) {
+            long day = EpochDays.parse(transactions.get(i).getDate());
+            if (day == EpochDays.INVALID || day < from || day > to) {
+                months[i] = -1;
+                continue;
+            }
+            if (day != cachedDay) {
+                cachedDay = day;
+                cachedMonth = EpochDays.monthIndex(day);
+            }
+            months[i] = cachedMonth;
+        }
+        return months;
+    }
+
+    private static void accumulate(List<Transaction> transactions, int[] months, int first,
+                                   double[] sums, boolean[] present, CurrencyConverter converter) {
+        CurrencyConverter.Lookup rates = converter.lookup();
+        for (int i = 0; i < months.length; i++) {
+            if (months[i] < 0) continue;
+            Transaction t = transactions.get(i);
+            int slot = months[i] - first;
+            double amount = t.getCurrency() == null ? t.getAmount()
+                    : rates.toBase(t.getAmount(), t.getCurrency(), EpochDays.parse(t.getDate()));
+            sums[slot] += amount;
+            present[slot] = true;
+        }
+    }
+
+    public List<YearMonth> getMonths() { return months; }
+    public double[] getIncome() { return income; }
+    public double[] getExpense() { return expense; }
+}
@@ -0,0 +1,148 @@
+package org.ydanilenko.budgettracker.util;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Shared between the forms and the server's request threads, so every public method locks the index.
+public class NameSuggestionIndex {
+    public static final int DEFAULT_LIMIT = 15;
+    private static final int RECENCY_HALF_LIFE_DAYS = 90;
+
+    private static class Entry {
+        final String name;
+        final String key;
+        int count;
+        long lastUsedDay;
+
+        Entry(String name, int count, long lastUsedDay) {
+            this.name = name;
+            this.key = name.toLowerCase(Locale.ROOT);
+            this.count = count;
+            this.lastUsedDay = lastUsedDay;
+        }
+    }
+
+    private record Match(Entry entry, int distance, double score) {
+    }
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private Entry[] sorted = new Entry[0];
+    private boolean dirty;
+
+    public synchronized void add(String name, int count, LocalDate lastUsed) {
+        if (name == null || name.isBlank()) return;
+        long day = lastUsed == null ? Long.MIN_VALUE : lastUsed.toEpochDay();
+        Entry existing = entries.get(name);
+        if (existing == null) {
+            entries.put(name, new Entry(name, count, day));
+            dirty = true;
+        } else {
+            existing.count += count;
+            existing.lastUsedDay = Math.max(existing.lastUsedDay, day);
+        }
+    }
+
+    public synchronized void recordUse(String name, LocalDate date) {
+        add(name, 1, date);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized List<String> suggest(String query, int limit) {
+        String key = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        Entry[] index = sortedEntries();
+        long today = LocalDate.now().toEpochDay();
+
+        List<Match> matches = new ArrayList<>();
+        int from = lowerBound(index, key);
+        for (int i = from; i < index.length && index[i].key.startsWith(key); i++) {
+            matches.add(new Match(index[i], 0, score(index[i], today)));
+        }
+
+        if (matches.size() < limit && key.length() >= 3) {
+            int maxDistance = key.length() >= 6 ? 2 : 1;
+            for (Entry entry : index) {
+                if (entry.key.startsWith(key)) continue;
+                int distance = prefixDistance(key, entry.key, maxDistance);
+                if (distance <= maxDistance) {
+                    matches.add(new Match(entry, distance, score(entry, today)));
+                }
+            }
+        }
+
+        matches.sort(Comparator.comparingInt(Match::distance)
+                .thenComparing(Comparator.comparingDouble(Match::score).reversed())
+                .thenComparing(m -> m.entry().key));
+
+        List<String> names = new ArrayList<>(Math.min(limit, matches.size()));
+        for (int i = 0; i < matches.size() && i < limit; i++) {
+            names.add(matches.get(i).entry().name);
+        }
+        return names;
+    }
+
+    private Entry[] sortedEntries() {
+        if (dirty || sorted.length != entries.size()) {
+            sorted = entries.values().toArray(new Entry[0]);
+            Arrays.sort(sorted, Comparator.comparing((Entry e) -> e.key));
+            dirty = false;
+        }
+        return sorted;
+    }
+
+    private static int lowerBound(Entry[] index, String key) {
+        int low = 0;
+        int high = index.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (index[mid].key.compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static double score(Entry entry, long today) {
+        if (entry.lastUsedDay == Long.MIN_VALUE) return entry.count;
+        double age = Math.max(0, today - entry.lastUsedDay);
+        return entry.count + entry.count * Math.pow(0.5, age / RECENCY_HALF_LIFE_DAYS);
+    }
+
+    static int prefixDistance(String query, String candidate, int maxDistance) {
+        int n = query.length();
+        int m = Math.min(candidate.length(), n + maxDistance);
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) previous[j] = j;
+
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= m; j++) {
+                int cost = query.charAt(i - 1) == candidate.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxDistance) return maxDistance + 1;
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        int best = Integer.MAX_VALUE;
+        for (int j = Math.max(0, n - maxDistance); j <= m; j++) {
+            best = Math.min(best, previous[j]);
+        }
+        return best;
+    }
+}
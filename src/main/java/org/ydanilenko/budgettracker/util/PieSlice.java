@@ -0,0 +1,40 @@
+package org.ydanilenko.budgettracker.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class PieSlice {
+    private final String name;
+    private final String label;
+    private final double value;
+
+    public PieSlice(String name, String label, double value) {
+        this.name = name;
+        this.label = label;
+        this.value = value;
+    }
+
+    public static List<PieSlice> of(Map<String, Double> totals, double total) {
+        List<PieSlice> slices = new ArrayList<>(totals.size());
+        for (Map.Entry<String, Double> entry : totals.entrySet()) {
+            double value = entry.getValue();
+            if (value <= 0) continue;
+            double percentage = total == 0 ? 0 : value / total * 100;
+            slices.add(new PieSlice(entry.getKey(), entry.getKey() + " (" + String.format("%.2f", percentage) + "%)", value));
+        }
+        return slices;
+    }
+
+    public static double total(Map<String, Double> totals) {
+        double total = 0;
+        for (double value : totals.values()) {
+            total += value;
+        }
+        return total;
+    }
+
+    public String getName() { return name; }
+    public String getLabel() { return label; }
+    public double getValue() { return value; }
+}
@@ -0,0 +1,172 @@
+package org.ydanilenko.budgettracker.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+
+class ProfiledConnection implements InvocationHandler {
+    private final Connection connection;
+    private final SlowQueryLog log;
+
+    private ProfiledConnection(Connection connection, SlowQueryLog log) {
+        this.connection = connection;
+        this.log = log;
+    }
+
+    static Connection wrap(Connection connection, SlowQueryLog log) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ProfiledConnection(connection, log));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        Object result = call(connection, method, args);
+        String name = method.getName();
+        if (result instanceof PreparedStatement ps && (name.equals("prepareStatement") || name.equals("prepareCall"))) {
+            return wrapStatement(PreparedStatement.class, ps, (String) args[0]);
+        }
+        if (result instanceof Statement stmt && name.equals("createStatement")) {
+            return wrapStatement(Statement.class, stmt, null);
+        }
+        return result;
+    }
+
+    private Object wrapStatement(Class<? extends Statement> type, Statement statement, String sql) {
+        return Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{type}, new StatementHandler(statement, sql));
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final String preparedSql;
+        private Object[] params = new Object[8];
+        private Object[] batchParams;
+        private int batchSize;
+        private String openSql;
+        private Object[] openParams;
+        private long openNanos;
+        private long openRows;
+
+        StatementHandler(Statement statement, String preparedSql) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index
+                    && method.getDeclaringClass() == PreparedStatement.class) {
+                bind(index, name.equals("setNull") ? null : args[1]);
+                return call(statement, method, args);
+            }
+            switch (name) {
+                case "clearParameters" -> Arrays.fill(params, null);
+                case "addBatch" -> {
+                    if (args == null) {
+                        batchParams = params.clone();
+                        batchSize++;
+                    }
+                }
+                case "clearBatch" -> batchSize = 0;
+                case "close" -> finishResult();
+                case "executeQuery" -> {
+                    // SQLite steps lazily, so a query's time is the execute call plus every next() on its result
+                    // set. Time the caller spends on each row in between is not counted.
+                    finishResult();
+                    long started = System.nanoTime();
+                    ResultSet rs = (ResultSet) call(statement, method, args);
+                    openNanos = System.nanoTime() - started;
+                    openRows = 0;
+                    openSql = args == null ? preparedSql : (String) args[0];
+                    openParams = args == null ? params.clone() : null;
+                    return Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                            new Class<?>[]{ResultSet.class}, new ResultHandler(rs));
+                }
+                case "execute", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch" -> {
+                    return timeExecution(name, method, args);
+                }
+                default -> {
+                }
+            }
+            return call(statement, method, args);
+        }
+
+        private Object timeExecution(String name, Method method, Object[] args) throws Throwable {
+            finishResult();
+            boolean batch = name.endsWith("Batch");
+            String sql = args == null || !(args[0] instanceof String text) ? preparedSql : text;
+            Object[] bound = args != null && args[0] instanceof String ? null : batch ? batchParams : params.clone();
+            long started = System.nanoTime();
+            Object result = call(statement, method, args);
+            long elapsed = System.nanoTime() - started;
+
+            long rows = -1;
+            if (batch) {
+                rows = batchSize;
+                batchSize = 0;
+            } else if (result instanceof Number count) {
+                rows = count.longValue();
+            }
+            log.record(connection, sql, bound, elapsed, rows, batch);
+            return result;
+        }
+
+        private void bind(int index, Object value) {
+            if (index > params.length) {
+                params = Arrays.copyOf(params, Math.max(index, params.length * 2));
+            }
+            params[index - 1] = value;
+        }
+
+        private void finishResult() {
+            if (openSql != null) {
+                log.record(connection, openSql, openParams, openNanos, openRows, false);
+                openSql = null;
+            }
+        }
+
+        private class ResultHandler implements InvocationHandler {
+            private final ResultSet resultSet;
+
+            ResultHandler(ResultSet resultSet) {
+                this.resultSet = resultSet;
+            }
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "next" -> {
+                        long started = System.nanoTime();
+                        boolean more = (Boolean) call(resultSet, method, args);
+                        openNanos += System.nanoTime() - started;
+                        if (more) {
+                            openRows++;
+                        } else {
+                            finishResult();
+                        }
+                        return more;
+                    }
+                    case "close" -> finishResult();
+                    default -> {
+                    }
+                }
+                return call(resultSet, method, args);
+            }
+        }
+    }
+}
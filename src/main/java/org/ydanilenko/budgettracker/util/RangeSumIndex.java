@@ -0,0 +1,180 @@
+package org.ydanilenko.budgettracker.util;
+
+import org.ydanilenko.budgettracker.model.Transaction;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+public class RangeSumIndex {
+    private static final int MIN_CAPACITY = 366;
+
+    private final Function<Transaction, String> keyExtractor;
+    private final Map<String, FenwickTree> trees = new HashMap<>();
+    private long originDay;
+    private int capacity;
+
+    public RangeSumIndex(Function<Transaction, String> keyExtractor) {
+        this.keyExtractor = keyExtractor;
+        this.originDay = LocalDate.now().toEpochDay() - MIN_CAPACITY + 1;
+        this.capacity = MIN_CAPACITY;
+    }
+
+    public static RangeSumIndex byCategory(List<Transaction> transactions) {
+        RangeSumIndex index = new RangeSumIndex(Transaction::getCategoryName);
+        index.addAll(transactions);
+        return index;
+    }
+
+    public static RangeSumIndex byPaymentType(List<Transaction> transactions) {
+        RangeSumIndex index = new RangeSumIndex(Transaction::getPaymentType);
+        index.addAll(transactions);
+        return index;
+    }
+
+    public static RangeSumIndex byCategory(DateRangeIndex transactions) {
+        RangeSumIndex index = new RangeSumIndex(Transaction::getCategoryName);
+        index.addAll(transactions);
+        return index;
+    }
+
+    public static RangeSumIndex byPaymentType(DateRangeIndex transactions) {
+        RangeSumIndex index = new RangeSumIndex(Transaction::getPaymentType);
+        index.addAll(transactions);
+        return index;
+    }
+
+    public void addAll(List<Transaction> transactions) {
+        long[] days = new long[transactions.size()];
+        for (int i = 0; i < days.length; i++) {
+            days[i] = EpochDays.parse(transactions.get(i).getDate());
+        }
+        addAll(transactions, days);
+    }
+
+    public void addAll(DateRangeIndex transactions) {
+        long[] days = new long[transactions.size()];
+        for (int i = 0; i < days.length; i++) {
+            days[i] = transactions.dayAt(i);
+        }
+        addAll(transactions.getAll(), days);
+    }
+
+    private void addAll(List<Transaction> transactions, long[] days) {
+        long minDay = Long.MAX_VALUE;
+        long maxDay = Long.MIN_VALUE;
+        for (long day : days) {
+            if (day == EpochDays.INVALID) continue;
+            minDay = Math.min(minDay, day);
+            maxDay = Math.max(maxDay, day);
+        }
+        if (minDay == Long.MAX_VALUE) return;
+
+        ensureCovers(minDay);
+        ensureCovers(maxDay);
+
+        Map<String, double[]> values = new HashMap<>();
+        for (Map.Entry<String, FenwickTree> entry : trees.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().toArray());
+        }
+        String lastKey = null;
+        double[] lastPoints = null;
+        for (int i = 0; i < days.length; i++) {
+            if (days[i] == EpochDays.INVALID) continue;
+            Transaction t = transactions.get(i);
+            String key = keyOf(t);
+            if (!key.equals(lastKey)) {
+                lastKey = key;
+                lastPoints = values.computeIfAbsent(key, k -> new double[capacity]);
+            }
+            lastPoints[(int) (days[i] - originDay)] += t.getBaseAmount();
+        }
+
+        trees.clear();
+        values.forEach((key, points) -> trees.put(key, new FenwickTree(points)));
+    }
+
+    public void add(Transaction transaction) {
+        apply(transaction, transaction.getBaseAmount());
+    }
+
+    public void remove(Transaction transaction) {
+        apply(transaction, -transaction.getBaseAmount());
+    }
+
+    public void update(Transaction oldTransaction, Transaction newTransaction) {
+        remove(oldTransaction);
+        add(newTransaction);
+    }
+
+    public double total(String key, LocalDate start, LocalDate end) {
+        FenwickTree tree = trees.get(key == null ? "" : key.trim());
+        if (tree == null) return 0.0;
+        return tree.rangeSum(fromIndex(start), toIndex(end));
+    }
+
+    public Map<String, Double> totalsBetween(LocalDate start, LocalDate end) {
+        int from = fromIndex(start);
+        int to = toIndex(end);
+
+        Map<String, Double> totals = new HashMap<>();
+        for (Map.Entry<String, FenwickTree> entry : trees.entrySet()) {
+            double sum = entry.getValue().rangeSum(from, to);
+            if (Math.abs(sum) > 1e-9) {
+                totals.put(entry.getKey(), sum);
+            }
+        }
+        return totals;
+    }
+
+    private void apply(Transaction transaction, double delta) {
+        long day = EpochDays.parse(transaction.getDate());
+        if (day == EpochDays.INVALID) return;
+
+        ensureCovers(day);
+        trees.computeIfAbsent(keyOf(transaction), k -> new FenwickTree(capacity))
+                .add((int) (day - originDay), delta);
+    }
+
+    private void ensureCovers(long day) {
+        if (day >= originDay && day < originDay + capacity) return;
+
+        long newOrigin = Math.min(originDay, day);
+        long newEnd = Math.max(originDay + capacity, day + 1);
+        int newCapacity = capacity;
+        while (newCapacity < newEnd - newOrigin) {
+            newCapacity *= 2;
+        }
+        if (day < originDay) {
+            newOrigin = newEnd - newCapacity;
+        }
+
+        int shift = (int) (originDay - newOrigin);
+        for (Map.Entry<String, FenwickTree> entry : trees.entrySet()) {
+            double[] oldValues = entry.getValue().toArray();
+            double[] newValues = new double[newCapacity];
+            System.arraycopy(oldValues, 0, newValues, shift, oldValues.length);
+            entry.setValue(new FenwickTree(newValues));
+        }
+
+        originDay = newOrigin;
+        capacity = newCapacity;
+    }
+
+    private int fromIndex(LocalDate start) {
+        if (start == null) return 0;
+        return (int) Math.max(0, Math.min(capacity, start.toEpochDay() - originDay));
+    }
+
+    private int toIndex(LocalDate end) {
+        if (end == null) return capacity - 1;
+        return (int) Math.max(-1, Math.min(capacity - 1, end.toEpochDay() - originDay));
+    }
+
+    private String keyOf(Transaction transaction) {
+        String key = keyExtractor.apply(transaction);
+        return key == null ? "" : key.trim();
+    }
+}
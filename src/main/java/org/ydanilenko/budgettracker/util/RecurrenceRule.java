@@ -0,0 +1,199 @@
+package org.ydanilenko.budgettracker.util;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class RecurrenceRule {
+    private static final String[] MONTH_NAMES = {"JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC"};
+    private static final String[] DAY_NAMES = {"SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT"};
+
+    private final String expression;
+    private final long daysOfMonth;
+    private final boolean lastDayOfMonth;
+    private final int months;
+    private final int daysOfWeek;
+    private final boolean dayOfMonthRestricted;
+    private final boolean dayOfWeekRestricted;
+
+    private RecurrenceRule(String expression, long daysOfMonth, boolean lastDayOfMonth, int months, int daysOfWeek,
+                           boolean dayOfMonthRestricted, boolean dayOfWeekRestricted) {
+        this.expression = expression;
+        this.daysOfMonth = daysOfMonth;
+        this.lastDayOfMonth = lastDayOfMonth;
+        this.months = months;
+        this.daysOfWeek = daysOfWeek;
+        this.dayOfMonthRestricted = dayOfMonthRestricted;
+        this.dayOfWeekRestricted = dayOfWeekRestricted;
+    }
+
+    public static RecurrenceRule parse(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("Recurrence rule is empty.");
+        }
+        String normalized = switch (expression.trim().toLowerCase(Locale.ROOT)) {
+            case "@daily" -> "* * *";
+            case "@weekly" -> "* * MON";
+            case "@monthly" -> "1 * *";
+            case "@yearly", "@annually" -> "1 1 *";
+            default -> expression.trim();
+        };
+
+        String[] fields = normalized.toUpperCase(Locale.ROOT).split("\\s+");
+        if (fields.length != 3) {
+            throw new IllegalArgumentException("Recurrence rule must have three fields: day-of-month month day-of-week.");
+        }
+
+        boolean lastDay = false;
+        String dayField = fields[0];
+        if (dayField.equals("L")) {
+            lastDay = true;
+        } else if (dayField.endsWith(",L")) {
+            lastDay = true;
+            dayField = dayField.substring(0, dayField.length() - 2);
+        }
+
+        long days = lastDay && fields[0].equals("L") ? 0 : parseField(dayField, 1, 31, null);
+        int monthBits = (int) parseField(fields[1], 1, 12, MONTH_NAMES);
+        int weekdayBits = (int) parseField(fields[2], 0, 7, DAY_NAMES);
+        if ((weekdayBits & 1) != 0) {
+            weekdayBits = (weekdayBits & ~1) | (1 << 7);
+        }
+
+        return new RecurrenceRule(expression.trim(), days, lastDay, monthBits, weekdayBits,
+                !fields[0].equals("*"), !fields[2].equals("*"));
+    }
+
+    private static long parseField(String field, int min, int max, String[] names) {
+        long bits = 0;
+        for (String part : field.split(",")) {
+            int step = 1;
+            int slash = part.indexOf('/');
+            if (slash >= 0) {
+                step = parseValue(part.substring(slash + 1), 1, Integer.MAX_VALUE, null, 0);
+                part = part.substring(0, slash);
+            }
+
+            int from;
+            int to;
+            if (part.equals("*")) {
+                from = min;
+                to = max;
+            } else if (part.indexOf('-') > 0) {
+                int dash = part.indexOf('-');
+                from = parseValue(part.substring(0, dash), min, max, names, min);
+                to = parseValue(part.substring(dash + 1), min, max, names, min);
+            } else {
+                from = parseValue(part, min, max, names, min);
+                to = slash >= 0 ? max : from;
+            }
+            if (from > to) {
+                throw new IllegalArgumentException("Invalid range in recurrence rule: " + part);
+            }
+            for (int value = from; value <= to; value += step) {
+                bits |= 1L << value;
+            }
+        }
+        return bits;
+    }
+
+    private static int parseValue(String text, int min, int max, String[] names, int nameOffset) {
+        if (names != null) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(text)) return i + nameOffset;
+            }
+        }
+        try {
+            int value = Integer.parseInt(text);
+            if (value < min || value > max) {
+                throw new IllegalArgumentException("Value " + value + " is out of range in recurrence rule.");
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value in recurrence rule: " + text);
+        }
+    }
+
+    public static RecurrenceRule monthlyOn(LocalDate date) {
+        return date.getDayOfMonth() == date.lengthOfMonth() && date.getDayOfMonth() > 28
+                ? parse("L * *")
+                : parse(date.getDayOfMonth() + " * *");
+    }
+
+    public static RecurrenceRule weeklyOn(LocalDate date) {
+        return parse("* * " + DAY_NAMES[date.getDayOfWeek().getValue() % 7]);
+    }
+
+    public static RecurrenceRule yearlyOn(LocalDate date) {
+        return parse(date.getDayOfMonth() + " " + MONTH_NAMES[date.getMonthValue() - 1] + " *");
+    }
+
+    public boolean matches(LocalDate date) {
+        if ((months & (1 << date.getMonthValue())) == 0) return false;
+
+        boolean dayMatches = (daysOfMonth & (1L << date.getDayOfMonth())) != 0
+                || (lastDayOfMonth && date.getDayOfMonth() == date.lengthOfMonth());
+        boolean weekdayMatches = (daysOfWeek & (1 << date.getDayOfWeek().getValue())) != 0;
+
+        if (dayOfMonthRestricted && dayOfWeekRestricted) {
+            return dayMatches || weekdayMatches;
+        }
+        return dayMatches && weekdayMatches;
+    }
+
+    public List<LocalDate> occurrences(LocalDate from, LocalDate to) {
+        List<LocalDate> dates = new ArrayList<>();
+        LocalDate date = from;
+        while (!date.isAfter(to)) {
+            if ((months & (1 << date.getMonthValue())) == 0) {
+                date = date.withDayOfMonth(1).plusMonths(1);
+                continue;
+            }
+            if (matches(date)) {
+                dates.add(date);
+            }
+            date = date.plusDays(1);
+        }
+        return dates;
+    }
+
+    public LocalDate next(LocalDate after) {
+        LocalDate limit = after.plusYears(8);
+        LocalDate date = after.plusDays(1);
+        while (!date.isAfter(limit)) {
+            if ((months & (1 << date.getMonthValue())) == 0) {
+                date = date.withDayOfMonth(1).plusMonths(1);
+                continue;
+            }
+            if (matches(date)) return date;
+            date = date.plusDays(1);
+        }
+        return null;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public String describe() {
+        if (dayOfWeekRestricted && !dayOfMonthRestricted && Integer.bitCount(daysOfWeek) == 1 && months == 0x1FFE) {
+            return "Weekly on " + DayOfWeek.of(Integer.numberOfTrailingZeros(daysOfWeek))
+                    .getDisplayName(TextStyle.FULL, Locale.ENGLISH);
+        }
+        if (!dayOfWeekRestricted && months == 0x1FFE) {
+            if (lastDayOfMonth && daysOfMonth == 0) return "Monthly on the last day";
+            if (!lastDayOfMonth && Long.bitCount(daysOfMonth) == 1) {
+                return "Monthly on day " + Long.numberOfTrailingZeros(daysOfMonth);
+            }
+        }
+        return expression;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
@@ -0,0 +1,119 @@
+package org.ydanilenko.budgettracker.util;
+
+import org.ydanilenko.budgettracker.model.RecurringTransaction;
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class RecurringScheduler {
+    private final TransactionDAO dao;
+
+    public RecurringScheduler(TransactionDAO dao) {
+        this.dao = dao;
+    }
+
+    // Keyed by the definition's uid rather than its local id, so replicas never generate the same key.
+    public static String occurrenceKey(String recurringUid, LocalDate date) {
+        return occurrencePrefix(recurringUid) + date;
+    }
+
+    private static String occurrencePrefix(String recurringUid) {
+        return "R" + recurringUid + ":";
+    }
+
+    public int catchUp(LocalDate today) {
+        List<Transaction> due = new ArrayList<>();
+        Map<Integer, LocalDate> generatedUntil = new HashMap<>();
+
+        for (RecurringTransaction recurring : dao.getRecurringTransactions()) {
+            RecurrenceRule rule = parseRule(recurring);
+            if (rule == null) continue;
+
+            LocalDate from = recurring.getLastGenerated() != null
+                    ? LocalDate.parse(recurring.getLastGenerated()).plusDays(1)
+                    : LocalDate.parse(recurring.getStartDate());
+            LocalDate to = recurring.getEndDate() != null && LocalDate.parse(recurring.getEndDate()).isBefore(today)
+                    ? LocalDate.parse(recurring.getEndDate())
+                    : today;
+            if (from.isAfter(to)) continue;
+
+            Set<String> existing = dao.getOccurrenceKeys(occurrencePrefix(recurring.getUid()), from);
+            for (LocalDate date : rule.occurrences(from, to)) {
+                String key = occurrenceKey(recurring.getUid(), date);
+                if (!existing.contains(key)) {
+                    Transaction transaction = toTransaction(recurring, date);
+                    transaction.setOccurrenceKey(key);
+                    due.add(transaction);
+                }
+            }
+            generatedUntil.put(recurring.getId(), to);
+        }
+
+        if (!due.isEmpty() && dao.addTransactions(due) == 0) {
+            return 0;
+        }
+        dao.setRecurringLastGenerated(generatedUntil);
+        return due.size();
+    }
+
+    public List<Transaction> forecast(LocalDate from, LocalDate to) {
+        List<Transaction> occurrences = new ArrayList<>();
+        for (RecurringTransaction recurring : dao.getRecurringTransactions()) {
+            occurrences.addAll(forecast(recurring, from, to));
+        }
+        occurrences.sort(Comparator.comparing(Transaction::getDate));
+        return occurrences;
+    }
+
+    public static List<Transaction> forecast(RecurringTransaction recurring, LocalDate from, LocalDate to) {
+        RecurrenceRule rule = parseRule(recurring);
+        if (rule == null) return List.of();
+
+        LocalDate start = LocalDate.parse(recurring.getStartDate());
+        LocalDate end = recurring.getEndDate() != null ? LocalDate.parse(recurring.getEndDate()) : to;
+        LocalDate rangeStart = start.isAfter(from) ? start : from;
+        LocalDate rangeEnd = end.isBefore(to) ? end : to;
+        if (rangeStart.isAfter(rangeEnd)) return List.of();
+
+        List<LocalDate> dates = rule.occurrences(rangeStart, rangeEnd);
+        List<Transaction> transactions = new ArrayList<>(dates.size());
+        for (LocalDate date : dates) {
+            transactions.add(toTransaction(recurring, date));
+        }
+        return transactions;
+    }
+
+    private static Transaction toTransaction(RecurringTransaction recurring, LocalDate date) {
+        Transaction transaction = new Transaction(
+                recurring.getAmount(),
+                date.toString(),
+                recurring.getCategoryId(),
+                recurring.getPaymentTypeId(),
+                recurring.getComment(),
+                recurring.getPlaceId(),
+                recurring.getBeneficiaryId(),
+                recurring.getTypeId()
+        );
+        transaction.setCategoryName(recurring.getCategoryName());
+        transaction.setPaymentType(recurring.getPaymentType());
+        transaction.setPlaceName(recurring.getPlaceName());
+        transaction.setBeneficiaryName(recurring.getBeneficiaryName());
+        return transaction;
+    }
+
+    private static RecurrenceRule parseRule(RecurringTransaction recurring) {
+        try {
+            return RecurrenceRule.parse(recurring.getRule());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Skipping recurring transaction " + recurring.getId() + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
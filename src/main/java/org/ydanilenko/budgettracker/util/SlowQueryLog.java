@@ -0,0 +1,182 @@
+package org.ydanilenko.budgettracker.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+public class SlowQueryLog {
+    public static final String THRESHOLD_PROPERTY = "budgettracker.slowQueryMillis";
+    public static final String FILE_PROPERTY = "budgettracker.slowQueryLog";
+    public static final long DEFAULT_THRESHOLD_MILLIS = 100;
+    public static final Path DEFAULT_FILE = Path.of(System.getProperty("user.home"), ".budget-tracker", "slow-queries.log");
+    public static final int FILE_LIMIT_BYTES = 1024 * 1024;
+    public static final int FILE_COUNT = 5;
+
+    private static final int MAX_PARAM_LENGTH = 80;
+    private static SlowQueryLog defaultLog;
+
+    private final Path file;
+    private final int limitBytes;
+    private final int fileCount;
+    private volatile long thresholdNanos;
+    private FileHandler handler;
+    private long logged;
+
+    public SlowQueryLog(Path file, long thresholdMillis) {
+        this(file, thresholdMillis, FILE_LIMIT_BYTES, FILE_COUNT);
+    }
+
+    public SlowQueryLog(Path file, long thresholdMillis, int limitBytes, int fileCount) {
+        this.file = file;
+        this.limitBytes = limitBytes;
+        this.fileCount = fileCount;
+        setThresholdMillis(thresholdMillis);
+    }
+
+    public static synchronized SlowQueryLog getDefault() {
+        if (defaultLog == null) {
+            String file = System.getProperty(FILE_PROPERTY);
+            defaultLog = new SlowQueryLog(file == null ? DEFAULT_FILE : Path.of(file),
+                    Long.getLong(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD_MILLIS));
+        }
+        return defaultLog;
+    }
+
+    public Connection wrap(Connection connection) {
+        if (connection == null || thresholdNanos == Long.MAX_VALUE) return connection;
+        return ProfiledConnection.wrap(connection, this);
+    }
+
+    // The file currently written to; older entries rotate to .1, .2, ... next to it.
+    public Path getFile() {
+        return file.resolveSibling(file.getFileName() + ".0");
+    }
+
+    public long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    public void setThresholdMillis(long thresholdMillis) {
+        this.thresholdNanos = thresholdMillis <= 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    public synchronized long getLoggedCount() {
+        return logged;
+    }
+
+    void record(Connection connection, String sql, Object[] params, long nanos, long rows, boolean batch) {
+        if (nanos < thresholdNanos || sql == null) return;
+
+        List<String> plan = explain(connection, sql, params);
+        boolean fullScan = false;
+        for (String step : plan) {
+            fullScan |= isFullScan(step);
+        }
+
+        StringBuilder entry = new StringBuilder();
+        entry.append(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+                .append(String.format(Locale.ROOT, " SLOW %.1f ms", nanos / 1_000_000.0))
+                .append(" op=").append(Metrics.currentOperation());
+        if (rows >= 0) entry.append(" rows=").append(rows);
+        entry.append(" thread=").append(Thread.currentThread().getName());
+        if (fullScan) entry.append(" FULL-SCAN");
+        entry.append(System.lineSeparator())
+                .append("  SQL: ").append(sql.strip().replaceAll("\\s+", " ")).append(System.lineSeparator())
+                .append(batch ? "  Params (last of " + rows + " batched rows): " : "  Params: ")
+                .append(formatParams(params)).append(System.lineSeparator());
+        if (!plan.isEmpty()) {
+            entry.append("  Plan:").append(System.lineSeparator());
+            for (String step : plan) {
+                entry.append("    ").append(step);
+                if (isFullScan(step)) entry.append("  <-- full table scan");
+                entry.append(System.lineSeparator());
+            }
+        }
+        write(entry.toString());
+    }
+
+    static boolean isFullScan(String step) {
+        return step.startsWith("SCAN ") && !step.contains(" USING ") && !step.startsWith("SCAN CONSTANT ROW");
+    }
+
+    static List<String> explain(Connection connection, String sql, Object[] params) {
+        List<String> plan = new ArrayList<>();
+        String statement = sql.stripLeading().toUpperCase(Locale.ROOT);
+        if (!(statement.startsWith("SELECT") || statement.startsWith("WITH") || statement.startsWith("INSERT")
+                || statement.startsWith("UPDATE") || statement.startsWith("DELETE"))) {
+            return plan;
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+            if (params != null) {
+                int count = ps.getParameterMetaData().getParameterCount();
+                for (int i = 0; i < count; i++) {
+                    ps.setObject(i + 1, i < params.length ? params[i] : null);
+                }
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    plan.add(rs.getString("detail"));
+                }
+            }
+        } catch (SQLException e) {
+            plan.add("(plan unavailable: " + e.getMessage() + ")");
+        }
+        return plan;
+    }
+
+    private static String formatParams(Object[] params) {
+        if (params == null) return "[]";
+        int last = params.length;
+        while (last > 0 && params[last - 1] == null) last--;
+
+        List<String> values = new ArrayList<>(last);
+        for (Object param : Arrays.copyOf(params, last)) {
+            String value = param instanceof String text ? "'" + text + "'" : String.valueOf(param);
+            values.add(value.length() > MAX_PARAM_LENGTH ? value.substring(0, MAX_PARAM_LENGTH) + "..." : value);
+        }
+        return values.toString();
+    }
+
+    private synchronized void write(String entry) {
+        logged++;
+        try {
+            if (handler == null) {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+                handler = new FileHandler(file.toString().replace("%", "%%") + ".%g", limitBytes, fileCount, true);
+                handler.setFormatter(new Formatter() {
+                    @Override
+                    public String format(LogRecord record) {
+                        return record.getMessage();
+                    }
+                });
+            }
+            handler.publish(new LogRecord(Level.WARNING, entry));
+            handler.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public synchronized void close() {
+        if (handler != null) {
+            handler.close();
+            handler = null;
+        }
+    }
+}
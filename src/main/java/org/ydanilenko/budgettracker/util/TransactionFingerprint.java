@@ -0,0 +1,72 @@
+package org.ydanilenko.budgettracker.util;
+
+import org.ydanilenko.budgettracker.model.Transaction;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+public class TransactionFingerprint {
+    private static final DateTimeFormatter LENIENT_DATE = DateTimeFormatter.ofPattern("yyyy-M-d");
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private TransactionFingerprint() {
+    }
+
+    public static long of(Transaction t) {
+        return of(t.getAmount(), t.getTypeId(), t.getDate(), t.getPlaceId(), t.getBeneficiaryId(), t.getComment());
+    }
+
+    public static long of(double amount, int typeId, String date, int placeId, int beneficiaryId, String comment) {
+        long h = 0x9E3779B97F4A7C15L;
+        h = mix(h ^ Math.round(amount * 100));
+        h = mix(h ^ typeId);
+        h = mix(h ^ normalizeDate(date));
+        h = mix(h ^ placeId);
+        h = mix(h ^ beneficiaryId);
+        h = mix(h ^ hashComment(comment));
+        return h == 0 ? 1 : h;
+    }
+
+    private static long normalizeDate(String date) {
+        if (date == null) return 0;
+        String trimmed = date.trim();
+        try {
+            return LocalDate.parse(trimmed, LENIENT_DATE).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return hashText(trimmed);
+        }
+    }
+
+    private static long hashComment(String comment) {
+        return comment == null ? FNV_OFFSET : hashText(comment);
+    }
+
+    private static long hashText(String text) {
+        long h = FNV_OFFSET;
+        boolean pendingSpace = false;
+        boolean started = false;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = started;
+                continue;
+            }
+            if (pendingSpace) {
+                h = (h ^ ' ') * FNV_PRIME;
+                pendingSpace = false;
+            }
+            h = (h ^ Character.toLowerCase(c)) * FNV_PRIME;
+            started = true;
+        }
+        return h;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,728 @@
+package org.ydanilenko.budgettracker.util;
+
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.model.TransactionListener;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Append-only journal of every change the DAO makes to Transactions. Each record carries the row as it was before
+// and after the change, framed by its length and a CRC so a torn tail left by a crash is found and cut off on open.
+// Records are appended through one buffered channel and replayed from a read-only memory map. Checkpoint files hold
+// the whole ledger at a journal offset, so replays and point-in-time views start from the nearest one. The latest
+// form edits are also kept in memory, with their row images, for undo and redo.
+public class TransactionJournal implements TransactionListener, AutoCloseable {
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 10_000;
+    public static final int UNDO_LIMIT = 100;
+    private static final byte[] MAGIC = "BTJRNL".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CHECKPOINT_MAGIC = "BTCKPT".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + 4;
+    private static final int CHECKPOINT_HEADER_SIZE = CHECKPOINT_MAGIC.length + 4 + 8 + 8 + 8 + 4;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final long MAP_WINDOW = 1 << 26;
+    private static final int KEEP_CHECKPOINTS = 2;
+    private static final String CHECKPOINT_SUFFIX = ".ckpt";
+
+    public enum Kind { INSERT, UPDATE, DELETE }
+
+    public static class Entry {
+        private final Kind kind;
+        private final long sequence;
+        private final long timestamp;
+        private final Transaction before;
+        private final Transaction after;
+
+        Entry(Kind kind, long sequence, long timestamp, Transaction before, Transaction after) {
+            this.kind = kind;
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.before = before;
+            this.after = after;
+        }
+
+        public Kind getKind() { return kind; }
+        public long getSequence() { return sequence; }
+        public long getTimestamp() { return timestamp; }
+        public Transaction getBefore() { return before; }
+        public Transaction getAfter() { return after; }
+
+        public int getTransactionId() {
+            return after != null ? after.getId() : before.getId();
+        }
+
+        public String describe() {
+            Transaction row = after != null ? after : before;
+            String verb = switch (kind) {
+                case INSERT -> "adding";
+                case UPDATE -> "editing";
+                case DELETE -> "deleting";
+            };
+            return String.format(Locale.ROOT, "%s %.2f on %s", verb, row.getAmount(), row.getDate());
+        }
+    }
+
+    private static class Checkpoint {
+        final Path path;
+        final long sequence;
+        final long offset;
+        final long timestamp;
+        final int rows;
+
+        Checkpoint(Path path, long sequence, long offset, long timestamp, int rows) {
+            this.path = path;
+            this.sequence = sequence;
+            this.offset = offset;
+            this.timestamp = timestamp;
+            this.rows = rows;
+        }
+    }
+
+    // Row images are encoded into a growable heap buffer and then copied into the channel's buffer.
+    private static class Encoder {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+        void ensure(int bytes) {
+            if (buffer.remaining() >= bytes) return;
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+            buffer.flip();
+            bigger.put(buffer);
+            buffer = bigger;
+        }
+
+        void putImage(Transaction transaction) {
+            byte[] date = bytes(transaction.getDate());
+            byte[] comment = bytes(transaction.getComment());
+            byte[] currency = bytes(transaction.getCurrency());
+            byte[] occurrence = bytes(transaction.getOccurrenceKey());
+            ensure(4 + 8 + 5 * 4 + 4 * 4 + length(date) + length(comment) + length(currency) + length(occurrence));
+            buffer.putInt(transaction.getId());
+            buffer.putDouble(transaction.getAmount());
+            buffer.putInt(transaction.getTypeId());
+            buffer.putInt(transaction.getCategoryId());
+            buffer.putInt(transaction.getPaymentTypeId());
+            buffer.putInt(transaction.getPlaceId());
+            buffer.putInt(transaction.getBeneficiaryId());
+            putBytes(date);
+            putBytes(comment);
+            putBytes(currency);
+            putBytes(occurrence);
+        }
+
+        private void putBytes(byte[] value) {
+            if (value == null) {
+                buffer.putInt(-1);
+            } else {
+                buffer.putInt(value.length);
+                buffer.put(value);
+            }
+        }
+
+        private static byte[] bytes(String value) {
+            return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        private static int length(byte[] value) {
+            return value == null ? 0 : value.length;
+        }
+    }
+
+    private static TransactionJournal defaultJournal;
+
+    private final Path file;
+    private final TransactionDAO dao;
+    private final int checkpointInterval;
+    private final FileChannel channel;
+    private final ByteBuffer output = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final Encoder encoder = new Encoder();
+    private final CRC32 crc = new CRC32();
+    private final ExecutorService checkpointer;
+    private final Deque<Entry> undo = new ArrayDeque<>();
+    private final Deque<Entry> redo = new ArrayDeque<>();
+    private final ThreadLocal<Boolean> undoable = ThreadLocal.withInitial(() -> false);
+    private final ThreadLocal<Boolean> reverting = ThreadLocal.withInitial(() -> false);
+    private long nextSequence;
+    private long sinceCheckpoint;
+    private boolean checkpointPending;
+    private boolean closed;
+
+    // Opens the journal, cutting off a torn tail, and starts recording the DAO's changes. A new journal begins
+    // with a checkpoint of the ledger as it is, so every later state can be rebuilt from the journal alone.
+    public TransactionJournal(Path file, TransactionDAO dao, int checkpointInterval) throws IOException {
+        this.file = file;
+        this.dao = dao;
+        this.checkpointInterval = Math.max(1, checkpointInterval);
+        if (file.toAbsolutePath().getParent() != null) Files.createDirectories(file.toAbsolutePath().getParent());
+        boolean fresh = !Files.exists(file) || Files.size(file) == 0;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (fresh) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).put(MAGIC).putInt(VERSION).flip();
+                while (header.hasRemaining()) channel.write(header);
+                channel.force(true);
+                Map<Integer, Transaction> rows = new TreeMap<>();
+                if (dao.forEachTransactionRow(transaction -> rows.put(transaction.getId(), transaction)) < 0) {
+                    throw new IOException("Could not read the ledger for the journal's first checkpoint");
+                }
+                writeCheckpoint(0, HEADER_SIZE, System.currentTimeMillis(), rows);
+                channel.position(HEADER_SIZE);
+            } else {
+                checkHeader();
+                recover();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            // A new journal without its first checkpoint could not be replayed, so it is not left behind.
+            if (fresh) Files.deleteIfExists(file);
+            throw e;
+        }
+        this.checkpointer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "transaction-journal-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dao.addListener(this);
+    }
+
+    public TransactionJournal(Path file, TransactionDAO dao) throws IOException {
+        this(file, dao, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    // Starts the app's journal and makes it the default instance for the forms' undo and redo.
+    public static synchronized TransactionJournal start(Path file, TransactionDAO dao) throws IOException {
+        TransactionJournal journal = new TransactionJournal(file, dao);
+        defaultJournal = journal;
+        return journal;
+    }
+
+    // Used when the app switches ledgers; the journal stays owned by its profile.
+    public static synchronized void setDefault(TransactionJournal journal) {
+        defaultJournal = journal;
+    }
+
+    public static synchronized TransactionJournal getDefault() {
+        return defaultJournal;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    private void checkHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        header.flip();
+        if (header.remaining() < HEADER_SIZE) throw new IOException(file + " is not a transaction journal");
+        byte[] magic = new byte[MAGIC.length];
+        header.get(magic);
+        if (!Arrays.equals(magic, MAGIC) || header.getInt() != VERSION) {
+            throw new IOException(file + " is not a transaction journal");
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Checkpoint> checkpoints = listCheckpoints();
+        Checkpoint latest = checkpoints.isEmpty() ? null : checkpoints.get(checkpoints.size() - 1);
+        long start = latest == null ? HEADER_SIZE : latest.offset;
+        long[] last = {latest == null ? -1 : latest.sequence - 1};
+        long end = scan(start, channel.size(), entry -> {
+            last[0] = entry.getSequence();
+            return true;
+        });
+        if (end < channel.size()) {
+            channel.truncate(end);
+            channel.force(true);
+        }
+        channel.position(end);
+        nextSequence = last[0] + 1;
+    }
+
+    @Override
+    public void onInserted(Transaction transaction) {
+        append(Kind.INSERT, null, transaction, true);
+    }
+
+    @Override
+    public void onInserted(List<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            append(Kind.INSERT, null, transaction, false);
+        }
+        flushQuietly();
+    }
+
+    @Override
+    public void onUpdated(Transaction oldTransaction, Transaction newTransaction) {
+        Transaction after = copy(newTransaction);
+        // Updates leave the occurrence key alone, so the stored row keeps the old one.
+        if (oldTransaction != null && after.getOccurrenceKey() == null) {
+            after.setOccurrenceKey(oldTransaction.getOccurrenceKey());
+        }
+        append(Kind.UPDATE, oldTransaction, after, true);
+    }
+
+    @Override
+    public void onDeleted(Transaction transaction) {
+        append(Kind.DELETE, transaction, null, true);
+    }
+
+    @Override
+    public void onReloaded() {
+        try {
+            rebase();
+        } catch (IOException e) {
+            Metrics.recordError();
+            e.printStackTrace();
+        }
+    }
+
+    private synchronized void append(Kind kind, Transaction before, Transaction after, boolean flush) {
+        if (closed) return;
+        Entry entry = new Entry(kind, nextSequence++, System.currentTimeMillis(),
+                before == null ? null : copy(before), after == null ? null : copy(after));
+        try {
+            encoder.buffer.clear();
+            encoder.ensure(4 + 1 + 8 + 8);
+            encoder.buffer.putInt(0);
+            encoder.buffer.put((byte) kind.ordinal());
+            encoder.buffer.putLong(entry.getSequence());
+            encoder.buffer.putLong(entry.getTimestamp());
+            if (entry.getBefore() != null) encoder.putImage(entry.getBefore());
+            if (entry.getAfter() != null) encoder.putImage(entry.getAfter());
+            int length = encoder.buffer.position() - 4;
+            encoder.buffer.putInt(0, length);
+            crc.reset();
+            crc.update(encoder.buffer.array(), 4, length);
+            encoder.ensure(4);
+            encoder.buffer.putInt((int) crc.getValue());
+            encoder.buffer.flip();
+            write(channel, output, encoder.buffer);
+            if (flush) flush();
+        } catch (IOException e) {
+            Metrics.recordError();
+            e.printStackTrace();
+        }
+
+        if (reverting.get()) {
+            // Undo and redo move entries between the stacks themselves.
+        } else if (undoable.get()) {
+            undo.push(entry);
+            if (undo.size() > UNDO_LIMIT) undo.removeLast();
+            redo.clear();
+        }
+
+        if (++sinceCheckpoint >= checkpointInterval && !checkpointPending) {
+            checkpointPending = true;
+            checkpointer.execute(() -> {
+                try {
+                    checkpoint();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                } finally {
+                    synchronized (this) {
+                        checkpointPending = false;
+                    }
+                }
+            });
+        }
+    }
+
+    private static void write(FileChannel target, ByteBuffer output, ByteBuffer bytes) throws IOException {
+        if (bytes.remaining() > output.remaining()) {
+            drain(target, output);
+            if (bytes.remaining() > output.capacity()) {
+                while (bytes.hasRemaining()) target.write(bytes);
+                return;
+            }
+        }
+        output.put(bytes);
+    }
+
+    private static void drain(FileChannel target, ByteBuffer output) throws IOException {
+        output.flip();
+        while (output.hasRemaining()) target.write(output);
+        output.clear();
+    }
+
+    public synchronized void flush() throws IOException {
+        if (!closed) drain(channel, output);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Runs a form's write so that its changes can be undone.
+    public boolean recordUndoable(BooleanSupplier write) {
+        undoable.set(true);
+        try {
+            return write.getAsBoolean();
+        } finally {
+            undoable.set(false);
+        }
+    }
+
+    public synchronized boolean canUndo() {
+        return !undo.isEmpty();
+    }
+
+    public synchronized boolean canRedo() {
+        return !redo.isEmpty();
+    }
+
+    public synchronized String describeUndo() {
+        return undo.isEmpty() ? null : "Undo " + undo.peek().describe();
+    }
+
+    public synchronized String describeRedo() {
+        return redo.isEmpty() ? null : "Redo " + redo.peek().describe();
+    }
+
+    // Writes the inverse of the latest form edit from the images the journal already holds. The reversal is
+    // journaled like any other change, so the history stays append-only.
+    public boolean undo() {
+        Entry entry;
+        synchronized (this) {
+            entry = undo.peek();
+        }
+        if (entry == null || !apply(entry, true)) return false;
+        synchronized (this) {
+            undo.remove(entry);
+            redo.push(entry);
+        }
+        return true;
+    }
+
+    public boolean redo() {
+        Entry entry;
+        synchronized (this) {
+            entry = redo.peek();
+        }
+        if (entry == null || !apply(entry, false)) return false;
+        synchronized (this) {
+            redo.remove(entry);
+            undo.push(entry);
+        }
+        return true;
+    }
+
+    private boolean apply(Entry entry, boolean backwards) {
+        reverting.set(true);
+        try {
+            return switch (entry.getKind()) {
+                case INSERT -> backwards
+                        ? dao.deleteTransaction(entry.getAfter().getId())
+                        : dao.restoreTransaction(copy(entry.getAfter()));
+                case UPDATE -> dao.updateTransaction(copy(backwards ? entry.getBefore() : entry.getAfter()));
+                case DELETE -> backwards
+                        ? dao.restoreTransaction(copy(entry.getBefore()))
+                        : dao.deleteTransaction(entry.getBefore().getId());
+            };
+        } finally {
+            reverting.set(false);
+        }
+    }
+
+    // Replays every record from the start of the journal, oldest first.
+    public long replay(Consumer<Entry> consumer) throws IOException {
+        long end = flushedSize();
+        long[] count = {0};
+        scan(HEADER_SIZE, end, entry -> {
+            consumer.accept(entry);
+            count[0]++;
+            return true;
+        });
+        return count[0];
+    }
+
+    // The ledger's rows by id as they stood at the given time, rebuilt from the nearest earlier checkpoint.
+    // Times before the journal began give the state it began with.
+    public Map<Integer, Transaction> stateAt(Instant time) throws IOException {
+        long millis = time.toEpochMilli();
+        long end = flushedSize();
+        Checkpoint start = null;
+        for (Checkpoint checkpoint : listCheckpoints()) {
+            if (start == null || checkpoint.timestamp <= millis) start = checkpoint;
+        }
+
+        Map<Integer, Transaction> state = start == null ? new TreeMap<>() : readCheckpoint(start);
+        scan(start == null ? HEADER_SIZE : start.offset, end, entry -> {
+            if (entry.getTimestamp() > millis) return false;
+            applyTo(state, entry);
+            return true;
+        });
+        return state;
+    }
+
+    private static void applyTo(Map<Integer, Transaction> state, Entry entry) {
+        switch (entry.getKind()) {
+            case INSERT, UPDATE -> state.put(entry.getAfter().getId(), entry.getAfter());
+            case DELETE -> state.remove(entry.getBefore().getId());
+        }
+    }
+
+    private synchronized long flushedSize() throws IOException {
+        flush();
+        return channel.position();
+    }
+
+    // Writes a checkpoint of the ledger as of the journal's current end, built from the latest checkpoint and the
+    // records after it. Older checkpoints are pruned, except the first, which anchors the oldest views.
+    public void checkpoint() throws IOException {
+        long offset;
+        long sequence;
+        synchronized (this) {
+            if (closed) return;
+            flush();
+            channel.force(false);
+            offset = channel.position();
+            sequence = nextSequence;
+            sinceCheckpoint = 0;
+        }
+
+        Metrics.Sample sample = Metrics.start("journal.checkpoint");
+        try {
+            List<Checkpoint> checkpoints = listCheckpoints();
+            Checkpoint latest = checkpoints.isEmpty() ? null : checkpoints.get(checkpoints.size() - 1);
+            if (latest != null && latest.offset == offset) return;
+            Map<Integer, Transaction> state = latest == null ? new TreeMap<>() : readCheckpoint(latest);
+            long[] timestamp = {latest == null ? 0 : latest.timestamp};
+            scan(latest == null ? HEADER_SIZE : latest.offset, offset, entry -> {
+                applyTo(state, entry);
+                timestamp[0] = entry.getTimestamp();
+                return true;
+            });
+            writeCheckpoint(sequence, offset, timestamp[0], state);
+
+            checkpoints = listCheckpoints();
+            for (int i = 1; i < checkpoints.size() - KEEP_CHECKPOINTS; i++) {
+                Files.deleteIfExists(checkpoints.get(i).path);
+            }
+        } catch (IOException | RuntimeException e) {
+            sample.failed();
+            throw e;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    // Starts the history over from the ledger as it is now, for when the ledger was replaced without going through
+    // the DAO, e.g. by a restore. Undo and redo are dropped, since their row images may no longer exist, and a
+    // checkpoint read from the ledger anchors every later view.
+    public synchronized void rebase() throws IOException {
+        if (closed) return;
+        Map<Integer, Transaction> rows = new TreeMap<>();
+        if (dao.forEachTransactionRow(transaction -> rows.put(transaction.getId(), transaction)) < 0) {
+            throw new IOException("Could not read the ledger for the journal's checkpoint");
+        }
+        undo.clear();
+        redo.clear();
+        flush();
+        channel.force(false);
+        writeCheckpoint(nextSequence, channel.position(), System.currentTimeMillis(), rows);
+        sinceCheckpoint = 0;
+    }
+
+    private Path checkpointPath(long sequence) {
+        return file.resolveSibling(file.getFileName() + String.format(Locale.ROOT, ".%012d", sequence) + CHECKPOINT_SUFFIX);
+    }
+
+    private void writeCheckpoint(long sequence, long offset, long timestamp, Map<Integer, Transaction> rows) throws IOException {
+        Path target = checkpointPath(sequence);
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        try (FileChannel out = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            Encoder rowEncoder = new Encoder();
+            rowEncoder.buffer.put(CHECKPOINT_MAGIC).putInt(VERSION).putLong(sequence).putLong(offset)
+                    .putLong(timestamp).putInt(rows.size());
+            for (Transaction row : rows.values()) {
+                rowEncoder.putImage(row);
+                if (rowEncoder.buffer.position() >= BUFFER_SIZE / 2) {
+                    write(out, buffer, rowEncoder.buffer.flip());
+                    rowEncoder.buffer.clear();
+                }
+            }
+            write(out, buffer, rowEncoder.buffer.flip());
+            drain(out, buffer);
+            out.force(true);
+        }
+        Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Oldest first.
+    private List<Checkpoint> listCheckpoints() throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        String prefix = file.getFileName() + ".";
+        List<Checkpoint> checkpoints = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(prefix) && name.endsWith(CHECKPOINT_SUFFIX);
+            }).toList()) {
+                Checkpoint checkpoint = readCheckpointHeader(path);
+                if (checkpoint != null) checkpoints.add(checkpoint);
+            }
+        }
+        checkpoints.sort(Comparator.comparingLong(checkpoint -> checkpoint.sequence));
+        return checkpoints;
+    }
+
+    private static Checkpoint readCheckpointHeader(Path path) throws IOException {
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(CHECKPOINT_HEADER_SIZE);
+            while (header.hasRemaining() && in.read(header) > 0) {
+                // keep reading
+            }
+            header.flip();
+            if (header.remaining() < CHECKPOINT_HEADER_SIZE) return null;
+            byte[] magic = new byte[CHECKPOINT_MAGIC.length];
+            header.get(magic);
+            if (!Arrays.equals(magic, CHECKPOINT_MAGIC) || header.getInt() != VERSION) return null;
+            return new Checkpoint(path, header.getLong(), header.getLong(), header.getLong(), header.getInt());
+        }
+    }
+
+    private static Map<Integer, Transaction> readCheckpoint(Checkpoint checkpoint) throws IOException {
+        Map<Integer, Transaction> rows = new TreeMap<>();
+        try (FileChannel in = FileChannel.open(checkpoint.path, StandardOpenOption.READ)) {
+            MappedByteBuffer map = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            map.position(CHECKPOINT_HEADER_SIZE);
+            for (int i = 0; i < checkpoint.rows; i++) {
+                Transaction row = readImage(map);
+                rows.put(row.getId(), row);
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt journal checkpoint " + checkpoint.path, e);
+        }
+        return rows;
+    }
+
+    // Reads records from the memory-mapped journal until the visitor declines one or a record is torn or fails
+    // its CRC. Returns the offset just past the last record read.
+    private long scan(long from, long to, Predicate<Entry> visitor) throws IOException {
+        CRC32 check = new CRC32();
+        long position = from;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (position < to) {
+                MappedByteBuffer map = in.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW, to - position));
+                int consumed = 0;
+                while (map.remaining() >= 4) {
+                    int start = map.position();
+                    int length = map.getInt();
+                    if (length <= 0 || length > map.remaining() - 4) break;
+                    check.reset();
+                    check.update(map.slice(start + 4, length));
+                    if ((int) check.getValue() != map.getInt(start + 4 + length)) return position + start;
+
+                    Entry entry;
+                    try {
+                        entry = readEntry(map);
+                    } catch (RuntimeException e) {
+                        return position + start;
+                    }
+                    if (!visitor.test(entry)) return position + start;
+                    map.position(start + 4 + length + 4);
+                    consumed = map.position();
+                }
+                if (consumed == 0) break;
+                position += consumed;
+            }
+        }
+        return position;
+    }
+
+    private static Entry readEntry(ByteBuffer map) {
+        Kind kind = Kind.values()[map.get()];
+        long sequence = map.getLong();
+        long timestamp = map.getLong();
+        Transaction before = kind == Kind.INSERT ? null : readImage(map);
+        Transaction after = kind == Kind.DELETE ? null : readImage(map);
+        return new Entry(kind, sequence, timestamp, before, after);
+    }
+
+    private static Transaction readImage(ByteBuffer map) {
+        int id = map.getInt();
+        double amount = map.getDouble();
+        int typeId = map.getInt();
+        int categoryId = map.getInt();
+        int paymentTypeId = map.getInt();
+        int placeId = map.getInt();
+        int beneficiaryId = map.getInt();
+        String date = readString(map);
+        String comment = readString(map);
+        Transaction transaction = new Transaction(id, amount, date, categoryId, paymentTypeId, comment, typeId);
+        transaction.setPlaceId(placeId);
+        transaction.setBeneficiaryId(beneficiaryId);
+        transaction.setCurrency(readString(map));
+        transaction.setOccurrenceKey(readString(map));
+        return transaction;
+    }
+
+    private static String readString(ByteBuffer map) {
+        int length = map.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        map.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Transaction copy(Transaction source) {
+        Transaction transaction = new Transaction(source.getId(), source.getAmount(), source.getDate(),
+                source.getCategoryId(), source.getPaymentTypeId(), source.getComment(), source.getTypeId());
+        transaction.setPlaceId(source.getPlaceId());
+        transaction.setBeneficiaryId(source.getBeneficiaryId());
+        transaction.setCurrency(source.getCurrency());
+        transaction.setOccurrenceKey(source.getOccurrenceKey());
+        return transaction;
+    }
+
+    @Override
+    public void close() {
+        dao.removeListener(this);
+        checkpointer.shutdownNow();
+        synchronized (this) {
+            if (!closed) {
+                try {
+                    drain(channel, output);
+                    channel.force(true);
+                    channel.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                closed = true;
+            }
+        }
+        synchronized (TransactionJournal.class) {
+            if (defaultJournal == this) defaultJournal = null;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.ydanilenko.budgettracker.util;
+
+import org.ydanilenko.budgettracker.model.Transaction;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TransactionLedger {
+    private final DateRangeIndex transactions;
+    private final RangeSumIndex categories;
+    private final RangeSumIndex paymentTypes;
+    private final Map<Integer, Transaction> byId = new HashMap<>();
+
+    public TransactionLedger(List<Transaction> transactions, CurrencyConverter converter) {
+        this.transactions = new DateRangeIndex(transactions, converter);
+        this.categories = RangeSumIndex.byCategory(this.transactions);
+        this.paymentTypes = RangeSumIndex.byPaymentType(this.transactions);
+        for (Transaction t : this.transactions.getAll()) {
+            byId.put(t.getId(), t);
+        }
+    }
+
+    // Point updates for rows written after the ledger was loaded; earlier slices are not valid afterwards.
+    public void add(Transaction transaction) {
+        remove(transaction.getId());
+        if (!transactions.add(transaction)) return;
+        categories.add(transaction);
+        paymentTypes.add(transaction);
+        byId.put(transaction.getId(), transaction);
+    }
+
+    public boolean remove(int id) {
+        Transaction stored = byId.remove(id);
+        if (stored == null || transactions.remove(stored) == null) return false;
+        categories.remove(stored);
+        paymentTypes.remove(stored);
+        return true;
+    }
+
+    public static String validateRange(LocalDate start, LocalDate end, LocalDate today) {
+        if (end != null && end.isAfter(today)) {
+            return "End date cannot be later than today.";
+        }
+        if (start != null && end != null && start.isAfter(end)) {
+            return "Start date cannot be after end date.";
+        }
+        return null;
+    }
+
+    public List<Transaction> slice(LocalDate start, LocalDate end) {
+        return transactions.slice(start, end);
+    }
+
+    public double total(LocalDate start, LocalDate end) {
+        return transactions.total(start, end);
+    }
+
+    public Map<String, Double> totalsByCategory(LocalDate start, LocalDate end) {
+        return categories.totalsBetween(start, end);
+    }
+
+    public Map<String, Double> totalsByPaymentType(LocalDate start, LocalDate end) {
+        return paymentTypes.totalsBetween(start, end);
+    }
+
+    public int size() {
+        return transactions.size();
+    }
+}
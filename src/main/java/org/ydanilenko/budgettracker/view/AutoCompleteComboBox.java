@@ -0,0 +1,38 @@
+package org.ydanilenko.budgettracker.view;
+
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.TextField;
+import org.ydanilenko.budgettracker.util.NameSuggestionIndex;
+
+public class AutoCompleteComboBox {
+
+    public static void attach(ComboBox<String> comboBox, NameSuggestionIndex index) {
+        attach(comboBox, index, NameSuggestionIndex.DEFAULT_LIMIT);
+    }
+
+    public static void attach(ComboBox<String> comboBox, NameSuggestionIndex index, int limit) {
+        comboBox.setEditable(true);
+        comboBox.setVisibleRowCount(Math.min(limit, 10));
+        comboBox.getItems().setAll(index.suggest("", limit));
+
+        TextField editor = comboBox.getEditor();
+        boolean[] updating = {false};
+
+        editor.textProperty().addListener((obs, oldText, newText) -> {
+            if (updating[0] || !editor.isFocused()) return;
+
+            updating[0] = true;
+            int caret = editor.getCaretPosition();
+            comboBox.getItems().setAll(index.suggest(newText, limit));
+            editor.setText(newText);
+            editor.positionCaret(caret);
+            updating[0] = false;
+
+            if (comboBox.getItems().isEmpty()) {
+                comboBox.hide();
+            } else if (!comboBox.isShowing()) {
+                comboBox.show();
+            }
+        });
+    }
+}
@@ -0,0 +1,138 @@
+package org.ydanilenko.budgettracker.view;
+
+import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.*;
+import javafx.scene.image.Image;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.util.DatabaseBackup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+public class BackupDialog {
+    private final Stage window = new Stage();
+    private final DatabaseBackup backup;
+    private final TransactionDAO dao;
+    private final Runnable onRestored;
+    private final ListView<Path> archiveList = new ListView<>();
+    private final ProgressBar progressBar = new ProgressBar(0);
+    private final Label statusLabel = new Label();
+    private final Button backupButton = new Button("Back Up Now");
+    private final Button restoreButton = new Button("Restore Selected");
+
+    public BackupDialog(Stage ownerStage, DatabaseBackup backup, TransactionDAO dao, Runnable onRestored) {
+        this.backup = backup;
+        this.dao = dao;
+        this.onRestored = onRestored;
+
+        window.initOwner(ownerStage);
+        window.initModality(Modality.WINDOW_MODAL);
+        window.setTitle("Backups");
+        window.getIcons().add(new Image(getClass().getResourceAsStream("/images/app_icon.png")));
+
+        archiveList.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(Path archive, boolean empty) {
+                super.updateItem(archive, empty);
+                setText(empty || archive == null ? null : describe(archive));
+            }
+        });
+        progressBar.setMaxWidth(Double.MAX_VALUE);
+        restoreButton.disableProperty().bind(archiveList.getSelectionModel().selectedItemProperty().isNull());
+
+        backupButton.setOnAction(e -> run("Backing up...", false, null));
+        restoreButton.setOnAction(e -> confirmRestore());
+
+        Label location = new Label("Archive: " + backup.getDirectory());
+        VBox layout = new VBox(10, location, archiveList, progressBar, statusLabel, new HBox(10, backupButton, restoreButton));
+        layout.setPadding(new Insets(10));
+
+        Scene scene = new Scene(layout, 520, 380);
+        scene.getStylesheets().add(getClass().getResource("/style.css").toExternalForm());
+        window.setScene(scene);
+    }
+
+    public void show() {
+        refresh();
+        window.show();
+    }
+
+    private void refresh() {
+        try {
+            archiveList.setItems(FXCollections.observableArrayList(backup.listArchives()));
+        } catch (IOException e) {
+            statusLabel.setText("Could not list backups: " + e.getMessage());
+        }
+    }
+
+    private static String describe(Path archive) {
+        try {
+            return String.format(Locale.ROOT, "%s  (%.1f MB)", archive.getFileName(), Files.size(archive) / 1048576.0);
+        } catch (IOException e) {
+            return archive.getFileName().toString();
+        }
+    }
+
+    private void confirmRestore() {
+        Path archive = archiveList.getSelectionModel().getSelectedItem();
+        Alert confirm = new Alert(Alert.AlertType.CONFIRMATION,
+                "Replace the current ledger with " + archive.getFileName() + "?\nThe current state is backed up first.",
+                ButtonType.OK, ButtonType.CANCEL);
+        confirm.setTitle("Restore Backup");
+        confirm.setHeaderText(null);
+        confirm.showAndWait()
+                .filter(button -> button == ButtonType.OK)
+                .ifPresent(button -> run("Restoring " + archive.getFileName() + "...", true, archive));
+    }
+
+    private void run(String status, boolean restore, Path archive) {
+        Task<Path> task = new Task<>() {
+            @Override
+            protected Path call() throws Exception {
+                return restore
+                        ? backup.restore(archive, this::updateProgress)
+                        : backup.backUp(this::updateProgress);
+            }
+        };
+
+        progressBar.progressProperty().bind(task.progressProperty());
+        backupButton.setDisable(true);
+        statusLabel.setText(status);
+
+        task.setOnSucceeded(e -> {
+            finish();
+            if (restore) {
+                dao.clearCaches();
+                statusLabel.setText("Restored " + archive.getFileName() + ". The previous state was saved as "
+                        + task.getValue().getFileName() + ".");
+                onRestored.run();
+            } else {
+                statusLabel.setText("Saved and verified " + task.getValue().getFileName() + ".");
+            }
+        });
+        task.setOnFailed(e -> {
+            finish();
+            statusLabel.setText((restore ? "Restore" : "Backup") + " failed: " + task.getException().getMessage());
+        });
+
+        Thread thread = new Thread(task, restore ? "database-restore" : "database-backup-now");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void finish() {
+        progressBar.progressProperty().unbind();
+        progressBar.setProgress(0);
+        backupButton.setDisable(false);
+        refresh();
+    }
+}
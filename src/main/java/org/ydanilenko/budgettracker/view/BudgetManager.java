@@ -0,0 +1,143 @@
+package org.ydanilenko.budgettracker.view;
+
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.*;
+import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.image.Image;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+import org.ydanilenko.budgettracker.model.Budget;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+
+import java.util.List;
+
+public class BudgetManager {
+    private final TransactionDAO dao;
+    private final Runnable onChange;
+    private final Stage window = new Stage();
+    private final TableView<Budget> table = new TableView<>();
+    private final ComboBox<Budget.Scope> scopeField = new ComboBox<>(FXCollections.observableArrayList(Budget.Scope.values()));
+    private final ComboBox<String> targetField = new ComboBox<>();
+    private final TextField limitField = new TextField();
+
+    public BudgetManager(Stage ownerStage, TransactionDAO dao, Runnable onChange) {
+        this.dao = dao;
+        this.onChange = onChange;
+
+        window.initOwner(ownerStage);
+        window.initModality(Modality.APPLICATION_MODAL);
+        window.setTitle("Manage Budgets");
+        window.getIcons().add(new Image(getClass().getResourceAsStream("/images/app_icon.png")));
+
+        setupTable();
+
+        scopeField.valueProperty().addListener((obs, oldVal, newVal) -> loadTargets(newVal));
+        scopeField.setValue(Budget.Scope.CATEGORY);
+        targetField.setPromptText("Select");
+        limitField.setPromptText("Monthly limit");
+        limitField.setPrefWidth(110);
+
+        Button saveButton = new Button("Save");
+        saveButton.setOnAction(e -> save());
+
+        Button deleteButton = new Button("Delete");
+        deleteButton.setOnAction(e -> {
+            Budget selected = table.getSelectionModel().getSelectedItem();
+            if (selected != null && dao.deleteBudget(selected.getId())) {
+                loadData();
+                onChange.run();
+            }
+        });
+
+        table.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, selected) -> {
+            if (selected == null) return;
+            scopeField.setValue(selected.getScope());
+            targetField.setValue(selected.getTargetName());
+            limitField.setText(String.valueOf(selected.getMonthlyLimit()));
+        });
+
+        HBox formRow = new HBox(10, scopeField, targetField, limitField, saveButton, deleteButton);
+        VBox layout = new VBox(10, table, formRow);
+        layout.setPadding(new Insets(10));
+
+        Scene scene = new Scene(layout, 620, 380);
+        scene.getStylesheets().add(getClass().getResource("/style.css").toExternalForm());
+        window.setScene(scene);
+
+        loadData();
+    }
+
+    private void setupTable() {
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+
+        TableColumn<Budget, String> scopeCol = new TableColumn<>("Applies To");
+        scopeCol.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getScope().toString()));
+
+        TableColumn<Budget, String> nameCol = new TableColumn<>("Name");
+        nameCol.setCellValueFactory(new PropertyValueFactory<>("targetName"));
+
+        TableColumn<Budget, Double> limitCol = new TableColumn<>("Monthly Limit");
+        limitCol.setCellValueFactory(new PropertyValueFactory<>("monthlyLimit"));
+
+        table.getColumns().addAll(List.of(scopeCol, nameCol, limitCol));
+    }
+
+    private void loadData() {
+        table.setItems(FXCollections.observableArrayList(dao.getBudgets()));
+    }
+
+    private void loadTargets(Budget.Scope scope) {
+        targetField.setItems(FXCollections.observableArrayList(
+                scope == Budget.Scope.PAYMENT_TYPE ? dao.getAllPaymentTypes() : dao.getAllCategories()));
+    }
+
+    private void save() {
+        Budget.Scope scope = scopeField.getValue();
+        String target = targetField.getValue();
+        if (scope == null || target == null) {
+            showError("Please select a category or payment type.");
+            return;
+        }
+
+        double limit;
+        try {
+            limit = Double.parseDouble(limitField.getText().trim().replace(',', '.'));
+        } catch (NumberFormatException e) {
+            showError("Limit must be a valid number.");
+            return;
+        }
+        if (limit <= 0) {
+            showError("Limit must be greater than zero.");
+            return;
+        }
+
+        int targetId = scope == Budget.Scope.PAYMENT_TYPE
+                ? dao.getPaymentTypeIdByName(target)
+                : dao.getCategoryIdByName(target);
+
+        if (dao.saveBudget(new Budget(0, scope, targetId, target, limit))) {
+            limitField.clear();
+            loadData();
+            onChange.run();
+        } else {
+            showError("Failed to save budget.");
+        }
+    }
+
+    public void show() {
+        window.showAndWait();
+    }
+
+    private void showError(String message) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Error");
+        alert.setHeaderText(null);
+        alert.setContentText(message);
+        alert.showAndWait();
+    }
+}
@@ -0,0 +1,66 @@
+package org.ydanilenko.budgettracker.view;
+
+import javafx.geometry.Insets;
+import javafx.scene.Node;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.layout.VBox;
+import org.ydanilenko.budgettracker.util.BudgetStatus;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+public class BudgetPanel {
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("MMMM yyyy", Locale.ENGLISH);
+
+    private final VBox root = new VBox(8);
+    private final Label titleLabel = new Label("Budgets");
+    private final VBox rows = new VBox(10);
+    private final Button manageButton = new Button("\uD83C\uDFAF Manage Budgets");
+
+    public BudgetPanel() {
+        titleLabel.getStyleClass().add("budget-title");
+        root.getStyleClass().add("budget-panel");
+        root.setPadding(new Insets(10));
+        root.setPrefWidth(230);
+        root.getChildren().addAll(titleLabel, rows, manageButton);
+    }
+
+    public Node getNode() {
+        return root;
+    }
+
+    public Button getManageButton() {
+        return manageButton;
+    }
+
+    public void update(YearMonth month, List<BudgetStatus> statuses) {
+        titleLabel.setText("Budgets \u2013 " + month.format(MONTH_FORMAT));
+        rows.getChildren().clear();
+
+        if (statuses.isEmpty()) {
+            rows.getChildren().add(new Label("No budgets set."));
+            return;
+        }
+
+        for (BudgetStatus status : statuses) {
+            double ratio = status.getRatio();
+
+            Label nameLabel = new Label(status.getBudget().getTargetName());
+            ProgressBar bar = new ProgressBar(Math.min(ratio, 1.0));
+            bar.setMaxWidth(Double.MAX_VALUE);
+            Label amountLabel = new Label(String.format("%.2f / %.2f (%.0f%%)",
+                    status.getSpent(), status.getBudget().getMonthlyLimit(), ratio * 100));
+
+            if (ratio >= 1.0) {
+                bar.getStyleClass().add("budget-exceeded");
+            } else if (ratio >= 0.8) {
+                bar.getStyleClass().add("budget-warning");
+            }
+            rows.getChildren().add(new VBox(2, nameLabel, bar, amountLabel));
+        }
+    }
+}
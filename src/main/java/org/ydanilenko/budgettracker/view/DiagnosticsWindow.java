@@ -0,0 +1,130 @@
+package org.ydanilenko.budgettracker.view;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.*;
+import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.image.Image;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+import org.ydanilenko.budgettracker.util.Metrics;
+import org.ydanilenko.budgettracker.util.MetricsReporter;
+import org.ydanilenko.budgettracker.util.MetricsSnapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.ToDoubleFunction;
+
+public class DiagnosticsWindow {
+    private final Stage window = new Stage();
+    private final TableView<MetricsSnapshot> table = new TableView<>();
+    private final Label summaryLabel = new Label();
+    private final Timeline refresh = new Timeline(new KeyFrame(Duration.seconds(1), e -> refresh()));
+
+    public DiagnosticsWindow(Stage ownerStage) {
+        window.initOwner(ownerStage);
+        window.setTitle("Diagnostics");
+        window.getIcons().add(new Image(getClass().getResourceAsStream("/images/app_icon.png")));
+
+        setupTable();
+
+        Button resetButton = new Button("Reset");
+        resetButton.setOnAction(e -> {
+            Metrics.reset();
+            refresh();
+        });
+
+        Button saveButton = new Button("Save Snapshot...");
+        saveButton.setOnAction(e -> saveSnapshot());
+
+        HBox controls = new HBox(10, resetButton, saveButton, summaryLabel);
+        VBox layout = new VBox(10, table, controls);
+        layout.setPadding(new Insets(10));
+
+        Scene scene = new Scene(layout, 860, 480);
+        scene.getStylesheets().add(getClass().getResource("/style.css").toExternalForm());
+        window.setScene(scene);
+
+        refresh.setCycleCount(Timeline.INDEFINITE);
+        window.setOnShown(e -> refresh.play());
+        window.setOnHidden(e -> refresh.stop());
+    }
+
+    public void show() {
+        refresh();
+        window.show();
+    }
+
+    private void setupTable() {
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+
+        TableColumn<MetricsSnapshot, String> nameCol = new TableColumn<>("Operation");
+        nameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
+        nameCol.setPrefWidth(260);
+
+        TableColumn<MetricsSnapshot, Long> callsCol = new TableColumn<>("Calls");
+        callsCol.setCellValueFactory(new PropertyValueFactory<>("calls"));
+
+        TableColumn<MetricsSnapshot, Long> errorsCol = new TableColumn<>("Errors");
+        errorsCol.setCellValueFactory(new PropertyValueFactory<>("errors"));
+
+        table.getColumns().addAll(List.of(nameCol, callsCol, errorsCol,
+                millisColumn("Mean (ms)", MetricsSnapshot::getMeanMillis),
+                millisColumn("p50 (ms)", MetricsSnapshot::getP50Millis),
+                millisColumn("p90 (ms)", MetricsSnapshot::getP90Millis),
+                millisColumn("p99 (ms)", MetricsSnapshot::getP99Millis),
+                millisColumn("Max (ms)", MetricsSnapshot::getMaxMillis)));
+        table.setPlaceholder(new Label("No operations recorded yet."));
+    }
+
+    private static TableColumn<MetricsSnapshot, String> millisColumn(String title, ToDoubleFunction<MetricsSnapshot> value) {
+        TableColumn<MetricsSnapshot, String> column = new TableColumn<>(title);
+        column.setCellValueFactory(data ->
+                new SimpleStringProperty(String.format(Locale.ROOT, "%.3f", value.applyAsDouble(data.getValue()))));
+        column.setComparator((a, b) -> Double.compare(Double.parseDouble(a), Double.parseDouble(b)));
+        return column;
+    }
+
+    private void refresh() {
+        List<MetricsSnapshot> snapshots = Metrics.snapshot();
+        List<TableColumn<MetricsSnapshot, ?>> sortOrder = List.copyOf(table.getSortOrder());
+        table.setItems(FXCollections.observableArrayList(snapshots));
+        table.getSortOrder().setAll(sortOrder);
+
+        long calls = 0;
+        long errors = 0;
+        for (MetricsSnapshot snapshot : snapshots) {
+            calls += snapshot.getCalls();
+            errors += snapshot.getErrors();
+        }
+        summaryLabel.setText(String.format("%d operations, %d calls, %d errors", snapshots.size(), calls, errors));
+    }
+
+    private void saveSnapshot() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Save Metrics Snapshot");
+        chooser.setInitialFileName("metrics.csv");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+        File file = chooser.showSaveDialog(window);
+        if (file == null) return;
+
+        try {
+            MetricsReporter.write(file.toPath(), Metrics.snapshot());
+        } catch (IOException e) {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Error");
+            alert.setHeaderText(null);
+            alert.setContentText("Failed to save snapshot: " + e.getMessage());
+            alert.showAndWait();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.ydanilenko.budgettracker.view;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.SortedList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -9,17 +10,23 @@ import javafx.scene.chart.*;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.image.Image;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
 import javafx.scene.layout.*;
-import javafx.beans.binding.Bindings;
 
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import org.ydanilenko.budgettracker.model.Transaction;
 import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.util.CashFlowForecast;
+import org.ydanilenko.budgettracker.util.CashFlowForecaster;
 import org.ydanilenko.budgettracker.util.DatabaseConnection;
+import org.ydanilenko.budgettracker.util.Metrics;
+import org.ydanilenko.budgettracker.util.MonthlyTotals;
+import org.ydanilenko.budgettracker.util.PieSlice;
 
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 public class ExpenseTransactionView {
@@ -39,6 +46,17 @@ public class ExpenseTransactionView {
     private final Label totalLabel = new Label("Total: 0.00");
     private final Button showHistogramButton = new Button("\uD83D\uDCCA Income vs Expense Chart");
     private Button statsButton = new Button("\uD83D\uDCCB Show Statistics");
+    private final TextField searchField = new TextField();
+    private final Button importButton = new Button("\uD83D\uDCC2 Import");
+    private final Button exportButton = new Button("\uD83D\uDCBE Export");
+    private final Button recurringButton = new Button("\uD83D\uDD01 Recurring");
+    private final Button diagnosticsButton = new Button("\uD83D\uDCC8 Diagnostics");
+    private final Button backupButton = new Button("\uD83D\uDDC4 Backups");
+    private final Button undoButton = new Button("\u21B6 Undo");
+    private final Button redoButton = new Button("\u21B7 Redo");
+    private final ComboBox<String> profileBox = new ComboBox<>();
+    private final BudgetPanel budgetPanel = new BudgetPanel();
+    private CashFlowForecaster forecaster;
 
     public ExpenseTransactionView(Stage stage) {
         this.stage = stage;
@@ -80,6 +98,9 @@ public class ExpenseTransactionView {
         TableColumn<Transaction, String> beneficiaryColumn = new TableColumn<>("Beneficiary");
         beneficiaryColumn.setCellValueFactory(new PropertyValueFactory<>("beneficiaryName"));
 
+        TableColumn<Transaction, String> currencyColumn = new TableColumn<>("Currency");
+        currencyColumn.setCellValueFactory(new PropertyValueFactory<>("currency"));
+
         table.getColumns().addAll(
                 dateColumn,
                 placeColumn,
@@ -87,9 +108,20 @@ public class ExpenseTransactionView {
                 categoryColumn,
                 commentColumn,
                 paymentTypeColumn,
-                amountColumn
+                amountColumn,
+                currencyColumn
         );
         table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        table.setRowFactory(tv -> new TableRow<>() {
+            @Override
+            protected void updateItem(Transaction item, boolean empty) {
+                super.updateItem(item, empty);
+                getStyleClass().remove("duplicate-row");
+                if (!empty && item != null && item.getDuplicateOf() > 0) {
+                    getStyleClass().add("duplicate-row");
+                }
+            }
+        });
     }
 
     private void setupPieChart() {
@@ -102,59 +134,32 @@ public class ExpenseTransactionView {
         paymentTypePieChart.setLegendVisible(true);
     }
 
-    public void updatePieChart(List<Transaction> transactions) {
-        double totalAmount = transactions.stream().mapToDouble(Transaction::getAmount).sum();
-
-        Map<String, Double> categoryTotals = new HashMap<>();
-        for (Transaction transaction : transactions) {
-            String category = transaction.getCategoryName().trim();
-            double amount = transaction.getAmount();
-            categoryTotals.put(category, categoryTotals.getOrDefault(category, 0.0) + amount);
-        }
-
-        Map<String, Double> paymentTypeTotals = new HashMap<>();
-        for (Transaction transaction : transactions) {
-            String paymentType = transaction.getPaymentType().trim();
-            double amount = transaction.getAmount();
-            paymentTypeTotals.put(paymentType, paymentTypeTotals.getOrDefault(paymentType, 0.0) + amount);
-        }
-
-        ObservableList<PieChart.Data> categoryPieChartData = FXCollections.observableArrayList();
-        for (Map.Entry<String, Double> entry : categoryTotals.entrySet()) {
-            if (entry.getValue() > 0) {
-                PieChart.Data slice = new PieChart.Data(entry.getKey(), entry.getValue());
-                double percentage = (entry.getValue() / totalAmount) * 100;
-                slice.nameProperty().bind(Bindings.concat(entry.getKey(), " (", String.format("%.2f", percentage), "%)"));
-                categoryPieChartData.add(slice);
-            }
-        }
+    public void updatePieChart(Map<String, Double> categoryTotals, Map<String, Double> paymentTypeTotals) {
+        Metrics.time("ui.expense.pieCharts", () -> {
+            double totalAmount = PieSlice.total(categoryTotals);
+            pieChart.setData(PieCharts.toData(categoryTotals, totalAmount));
+            paymentTypePieChart.setData(PieCharts.toData(paymentTypeTotals, totalAmount));
+        });
+    }
 
-        ObservableList<PieChart.Data> paymentTypePieChartData = FXCollections.observableArrayList();
-        for (Map.Entry<String, Double> entry : paymentTypeTotals.entrySet()) {
-            if (entry.getValue() > 0) {
-                PieChart.Data slice = new PieChart.Data(entry.getKey(), entry.getValue());
-                double percentage = (entry.getValue() / totalAmount) * 100;
-                slice.nameProperty().bind(Bindings.concat(entry.getKey(), " (", String.format("%.2f", percentage), "%)"));
-                paymentTypePieChartData.add(slice);
+    public void displayTransactions(List<Transaction> transactions) {
+        Metrics.time("ui.expense.displayTransactions", () -> {
+            Metrics.recordRows(transactions.size());
+            SortedList<Transaction> data = new SortedList<>(FXCollections.observableList(transactions));
+            data.comparatorProperty().bind(table.comparatorProperty());
+            table.setItems(data);
+
+            if (transactions.isEmpty()) {
+                table.setPlaceholder(new Label("No expenses to show in this range."));
+            } else {
+                table.setPlaceholder(new Label(""));
             }
-        }
 
-        pieChart.setData(categoryPieChartData);
-        paymentTypePieChart.setData(paymentTypePieChartData);
+            showTotal(transactions.stream().mapToDouble(Transaction::getBaseAmount).sum());
+        });
     }
 
-    public void displayTransactions(List<Transaction> transactions) {
-        ObservableList<Transaction> data = FXCollections.observableArrayList(transactions);
-        table.setItems(data);
-        updatePieChart(transactions);
-
-        if (transactions.isEmpty()) {
-            table.setPlaceholder(new Label("No expenses to show in this range."));
-        } else {
-            table.setPlaceholder(new Label(""));
-        }
-
-        double total = transactions.stream().mapToDouble(Transaction::getAmount).sum();
+    public void showTotal(double total) {
         totalLabel.setText(String.format("💸 Total Expenses: %.2f", total));
         totalLabel.setStyle("""
             -fx-background-color: #ffe5e5;
@@ -180,7 +185,9 @@ public class ExpenseTransactionView {
         header.setSpacing(10);
         Region spacer = new Region();
         HBox.setHgrow(spacer, Priority.ALWAYS);
-        header.getChildren().addAll(title, spacer, switchToIncomeButton);
+        profileBox.setPromptText("Profile");
+        profileBox.setTooltip(new Tooltip("Switch ledger profile"));
+        header.getChildren().addAll(title, spacer, profileBox, undoButton, redoButton, switchToIncomeButton);
         layout.setTop(header);
         showCategoryChartButton.setOnAction(e -> {
             Stage chartStage = new Stage();
@@ -216,7 +223,8 @@ public class ExpenseTransactionView {
             chartStage.showAndWait();
         });
 
-        HBox filterRow = new HBox(10, filterButton, resetFilterButton);
+        searchField.setPromptText("Search comments");
+        HBox filterRow = new HBox(10, filterButton, resetFilterButton, searchField);
 
         Label startLabel = new Label("Start Date:");
         startLabel.setAlignment(Pos.CENTER_LEFT);
@@ -233,6 +241,8 @@ public class ExpenseTransactionView {
 
         VBox mainCenter = new VBox(10, table, pieAndFilterBox);
         layout.setCenter(mainCenter);
+        layout.setRight(budgetPanel.getNode());
+        BorderPane.setMargin(budgetPanel.getNode(), new Insets(0, 0, 0, 10));
 
         startDatePicker.getEditor().setDisable(true);
         startDatePicker.getEditor().setOpacity(1);
@@ -243,17 +253,11 @@ public class ExpenseTransactionView {
         managePaymentTypesButton.setOnAction(e -> {
             new PaymentTypeManager(stage, new TransactionDAO(DatabaseConnection.getConnection()), this, null).show();
         });
-        showHistogramButton.setOnAction(e -> showIncomeExpenseHistogram());
-
-        statsButton.setOnAction(e -> {
-            StatisticsView view = new StatisticsView(new TransactionDAO(DatabaseConnection.getConnection()));
-            view.show();
-        });
 
         Region spacer_for_total = new Region();
         HBox.setHgrow(spacer_for_total, Priority.ALWAYS);
 
-        HBox leftControls = new HBox(10, addButton, managePaymentTypesButton, statsButton);
+        HBox leftControls = new HBox(10, addButton, importButton, exportButton, recurringButton, managePaymentTypesButton, statsButton, diagnosticsButton, backupButton);
         HBox rightTotal = new HBox(totalLabel);
         rightTotal.setAlignment(Pos.CENTER_RIGHT);
         HBox.setHgrow(rightTotal, Priority.ALWAYS);
@@ -266,6 +270,8 @@ public class ExpenseTransactionView {
 
         Scene scene = new Scene(layout, 1000, 700);
         scene.getStylesheets().add(getClass().getResource("/style.css").toExternalForm());
+        scene.getAccelerators().put(new KeyCodeCombination(KeyCode.Z, KeyCombination.SHORTCUT_DOWN), undoButton::fire);
+        scene.getAccelerators().put(new KeyCodeCombination(KeyCode.Y, KeyCombination.SHORTCUT_DOWN), redoButton::fire);
         stage.setScene(scene);
         stage.setTitle("Budget Tracker");
         stage.show();
@@ -279,6 +285,14 @@ public class ExpenseTransactionView {
         return showPaymentChartButton;
     }
 
+    public Button getShowHistogramButton() {
+        return showHistogramButton;
+    }
+
+    public Button getStatsButton() {
+        return statsButton;
+    }
+
     public void showError(String message) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle("Validation Error");
@@ -287,39 +301,14 @@ public class ExpenseTransactionView {
         alert.showAndWait();
     }
 
-    private void showIncomeExpenseHistogram() {
-        TransactionDAO dao = new TransactionDAO(DatabaseConnection.getConnection());
+    public void showIncomeExpenseHistogram(TransactionDAO dao) {
+        Metrics.Sample started = Metrics.start("ui.expense.histogram");
 
         List<Transaction> expenses = dao.getTransactionsByType(0);
         List<Transaction> incomes = dao.getTransactionsByType(1);
 
-        LocalDate start = startDatePicker.getValue();
-        LocalDate end = endDatePicker.getValue();
-
-        if (start != null && end != null) {
-            expenses = expenses.stream()
-                    .filter(t -> !LocalDate.parse(t.getDate()).isBefore(start) && !LocalDate.parse(t.getDate()).isAfter(end))
-                    .toList();
-            incomes = incomes.stream()
-                    .filter(t -> !LocalDate.parse(t.getDate()).isBefore(start) && !LocalDate.parse(t.getDate()).isAfter(end))
-                    .toList();
-        }
-
-        Map<String, Double> incomeMap = new TreeMap<>();
-        Map<String, Double> expenseMap = new TreeMap<>();
-
-        DateTimeFormatter monthFormatter = DateTimeFormatter.ofPattern("yyyy-MM");
-
-        for (Transaction t : incomes) {
-            String month = LocalDate.parse(t.getDate()).format(monthFormatter);
-            incomeMap.merge(month, t.getAmount(), Double::sum);
-        }
-
-        for (Transaction t : expenses) {
-            String month = LocalDate.parse(t.getDate()).format(monthFormatter);
-            expenseMap.merge(month, t.getAmount(), Double::sum);
-        }
-
+        MonthlyTotals totals = MonthlyTotals.of(incomes, expenses,
+                startDatePicker.getValue(), endDatePicker.getValue(), dao.getCurrencyConverter());
 
         CategoryAxis xAxis = new CategoryAxis();
         NumberAxis yAxis = new NumberAxis();
@@ -334,17 +323,36 @@ public class ExpenseTransactionView {
         XYChart.Series<String, Number> expenseSeries = new XYChart.Series<>();
         expenseSeries.setName("Expense");
 
-        Set<String> allDates = new TreeSet<>();
-        allDates.addAll(incomeMap.keySet());
-        allDates.addAll(expenseMap.keySet());
-
-        for (String date : allDates) {
-            incomeSeries.getData().add(new XYChart.Data<>(date, incomeMap.getOrDefault(date, 0.0)));
-            expenseSeries.getData().add(new XYChart.Data<>(date, expenseMap.getOrDefault(date, 0.0)));
+        for (int i = 0; i < totals.getMonths().size(); i++) {
+            String month = totals.getMonths().get(i).toString();
+            incomeSeries.getData().add(new XYChart.Data<>(month, totals.getIncome()[i]));
+            expenseSeries.getData().add(new XYChart.Data<>(month, totals.getExpense()[i]));
         }
 
         barChart.getData().addAll(incomeSeries, expenseSeries);
 
+        LocalDate today = LocalDate.now();
+        LocalDate end = endDatePicker.getValue();
+        if (forecaster != null && (startDatePicker.getValue() == null || end == null || !end.isBefore(today))) {
+            CashFlowForecast forecast = forecaster.forecast(today, CashFlowForecaster.DEFAULT_MONTHS);
+
+            XYChart.Series<String, Number> projectedIncomeSeries = new XYChart.Series<>();
+            projectedIncomeSeries.setName("Projected Income");
+
+            XYChart.Series<String, Number> projectedExpenseSeries = new XYChart.Series<>();
+            projectedExpenseSeries.setName("Projected Expense");
+
+            for (int i = 0; i < forecast.getMonths().size(); i++) {
+                String month = forecast.getMonths().get(i).toString();
+                projectedIncomeSeries.getData().add(new XYChart.Data<>(month, forecast.getIncome()[i]));
+                projectedExpenseSeries.getData().add(new XYChart.Data<>(month, forecast.getExpense()[i]));
+            }
+
+            barChart.getData().addAll(List.of(projectedIncomeSeries, projectedExpenseSeries));
+            barChart.setTitle(String.format("Income vs Expense (expected balance by %s: %.2f)",
+                    forecast.getMonths().get(forecast.getMonths().size() - 1), forecast.getEndingBalance()));
+        }
+
         Stage chartStage = new Stage();
         chartStage.initModality(Modality.APPLICATION_MODAL);
         chartStage.initOwner(stage);
@@ -352,6 +360,7 @@ public class ExpenseTransactionView {
         Image icon = new Image(getClass().getResourceAsStream("/images/histogram_diagram_icon.png"));
         chartStage.getIcons().add(icon);
         chartStage.setScene(new Scene(barChart, 600, 450));
+        started.stop();
         chartStage.showAndWait();
 
     }
@@ -388,6 +397,50 @@ public class ExpenseTransactionView {
         return filterButton;
     }
 
+    public TextField getSearchField() {
+        return searchField;
+    }
+
+    public Button getImportButton() {
+        return importButton;
+    }
+
+    public Button getExportButton() {
+        return exportButton;
+    }
+
+    public Button getRecurringButton() {
+        return recurringButton;
+    }
+
+    public Button getDiagnosticsButton() {
+        return diagnosticsButton;
+    }
+
+    public Button getBackupButton() {
+        return backupButton;
+    }
+
+    public Button getUndoButton() {
+        return undoButton;
+    }
+
+    public Button getRedoButton() {
+        return redoButton;
+    }
+
+    public void setForecaster(CashFlowForecaster forecaster) {
+        this.forecaster = forecaster;
+    }
+
+    public ComboBox<String> getProfileBox() {
+        return profileBox;
+    }
+
+    public BudgetPanel getBudgetPanel() {
+        return budgetPanel;
+    }
+
     public Stage getStage() {
         return stage;
     }
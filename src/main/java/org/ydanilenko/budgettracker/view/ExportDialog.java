@@ -0,0 +1,80 @@
+package org.ydanilenko.budgettracker.view;
+
+import javafx.concurrent.Task;
+import javafx.scene.control.Alert;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+import org.ydanilenko.budgettracker.io.ExportFormat;
+import org.ydanilenko.budgettracker.io.TransactionExporter;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.util.DatabaseConnection;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.time.LocalDate;
+
+public class ExportDialog {
+    private final Stage ownerStage;
+    private final int typeId;
+    private final LocalDate start;
+    private final LocalDate end;
+
+    public ExportDialog(Stage ownerStage, int typeId, LocalDate start, LocalDate end) {
+        this.ownerStage = ownerStage;
+        this.typeId = typeId;
+        this.start = start;
+        this.end = end;
+    }
+
+    public void show() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export Transactions");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV", "*.csv"),
+                new FileChooser.ExtensionFilter("CSV (gzip)", "*.csv.gz"),
+                new FileChooser.ExtensionFilter("Columnar", "*.btc"),
+                new FileChooser.ExtensionFilter("Columnar (gzip)", "*.btc.gz")
+        );
+        chooser.setInitialFileName(defaultFileName());
+
+        File file = chooser.showSaveDialog(ownerStage);
+        if (file == null) return;
+
+        Path target = file.toPath();
+        Task<Long> task = new Task<>() {
+            @Override
+            protected Long call() throws Exception {
+                try (Connection connection = DatabaseConnection.getConnection()) {
+                    return new TransactionExporter(new TransactionDAO(connection)).export(typeId, start, end, target,
+                            ExportFormat.fromFile(target), ExportFormat.isGzip(target), this::isCancelled);
+                }
+            }
+        };
+
+        task.setOnSucceeded(e -> showMessage(Alert.AlertType.INFORMATION, "Export Complete",
+                String.format("Exported %d transactions to %s.", task.getValue(), file.getName())));
+        task.setOnFailed(e -> showMessage(Alert.AlertType.ERROR, "Error",
+                "Export failed: " + task.getException().getMessage()));
+
+        Thread thread = new Thread(task, "transaction-export");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private String defaultFileName() {
+        StringBuilder name = new StringBuilder(typeId == 1 ? "income" : "expenses");
+        if (start != null) name.append('-').append(start);
+        if (end != null) name.append('-').append(end);
+        return name.append(ExportFormat.CSV.getExtension()).toString();
+    }
+
+    private void showMessage(Alert.AlertType type, String title, String message) {
+        Alert alert = new Alert(type);
+        alert.initOwner(ownerStage);
+        alert.setTitle(title);
+        alert.setHeaderText(null);
+        alert.setContentText(message);
+        alert.showAndWait();
+    }
+}
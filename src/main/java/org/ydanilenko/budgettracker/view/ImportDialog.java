@@ -0,0 +1,163 @@
+package org.ydanilenko.budgettracker.view;
+
+import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.*;
+import javafx.scene.image.Image;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.stage.FileChooser;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+import org.ydanilenko.budgettracker.io.ImportResult;
+import org.ydanilenko.budgettracker.io.StatementImporter;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+
+import java.io.File;
+
+public class ImportDialog {
+    private final Stage window = new Stage();
+    private final TransactionDAO dao;
+    private final Runnable onFinish;
+    private final Label fileLabel = new Label("No file selected");
+    private final ComboBox<String> categoryField;
+    private final ComboBox<String> paymentTypeField;
+    private final ProgressBar progressBar = new ProgressBar(0);
+    private final Label statusLabel = new Label();
+    private final Button importButton = new Button("Import");
+    private final Button cancelButton = new Button("Cancel");
+    private File selectedFile;
+    private Task<ImportResult> task;
+
+    public ImportDialog(Stage ownerStage, TransactionDAO dao, Runnable onFinish) {
+        this.dao = dao;
+        this.onFinish = onFinish;
+        this.categoryField = new ComboBox<>(FXCollections.observableArrayList(dao.getAllCategories()));
+        this.paymentTypeField = new ComboBox<>(FXCollections.observableArrayList(dao.getAllPaymentTypes()));
+
+        window.initOwner(ownerStage);
+        window.initModality(Modality.APPLICATION_MODAL);
+        window.setTitle("Import Bank Statement");
+        window.getIcons().add(new Image(getClass().getResourceAsStream("/images/app_icon.png")));
+
+        Button browseButton = new Button("Browse...");
+        browseButton.setOnAction(e -> chooseFile());
+
+        categoryField.setPromptText("Default category");
+        paymentTypeField.setPromptText("Default payment type");
+        progressBar.setMaxWidth(Double.MAX_VALUE);
+
+        importButton.setOnAction(e -> startImport());
+        cancelButton.setOnAction(e -> {
+            if (task != null && task.isRunning()) {
+                task.cancel(false);
+            } else {
+                window.close();
+            }
+        });
+
+        GridPane form = new GridPane();
+        form.setPadding(new Insets(10));
+        form.setHgap(10);
+        form.setVgap(10);
+        form.add(new Label("File:"), 0, 0);
+        form.add(new HBox(10, browseButton, fileLabel), 1, 0);
+        form.add(new Label("Category:"), 0, 1);
+        form.add(categoryField, 1, 1);
+        form.add(new Label("Payment Type:"), 0, 2);
+        form.add(paymentTypeField, 1, 2);
+        form.add(progressBar, 0, 3, 2, 1);
+        form.add(statusLabel, 0, 4, 2, 1);
+        form.add(new HBox(10, importButton, cancelButton), 1, 5);
+
+        Scene scene = new Scene(form, 480, 260);
+        scene.getStylesheets().add(getClass().getResource("/style.css").toExternalForm());
+        window.setScene(scene);
+        window.setOnCloseRequest(e -> {
+            if (task != null && task.isRunning()) task.cancel(false);
+        });
+    }
+
+    public void show() {
+        window.showAndWait();
+    }
+
+    private void chooseFile() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Select Bank Statement");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Bank statements", "*.csv", "*.ofx", "*.qfx", "*.qif"),
+                new FileChooser.ExtensionFilter("All files", "*.*")
+        );
+        File file = chooser.showOpenDialog(window);
+        if (file != null) {
+            selectedFile = file;
+            fileLabel.setText(file.getName());
+        }
+    }
+
+    private void startImport() {
+        if (selectedFile == null) {
+            showError("Please select a file to import.");
+            return;
+        }
+        if (categoryField.getValue() == null || paymentTypeField.getValue() == null) {
+            showError("Please select a default category and payment type.");
+            return;
+        }
+
+        int categoryId = dao.getCategoryIdByName(categoryField.getValue());
+        int paymentTypeId = dao.getPaymentTypeIdByName(paymentTypeField.getValue());
+        File file = selectedFile;
+
+        task = new Task<>() {
+            @Override
+            protected ImportResult call() throws Exception {
+                // The app's own DAO, so its caches and listeners see the imported rows and the import shares its pool.
+                StatementImporter importer = new StatementImporter(dao, categoryId, paymentTypeId);
+                return importer.importFile(file.toPath(), this::updateProgress, this::isCancelled);
+            }
+        };
+
+        progressBar.progressProperty().bind(task.progressProperty());
+        importButton.setDisable(true);
+        statusLabel.setText("Importing " + file.getName() + "...");
+
+        task.setOnSucceeded(e -> finish(task.getValue()));
+        task.setOnCancelled(e -> {
+            statusLabel.setText("Import cancelled. Rows already committed were kept.");
+            importButton.setDisable(false);
+            onFinish.run();
+        });
+        task.setOnFailed(e -> {
+            statusLabel.setText("Import failed.");
+            importButton.setDisable(false);
+            showError("Import failed: " + task.getException().getMessage());
+        });
+
+        Thread thread = new Thread(task, "statement-import");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void finish(ImportResult result) {
+        importButton.setDisable(false);
+        String message = String.format("Imported %d transactions, skipped %d invalid rows.",
+                result.getImported(), result.getInvalid());
+        if (result.getDuplicates() > 0) {
+            message += String.format(" %d possible duplicates were flagged for review.", result.getDuplicates());
+        }
+        statusLabel.setText(message);
+        onFinish.run();
+    }
+
+    private void showError(String message) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Error");
+        alert.setHeaderText(null);
+        alert.setContentText(message);
+        alert.showAndWait();
+    }
+}
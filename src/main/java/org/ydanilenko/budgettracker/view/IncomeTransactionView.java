@@ -1,8 +1,8 @@
 package org.ydanilenko.budgettracker.view;
 
-import javafx.beans.binding.Bindings;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.SortedList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -16,9 +16,11 @@ import javafx.stage.Stage;
 import org.ydanilenko.budgettracker.model.Transaction;
 import org.ydanilenko.budgettracker.model.TransactionDAO;
 import org.ydanilenko.budgettracker.util.DatabaseConnection;
+import org.ydanilenko.budgettracker.util.Metrics;
+import org.ydanilenko.budgettracker.util.MonthlyTotals;
+import org.ydanilenko.budgettracker.util.PieSlice;
 
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 public class IncomeTransactionView {
@@ -43,6 +45,10 @@ public class IncomeTransactionView {
     private final Button managePaymentTypesButton = new Button("\uD83C\uDFE6 Manage Payment Types");
     private final ComboBox<String> placeField = new ComboBox<>();
     private final ComboBox<String> beneficiaryField = new ComboBox<>();
+    private final TextField searchField = new TextField();
+    private final Button importButton = new Button("\uD83D\uDCC2 Import");
+    private final Button exportButton = new Button("\uD83D\uDCBE Export");
+    private final Button recurringButton = new Button("\uD83D\uDD01 Recurring");
     private final Label totalLabel = new Label("Total: 0.00");
     private final Button showHistogramButton = new Button("\uD83D\uDCCA Income vs Expense Chart");
     private Button statsButton = new Button("\uD83D\uDCCB Show Statistics");
@@ -75,6 +81,9 @@ public class IncomeTransactionView {
         TableColumn<Transaction, String> beneficiaryColumn = new TableColumn<>("Beneficiary");
         beneficiaryColumn.setCellValueFactory(new PropertyValueFactory<>("beneficiaryName"));
 
+        TableColumn<Transaction, String> currencyColumn = new TableColumn<>("Currency");
+        currencyColumn.setCellValueFactory(new PropertyValueFactory<>("currency"));
+
         table.getColumns().addAll(
                 dateColumn,
                 placeColumn,
@@ -82,9 +91,20 @@ public class IncomeTransactionView {
                 categoryColumn,
                 commentColumn,
                 paymentTypeColumn,
-                amountColumn
+                amountColumn,
+                currencyColumn
         );
         table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        table.setRowFactory(tv -> new TableRow<>() {
+            @Override
+            protected void updateItem(Transaction item, boolean empty) {
+                super.updateItem(item, empty);
+                getStyleClass().remove("duplicate-row");
+                if (!empty && item != null && item.getDuplicateOf() > 0) {
+                    getStyleClass().add("duplicate-row");
+                }
+            }
+        });
     }
 
     private void setupCharts() {
@@ -95,11 +115,23 @@ public class IncomeTransactionView {
     }
 
     public void displayTransactions(List<Transaction> transactions) {
-        ObservableList<Transaction> data = FXCollections.observableArrayList(transactions);
-        table.setItems(data);
-        updateCharts(transactions);
+        Metrics.time("ui.income.displayTransactions", () -> {
+            Metrics.recordRows(transactions.size());
+            SortedList<Transaction> data = new SortedList<>(FXCollections.observableList(transactions));
+            data.comparatorProperty().bind(table.comparatorProperty());
+            table.setItems(data);
+
+            showTotal(transactions.stream().mapToDouble(Transaction::getBaseAmount).sum());
+
+            if (transactions.isEmpty()) {
+                table.setPlaceholder(new Label("No income to show in this range."));
+            } else {
+                table.setPlaceholder(new Label(""));
+            }
+        });
+    }
 
-        double total = transactions.stream().mapToDouble(Transaction::getAmount).sum();
+    public void showTotal(double total) {
         totalLabel.setText(String.format("💰 Total Income: %.2f", total));
         totalLabel.setStyle("""
     -fx-background-color: #e6ffe6;
@@ -109,43 +141,14 @@ public class IncomeTransactionView {
     -fx-padding: 8px 12px;
     -fx-background-radius: 8px;
 """);
-
-        if (transactions.isEmpty()) {
-            table.setPlaceholder(new Label("No income to show in this range."));
-        } else {
-            table.setPlaceholder(new Label(""));
-        }
     }
 
-    private void updateCharts(List<Transaction> transactions) {
-        double total = transactions.stream().mapToDouble(Transaction::getAmount).sum();
-        Map<String, Double> categoryTotals = new HashMap<>();
-        Map<String, Double> paymentTypeTotals = new HashMap<>();
-
-        for (Transaction t : transactions) {
-            categoryTotals.put(t.getCategoryName(), categoryTotals.getOrDefault(t.getCategoryName(), 0.0) + t.getAmount());
-            paymentTypeTotals.put(t.getPaymentType(), paymentTypeTotals.getOrDefault(t.getPaymentType(), 0.0) + t.getAmount());
-        }
-
-        ObservableList<PieChart.Data> categoryData = FXCollections.observableArrayList();
-        ObservableList<PieChart.Data> paymentData = FXCollections.observableArrayList();
-
-        categoryTotals.forEach((name, amount) -> {
-            double percent = (amount / total) * 100;
-            PieChart.Data slice = new PieChart.Data(name, amount);
-            slice.nameProperty().bind(Bindings.concat(name, " (", String.format("%.2f", percent), "%)"));
-            categoryData.add(slice);
-        });
-
-        paymentTypeTotals.forEach((name, amount) -> {
-            double percent = (amount / total) * 100;
-            PieChart.Data slice = new PieChart.Data(name, amount);
-            slice.nameProperty().bind(Bindings.concat(name, " (", String.format("%.2f", percent), "%)"));
-            paymentData.add(slice);
+    public void updateCharts(Map<String, Double> categoryTotals, Map<String, Double> paymentTypeTotals) {
+        Metrics.time("ui.income.pieCharts", () -> {
+            double total = PieSlice.total(categoryTotals);
+            categoryChart.setData(PieCharts.toData(categoryTotals, total));
+            paymentTypeChart.setData(PieCharts.toData(paymentTypeTotals, total));
         });
-
-        categoryChart.setData(categoryData);
-        paymentTypeChart.setData(paymentData);
     }
 
     public void show() {
@@ -162,7 +165,6 @@ public class IncomeTransactionView {
         HBox.setHgrow(spacer, Priority.ALWAYS);
         header.getChildren().addAll(title, spacer, switchToExpenseButton);
         layout.setTop(header);
-        showHistogramButton.setOnAction(e -> showIncomeExpenseHistogram());
 
         showCategoryChartButton.setOnAction(e -> {
             Stage chartStage = new Stage();
@@ -197,7 +199,8 @@ public class IncomeTransactionView {
             chartStage.showAndWait();
         });
 
-        HBox filterRow = new HBox(10, filterButton, resetFilterButton);
+        searchField.setPromptText("Search comments");
+        HBox filterRow = new HBox(10, filterButton, resetFilterButton, searchField);
         Label startLabel = new Label("Start Date:");
         startLabel.setAlignment(Pos.CENTER_LEFT);
         startLabel.setMinHeight(Control.USE_PREF_SIZE);
@@ -213,15 +216,10 @@ public class IncomeTransactionView {
             new PaymentTypeManager(stage, new TransactionDAO(DatabaseConnection.getConnection()), null, this).show();
         });
 
-        statsButton.setOnAction(e -> {
-            StatisticsView view = new StatisticsView(new TransactionDAO(DatabaseConnection.getConnection()));
-            view.show();
-        });
-
         Region spacer_for_total = new Region();
         HBox.setHgrow(spacer_for_total, Priority.ALWAYS);
 
-        HBox leftControls = new HBox(10, addButton, managePaymentTypesButton, statsButton);
+        HBox leftControls = new HBox(10, addButton, importButton, exportButton, recurringButton, managePaymentTypesButton, statsButton);
         HBox rightTotal = new HBox(totalLabel);
         rightTotal.setAlignment(Pos.CENTER_RIGHT);
         HBox.setHgrow(rightTotal, Priority.ALWAYS);
@@ -265,6 +263,12 @@ public class IncomeTransactionView {
 
     public Button getFilterButton() { return filterButton; }
 
+    public TextField getSearchField() { return searchField; }
+
+    public Button getImportButton() { return importButton; }
+    public Button getExportButton() { return exportButton; }
+    public Button getRecurringButton() { return recurringButton; }
+
     public Button getResetFilterButton() { return resetFilterButton; }
 
     public Button getSwitchToExpenseButton() { return switchToExpenseButton; }
@@ -289,6 +293,14 @@ public class IncomeTransactionView {
         return showPaymentChartButton;
     }
 
+    public Button getShowHistogramButton() {
+        return showHistogramButton;
+    }
+
+    public Button getStatsButton() {
+        return statsButton;
+    }
+
     public void showError(String msg) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setContentText(msg);
@@ -300,38 +312,14 @@ public class IncomeTransactionView {
         alert.setContentText(msg);
         alert.showAndWait();
     }
-    private void showIncomeExpenseHistogram() {
-        TransactionDAO dao = new TransactionDAO(DatabaseConnection.getConnection());
+    public void showIncomeExpenseHistogram(TransactionDAO dao) {
+        Metrics.Sample started = Metrics.start("ui.income.histogram");
 
         List<Transaction> expenses = dao.getTransactionsByType(0);
         List<Transaction> incomes = dao.getTransactionsByType(1);
 
-        LocalDate start = startDatePicker.getValue();
-        LocalDate end = endDatePicker.getValue();
-
-        if (start != null && end != null) {
-            expenses = expenses.stream()
-                    .filter(t -> !LocalDate.parse(t.getDate()).isBefore(start) && !LocalDate.parse(t.getDate()).isAfter(end))
-                    .toList();
-            incomes = incomes.stream()
-                    .filter(t -> !LocalDate.parse(t.getDate()).isBefore(start) && !LocalDate.parse(t.getDate()).isAfter(end))
-                    .toList();
-        }
-
-        Map<String, Double> incomeMap = new TreeMap<>();
-        Map<String, Double> expenseMap = new TreeMap<>();
-
-        DateTimeFormatter monthFormatter = DateTimeFormatter.ofPattern("yyyy-MM");
-
-        for (Transaction t : incomes) {
-            String month = LocalDate.parse(t.getDate()).format(monthFormatter);
-            incomeMap.merge(month, t.getAmount(), Double::sum);
-        }
-
-        for (Transaction t : expenses) {
-            String month = LocalDate.parse(t.getDate()).format(monthFormatter);
-            expenseMap.merge(month, t.getAmount(), Double::sum);
-        }
+        MonthlyTotals totals = MonthlyTotals.of(incomes, expenses,
+                startDatePicker.getValue(), endDatePicker.getValue(), dao.getCurrencyConverter());
 
         CategoryAxis xAxis = new CategoryAxis();
         NumberAxis yAxis = new NumberAxis();
@@ -346,13 +334,10 @@ public class IncomeTransactionView {
         XYChart.Series<String, Number> expenseSeries = new XYChart.Series<>();
         expenseSeries.setName("Expense");
 
-        Set<String> allDates = new TreeSet<>();
-        allDates.addAll(incomeMap.keySet());
-        allDates.addAll(expenseMap.keySet());
-
-        for (String date : allDates) {
-            incomeSeries.getData().add(new XYChart.Data<>(date, incomeMap.getOrDefault(date, 0.0)));
-            expenseSeries.getData().add(new XYChart.Data<>(date, expenseMap.getOrDefault(date, 0.0)));
+        for (int i = 0; i < totals.getMonths().size(); i++) {
+            String month = totals.getMonths().get(i).toString();
+            incomeSeries.getData().add(new XYChart.Data<>(month, totals.getIncome()[i]));
+            expenseSeries.getData().add(new XYChart.Data<>(month, totals.getExpense()[i]));
         }
 
         barChart.getData().addAll(incomeSeries, expenseSeries);
@@ -364,6 +349,7 @@ public class IncomeTransactionView {
         Image icon = new Image(getClass().getResourceAsStream("/images/histogram_diagram_icon.png"));
         chartStage.getIcons().add(icon);
         chartStage.setScene(new Scene(barChart, 600, 450));
+        started.stop();
         chartStage.showAndWait();
     }
     public Button getManagePaymentTypesButton() {
@@ -12,10 +12,16 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.stage.FileChooser;
+import org.ydanilenko.budgettracker.io.ExchangeRateFile;
+import org.ydanilenko.budgettracker.model.ExchangeRate;
 import org.ydanilenko.budgettracker.model.PaymentType;
 import org.ydanilenko.budgettracker.model.TransactionDAO;
 
+import java.io.File;
+import java.io.IOException;
 import java.time.LocalDate;
+import java.util.List;
 
 public class PaymentTypeManager {
     private final TransactionDAO dao;
@@ -50,7 +56,10 @@ public class PaymentTypeManager {
             }
         });
 
-        HBox buttonBox = new HBox(10, addButton, deleteButton);
+        Button ratesButton = new Button("Load Exchange Rates...");
+        ratesButton.setOnAction(e -> loadExchangeRates());
+
+        HBox buttonBox = new HBox(10, addButton, deleteButton, ratesButton);
         buttonBox.setPadding(new Insets(10));
 
         VBox layout = new VBox(10, table, buttonBox);
@@ -82,7 +91,10 @@ public class PaymentTypeManager {
         TableColumn<PaymentType, String> expirationDateCol = new TableColumn<>("Expiration Date");
         expirationDateCol.setCellValueFactory(new PropertyValueFactory<>("expirationDate"));
 
-        table.getColumns().addAll(nameCol, bankCol, issuerCol, issueDateCol, expirationDateCol);
+        TableColumn<PaymentType, String> currencyCol = new TableColumn<>("Currency");
+        currencyCol.setCellValueFactory(new PropertyValueFactory<>("currency"));
+
+        table.getColumns().addAll(List.of(nameCol, bankCol, issuerCol, issueDateCol, expirationDateCol, currencyCol));
     }
 
     private void loadData() {
@@ -99,6 +111,8 @@ public class PaymentTypeManager {
         TextField nameField = new TextField(pt != null ? pt.getName() : "");
         TextField bankField = new TextField(pt != null ? pt.getBank() : "");
         TextField issuerField = new TextField(pt != null ? pt.getIssuer() : "");
+        TextField currencyField = new TextField(pt != null && pt.getCurrency() != null ? pt.getCurrency() : "");
+        currencyField.setPromptText("Base currency");
         DatePicker issueDateField = new DatePicker();
         DatePicker expDateField = new DatePicker();
         if (pt != null) {
@@ -119,13 +133,20 @@ public class PaymentTypeManager {
                 return;
             }
 
+            String currency = currencyField.getText().trim();
+            if (!currency.isEmpty() && !currency.matches("[A-Za-z]{3}")) {
+                showError("Currency must be a three-letter code, e.g. USD.");
+                return;
+            }
+
             PaymentType updated = new PaymentType(
                     pt != null ? pt.getId() : 0,
                     name,
                     bankField.getText().trim(),
                     issuerField.getText().trim(),
                     issueDateField.getValue() != null ? issueDateField.getValue().toString() : null,
-                    expDateField.getValue() != null ? expDateField.getValue().toString() : null
+                    expDateField.getValue() != null ? expDateField.getValue().toString() : null,
+                    currency.isEmpty() ? null : currency
             );
 
             boolean isNew = pt == null || pt.getId() == 0;
@@ -152,6 +173,7 @@ public class PaymentTypeManager {
             issuerField.clear();
             issueDateField.setValue(null);
             expDateField.setValue(null);
+            currencyField.clear();
         });
 
 
@@ -169,8 +191,10 @@ public class PaymentTypeManager {
         form.add(issueDateField, 1, 3);
         form.add(new Label("Expiration Date:"), 0, 4);
         form.add(expDateField, 1, 4);
+        form.add(new Label("Currency:"), 0, 5);
+        form.add(currencyField, 1, 5);
         HBox buttons = new HBox(10, saveButton, clearButton);
-        form.add(buttons, 1, 5);
+        form.add(buttons, 1, 6);
         HBox issueRow = new HBox(5, issueDateField, clearIssueDate);
         HBox expRow = new HBox(5, expDateField, clearExpDate);
         form.add(issueRow, 1, 3);
@@ -178,7 +202,7 @@ public class PaymentTypeManager {
 
         Scene scene = new Scene(form);scene.getStylesheets().add(getClass().getResource("/style.css").toExternalForm());
         formStage.setWidth(400);
-        formStage.setHeight(330);
+        formStage.setHeight(370);
         formStage.setScene(scene);
         formStage.showAndWait();
     }
@@ -204,7 +228,8 @@ public class PaymentTypeManager {
                         selected.getBank(),
                         selected.getIssuer(),
                         selected.getIssueDate(),
-                        selected.getExpirationDate()
+                        selected.getExpirationDate(),
+                        selected.getCurrency()
                 );
                 showForm(copied);
             }
@@ -226,6 +251,34 @@ public class PaymentTypeManager {
 
 
 
+    private void loadExchangeRates() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Select Exchange Rate File");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Exchange rates", "*.csv", "*.txt"),
+                new FileChooser.ExtensionFilter("All files", "*.*")
+        );
+        File file = chooser.showOpenDialog(window);
+        if (file == null) return;
+
+        try {
+            List<ExchangeRate> rates = ExchangeRateFile.read(file.toPath());
+            if (rates.isEmpty()) {
+                showError("No exchange rates found. Expected lines of date,currency,rate.");
+                return;
+            }
+            int saved = dao.saveExchangeRates(rates);
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle("Exchange Rates");
+            alert.setHeaderText(null);
+            alert.setContentText(String.format("Loaded %d rates for %d currencies.",
+                    saved, rates.stream().map(ExchangeRate::getCurrency).distinct().count()));
+            alert.showAndWait();
+        } catch (IOException e) {
+            showError("Failed to read exchange rates: " + e.getMessage());
+        }
+    }
+
     private boolean confirmDelete() {
         Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
         alert.setTitle("Confirm Deletion");
@@ -0,0 +1,23 @@
+package org.ydanilenko.budgettracker.view;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.chart.PieChart;
+import org.ydanilenko.budgettracker.util.PieSlice;
+
+import java.util.Map;
+
+public class PieCharts {
+
+    public static ObservableList<PieChart.Data> toData(Map<String, Double> totals) {
+        return toData(totals, PieSlice.total(totals));
+    }
+
+    public static ObservableList<PieChart.Data> toData(Map<String, Double> totals, double total) {
+        ObservableList<PieChart.Data> data = FXCollections.observableArrayList();
+        for (PieSlice slice : PieSlice.of(totals, total)) {
+            data.add(new PieChart.Data(slice.getLabel(), slice.getValue()));
+        }
+        return data;
+    }
+}
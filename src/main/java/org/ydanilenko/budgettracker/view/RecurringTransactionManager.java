@@ -0,0 +1,251 @@
+package org.ydanilenko.budgettracker.view;
+
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.*;
+import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.image.Image;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+import org.ydanilenko.budgettracker.model.RecurringTransaction;
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.util.RecurrenceRule;
+import org.ydanilenko.budgettracker.util.RecurringScheduler;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RecurringTransactionManager {
+    private final TransactionDAO dao;
+    private final Runnable onChange;
+    private final Stage window;
+    private final TableView<RecurringTransaction> table = new TableView<>();
+
+    public RecurringTransactionManager(Stage ownerStage, TransactionDAO dao, Runnable onChange) {
+        this.dao = dao;
+        this.onChange = onChange;
+        this.window = new Stage();
+        window.initOwner(ownerStage);
+        window.initModality(Modality.APPLICATION_MODAL);
+        window.setTitle("Recurring Transactions");
+        window.getIcons().add(new Image(getClass().getResourceAsStream("/images/app_icon.png")));
+        setupTable();
+
+        Button deleteButton = new Button("Delete");
+        deleteButton.setOnAction(e -> {
+            RecurringTransaction selected = table.getSelectionModel().getSelectedItem();
+            if (selected != null && confirmDelete()) {
+                if (dao.deleteRecurringTransaction(selected.getId())) {
+                    loadData();
+                } else {
+                    showError("Failed to delete recurring transaction.");
+                }
+            }
+        });
+
+        HBox buttonBox = new HBox(10, deleteButton);
+        buttonBox.setPadding(new Insets(10));
+
+        VBox layout = new VBox(10, table, buttonBox);
+        layout.setPadding(new Insets(10));
+
+        Scene scene = new Scene(layout, 760, 400);
+        scene.getStylesheets().add(getClass().getResource("/style.css").toExternalForm());
+        window.setScene(scene);
+
+        loadData();
+    }
+
+    private void setupTable() {
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+        table.setPlaceholder(new Label("Use \"Repeat...\" on a transaction to make it recurring."));
+
+        TableColumn<RecurringTransaction, String> scheduleCol = new TableColumn<>("Schedule");
+        scheduleCol.setCellValueFactory(data -> new SimpleStringProperty(describe(data.getValue())));
+
+        TableColumn<RecurringTransaction, String> nextCol = new TableColumn<>("Next");
+        nextCol.setCellValueFactory(data -> new SimpleStringProperty(nextDue(data.getValue())));
+
+        TableColumn<RecurringTransaction, Double> amountCol = new TableColumn<>("Amount");
+        amountCol.setCellValueFactory(new PropertyValueFactory<>("amount"));
+
+        TableColumn<RecurringTransaction, String> categoryCol = new TableColumn<>("Category");
+        categoryCol.setCellValueFactory(new PropertyValueFactory<>("categoryName"));
+
+        TableColumn<RecurringTransaction, String> beneficiaryCol = new TableColumn<>("Beneficiary");
+        beneficiaryCol.setCellValueFactory(new PropertyValueFactory<>("beneficiaryName"));
+
+        TableColumn<RecurringTransaction, String> commentCol = new TableColumn<>("Comment");
+        commentCol.setCellValueFactory(new PropertyValueFactory<>("comment"));
+
+        TableColumn<RecurringTransaction, String> endCol = new TableColumn<>("Ends");
+        endCol.setCellValueFactory(new PropertyValueFactory<>("endDate"));
+
+        table.getColumns().addAll(List.of(scheduleCol, nextCol, amountCol, categoryCol, beneficiaryCol, commentCol, endCol));
+    }
+
+    private void loadData() {
+        table.setItems(FXCollections.observableArrayList(dao.getRecurringTransactions()));
+    }
+
+    private static String describe(RecurringTransaction recurring) {
+        try {
+            return RecurrenceRule.parse(recurring.getRule()).describe();
+        } catch (IllegalArgumentException e) {
+            return "Invalid: " + recurring.getRule();
+        }
+    }
+
+    private static String nextDue(RecurringTransaction recurring) {
+        try {
+            LocalDate after = recurring.getLastGenerated() != null
+                    ? LocalDate.parse(recurring.getLastGenerated())
+                    : LocalDate.parse(recurring.getStartDate()).minusDays(1);
+            LocalDate next = RecurrenceRule.parse(recurring.getRule()).next(after);
+            if (next == null || (recurring.getEndDate() != null && next.isAfter(LocalDate.parse(recurring.getEndDate())))) {
+                return "";
+            }
+            return next.toString();
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    public void show() {
+        window.showAndWait();
+    }
+
+    public void showRepeatForm(Transaction transaction) {
+        LocalDate date = LocalDate.parse(transaction.getDate());
+
+        Map<String, RecurrenceRule> presets = new LinkedHashMap<>();
+        RecurrenceRule monthly = RecurrenceRule.monthlyOn(date);
+        RecurrenceRule weekly = RecurrenceRule.weeklyOn(date);
+        presets.put(monthly.describe(), monthly);
+        presets.put(weekly.describe(), weekly);
+        presets.put("Yearly on " + date.getMonth().getValue() + "/" + date.getDayOfMonth(), RecurrenceRule.yearlyOn(date));
+
+        ComboBox<String> scheduleField = new ComboBox<>(FXCollections.observableArrayList(presets.keySet()));
+        scheduleField.getItems().add("Custom");
+        scheduleField.setValue(monthly.describe());
+
+        TextField ruleField = new TextField(monthly.getExpression());
+        ruleField.setPromptText("day-of-month month day-of-week, e.g. 1 * *");
+        ruleField.setDisable(true);
+        scheduleField.valueProperty().addListener((obs, oldVal, newVal) -> {
+            RecurrenceRule preset = presets.get(newVal);
+            ruleField.setDisable(preset != null);
+            if (preset != null) ruleField.setText(preset.getExpression());
+        });
+
+        DatePicker endDateField = new DatePicker();
+        Label previewLabel = new Label();
+        ruleField.textProperty().addListener((obs, oldVal, newVal) -> previewLabel.setText(preview(newVal, date)));
+        previewLabel.setText(preview(ruleField.getText(), date));
+
+        Stage formStage = new Stage();
+        formStage.initOwner(window.getOwner());
+        formStage.initModality(Modality.APPLICATION_MODAL);
+        formStage.setTitle("Repeat Transaction");
+        formStage.getIcons().add(new Image(getClass().getResourceAsStream("/images/app_icon.png")));
+
+        Button saveButton = new Button("Save");
+        saveButton.setOnAction(e -> {
+            RecurrenceRule rule;
+            try {
+                rule = RecurrenceRule.parse(ruleField.getText());
+            } catch (IllegalArgumentException ex) {
+                showError(ex.getMessage());
+                return;
+            }
+            LocalDate endDate = endDateField.getValue();
+            if (endDate != null && !endDate.isAfter(date)) {
+                showError("End date must be after the transaction date.");
+                return;
+            }
+
+            RecurringTransaction recurring = new RecurringTransaction(
+                    transaction.getAmount(),
+                    dao.getCategoryIdByName(transaction.getCategoryName()),
+                    dao.getPaymentTypeIdByName(transaction.getPaymentType()),
+                    transaction.getComment(),
+                    dao.getPlaceIdByName(transaction.getPlaceName()),
+                    dao.getBeneficiaryIdByName(transaction.getBeneficiaryName()),
+                    transaction.getTypeId(),
+                    rule.getExpression(),
+                    date.toString(),
+                    endDate != null ? endDate.toString() : null
+            );
+            recurring.setLastGenerated(date.toString());
+
+            if (!dao.addRecurringTransaction(recurring)) {
+                showError("Failed to save recurring transaction.");
+                return;
+            }
+            new RecurringScheduler(dao).catchUp(LocalDate.now());
+            loadData();
+            onChange.run();
+            formStage.close();
+        });
+
+        GridPane form = new GridPane();
+        form.setPadding(new Insets(10));
+        form.setHgap(10);
+        form.setVgap(10);
+        form.add(new Label("Schedule:"), 0, 0);
+        form.add(scheduleField, 1, 0);
+        form.add(new Label("Rule:"), 0, 1);
+        form.add(ruleField, 1, 1);
+        form.add(new Label("Ends:"), 0, 2);
+        form.add(endDateField, 1, 2);
+        form.add(previewLabel, 0, 3, 2, 1);
+        form.add(saveButton, 1, 4);
+
+        Scene scene = new Scene(form, 420, 250);
+        scene.getStylesheets().add(getClass().getResource("/style.css").toExternalForm());
+        formStage.setScene(scene);
+        formStage.showAndWait();
+    }
+
+    private static String preview(String expression, LocalDate after) {
+        try {
+            LocalDate next = RecurrenceRule.parse(expression).next(after);
+            return next == null ? "Never repeats." : "Next occurrence: " + next;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    private boolean confirmDelete() {
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        alert.setTitle("Confirm Deletion");
+        alert.setHeaderText("Stop repeating this transaction?");
+        alert.setContentText("Transactions that were already created are kept.");
+
+        DialogPane dialogPane = alert.getDialogPane();
+        dialogPane.getStylesheets().add(getClass().getResource("/style.css").toExternalForm());
+        dialogPane.getStyleClass().add("custom-confirm");
+        return alert.showAndWait().filter(btn -> btn == ButtonType.OK).isPresent();
+    }
+
+    private void showError(String msg) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Error");
+        alert.setHeaderText("Error");
+        alert.setContentText(msg);
+
+        DialogPane dialogPane = alert.getDialogPane();
+        dialogPane.getStylesheets().add(getClass().getResource("/style.css").toExternalForm());
+        dialogPane.getStyleClass().add("custom-alert");
+
+        alert.showAndWait();
+    }
+}
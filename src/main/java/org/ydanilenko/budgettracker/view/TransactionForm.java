@@ -13,9 +13,11 @@ import org.ydanilenko.budgettracker.model.PaymentType;
 import org.ydanilenko.budgettracker.model.Transaction;
 import org.ydanilenko.budgettracker.model.TransactionDAO;
 import org.ydanilenko.budgettracker.util.BeneficiarySuggester;
+import org.ydanilenko.budgettracker.util.Metrics;
+import org.ydanilenko.budgettracker.util.TransactionJournal;
 
 import java.time.LocalDate;
-import java.util.List;
+import java.util.function.BooleanSupplier;
 
 public class TransactionForm {
     private final TransactionDAO transactionDAO;
@@ -33,6 +35,7 @@ public class TransactionForm {
         this.transactionDAO = dao;
         this.typeId = editingTransaction.getTypeId();
         this.editingTransaction = editingTransaction;
+        Metrics.Sample opened = Metrics.start("ui.form.open");
 
         Stage popupStage = new Stage();
         popupStage.initOwner(ownerStage);
@@ -61,9 +64,8 @@ public class TransactionForm {
                         .filter(pt -> pt.getName().equals(editingTransaction.getPaymentType()))
                         .findFirst().orElse(null)
         );
-        List<String> places = transactionDAO.getAllPlaces();
-        placeField.setEditable(true);
-        beneficiaryField.setEditable(true);
+        AutoCompleteComboBox.attach(placeField, transactionDAO.getPlaceSuggestions());
+        AutoCompleteComboBox.attach(beneficiaryField, transactionDAO.getBeneficiarySuggestions());
         categoryField.valueProperty().addListener((obs, oldVal, newVal) -> {
             String suggested = BeneficiarySuggester.suggestBeneficiaryForCategory(newVal, transactionDAO);
             if (suggested != null) {
@@ -75,11 +77,9 @@ public class TransactionForm {
             }
         });
 
-        placeField.setItems(FXCollections.observableArrayList(places));
         placeField.setValue(editingTransaction.getPlaceName());
 
         TextField commentField = new TextField(editingTransaction.getComment());
-        beneficiaryField.setItems(FXCollections.observableArrayList(dao.getAllBeneficiaries()));
         placeField.setValue(editingTransaction.getPlaceName());
         beneficiaryField.setValue(editingTransaction.getBeneficiaryName());
         categoryField.setValue(editingTransaction.getCategoryName());
@@ -118,27 +118,33 @@ public class TransactionForm {
                     return;
                 }
 
-                if (!transactionDAO.getAllPlaces().contains(placeName)) {
+                int placeId = transactionDAO.getPlaceIdByName(placeName);
+                if (placeId == -1) {
                     transactionDAO.addPlace(placeName);
-                    placeField.setItems(FXCollections.observableArrayList(transactionDAO.getAllPlaces()));
+                    placeId = transactionDAO.getPlaceIdByName(placeName);
                 }
                 placeField.setValue(placeName);
-                int placeId = dao.getPlaceIdByName(placeName);
 
-                if (!transactionDAO.getAllBeneficiaries().contains(beneficiaryName)) {
+                int beneficiaryId = transactionDAO.getBeneficiaryIdByName(beneficiaryName);
+                if (beneficiaryId == -1) {
                     transactionDAO.addBeneficiary(beneficiaryName);
-                    beneficiaryField.setItems(FXCollections.observableArrayList(transactionDAO.getAllBeneficiaries()));
+                    beneficiaryId = transactionDAO.getBeneficiaryIdByName(beneficiaryName);
                 }
                 beneficiaryField.setValue(beneficiaryName);
-                int beneficiaryId = dao.getBeneficiaryIdByName(beneficiaryName);
 
                 Transaction updatedTransaction = new Transaction(editingTransaction.getId(), amount, date, categoryId, paymentTypeId, comment, typeId);
                 updatedTransaction.setPlaceId(placeId);
                 updatedTransaction.setBeneficiaryId(beneficiaryId);
-
-                boolean success = dao.updateTransaction(updatedTransaction);
-                if (success) {
-                    onFinish.run();
+                // The form has no currency field; the row keeps its own currency rather than the payment type's.
+                Transaction stored = transactionDAO.getTransactionById(editingTransaction.getId());
+                if (stored != null) updatedTransaction.setCurrency(stored.getCurrency());
+
+                if (persist("ui.form.save", () -> dao.updateTransaction(updatedTransaction), onFinish)) {
+                    // Only a name the edit newly attaches counts as a use; re-saving must not raise its rank.
+                    boolean placeChanged = stored == null || stored.getPlaceId() != updatedTransaction.getPlaceId();
+                    boolean beneficiaryChanged = stored == null || stored.getBeneficiaryId() != updatedTransaction.getBeneficiaryId();
+                    transactionDAO.recordNameUse(placeChanged ? placeName : null,
+                            beneficiaryChanged ? beneficiaryName : null, date);
                     popupStage.close();
                 } else {
                     showError("Failed to update transaction.");
@@ -160,9 +166,7 @@ public class TransactionForm {
             dialogPane.getStyleClass().add("custom-confirm");
             confirmation.showAndWait().ifPresent(result -> {
                 if (result == ButtonType.OK) {
-                    boolean success = dao.deleteTransaction(editingTransaction.getId());
-                    if (success) {
-                        onFinish.run();
+                    if (persist("ui.form.delete", () -> dao.deleteTransaction(editingTransaction.getId()), onFinish)) {
                         popupStage.close();
                     } else {
                         showError("Failed to delete transaction.");
@@ -181,12 +185,14 @@ public class TransactionForm {
         popupStage.setScene(scene);
         popupStage.setTitle("Edit Transaction");
         popupStage.getIcons().add(new Image(getClass().getResourceAsStream("/images/plus_icon.png")));
+        opened.stop();
         popupStage.show();
     }
 
     public TransactionForm(Stage parentStage, TransactionDAO dao, int typeId, Transaction copiedTransaction, Runnable onTransactionAdded) {
         this.transactionDAO = dao;
         this.typeId = typeId;
+        Metrics.Sample opened = Metrics.start("ui.form.open");
 
         Stage popupStage = new Stage();
         popupStage.initModality(Modality.APPLICATION_MODAL);
@@ -220,10 +226,10 @@ public class TransactionForm {
         );
 
         TextField commentField = new TextField(copiedTransaction.getComment());
-        ComboBox<String> placeField = new ComboBox<>(FXCollections.observableArrayList(dao.getAllPlaces()));
-        ComboBox<String> beneficiaryField = new ComboBox<>(FXCollections.observableArrayList(dao.getAllBeneficiaries()));
-        placeField.setEditable(true);
-        beneficiaryField.setEditable(true);
+        ComboBox<String> placeField = new ComboBox<>();
+        ComboBox<String> beneficiaryField = new ComboBox<>();
+        AutoCompleteComboBox.attach(placeField, dao.getPlaceSuggestions());
+        AutoCompleteComboBox.attach(beneficiaryField, dao.getBeneficiarySuggestions());
         categoryField.valueProperty().addListener((obs, oldVal, newVal) -> {
             String suggested = BeneficiarySuggester.suggestBeneficiaryForCategory(newVal, transactionDAO);
             if (suggested != null) {
@@ -268,27 +274,30 @@ public class TransactionForm {
                     return;
                 }
 
-                if (!transactionDAO.getAllPlaces().contains(placeName)) {
+                int placeId = transactionDAO.getPlaceIdByName(placeName);
+                if (placeId == -1) {
                     transactionDAO.addPlace(placeName);
-                    placeField.setItems(FXCollections.observableArrayList(transactionDAO.getAllPlaces()));
+                    placeId = transactionDAO.getPlaceIdByName(placeName);
                 }
                 placeField.setValue(placeName);
-                int placeId = transactionDAO.getPlaceIdByName(placeName);
 
 
-                if (!transactionDAO.getAllBeneficiaries().contains(beneficiaryName)) {
+                int beneficiaryId = transactionDAO.getBeneficiaryIdByName(beneficiaryName);
+                if (beneficiaryId == -1) {
                     transactionDAO.addBeneficiary(beneficiaryName);
-                    beneficiaryField.setItems(FXCollections.observableArrayList(transactionDAO.getAllBeneficiaries()));
+                    beneficiaryId = transactionDAO.getBeneficiaryIdByName(beneficiaryName);
                 }
                 beneficiaryField.setValue(beneficiaryName);
-                int beneficiaryId = transactionDAO.getBeneficiaryIdByName(beneficiaryName);
 
 
                 Transaction tx = new Transaction(amount, date, categoryId, paymentTypeId, comment, placeId, beneficiaryId, typeId);
 
-                boolean success = dao.addTransaction(tx);
-                if (success) {
-                    onTransactionAdded.run();
+                if (dao.findDuplicate(tx) > 0 && !confirmDuplicate()) {
+                    return;
+                }
+
+                if (persist("ui.form.save", () -> dao.addTransaction(tx), onTransactionAdded)) {
+                    transactionDAO.recordNameUse(placeName, beneficiaryName, date);
                     popupStage.close();
                 } else {
                     showError("Failed to add transaction.");
@@ -306,11 +315,13 @@ public class TransactionForm {
         Scene scene = new Scene(form, 400, 350);
         scene.getStylesheets().add(getClass().getResource("/style.css").toExternalForm());
         popupStage.setScene(scene);
+        opened.stop();
         popupStage.showAndWait();
     }
 
 
     public void show(Stage parentStage, Runnable onTransactionAdded) {
+        Metrics.Sample opened = Metrics.start("ui.form.open");
         Stage popupStage = new Stage();
         popupStage.initModality(Modality.WINDOW_MODAL);
         popupStage.initOwner(parentStage);
@@ -336,10 +347,10 @@ public class TransactionForm {
 
         TextField commentField = new TextField();
 
-        ComboBox<String> placeField = new ComboBox<>(FXCollections.observableArrayList(transactionDAO.getAllPlaces()));
-        ComboBox<String> beneficiaryField = new ComboBox<>(FXCollections.observableArrayList(transactionDAO.getAllBeneficiaries()));
-        placeField.setEditable(true);
-        beneficiaryField.setEditable(true);
+        ComboBox<String> placeField = new ComboBox<>();
+        ComboBox<String> beneficiaryField = new ComboBox<>();
+        AutoCompleteComboBox.attach(placeField, transactionDAO.getPlaceSuggestions());
+        AutoCompleteComboBox.attach(beneficiaryField, transactionDAO.getBeneficiarySuggestions());
 
         placeField.setPromptText("Select Place");
         beneficiaryField.setPromptText("Select Beneficiary");
@@ -384,27 +395,30 @@ public class TransactionForm {
                     return;
                 }
 
-                if (!transactionDAO.getAllPlaces().contains(placeName)) {
+                int placeId = transactionDAO.getPlaceIdByName(placeName);
+                if (placeId == -1) {
                     transactionDAO.addPlace(placeName);
-                    placeField.setItems(FXCollections.observableArrayList(transactionDAO.getAllPlaces()));
+                    placeId = transactionDAO.getPlaceIdByName(placeName);
                 }
                 placeField.setValue(placeName);
-                int placeId = transactionDAO.getPlaceIdByName(placeName);
 
 
-                if (!transactionDAO.getAllBeneficiaries().contains(beneficiaryName)) {
+                int beneficiaryId = transactionDAO.getBeneficiaryIdByName(beneficiaryName);
+                if (beneficiaryId == -1) {
                     transactionDAO.addBeneficiary(beneficiaryName);
-                    beneficiaryField.setItems(FXCollections.observableArrayList(transactionDAO.getAllBeneficiaries()));
+                    beneficiaryId = transactionDAO.getBeneficiaryIdByName(beneficiaryName);
                 }
                 beneficiaryField.setValue(beneficiaryName);
-                int beneficiaryId = transactionDAO.getBeneficiaryIdByName(beneficiaryName);
 
 
                 Transaction tx = new Transaction(amount, date, categoryId, paymentTypeId, comment, placeId, beneficiaryId, typeId);
 
-                boolean success = transactionDAO.addTransaction(tx);
-                if (success) {
-                    onTransactionAdded.run();
+                if (transactionDAO.findDuplicate(tx) > 0 && !confirmDuplicate()) {
+                    return;
+                }
+
+                if (persist("ui.form.save", () -> transactionDAO.addTransaction(tx), onTransactionAdded)) {
+                    transactionDAO.recordNameUse(placeName, beneficiaryName, date);
                     popupStage.close();
                 } else {
                     showError("Failed to add transaction.");
@@ -424,6 +438,7 @@ public class TransactionForm {
         Image icon = new Image(getClass().getResourceAsStream("/images/plus_icon.png"));
         popupStage.getIcons().add(icon);
         popupStage.setScene(scene);
+        opened.stop();
         popupStage.showAndWait();
     }
 
@@ -482,6 +497,27 @@ public class TransactionForm {
     }
 
 
+    private static boolean persist(String metric, BooleanSupplier write, Runnable onFinish) {
+        return Metrics.time(metric, () -> {
+            TransactionJournal journal = TransactionJournal.getDefault();
+            boolean success = journal == null ? write.getAsBoolean() : journal.recordUndoable(write);
+            if (success) onFinish.run();
+            return success;
+        });
+    }
+
+    private boolean confirmDuplicate() {
+        Alert confirmation = new Alert(Alert.AlertType.CONFIRMATION);
+        confirmation.setTitle("Possible Duplicate");
+        confirmation.setHeaderText("A transaction with the same amount, date, place, beneficiary and comment already exists.");
+        confirmation.setContentText("Add it anyway? It will be flagged for review.");
+
+        DialogPane dialogPane = confirmation.getDialogPane();
+        dialogPane.getStylesheets().add(getClass().getResource("/style.css").toExternalForm());
+        dialogPane.getStyleClass().add("custom-confirm");
+        return confirmation.showAndWait().filter(result -> result == ButtonType.OK).isPresent();
+    }
+
     private void showError(String message) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle("Error");
@@ -0,0 +1,135 @@
+package database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.model.Budget;
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.util.BudgetStatus;
+import org.ydanilenko.budgettracker.util.BudgetTracker;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BudgetTrackerTest {
+    private static final YearMonth MARCH = YearMonth.of(2025, 3);
+
+    private TestLedger ledger;
+    private Connection connection;
+    private TransactionDAO dao;
+    private BudgetTracker tracker;
+    private final List<String> alerts = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ledger = TestLedger.create("budget-limits")
+                .seed("Categories", "Food", "Fun")
+                .seed("PaymentTypes", "Card", "Cash")
+                .seed("Places", "Shop")
+                .seed("Beneficiaries", "Shop");
+        connection = ledger.connect();
+        dao = new TransactionDAO(connection);
+        assertTrue(dao.addTransaction(expense(100, "2025-03-02", 1, 1)));
+        assertTrue(dao.saveBudget(new Budget(0, Budget.Scope.CATEGORY, 1, "Food", 200)));
+        assertTrue(dao.saveBudget(new Budget(0, Budget.Scope.PAYMENT_TYPE, 2, "Cash", 50)));
+
+        tracker = new BudgetTracker(dao);
+        tracker.addAlertListener((status, percent) -> alerts.add(status.getBudget().getTargetName() + ":" + percent));
+        dao.addListener(tracker);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ledger.close();
+    }
+
+    private static Transaction expense(double amount, String date, int categoryId, int paymentTypeId) {
+        return new Transaction(amount, date, categoryId, paymentTypeId, "", 1, 1, 0);
+    }
+
+    private void execute(String sql) throws Exception {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private double spent(String name) {
+        return tracker.getStatus(MARCH).stream()
+                .filter(s -> s.getBudget().getTargetName().equals(name))
+                .mapToDouble(BudgetStatus::getSpent).findFirst().orElseThrow();
+    }
+
+    @Test
+    void testThresholdsFireOnceAsCountersGrow() {
+        assertEquals(100, spent("Food"), 1e-9);
+
+        assertTrue(dao.addTransaction(expense(50, "2025-03-05", 1, 1)));
+        assertEquals(List.of(), alerts);
+
+        assertTrue(dao.addTransaction(expense(20, "2025-03-06", 1, 1)));
+        assertEquals(List.of("Food:80"), alerts);
+
+        assertTrue(dao.addTransaction(expense(40, "2025-03-07", 1, 2)));
+        assertEquals(List.of("Food:80", "Food:100", "Cash:80"), alerts);
+        assertEquals(210, spent("Food"), 1e-9);
+        assertEquals(40, spent("Cash"), 1e-9);
+
+        assertTrue(dao.addTransaction(expense(5, "2025-03-08", 2, 1)));
+        assertTrue(dao.addTransaction(new Transaction(500, "2025-03-08", 1, 1, "", 1, 1, 1)));
+        assertEquals(3, alerts.size());
+        assertEquals(210, spent("Food"), 1e-9);
+    }
+
+    @Test
+    void testUnloadedMonthAlertsAndUpdateDeleteAdjustCounters() throws Exception {
+        assertTrue(dao.addTransaction(expense(60, "2025-04-01", 2, 2)));
+        assertEquals(List.of("Cash:100"), alerts);
+
+        Transaction before = dao.getTransactionById(1);
+        Transaction after = expense(180, "2025-03-02", 1, 1);
+        after.setId(1);
+        execute("UPDATE Transactions SET amount = 180 WHERE id = 1");
+        tracker.onUpdated(before, after);
+        assertEquals(List.of("Cash:100", "Food:80"), alerts);
+        assertEquals(180, spent("Food"), 1e-9);
+
+        Transaction moved = expense(180, "2025-03-02", 2, 1);
+        execute("UPDATE Transactions SET category_id = 2 WHERE id = 1");
+        tracker.onUpdated(after, moved);
+        assertEquals(0, spent("Food"), 1e-9);
+
+        execute("UPDATE Transactions SET category_id = 1 WHERE id = 1");
+        tracker.onUpdated(moved, after);
+        assertEquals(180, spent("Food"), 1e-9);
+
+        execute("DELETE FROM Transactions WHERE id = 1");
+        tracker.onDeleted(after);
+        assertEquals(0, spent("Food"), 1e-9);
+        tracker.invalidate();
+        assertEquals(0, spent("Food"), 1e-9);
+        assertEquals(List.of("Cash:100", "Food:80", "Food:80"), alerts);
+    }
+
+    @Test
+    void testBatchInsertAndBudgetReplacement() {
+        tracker.getStatus(MARCH);
+        assertEquals(2, dao.addTransactions(List.of(
+                expense(10, "2025-03-10", 2, 2),
+                expense(15, "2025-03-11", 1, 2))));
+        assertEquals(25, spent("Cash"), 1e-9);
+        assertEquals(115, spent("Food"), 1e-9);
+
+        assertTrue(dao.saveBudget(new Budget(0, Budget.Scope.CATEGORY, 1, "Food", 300)));
+        tracker.reloadBudgets();
+        assertEquals(2, dao.getBudgets().size());
+        assertEquals(300, tracker.getStatus(MARCH).stream()
+                .filter(s -> s.getBudget().getTargetName().equals("Food"))
+                .findFirst().orElseThrow().getBudget().getMonthlyLimit(), 1e-9);
+    }
+}
@@ -0,0 +1,171 @@
+package database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.model.RecurringTransaction;
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.util.CashFlowForecast;
+import org.ydanilenko.budgettracker.util.CashFlowForecaster;
+import org.ydanilenko.budgettracker.util.ConnectionPool;
+import org.ydanilenko.budgettracker.util.DatabaseSchema;
+import org.ydanilenko.budgettracker.util.LedgerGenerator;
+import org.ydanilenko.budgettracker.util.RecurringScheduler;
+
+import java.nio.file.Path;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CashFlowForecasterTest {
+    private TestLedger ledger;
+    private Path dir;
+    private ConnectionPool pool;
+    private TransactionDAO dao;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ledger = TestLedger.create("budget-forecast");
+        dir = ledger.getDir();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ledger.close();
+    }
+
+    private void open(Path file) {
+        pool = ledger.track(new ConnectionPool("jdbc:sqlite:" + file, 2));
+        pool.write(connection -> {
+            DatabaseSchema.initialize(connection);
+            return null;
+        });
+        dao = new TransactionDAO(pool);
+    }
+
+    @Test
+    void testSeasonalProfileAndRecurringDefinitions() {
+        open(dir.resolve("ledger.db"));
+        pool.write(connection -> {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("INSERT INTO Categories (name) VALUES ('Food'), ('Salary'), ('Housing')");
+                stmt.execute("INSERT INTO PaymentTypes (name) VALUES ('Card')");
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return null;
+        });
+
+        // Food costs 100 a month and 400 in December; salary is a flat 2000.
+        List<Transaction> history = new ArrayList<>();
+        for (YearMonth month = YearMonth.of(2022, 1); month.isBefore(YearMonth.of(2024, 11)); month = month.plusMonths(1)) {
+            double food = month.getMonthValue() == 12 ? 400 : 100;
+            history.add(new Transaction(food / 2, month.atDay(3).toString(), 1, 1, "Groceries", 0, 0, 0));
+            history.add(new Transaction(food / 2, month.atDay(17).toString(), 1, 1, "Groceries", 0, 0, 0));
+            history.add(new Transaction(2000, month.atDay(25).toString(), 2, 1, "Salary", 0, 0, 1));
+        }
+        history.add(new Transaction(30, "2024-11-05", 1, 1, "Groceries", 0, 0, 0));
+        assertEquals(history.size(), dao.addTransactions(history));
+
+        assertTrue(dao.addRecurringTransaction(new RecurringTransaction(900, 3, 1, "Rent", 0, 0, 0, "1 * *", "2024-06-01", null)));
+        LocalDate today = LocalDate.of(2024, 11, 15);
+        assertEquals(6, new RecurringScheduler(dao).catchUp(today));
+
+        CashFlowForecaster forecaster = new CashFlowForecaster(dao);
+        assertEquals(400, forecaster.expected(0, 1, YearMonth.of(2024, 12), today), 0.5);
+        assertEquals(100, forecaster.expected(0, 1, YearMonth.of(2025, 1), today), 0.5);
+        assertEquals(2000, forecaster.expected(1, 2, YearMonth.of(2025, 1), today), 1e-6);
+        // Rent rows come from the definition, so they are not averaged into the history.
+        assertEquals(0, forecaster.expected(0, 3, YearMonth.of(2025, 1), today), 1e-9);
+
+        CashFlowForecast forecast = forecaster.forecast(today, 3);
+        assertEquals(List.of(YearMonth.of(2024, 12), YearMonth.of(2025, 1), YearMonth.of(2025, 2)), forecast.getMonths());
+        assertEquals(1300, forecast.getExpense()[0], 0.5);
+        assertEquals(1000, forecast.getExpense()[1], 0.5);
+        assertEquals(2000, forecast.getIncome()[2], 1e-6);
+
+        double balance = dao.getTotalIncome() - dao.getTotalExpense();
+        assertEquals(balance, forecast.getStartingBalance(), 1e-6);
+        // The rest of November still brings the salary and 70 more for food.
+        assertEquals(balance + 2000 - 70 + 3 * 2000 - 1300 - 1000 - 1000, forecast.getEndingBalance(), 1.5);
+    }
+
+    @Test
+    void testIncrementalUpdatesMatchRefit() throws Exception {
+        Path file = dir.resolve("ledger.db");
+        LedgerGenerator generator = new LedgerGenerator(17, LocalDate.of(2022, 1, 1), LocalDate.of(2024, 12, 31));
+        generator.writeTo(file, 20_000);
+        open(file);
+
+        LocalDate today = LocalDate.of(2025, 2, 10);
+        CashFlowForecaster live = new CashFlowForecaster(dao);
+        dao.addListener(live);
+        live.forecast(today, 3);
+
+        List<Integer> categories = new ArrayList<>();
+        for (String name : generator.getCategories()) categories.add(dao.getCategoryIdByName(name));
+        int paymentTypeId = dao.getPaymentTypeIdByName(generator.getPaymentTypes().get(0).getName());
+
+        // Late receipts, corrections and deletions across the whole history, the open month and the future.
+        Random random = new Random(5);
+        long started = System.nanoTime();
+        int changes = 0;
+        for (int i = 0; i < 300; i++) {
+            LocalDate date = LocalDate.of(2022, 1, 1).plusDays(random.nextInt(1_200));
+            int categoryId = categories.get(random.nextInt(categories.size()));
+            int typeId = random.nextInt(5) == 0 ? 1 : 0;
+            double amount = Math.round(random.nextDouble() * 50_000) / 100.0;
+            int id = 1 + random.nextInt(20_000);
+            switch (i % 3) {
+                case 0 -> assertTrue(dao.addTransaction(new Transaction(amount, date.toString(), categoryId, paymentTypeId, "Late", 0, 0, typeId)));
+                case 1 -> {
+                    Transaction edited = dao.getTransactionById(id);
+                    if (edited == null) continue;
+                    edited.setAmount(amount);
+                    edited.setDate(date.toString());
+                    edited.setCategoryId(categoryId);
+                    assertTrue(dao.updateTransaction(edited));
+                }
+                default -> {
+                    if (!dao.deleteTransaction(id)) continue;
+                }
+            }
+            changes++;
+        }
+        System.out.printf("Wrote %d changes with the forecast kept up to date in %.3f s%n", changes, (System.nanoTime() - started) / 1e9);
+
+        started = System.nanoTime();
+        CashFlowForecaster refit = new CashFlowForecaster(dao);
+        assertForecastsMatch(refit, live, categories, today);
+        System.out.printf("Refit the forecast from the ledger in %.3f s%n", (System.nanoTime() - started) / 1e9);
+
+        // Crossing into later months folds the closed ones the same way a fresh load does.
+        LocalDate later = LocalDate.of(2025, 6, 2);
+        assertForecastsMatch(new CashFlowForecaster(dao), live, categories, later);
+    }
+
+    private static void assertForecastsMatch(CashFlowForecaster expected, CashFlowForecaster actual,
+                                             List<Integer> categories, LocalDate today) {
+        for (int typeId = 0; typeId <= 1; typeId++) {
+            for (int categoryId : categories) {
+                for (int offset = 0; offset <= 14; offset++) {
+                    YearMonth month = YearMonth.from(today).plusMonths(offset);
+                    assertEquals(expected.expected(typeId, categoryId, month, today),
+                            actual.expected(typeId, categoryId, month, today), 1e-6, typeId + "/" + categoryId + " " + month);
+                }
+            }
+        }
+        CashFlowForecast refit = expected.forecast(today, 6);
+        CashFlowForecast live = actual.forecast(today, 6);
+        assertEquals(refit.getStartingBalance(), live.getStartingBalance(), 1e-6);
+        assertArrayEquals(refit.getIncome(), live.getIncome(), 1e-6);
+        assertArrayEquals(refit.getExpense(), live.getExpense(), 1e-6);
+        assertArrayEquals(refit.getBalance(), live.getBalance(), 1e-6);
+    }
+}
@@ -0,0 +1,166 @@
+package database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.model.TransactionListener;
+import org.ydanilenko.budgettracker.util.ConnectionPool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentDaoTest {
+    private static final int OPERATIONS_PER_ROUND = 1_600;
+
+    private TestLedger ledger;
+    private ConnectionPool pool;
+    private TransactionDAO dao;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ledger = TestLedger.create("budget-concurrent")
+                .seed("Categories", "Food")
+                .seed("PaymentTypes", "Card");
+        pool = ledger.pool(8);
+        dao = new TransactionDAO(pool);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ledger.close();
+    }
+
+    @Test
+    void testMixedWorkloadFromOneToThirtyTwoThreads() throws Exception {
+        Map<Integer, Double> inserted = new ConcurrentHashMap<>();
+        for (int threads : new int[]{1, 2, 4, 8, 16, 32}) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> results = new ArrayList<>();
+            int perThread = OPERATIONS_PER_ROUND / threads;
+            int round = threads;
+
+            for (int t = 0; t < threads; t++) {
+                int worker = t;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        if (i % 4 == 0) {
+                            double amount = round * 100_000 + worker * 1_000 + i + 0.25;
+                            Transaction transaction = new Transaction(amount, "2025-01-01", 1, 1,
+                                    "worker " + worker, 0, 0, 0);
+                            assertTrue(dao.addTransaction(transaction));
+                            assertNull(inserted.put(transaction.getId(), amount));
+                            assertEquals(amount, dao.getTransactionById(transaction.getId()).getAmount());
+                        } else if (i % 4 == 1) {
+                            assertTrue(dao.getTotalTransactions() >= inserted.size() - threads);
+                        } else if (i % 4 == 2) {
+                            assertTrue(dao.listTransactions(-1, null, null, null, 0, 20).size() <= 20);
+                        } else {
+                            assertTrue(dao.getTotalExpense() >= 0);
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            long began = System.nanoTime();
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+            double seconds = (System.nanoTime() - began) / 1e9;
+            executor.shutdown();
+
+            System.out.printf("%2d threads: %,.0f operations/s%n", threads, perThread * threads / seconds);
+            assertEquals(inserted.size(), dao.getTotalTransactions());
+        }
+
+        double expected = inserted.values().stream().mapToDouble(Double::doubleValue).sum();
+        assertEquals(expected, dao.getTotalExpense(), 1e-6);
+    }
+
+    @Test
+    void testFailedTransactionRollsBackNestedWrites() {
+        assertThrows(IllegalStateException.class, () -> dao.inTransaction(() -> {
+            dao.addPlace("Bakery");
+            assertNotEquals(-1, dao.getPlaceIdByName("Bakery"));
+            throw new IllegalStateException("abort");
+        }));
+        assertEquals(-1, dao.getPlaceIdByName("Bakery"));
+
+        int id = dao.inTransaction(() -> {
+            dao.addPlace("Market");
+            return dao.getPlaceIdByName("Market");
+        });
+        assertEquals(id, dao.getPlaceIdByName("Market"));
+    }
+
+    @Test
+    void testListenersOnlyHearCommittedWrites() {
+        List<Integer> inserted = new ArrayList<>();
+        dao.addListener(new TransactionListener() {
+            @Override
+            public void onInserted(Transaction transaction) {
+                inserted.add(transaction.getId());
+            }
+        });
+
+        assertThrows(IllegalStateException.class, () -> dao.inTransaction(() -> {
+            assertTrue(dao.addTransaction(new Transaction(5, "2025-01-01", 1, 1, "rolled back", 0, 0, 0)));
+            throw new IllegalStateException("abort");
+        }));
+        assertEquals(List.of(), inserted);
+
+        int id = dao.inTransaction(() -> {
+            Transaction transaction = new Transaction(7, "2025-01-02", 1, 1, "kept", 0, 0, 0);
+            assertTrue(dao.addTransaction(transaction));
+            assertEquals(List.of(), inserted);
+            return transaction.getId();
+        });
+        assertEquals(List.of(id), inserted);
+    }
+
+    @Test
+    void testClearingCachesDuringWritesIsSafe() throws Exception {
+        List<Transaction> rows = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            Transaction transaction = new Transaction(i + 1, "2025-01-01", 1, 1, "row " + i, 0, 0, 0);
+            assertTrue(dao.addTransaction(transaction));
+            rows.add(transaction);
+        }
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch done = new CountDownLatch(1);
+        Future<?> clearing = executor.submit(() -> {
+            while (done.getCount() > 0) {
+                dao.clearCaches();
+            }
+        });
+        try {
+            for (Transaction transaction : rows) {
+                if (transaction.getId() % 2 == 0) {
+                    transaction.setAmount(transaction.getAmount() + 1_000);
+                    assertTrue(dao.updateTransaction(transaction));
+                } else {
+                    assertTrue(dao.deleteTransaction(transaction.getId()));
+                }
+            }
+        } finally {
+            done.countDown();
+            clearing.get();
+            executor.shutdown();
+        }
+        assertEquals(rows.size() / 2, dao.getTotalTransactions());
+    }
+}
@@ -0,0 +1,119 @@
+package database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.io.ExchangeRateFile;
+import org.ydanilenko.budgettracker.model.ExchangeRate;
+import org.ydanilenko.budgettracker.model.PaymentType;
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CurrencyConversionTest {
+    private TestLedger ledger;
+    private Path dir;
+    private Connection connection;
+    private TransactionDAO dao;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ledger = TestLedger.create("budget-currency")
+                .seed("Categories", "Food", "Travel")
+                .seed("Places", "Shop")
+                .seed("Beneficiaries", "Shop");
+        dir = ledger.getDir();
+        connection = ledger.connect();
+        dao = new TransactionDAO(connection);
+        dao.addPaymentType(new PaymentType(0, "Cash", null, null, null, null));
+        dao.addPaymentType(new PaymentType(0, "Dollar Card", "Bank", null, null, null, "usd"));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ledger.close();
+    }
+
+    @Test
+    void testRateFileIsParsedAndStored() throws Exception {
+        Path file = dir.resolve("rates.csv");
+        Files.writeString(file, """
+                date,currency,rate
+                2025-03-01,USD,0.95
+                # comment
+                2025-03-10;usd;0.90
+                2025-03-01,PLN,-1
+                bad,USD,1
+                """);
+
+        List<ExchangeRate> rates = ExchangeRateFile.read(file);
+        assertEquals(2, rates.size());
+        assertEquals(2, dao.saveExchangeRates(rates));
+        assertEquals(1, dao.saveExchangeRates(List.of(new ExchangeRate("USD", rates.get(1).getDate(), 0.92))));
+
+        List<ExchangeRate> stored = dao.getExchangeRates();
+        assertEquals(2, stored.size());
+        assertEquals(0.92, stored.get(1).getRate());
+        assertEquals(0.92, dao.getCurrencyConverter().rate("USD", rates.get(1).getDate().toEpochDay()));
+    }
+
+    @Test
+    void testTotalsAndMonthlySpendingAreReportedInBaseCurrency() {
+        dao.saveExchangeRates(List.of(
+                new ExchangeRate("USD", LocalDate.of(2025, 3, 1), 0.9),
+                new ExchangeRate("PLN", LocalDate.of(2025, 3, 1), 0.25)
+        ));
+
+        dao.addTransaction(new Transaction(100, "2025-03-05", 1, 1, "Base", 1, 1, 0));
+        dao.addTransaction(new Transaction(100, "2025-03-06", 1, 2, "Card", 1, 1, 0));
+        Transaction zloty = new Transaction(200, "2025-03-07", 2, 2, "Override", 1, 1, 0);
+        zloty.setCurrency("pln");
+        dao.addTransactions(List.of(zloty));
+        dao.addTransaction(new Transaction(1000, "2025-03-01", 1, 2, "Salary", 1, 1, 1));
+
+        assertEquals(100 + 90 + 50, dao.getTotalExpense(), 1e-9);
+        assertEquals(900, dao.getTotalIncome(), 1e-9);
+        assertEquals(900, dao.getMaxTransactionAmount(), 1e-9);
+
+        Map<Integer, Double> byCategory = dao.getMonthlyExpensesByCategoryId(YearMonth.of(2025, 3));
+        assertEquals(190, byCategory.get(1), 1e-9);
+        assertEquals(50, byCategory.get(2), 1e-9);
+        Map<Integer, Double> byPaymentType = dao.getMonthlyExpensesByPaymentTypeId(YearMonth.of(2025, 3));
+        assertEquals(140, byPaymentType.get(2), 1e-9);
+
+        List<Transaction> expenses = dao.getTransactionsByType(0);
+        assertEquals(List.of("USD", "PLN"), expenses.stream().filter(t -> t.getCurrency() != null).map(Transaction::getCurrency).toList());
+        int zlotyId = expenses.stream().filter(t -> "PLN".equals(t.getCurrency())).findFirst().orElseThrow().getId();
+        assertEquals(50, dao.toBaseAmount(dao.getTransactionById(zlotyId)), 1e-9);
+        assertEquals(90, dao.toBaseAmount(new Transaction(100, "2025-03-06", 1, 2, null, 1, 1, 0)), 1e-9);
+
+        assertEquals("USD", dao.getAllPaymentTypeObjects().get(1).getCurrency());
+    }
+
+    @Test
+    void testSearchResultsCarryTheirCurrency() {
+        dao.addTransaction(new Transaction(40, "2025-03-05", 1, 1, "Museum tickets", 1, 1, 0));
+        dao.addTransaction(new Transaction(60, "2025-03-06", 1, 2, "Museum shop", 1, 1, 0));
+        Transaction zloty = new Transaction(80, "2025-03-07", 1, 2, "Museum cafe", 1, 1, 0);
+        zloty.setCurrency("pln");
+        dao.addTransaction(zloty);
+
+        List<Transaction> found = dao.searchTransactions("museum", 0, null, null, null, 0, 10);
+        assertEquals(3, found.size());
+        Map<String, String> currencies = new HashMap<>();
+        found.forEach(t -> currencies.put(t.getComment(), t.getCurrency()));
+        assertNull(currencies.get("Museum tickets"));
+        assertEquals("USD", currencies.get("Museum shop"));
+        assertEquals("PLN", currencies.get("Museum cafe"));
+    }
+}
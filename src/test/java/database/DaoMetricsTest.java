@@ -0,0 +1,71 @@
+package database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.util.Metrics;
+import org.ydanilenko.budgettracker.util.MetricsSnapshot;
+import org.ydanilenko.budgettracker.util.NameSuggestionIndex;
+
+import java.sql.Connection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DaoMetricsTest {
+    private TestLedger ledger;
+    private Connection connection;
+    private TransactionDAO dao;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ledger = TestLedger.create("budget-metrics");
+        connection = ledger.connect();
+        dao = new TransactionDAO(connection);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ledger.close();
+    }
+
+    @Test
+    void testDaoCallsAndFailuresAreRecorded() throws Exception {
+        long calls = Metrics.timer("dao.getTotalTransactions").snapshot().getCalls();
+        long errors = Metrics.timer("dao.getTotalTransactions").snapshot().getErrors();
+
+        assertEquals(0, dao.getTotalTransactions());
+        assertEquals(0, dao.getTotalTransactions());
+        connection.close();
+        assertEquals(0, dao.getTotalTransactions());
+
+        MetricsSnapshot snapshot = Metrics.timer("dao.getTotalTransactions").snapshot();
+        assertEquals(calls + 3, snapshot.getCalls());
+        assertEquals(errors + 1, snapshot.getErrors());
+        assertTrue(snapshot.getMaxMillis() > 0);
+    }
+
+    @Test
+    void testSuggestionIndexesAreLoadedOnceAndKeptCurrent() {
+        assertTrue(dao.addPlace("Lidl"));
+        long loads = Metrics.timer("dao.getPlaceSuggestions").snapshot().getCalls();
+
+        NameSuggestionIndex places = dao.getPlaceSuggestions();
+        assertSame(places, dao.getPlaceSuggestions());
+        assertEquals(loads + 1, Metrics.timer("dao.getPlaceSuggestions").snapshot().getCalls());
+
+        // New names and saved rows update the cached index in place.
+        assertTrue(dao.addPlace("Aldi"));
+        assertEquals(2, places.size());
+        dao.getBeneficiarySuggestions();
+        dao.recordNameUse("Aldi", "Landlord", "2025-03-01");
+        dao.recordNameUse("Aldi", "Landlord", "2025-03-02");
+        assertEquals("Aldi", places.suggest("", 1).get(0));
+        assertEquals(List.of("Landlord"), dao.getBeneficiarySuggestions().suggest("land", 5));
+        assertEquals(loads + 1, Metrics.timer("dao.getPlaceSuggestions").snapshot().getCalls());
+
+        dao.clearCaches();
+        assertNotSame(places, dao.getPlaceSuggestions());
+    }
+}
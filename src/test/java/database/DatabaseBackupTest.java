@@ -0,0 +1,162 @@
+package database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.util.ConnectionPool;
+import org.ydanilenko.budgettracker.util.DatabaseBackup;
+import org.ydanilenko.budgettracker.util.LedgerGenerator;
+import org.ydanilenko.budgettracker.util.TransactionJournal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DatabaseBackupTest {
+    private TestLedger ledger;
+    private Path dir;
+    private ConnectionPool pool;
+    private TransactionDAO dao;
+    private DatabaseBackup backup;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ledger = TestLedger.create("budget-backup")
+                .generate(new LedgerGenerator(3, LocalDate.of(2023, 1, 1), LocalDate.of(2024, 12, 31)), 20_000);
+        dir = ledger.getDir();
+        pool = ledger.pool(2);
+        dao = new TransactionDAO(pool);
+        backup = ledger.track(new DatabaseBackup(pool, dir.resolve("archive"), 2));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ledger.close();
+    }
+
+    private static int countTransactions(Path archive) throws Exception {
+        Path copy = archive.resolveSibling("check.db");
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(archive))) {
+            Files.copy(in, copy);
+        }
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + copy);
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM Transactions")) {
+            return rs.getInt(1);
+        } finally {
+            Files.delete(copy);
+        }
+    }
+
+    @Test
+    void testBackupCopiesSnapshotWhileWritesContinue() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger written = new AtomicInteger();
+        Thread writer = new Thread(() -> {
+            int category = dao.getCategoryIdByName("Food");
+            int paymentType = dao.getPaymentTypeIdByName("Cash");
+            while (running.get()) {
+                Transaction transaction = new Transaction(1 + written.get(), "2025-01-01", category, paymentType,
+                        "During backup", 0, 0, 0);
+                if (dao.addTransaction(transaction)) written.incrementAndGet();
+            }
+        });
+        writer.start();
+
+        AtomicLong steps = new AtomicLong();
+        AtomicLong lastCopied = new AtomicLong();
+        Path archive;
+        try {
+            archive = backup.backUp((copied, total) -> {
+                steps.incrementAndGet();
+                lastCopied.set(copied);
+                assertTrue(copied <= total);
+            });
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+
+        assertTrue(steps.get() > 1, "copied in " + steps.get() + " steps");
+        assertTrue(written.get() > 0, "writes were blocked during the backup");
+        int backedUp = countTransactions(archive);
+        assertTrue(backedUp >= 20_000 && backedUp <= 20_000 + written.get());
+        assertTrue(Files.size(archive) < Files.size(dir.resolve("ledger.db")));
+    }
+
+    @Test
+    void testArchivesRotate() throws Exception {
+        Path first = backup.backUp((copied, total) -> {});
+        backup.backUp((copied, total) -> {});
+        Path newest = backup.backUp((copied, total) -> {});
+
+        List<Path> archives = backup.listArchives();
+        assertEquals(2, archives.size());
+        assertEquals(newest, archives.get(0));
+        assertFalse(Files.exists(first));
+    }
+
+    @Test
+    void testRestoreReplacesLedgerAndKeepsUndoCopy() throws Exception {
+        Path archive = backup.backUp((copied, total) -> {});
+        int before = dao.getTotalTransactions();
+        try (Connection connection = DriverManager.getConnection(pool.getUrl());
+             Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("DELETE FROM Transactions WHERE id % 2 = 0");
+        }
+        assertTrue(dao.getTotalTransactions() < before);
+
+        Path undo = backup.restore(archive, (copied, total) -> {});
+        dao.clearCaches();
+        assertEquals(before, dao.getTotalTransactions());
+        assertEquals(before / 2 + before % 2, countTransactions(undo));
+
+        Transaction added = new Transaction(12.5, "2025-03-01", dao.getCategoryIdByName("Food"),
+                dao.getPaymentTypeIdByName("Cash"), "After restore", 0, 0, 0);
+        assertTrue(dao.addTransaction(added));
+        assertEquals(before + 1, dao.getTotalTransactions());
+    }
+
+    @Test
+    void testRestoreKeepsTheSyncClockAndRestartsTheJournal() throws Exception {
+        try (TransactionJournal journal = new TransactionJournal(dir.resolve("ledger.db.journal"), dao)) {
+            backup.setJournal(journal);
+            Path archive = backup.backUp((copied, total) -> {});
+            Transaction added = new Transaction(12.5, "2025-03-01", dao.getCategoryIdByName("Food"),
+                    dao.getPaymentTypeIdByName("Cash"), "After backup", 0, 0, 0);
+            assertTrue(journal.recordUndoable(() -> dao.addTransaction(added)));
+            long clock = dao.getSyncVector().get(dao.getReplicaId());
+
+            backup.restore(archive, (copied, total) -> {});
+            dao.clearCaches();
+            assertNull(dao.getTransactionById(added.getId()));
+            assertEquals(clock, dao.getSyncVector().get(dao.getReplicaId()));
+            assertFalse(journal.canUndo());
+            assertFalse(journal.stateAt(Instant.now()).containsKey(added.getId()));
+        }
+    }
+
+    @Test
+    void testCorruptArchiveIsRejected() throws IOException {
+        Path archive = backup.getDirectory().resolve("ledger-20240101-000000-000.db.gz");
+        Files.createDirectories(backup.getDirectory());
+        Files.write(archive, new byte[]{1, 2, 3});
+        assertThrows(IOException.class, () -> backup.restore(archive, (copied, total) -> {}));
+    }
+}
@@ -0,0 +1,134 @@
+package database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.io.ImportResult;
+import org.ydanilenko.budgettracker.io.StatementImporter;
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DuplicateDetectionTest {
+    private TestLedger ledger;
+    private Path dir;
+    private Connection connection;
+    private TransactionDAO dao;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ledger = TestLedger.create("budget-duplicates")
+                .seed("Categories", "Food")
+                .seed("PaymentTypes", "Card")
+                .seed("Places", "Lidl")
+                .seed("Beneficiaries", "Lidl");
+        dir = ledger.getDir();
+        connection = ledger.connect();
+        dao = new TransactionDAO(connection);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ledger.close();
+    }
+
+    @Test
+    void testReimportedStatementIsFlagged() throws Exception {
+        Path file = dir.resolve("statement.csv");
+        Files.writeString(file, """
+                Date,Amount,Place,Beneficiary,Comment
+                2025-03-01,-12.50,Lidl,Lidl,Groceries
+                2025-03-02,-3.20,Cafe,Cafe,Coffee
+                """);
+
+        ImportResult first = new StatementImporter(dao, 1, 1).importFile(file, (d, t) -> {}, () -> false);
+        assertEquals(0, first.getDuplicates());
+
+        Files.writeString(file, """
+                Date,Amount,Place,Beneficiary,Comment
+                2025-03-02,-3.20,Cafe,Cafe,  coffee
+                2025-03-03,-7.00,Cafe,Cafe,Lunch
+                """);
+        ImportResult second = new StatementImporter(dao, 1, 1).importFile(file, (d, t) -> {}, () -> false);
+        assertEquals(2, second.getImported());
+        assertEquals(1, second.getDuplicates());
+
+        List<Transaction> expenses = dao.getTransactionsByType(0);
+        Transaction original = expenses.stream()
+                .filter(t -> "Coffee".equals(t.getComment())).findFirst().orElseThrow();
+        Transaction flagged = expenses.stream()
+                .filter(t -> t.getDuplicateOf() > 0).findFirst().orElseThrow();
+        assertEquals(original.getId(), flagged.getDuplicateOf());
+
+        assertTrue(dao.clearDuplicateFlag(flagged.getId()));
+        assertTrue(dao.getTransactionsByType(0).stream().allMatch(t -> t.getDuplicateOf() == 0));
+    }
+
+    @Test
+    void testManualEntryAndLegacyRowsAreScreened() throws Exception {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("INSERT INTO Transactions (amount, date, category_id, payment_type_id, comment, place_id, beneficiary_id, type_id) " +
+                    "VALUES (9.99, '2025-02-01', 1, 1, 'Netflix', 1, 1, 0)");
+        }
+
+        Transaction copy = new Transaction(9.99, "2025-2-1", 1, 1, "netflix", 1, 1, 0);
+        assertTrue(dao.findDuplicate(copy) > 0);
+        assertTrue(dao.addTransaction(copy));
+        assertTrue(copy.getDuplicateOf() > 0);
+
+        Transaction other = new Transaction(9.99, "2025-03-01", 1, 1, "Netflix", 1, 1, 0);
+        assertEquals(-1, dao.findDuplicate(other));
+        assertTrue(dao.addTransaction(other));
+        assertTrue(dao.findDuplicate(new Transaction(9.99, "2025-03-01", 1, 1, "Netflix", 1, 1, 0)) > 0);
+
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM Transactions WHERE fingerprint IS NULL")) {
+            assertTrue(rs.next());
+            assertEquals(0, rs.getInt(1));
+        }
+    }
+
+    @Test
+    void testRepeatsWithinOneBatchAreFlagged() throws Exception {
+        List<Transaction> batch = List.of(
+                new Transaction(4.50, "2025-03-01", 1, 1, "Coffee", 1, 1, 0),
+                new Transaction(12.00, "2025-03-01", 1, 1, "Lunch", 1, 1, 0),
+                new Transaction(4.50, "2025-3-1", 1, 1, " coffee", 1, 1, 0));
+        assertEquals(3, dao.addTransactions(batch));
+
+        assertEquals(0, batch.get(0).getDuplicateOf());
+        assertEquals(0, batch.get(1).getDuplicateOf());
+        assertEquals(batch.get(0).getId(), batch.get(2).getDuplicateOf());
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT duplicate_of FROM Transactions WHERE id = " + batch.get(2).getId())) {
+            assertTrue(rs.next());
+            assertEquals(batch.get(0).getId(), rs.getInt(1));
+        }
+    }
+
+    @Test
+    void testEditsAndDeletesKeepTheIndexCurrent() {
+        Transaction original = new Transaction(30.00, "2025-04-01", 1, 1, "Gym", 1, 1, 0);
+        Transaction copy = new Transaction(30.00, "2025-04-01", 1, 1, "Gym", 1, 1, 0);
+        assertTrue(dao.addTransaction(original));
+        assertTrue(dao.addTransaction(copy));
+        assertEquals(original.getId(), copy.getDuplicateOf());
+
+        // Once the original is gone, its flagged copy stands for the fingerprint.
+        assertTrue(dao.deleteTransaction(original.getId()));
+        assertEquals(copy.getId(), dao.findDuplicate(new Transaction(30.00, "2025-04-01", 1, 1, "Gym", 1, 1, 0)));
+
+        copy.setAmount(35.00);
+        assertTrue(dao.updateTransaction(copy));
+        assertEquals(-1, dao.findDuplicate(new Transaction(30.00, "2025-04-01", 1, 1, "Gym", 1, 1, 0)));
+        assertEquals(copy.getId(), dao.findDuplicate(new Transaction(35.00, "2025-04-01", 1, 1, "Gym", 1, 1, 0)));
+    }
+}
@@ -0,0 +1,178 @@
+package database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.model.TransactionListener;
+import org.ydanilenko.budgettracker.util.ConnectionPool;
+import org.ydanilenko.budgettracker.util.LedgerArchive;
+import org.ydanilenko.budgettracker.util.LedgerGenerator;
+
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LedgerArchiveTest {
+    private TestLedger ledger;
+    private ConnectionPool pool;
+    private TransactionDAO dao;
+    private LedgerArchive archive;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ledger = TestLedger.create("budget-archive")
+                .generate(new LedgerGenerator(7, LocalDate.of(2022, 1, 1), LocalDate.of(2024, 12, 31)), 6_000);
+        pool = ledger.pool(2);
+        dao = new TransactionDAO(pool);
+        archive = ledger.track(new LedgerArchive(pool, ledger.getDir().resolve("archive")));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ledger.close();
+    }
+
+    private List<String> stream(LocalDate start, LocalDate end) {
+        List<String> rows = new ArrayList<>();
+        dao.forEachTransaction(-1, start, end, t -> rows.add(t.getDate() + " " + t.getId() + " " + t.getAmount()));
+        return rows;
+    }
+
+    private long count(String sql) throws Exception {
+        try (Connection connection = DriverManager.getConnection(pool.getUrl());
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.getLong(1);
+        }
+    }
+
+    @Test
+    void testReportsSpanArchivedYears() throws Exception {
+        int before = dao.getTotalTransactions();
+        double income = dao.getTotalIncome();
+        double expense = dao.getTotalExpense();
+        double max = dao.getMaxTransactionAmount();
+        Map<Integer, Double> march = dao.getMonthlyExpensesByCategoryId(YearMonth.of(2022, 3));
+        List<String> all = stream(null, null);
+        List<String> spanning = stream(LocalDate.of(2023, 11, 1), LocalDate.of(2024, 2, 29));
+
+        Map<Integer, Integer> moved = archive.archiveClosedYears(LocalDate.of(2024, 6, 1), 1);
+        dao.setArchive(archive);
+
+        assertEquals(List.of(2022, 2023), List.copyOf(moved.keySet()));
+        assertTrue(Files.exists(archive.fileFor(2022)) && Files.exists(archive.fileFor(2023)));
+        long hot = count("SELECT COUNT(*) FROM Transactions");
+        assertEquals(before, hot + moved.get(2022) + moved.get(2023));
+        assertEquals(before, dao.getTotalTransactions());
+        assertEquals(0, count("SELECT COUNT(*) FROM Transactions WHERE date < '2024-01-01'"));
+        assertEquals(0, count("SELECT COUNT(*) FROM ChangeLog WHERE deleted = 1"));
+
+        assertEquals(income, dao.getTotalIncome(), 1e-6);
+        assertEquals(expense, dao.getTotalExpense(), 1e-6);
+        assertEquals(max, dao.getMaxTransactionAmount(), 1e-9);
+        Map<Integer, Double> archivedMarch = dao.getMonthlyExpensesByCategoryId(YearMonth.of(2022, 3));
+        assertEquals(march.keySet(), archivedMarch.keySet());
+        march.forEach((category, total) -> assertEquals(total, archivedMarch.get(category), 1e-6));
+        assertEquals(all, stream(null, null));
+        assertEquals(spanning, stream(LocalDate.of(2023, 11, 1), LocalDate.of(2024, 2, 29)));
+    }
+
+    private static List<String> rows(List<Transaction> transactions) {
+        return transactions.stream()
+                .map(t -> t.getDate() + " " + t.getId() + " " + t.getAmount() + " " + t.getCategoryName() + " " + t.getCurrency())
+                .toList();
+    }
+
+    @Test
+    void testListsSearchesAndStatisticsSpanArchivedYears() throws Exception {
+        List<String> expenses = rows(dao.getTransactionsByType(0)).stream().sorted().toList();
+        List<String> firstPage = rows(dao.listTransactions(-1, null, null, null, 0, 50));
+        List<String> spanningPage = rows(dao.listTransactions(0, LocalDate.of(2023, 6, 1), LocalDate.of(2024, 6, 30), "Food", 40, 30));
+        List<String> oldPage = rows(dao.listTransactions(-1, null, LocalDate.of(2023, 12, 31), null, 100, 25));
+        List<String> lunches = rows(dao.searchTransactions("lunch", -1, null, null, null, 0, 10_000)).stream().sorted().toList();
+        List<String> oldLunches = rows(dao.searchTransactions("lunch", 0, LocalDate.of(2022, 1, 1), LocalDate.of(2022, 12, 31),
+                "Food", 0, 10_000)).stream().sorted().toList();
+        String category = dao.getMostUsedCategory();
+        String beneficiary = dao.getTopBeneficiary();
+        String foodBeneficiary = dao.getTopBeneficiaryByCategory("Food");
+
+        archive.archiveClosedYears(LocalDate.of(2024, 6, 1), 1);
+        dao.setArchive(archive);
+
+        assertEquals(expenses, rows(dao.getTransactionsByType(0)).stream().sorted().toList());
+        assertEquals(firstPage, rows(dao.listTransactions(-1, null, null, null, 0, 50)));
+        assertEquals(spanningPage, rows(dao.listTransactions(0, LocalDate.of(2023, 6, 1), LocalDate.of(2024, 6, 30), "Food", 40, 30)));
+        assertEquals(oldPage, rows(dao.listTransactions(-1, null, LocalDate.of(2023, 12, 31), null, 100, 25)));
+        assertFalse(oldLunches.isEmpty());
+        assertEquals(lunches, rows(dao.searchTransactions("lunch", -1, null, null, null, 0, 10_000)).stream().sorted().toList());
+        assertEquals(oldLunches, rows(dao.searchTransactions("lunch", 0, LocalDate.of(2022, 1, 1), LocalDate.of(2022, 12, 31),
+                "Food", 0, 10_000)).stream().sorted().toList());
+        assertEquals(25, dao.searchTransactions("lunch", -1, null, null, null, 10, 25).size());
+        assertEquals(category, dao.getMostUsedCategory());
+        assertEquals(beneficiary, dao.getTopBeneficiary());
+        assertEquals(foodBeneficiary, dao.getTopBeneficiaryByCategory("Food"));
+    }
+
+    @Test
+    void testLateEntriesMergeAndReArchive() throws Exception {
+        archive.archiveClosedYears(LocalDate.of(2024, 6, 1), 1);
+        dao.setArchive(archive);
+        long archived2022 = archive.getArchivedYears().get(2022);
+
+        Transaction late = new Transaction(42.5, "2022-06-15", dao.getCategoryIdByName("Food"),
+                dao.getPaymentTypeIdByName("Cash"), "Found receipt", 0, 0, 0);
+        assertTrue(dao.addTransaction(late));
+        List<String> year = stream(LocalDate.of(2022, 1, 1), LocalDate.of(2022, 12, 31));
+        assertEquals(archived2022 + 1, year.size());
+        assertTrue(year.contains("2022-06-15 " + late.getId() + " 42.5"));
+        List<String> sorted = new ArrayList<>(year);
+        sorted.sort(Comparator.comparing(row -> row.substring(0, 10)));
+        assertEquals(sorted.stream().map(row -> row.substring(0, 10)).toList(),
+                year.stream().map(row -> row.substring(0, 10)).toList());
+
+        assertEquals(1, archive.archiveYear(2022));
+        assertEquals(archived2022 + 1, archive.getArchivedYears().get(2022));
+        assertEquals(year, stream(LocalDate.of(2022, 1, 1), LocalDate.of(2022, 12, 31)));
+        assertEquals(0, archive.archiveYear(2023));
+    }
+
+    @Test
+    void testArchivingTellsTheDaoListeners() throws Exception {
+        int[] reloads = {0};
+        dao.addListener(new TransactionListener() {
+            @Override
+            public void onReloaded() {
+                reloads[0]++;
+            }
+        });
+        dao.setArchive(archive);
+        int[] id = {0};
+        dao.forEachTransaction(-1, LocalDate.of(2022, 1, 1), LocalDate.of(2022, 12, 31), t -> {
+            if (id[0] == 0) id[0] = t.getId();
+        });
+        Transaction old = dao.getTransactionById(id[0]);
+        Transaction again = new Transaction(old.getAmount(), old.getDate(), old.getCategoryId(), old.getPaymentTypeId(),
+                old.getComment(), old.getPlaceId(), old.getBeneficiaryId(), old.getTypeId());
+        assertTrue(dao.findDuplicate(again) > 0);
+
+        archive.archiveClosedYears(LocalDate.of(2024, 6, 1), 1);
+
+        assertEquals(2, reloads[0]);
+        // The fingerprint index was rebuilt from the rows the ledger still holds.
+        assertEquals(-1, dao.findDuplicate(again));
+        assertEquals(0, archive.archiveYear(2022));
+        assertEquals(2, reloads[0]);
+    }
+}
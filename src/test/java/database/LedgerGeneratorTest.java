@@ -0,0 +1,117 @@
+package database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.model.PaymentType;
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.util.LedgerGenerator;
+
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LedgerGeneratorTest {
+    private static final LocalDate START = LocalDate.of(2021, 1, 1);
+    private static final LocalDate END = LocalDate.of(2024, 12, 31);
+
+    private TestLedger ledger;
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ledger = TestLedger.create("budget-generator");
+        dir = ledger.getDir();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ledger.close();
+    }
+
+    @Test
+    void testSameSeedProducesSameLedger() {
+        List<Transaction> first = new LedgerGenerator(7, START, END).generate(5_000);
+        List<Transaction> second = new LedgerGenerator(7, START, END).generate(5_000);
+        List<Transaction> other = new LedgerGenerator(8, START, END).generate(5_000);
+
+        assertEquals(5_000, first.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.get(i).getAmount(), second.get(i).getAmount());
+            assertEquals(first.get(i).getDate(), second.get(i).getDate());
+            assertEquals(first.get(i).getPlaceId(), second.get(i).getPlaceId());
+        }
+        assertNotEquals(first.stream().mapToDouble(Transaction::getAmount).sum(),
+                other.stream().mapToDouble(Transaction::getAmount).sum());
+    }
+
+    @Test
+    void testLedgerIsSkewedSeasonalAndUsesValidCards() {
+        LedgerGenerator generator = new LedgerGenerator(LedgerGenerator.DEFAULT_SEED, START, END);
+        List<Transaction> transactions = generator.generate(200_000);
+
+        assertEquals(START.toString(), transactions.get(0).getDate());
+        assertTrue(transactions.get(transactions.size() - 1).getDate().startsWith("2024-12"));
+        assertEquals(48, transactions.stream().filter(t -> LedgerGenerator.SALARY.equals(t.getCategoryName())).count());
+        assertTrue(transactions.stream().filter(t -> t.getTypeId() == 1).count() > 48);
+
+        Map<Integer, Long> places = transactions.stream()
+                .filter(t -> t.getTypeId() == 0)
+                .collect(Collectors.groupingBy(Transaction::getPlaceId, Collectors.counting()));
+        long top = places.values().stream().max(Comparator.naturalOrder()).orElseThrow();
+        long median = places.values().stream().sorted().skip(places.size() / 2).findFirst().orElseThrow();
+        assertTrue(top > 20 * median, "place distribution should be heavily skewed");
+
+        Map<Integer, Double> gifts = new HashMap<>();
+        for (Transaction t : transactions) {
+            if ("Gifts".equals(t.getCategoryName())) {
+                gifts.merge(LocalDate.parse(t.getDate()).getMonthValue(), t.getAmount(), Double::sum);
+            }
+        }
+        assertTrue(gifts.get(12) > 1.5 * gifts.get(6), "gift spending should peak in December");
+
+        List<PaymentType> paymentTypes = generator.getPaymentTypes();
+        for (Transaction t : transactions) {
+            PaymentType type = paymentTypes.get(t.getPaymentTypeId() - 1);
+            if (type.getExpirationDate() == null) continue;
+            assertTrue(t.getDate().compareTo(type.getIssueDate()) >= 0 && t.getDate().compareTo(type.getExpirationDate()) < 0,
+                    t.getDate() + " outside " + type.getName());
+        }
+    }
+
+    @Test
+    void testWritesFreshDatabaseThroughBulkPath() throws Exception {
+        Path file = dir.resolve("ledger.db");
+        LedgerGenerator generator = new LedgerGenerator(3, START, END);
+
+        assertEquals(60_000, generator.writeTo(file, 60_000));
+        assertThrows(FileAlreadyExistsException.class, () -> generator.writeTo(file, 10));
+
+        List<Transaction> expected = generator.generate(60_000);
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file)) {
+            TransactionDAO dao = new TransactionDAO(connection);
+            assertEquals(60_000, dao.getTotalTransactions());
+            assertEquals(generator.getPaymentTypes().size(), dao.getAllPaymentTypeObjects().size());
+
+            List<Transaction> stored = dao.getTransactionsByType(1);
+            List<Transaction> expectedIncome = expected.stream().filter(t -> t.getTypeId() == 1).toList();
+            assertEquals(expectedIncome.size(), stored.size());
+            for (int i = 0; i < stored.size(); i++) {
+                assertEquals(expectedIncome.get(i).getCategoryName(), stored.get(i).getCategoryName());
+                assertEquals(expectedIncome.get(i).getPaymentType(), stored.get(i).getPaymentType());
+                assertEquals(expectedIncome.get(i).getPlaceName(), stored.get(i).getPlaceName());
+                assertEquals(expectedIncome.get(i).getBeneficiaryName(), stored.get(i).getBeneficiaryName());
+            }
+        }
+    }
+}
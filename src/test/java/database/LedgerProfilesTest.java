@@ -0,0 +1,102 @@
+package database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.util.LedgerGenerator;
+import org.ydanilenko.budgettracker.util.LedgerProfile;
+import org.ydanilenko.budgettracker.util.LedgerProfiles;
+import org.ydanilenko.budgettracker.util.Metrics;
+import org.ydanilenko.budgettracker.util.MetricsSnapshot;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LedgerProfilesTest {
+    private TestLedger ledger;
+    private Path dir;
+    private LedgerProfiles profiles;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ledger = TestLedger.create("budget-profiles");
+        dir = ledger.getDir();
+        new LedgerGenerator(3, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31)).writeTo(dir.resolve("home.db"), 500);
+        new LedgerGenerator(5, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31)).writeTo(dir.resolve("work.db"), 300);
+        profiles = ledger.track(new LedgerProfiles(Map.of(), dir, null, 50, TimeUnit.MILLISECONDS, 2));
+        Metrics.reset();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ledger.close();
+    }
+
+    private static long calls(String scope, String operation) {
+        return Metrics.snapshot(scope).stream()
+                .filter(snapshot -> snapshot.getName().equals(operation))
+                .mapToLong(MetricsSnapshot::getCalls)
+                .sum();
+    }
+
+    @Test
+    void testProfilesAreIsolated() {
+        assertEquals(List.of("home", "work"), profiles.getNames());
+
+        TransactionDAO home = profiles.activate("home").getDao();
+        assertEquals("home", profiles.getActive());
+        assertEquals(500, home.getTotalTransactions());
+        assertEquals(300, (int) profiles.use("work", TransactionDAO::getTotalTransactions));
+
+        boolean added = profiles.use("work", dao -> dao.addTransaction(new Transaction(12.5, "2024-05-01",
+                dao.getCategoryIdByName("Food"), dao.getPaymentTypeIdByName("Cash"), "Lunch", 0, 0, 0)));
+        assertTrue(added);
+        assertEquals(301, (int) profiles.use("work", TransactionDAO::getTotalTransactions));
+        assertEquals(500, home.getTotalTransactions());
+
+        // Each profile's pool records its operations under the profile's name.
+        long homeCalls = calls("home", "dao.getTotalTransactions");
+        long workCalls = calls("work", "dao.getTotalTransactions");
+        assertTrue(homeCalls >= 2 && workCalls >= 2);
+        profiles.use("work", TransactionDAO::getTotalTransactions);
+        assertEquals(homeCalls, calls("home", "dao.getTotalTransactions"));
+        assertEquals(workCalls + 1, calls("work", "dao.getTotalTransactions"));
+        assertEquals(1, calls("work", "dao.addTransaction"));
+        assertEquals(0, calls("home", "dao.addTransaction"));
+
+        LedgerProfile work = profiles.get("work");
+        assertNotSame(work.getPool(), profiles.get("home").getPool());
+        assertTrue(work.getPool().getUrl().endsWith("work.db"));
+    }
+
+    @Test
+    void testIdleProfilesAreEvictedAndReopened() throws Exception {
+        profiles.activate("home");
+        profiles.get("work");
+        assertTrue(profiles.isOpen("work"));
+
+        // A third open profile pushes out the least recently used one, but never the active profile.
+        LedgerProfile created = profiles.get("travel");
+        assertTrue(Files.exists(dir.resolve("travel.db")));
+        assertEquals(0, created.getDao().getTotalTransactions());
+        assertFalse(profiles.isOpen("work"));
+        assertTrue(profiles.isOpen("home"));
+
+        Thread.sleep(100);
+        profiles.evictIdle();
+        assertFalse(profiles.isOpen("travel"));
+        assertTrue(profiles.isOpen("home"));
+
+        assertEquals(300, (int) profiles.use("work", TransactionDAO::getTotalTransactions));
+        assertEquals(List.of("home", "travel", "work"), profiles.getNames());
+        assertThrows(IllegalArgumentException.class, () -> profiles.get("../escape"));
+    }
+}
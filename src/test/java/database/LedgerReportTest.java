@@ -0,0 +1,121 @@
+package database;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.Launcher;
+import org.ydanilenko.budgettracker.io.LedgerReport;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.util.LedgerGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LedgerReportTest {
+    private static TestLedger ledger;
+    private static Path file;
+    private static String url;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        ledger = TestLedger.create("budget-report")
+                .generate(new LedgerGenerator(5, LocalDate.of(2023, 1, 1), LocalDate.of(2024, 12, 31)), 20_000);
+        file = ledger.getFile();
+        url = ledger.getUrl();
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        ledger.close();
+    }
+
+    private static List<String[]> report(String... args) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        String[] withDb = Arrays.copyOf(args, args.length + 3);
+        withDb[args.length] = "--db";
+        withDb[args.length + 1] = url;
+        withDb[args.length + 2] = "--csv";
+
+        assertEquals(0, LedgerReport.run(withDb, new PrintStream(out), new PrintStream(err)), err.toString());
+        return out.toString(StandardCharsets.UTF_8).lines().skip(1).map(line -> line.split(",")).toList();
+    }
+
+    private static double amount(List<String[]> rows, String type, int column) {
+        return rows.stream().filter(row -> row[0].equals(type)).mapToDouble(row -> Double.parseDouble(row[column])).sum();
+    }
+
+    @Test
+    void testReportsAgreeWithDaoTotals() throws Exception {
+        double income;
+        double expense;
+        try (Connection connection = DriverManager.getConnection(url)) {
+            TransactionDAO dao = new TransactionDAO(connection);
+            income = dao.getTotalIncome();
+            expense = dao.getTotalExpense();
+        }
+
+        List<String[]> totals = report("totals");
+        assertEquals(income, amount(totals, "income", 1), 0.01);
+        assertEquals(expense, amount(totals, "expense", 1), 0.01);
+        assertEquals(income - expense, amount(totals, "net", 1), 0.01);
+        assertEquals("20000", totals.get(2)[2]);
+
+        List<String[]> categories = report("categories");
+        assertEquals(income, amount(categories, "income", 2), 0.05);
+        assertEquals(expense, amount(categories, "expense", 2), 0.05);
+        for (int i = 1; i < categories.size(); i++) {
+            if (categories.get(i)[0].equals(categories.get(i - 1)[0])) {
+                assertTrue(Double.parseDouble(categories.get(i)[2]) <= Double.parseDouble(categories.get(i - 1)[2]));
+            }
+        }
+
+        List<String[]> monthly = report("monthly");
+        assertEquals(24, monthly.size());
+        assertEquals("2023-01", monthly.get(0)[0]);
+        assertEquals(income, monthly.stream().mapToDouble(row -> Double.parseDouble(row[1])).sum(), 0.05);
+        assertEquals(expense, monthly.stream().mapToDouble(row -> Double.parseDouble(row[2])).sum(), 0.05);
+    }
+
+    @Test
+    void testFiltersAndFileOutput() throws Exception {
+        List<String[]> monthly = report("monthly", "--type", "income", "--from", "2024-03-01", "--to", "2024-05-31");
+        assertEquals(List.of("2024-03", "2024-04", "2024-05"), monthly.stream().map(row -> row[0]).toList());
+        assertTrue(monthly.stream().allMatch(row -> Double.parseDouble(row[2]) == 0));
+
+        Path out = ledger.getDir().resolve("payment-types.txt");
+        assertTrue(report("payment-types", "--type", "expense", "--out", out.toString()).isEmpty());
+        List<String> lines = Files.readAllLines(out);
+        assertEquals("Type,Payment Type,Amount,Count", lines.get(0));
+        assertTrue(lines.stream().skip(1).allMatch(line -> line.startsWith("expense,")));
+
+        assertEquals(2, LedgerReport.run(new String[]{"--db", url}, new PrintStream(new ByteArrayOutputStream()),
+                new PrintStream(new ByteArrayOutputStream())));
+    }
+
+    @Test
+    void testLauncherRunsReportsWithoutJavaFx() throws Exception {
+        Process process = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-verbose:class", "-cp", System.getProperty("java.class.path"),
+                Launcher.class.getName(), "report", "stats", "--db", url)
+                .redirectErrorStream(true)
+                .start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+
+        assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+        assertEquals(0, process.exitValue(), output);
+        assertTrue(output.contains("Total Transactions") && output.contains("20000"), output);
+        assertFalse(output.contains(" javafx."), "headless report loaded JavaFX classes");
+    }
+}
@@ -0,0 +1,197 @@
+package database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.io.JsonReader;
+import org.ydanilenko.budgettracker.io.LedgerServer;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.util.ConnectionPool;
+import org.ydanilenko.budgettracker.util.LedgerGenerator;
+import org.ydanilenko.budgettracker.util.Metrics;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LedgerServerTest {
+    private TestLedger ledger;
+    private ConnectionPool pool;
+    private TransactionDAO dao;
+    private LedgerServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ledger = TestLedger.create("budget-server")
+                .generate(new LedgerGenerator(11, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31)), 2_000);
+        pool = ledger.pool(4);
+        dao = new TransactionDAO(pool);
+        server = LedgerServer.start(dao, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), null);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.close();
+        ledger.close();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + "/api/" + path));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String body(String place, double amount) {
+        return "{\"date\":\"2025-02-03\",\"amount\":" + amount + ",\"type\":\"expense\",\"category\":\"Food\","
+                + "\"paymentType\":\"Cash\",\"place\":\"" + place + "\",\"comment\":\"from \\\"script\\\"\"}";
+    }
+
+    @Test
+    void testTransactionCrudOverHttp() throws Exception {
+        HttpResponse<String> created = send(request("transactions").POST(HttpRequest.BodyPublishers.ofString(body("Corner Shop", 12.5))));
+        assertEquals(201, created.statusCode(), created.body());
+        Map<String, Object> json = JsonReader.parseObject(created.body());
+        int id = ((Double) json.get("id")).intValue();
+        assertEquals("Corner Shop", json.get("place"));
+        assertEquals("from \"script\"", json.get("comment"));
+        assertEquals(12.5, json.get("amount"));
+
+        HttpResponse<String> updated = send(request("transactions/" + id).PUT(HttpRequest.BodyPublishers.ofString(body("Corner Shop", 20))));
+        assertEquals(200, updated.statusCode(), updated.body());
+        assertEquals(20.0, dao.getTransactionById(id).getAmount());
+
+        // Currency is part of the replacement body, so an edit can set it and a later one clear it.
+        HttpResponse<String> dollars = send(request("transactions/" + id).PUT(HttpRequest.BodyPublishers.ofString(
+                body("Corner Shop", 20).replace("}", ",\"currency\":\"usd\"}"))));
+        assertEquals(200, dollars.statusCode(), dollars.body());
+        assertEquals("USD", dao.getTransactionById(id).getCurrency());
+        send(request("transactions/" + id).PUT(HttpRequest.BodyPublishers.ofString(body("Corner Shop", 20))));
+        assertNull(dao.getTransactionById(id).getCurrency());
+
+        Map<String, Object> fetched = JsonReader.parseObject(send(request("transactions/" + id)).body());
+        assertEquals("Food", fetched.get("category"));
+        assertEquals("Cash", fetched.get("paymentType"));
+
+        assertEquals(204, send(request("transactions/" + id).DELETE()).statusCode());
+        assertEquals(404, send(request("transactions/" + id)).statusCode());
+        assertNull(dao.getTransactionById(id));
+
+        assertEquals(400, send(request("transactions").POST(HttpRequest.BodyPublishers.ofString("{\"date\":\"2025-02-03\"}"))).statusCode());
+        assertEquals(400, send(request("transactions").POST(HttpRequest.BodyPublishers.ofString("{broken"))).statusCode());
+        assertEquals(400, send(request("transactions").POST(HttpRequest.BodyPublishers.ofString(
+                body("Corner Shop", 1).replace("Food", "No Such Category")))).statusCode());
+    }
+
+    @Test
+    void testOnlyNewlyAttachedNamesCountAsUses() throws Exception {
+        assertEquals(200, send(request("suggestions/places?q=alpha")).statusCode());
+        for (String place : List.of("Alpha Kiosk", "Alpha Kiosk")) {
+            assertEquals(201, send(request("transactions").POST(HttpRequest.BodyPublishers.ofString(body(place, 5)))).statusCode());
+        }
+        Map<String, Object> stall = JsonReader.parseObject(send(request("transactions").POST(
+                HttpRequest.BodyPublishers.ofString(body("Alpha Stall", 6)))).body());
+        String path = "transactions/" + ((Double) stall.get("id")).intValue();
+
+        // Re-saving the row as it is leaves the ranking alone.
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, send(request(path).PUT(HttpRequest.BodyPublishers.ofString(body("Alpha Stall", 6)))).statusCode());
+        }
+        assertEquals(List.of("Alpha Kiosk", "Alpha Stall"), dao.getPlaceSuggestions().suggest("alpha", 5));
+
+        assertEquals(200, send(request(path).PUT(HttpRequest.BodyPublishers.ofString(body("Alpha Cart", 6)))).statusCode());
+        assertTrue(dao.getPlaceSuggestions().suggest("alpha", 5).contains("Alpha Cart"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRowsReportTheirPaymentTypeCurrency() throws Exception {
+        pool.write(connection -> {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.executeUpdate("UPDATE PaymentTypes SET currency = 'EUR' WHERE name = 'Cash'");
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            return null;
+        });
+        dao.clearCaches();
+
+        HttpResponse<String> created = send(request("transactions").POST(HttpRequest.BodyPublishers.ofString(body("Kiosk", 3))));
+        Map<String, Object> json = JsonReader.parseObject(created.body());
+        assertEquals("EUR", json.get("currency"));
+        int id = ((Double) json.get("id")).intValue();
+        assertNull(dao.getTransactionById(id).getCurrency());
+
+        assertEquals("EUR", JsonReader.parseObject(send(request("transactions/" + id)).body()).get("currency"));
+        Map<String, Object> page = JsonReader.parseObject(send(request("transactions?from=2025-02-03")).body());
+        Map<String, Object> listed = (Map<String, Object>) ((List<Object>) page.get("transactions")).get(0);
+        assertEquals("EUR", listed.get("currency"));
+        Map<String, Object> searched = JsonReader.parseObject(send(request("transactions?from=2025-02-03&q=script")).body());
+        assertEquals("EUR", ((Map<String, Object>) ((List<Object>) searched.get("transactions")).get(0)).get("currency"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testListingReportsAndSuggestions() throws Exception {
+        Map<String, Object> page = JsonReader.parseObject(send(request("transactions?type=income&limit=5&offset=2")).body());
+        List<Object> transactions = (List<Object>) page.get("transactions");
+        assertEquals(5, transactions.size());
+        String previous = "9999-12-31";
+        for (Object row : transactions) {
+            Map<String, Object> transaction = (Map<String, Object>) row;
+            assertEquals("income", transaction.get("type"));
+            assertTrue(((String) transaction.get("date")).compareTo(previous) <= 0);
+            previous = (String) transaction.get("date");
+        }
+
+        List<Object> totals = (List<Object>) JsonReader.parse(send(request("reports/totals")).body());
+        Map<String, Object> income = (Map<String, Object>) totals.get(0);
+        assertEquals("income", income.get("type"));
+        assertEquals(dao.getTotalIncome(), (Double) income.get("amount"), 0.01);
+        assertEquals(200, send(request("reports/monthly?from=2024-06-01")).statusCode());
+
+        List<Object> places = (List<Object>) JsonReader.parse(send(request("suggestions/places?q=pla&limit=3")).body());
+        assertEquals(3, places.size());
+        assertTrue(((String) places.get(0)).startsWith("Place"));
+
+        assertEquals(404, send(request("nothing")).statusCode());
+        assertEquals(405, send(request("categories").DELETE()).statusCode());
+        assertEquals(400, send(request("transactions?from=yesterday")).statusCode());
+    }
+
+    @Test
+    void testHundredsOfConcurrentClients() throws Exception {
+        int before = dao.getTotalTransactions();
+        long calls = Metrics.timer("http.POST /api/transactions").snapshot().getCalls();
+
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            HttpRequest.Builder request = i % 3 == 0
+                    ? request("transactions").POST(HttpRequest.BodyPublishers.ofString(body("Stall " + (i % 7), i + 1)))
+                    : request(i % 3 == 1 ? "transactions?limit=50" : "reports/categories");
+            responses.add(client.sendAsync(request.build(), HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            int status = response.get().statusCode();
+            assertTrue(status == 200 || status == 201, response.get().body());
+        }
+
+        assertEquals(before + 100, dao.getTotalTransactions());
+        assertEquals(calls + 100, Metrics.timer("http.POST /api/transactions").snapshot().getCalls());
+        assertEquals(7, dao.getAllPlaces().stream().filter(name -> name.startsWith("Stall ")).count());
+    }
+}
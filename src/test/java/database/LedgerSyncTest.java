@@ -0,0 +1,243 @@
+package database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.io.LedgerServer;
+import org.ydanilenko.budgettracker.io.LedgerSync;
+import org.ydanilenko.budgettracker.io.SyncResult;
+import org.ydanilenko.budgettracker.model.RecurringTransaction;
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.util.ConnectionPool;
+import org.ydanilenko.budgettracker.util.DatabaseSchema;
+import org.ydanilenko.budgettracker.util.LedgerArchive;
+import org.ydanilenko.budgettracker.util.LedgerGenerator;
+import org.ydanilenko.budgettracker.util.RecurringScheduler;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LedgerSyncTest {
+    private TestLedger laptopLedger;
+    private TestLedger desktopLedger;
+    private ConnectionPool laptopPool;
+    private ConnectionPool desktopPool;
+    private TransactionDAO laptop;
+    private TransactionDAO desktop;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        laptopLedger = TestLedger.create("budget-sync")
+                .generate(new LedgerGenerator(5, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31)), 2_000);
+        // The desktop starts with its own categories, so the same names end up under different ids.
+        desktopLedger = TestLedger.create("budget-sync")
+                .seed("Categories", "Pets", "Food")
+                .seed("PaymentTypes", "Cash");
+
+        laptopPool = laptopLedger.pool(2);
+        desktopPool = desktopLedger.pool(2);
+        laptop = new TransactionDAO(laptopPool);
+        desktop = new TransactionDAO(desktopPool);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        laptopLedger.close();
+        desktopLedger.close();
+    }
+
+    private static Transaction expense(TransactionDAO dao, double amount, String date, String comment) {
+        Transaction transaction = new Transaction(amount, date, dao.getCategoryIdByName("Food"),
+                dao.getPaymentTypeIdByName("Cash"), comment, 0, 0, 0);
+        assertTrue(dao.addTransaction(transaction));
+        return transaction;
+    }
+
+    private static List<String> contents(TransactionDAO dao) {
+        return dao.listTransactions(-1, null, null, null, 0, 10_000).stream()
+                .map(t -> t.getDate() + " " + t.getAmount() + " " + t.getCategoryName() + " " + t.getPaymentType()
+                        + " " + t.getPlaceName() + " " + t.getBeneficiaryName() + " " + t.getComment())
+                .sorted()
+                .toList();
+    }
+
+    @Test
+    void testReplicasConvergeAndExchangeOnlyDeltas() throws Exception {
+        LedgerSync sync = new LedgerSync(desktop);
+        SyncResult initial = sync.sync(LedgerSync.local(laptop));
+        assertEquals(2_000, initial.getApplied());
+        assertEquals(contents(laptop), contents(desktop));
+
+        Transaction vet = new Transaction(60, "2025-01-03", desktop.getCategoryIdByName("Pets"),
+                desktop.getPaymentTypeIdByName("Cash"), "Vet", 0, 0, 0);
+        assertTrue(desktop.addTransaction(vet));
+        Transaction lunch = expense(laptop, 14.5, "2025-01-04", "Lunch");
+        for (int i = 0; i < 30; i++) {
+            Transaction transaction = laptop.listTransactions(-1, null, null, null, 40 + i, 1).get(0);
+            transaction.setComment("Edited " + i);
+            transaction.setCategoryId(laptop.getCategoryIdByName(transaction.getCategoryName()));
+            transaction.setPaymentTypeId(laptop.getPaymentTypeIdByName(transaction.getPaymentType()));
+            transaction.setPlaceId(laptop.getPlaceIdByName(transaction.getPlaceName()));
+            transaction.setBeneficiaryId(laptop.getBeneficiaryIdByName(transaction.getBeneficiaryName()));
+            assertTrue(laptop.updateTransaction(transaction));
+        }
+        assertTrue(laptop.deleteTransaction(laptop.listTransactions(-1, null, null, null, 100, 1).get(0).getId()));
+
+        SyncResult delta = sync.sync(LedgerSync.local(laptop));
+        assertEquals(32, delta.getPulled());
+        assertEquals(1, delta.getPushed());
+        assertTrue(delta.getBytesReceived() + delta.getBytesSent() < 4_096,
+                "delta sync moved " + (delta.getBytesReceived() + delta.getBytesSent()) + " bytes");
+        assertEquals(contents(laptop), contents(desktop));
+        assertEquals(2_001, laptop.getTotalTransactions());
+        assertNotEquals(-1, laptop.getCategoryIdByName("Pets"));
+
+        // Both replicas edit the same row; the later edit wins on both sides.
+        Transaction onDesktop = desktop.listTransactions(-1, null, null, null, 0, 10_000).stream()
+                .filter(t -> "Lunch".equals(t.getComment())).findFirst().orElseThrow();
+        lunch.setAmount(15);
+        assertTrue(laptop.updateTransaction(lunch));
+        onDesktop.setAmount(16);
+        onDesktop.setCategoryId(desktop.getCategoryIdByName("Food"));
+        onDesktop.setPaymentTypeId(desktop.getPaymentTypeIdByName("Cash"));
+        assertTrue(desktop.updateTransaction(onDesktop));
+        assertTrue(desktop.updateTransaction(onDesktop));
+
+        sync.sync(LedgerSync.local(laptop));
+        assertEquals(contents(laptop), contents(desktop));
+        assertEquals(16, laptop.getTransactionById(lunch.getId()).getAmount());
+
+        SyncResult idle = sync.sync(LedgerSync.local(laptop));
+        assertEquals(0, idle.getPulled());
+        assertEquals(0, idle.getPushed());
+    }
+
+    private static Transaction withComment(TransactionDAO dao, String comment) {
+        Transaction transaction = dao.listTransactions(-1, null, null, null, 0, 10_000).stream()
+                .filter(t -> comment.equals(t.getComment())).findFirst().orElseThrow();
+        transaction.setCategoryId(dao.getCategoryIdByName(transaction.getCategoryName()));
+        transaction.setPaymentTypeId(dao.getPaymentTypeIdByName(transaction.getPaymentType()));
+        return transaction;
+    }
+
+    private long count(Connection connection, String sql) throws Exception {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.getLong(1);
+        }
+    }
+
+    @Test
+    void testArchivedYearsSyncFromAndToTheYearFiles() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            expense(laptop, 10 * i, "2022-03-0" + i, "Old " + i);
+        }
+        LedgerArchive archive = laptopLedger.track(new LedgerArchive(laptopPool, laptopLedger.getDir().resolve("archive")));
+        assertEquals(3, archive.archiveYear(2022));
+        laptop.setArchive(archive);
+
+        LedgerSync sync = new LedgerSync(desktop);
+        assertEquals(2_003, sync.sync(LedgerSync.local(laptop)).getApplied());
+        assertEquals(contents(laptop), contents(desktop));
+
+        // The desktop edits one archived row in place, moves one out of its year and deletes the last.
+        Transaction edited = withComment(desktop, "Old 1");
+        edited.setAmount(11);
+        assertTrue(desktop.updateTransaction(edited));
+        Transaction moved = withComment(desktop, "Old 2");
+        moved.setDate("2025-03-02");
+        assertTrue(desktop.updateTransaction(moved));
+        assertTrue(desktop.deleteTransaction(withComment(desktop, "Old 3").getId()));
+
+        SyncResult result = sync.sync(LedgerSync.local(laptop));
+        assertEquals(3, result.getPushed());
+        assertEquals(contents(desktop), contents(laptop));
+        // No hot copies of the archived rows: the edit and the delete went to the year's file.
+        Connection connection = laptopLedger.connect();
+        assertEquals(0, count(connection, "SELECT COUNT(*) FROM Transactions WHERE date < '2024-01-01'"));
+        assertEquals(1, count(connection, "SELECT COUNT(*) FROM Transactions WHERE comment = 'Old 2'"));
+        assertEquals(1L, archive.getArchivedYears().get(2022));
+        assertEquals(2_002, laptop.getTotalTransactions());
+        assertEquals(1, laptop.searchTransactions("old", -1, null, LocalDate.of(2022, 12, 31), null, 0, 10).size());
+
+        SyncResult idle = sync.sync(LedgerSync.local(laptop));
+        assertEquals(0, idle.getPulled());
+        assertEquals(0, idle.getPushed());
+    }
+
+    @Test
+    void testOccurrencesOfLocalDefinitionsDoNotCollide() throws Exception {
+        LedgerSync sync = new LedgerSync(desktop);
+        sync.sync(LedgerSync.local(laptop));
+
+        // Both definitions get local id 1, but each replica's occurrence must survive the sync.
+        for (TransactionDAO dao : List.of(laptop, desktop)) {
+            RecurringTransaction monthly = new RecurringTransaction(dao == laptop ? 900 : 45, dao.getCategoryIdByName("Food"),
+                    dao.getPaymentTypeIdByName("Cash"), dao == laptop ? "Rent" : "Gym", 0, 0, 0, "1 * *", "2025-05-01", null);
+            assertTrue(dao.addRecurringTransaction(monthly));
+            assertEquals(1, monthly.getId());
+            assertEquals(1, new RecurringScheduler(dao).catchUp(LocalDate.of(2025, 5, 15)));
+        }
+
+        SyncResult result = sync.sync(LedgerSync.local(laptop));
+        assertEquals(1, result.getPulled());
+        assertEquals(1, result.getPushed());
+        assertEquals(contents(laptop), contents(desktop));
+        assertEquals(2_002, laptop.getTotalTransactions());
+    }
+
+    @Test
+    void testFailedChangeLogMigrationIsRetried() throws Exception {
+        Connection connection = desktopLedger.connect();
+        try (Statement stmt = connection.createStatement()) {
+            for (String trigger : List.of("transactions_sync_insert", "transactions_sync_update", "transactions_sync_delete")) {
+                stmt.execute("DROP TRIGGER " + trigger);
+            }
+            stmt.execute("DROP TABLE ChangeLog");
+            stmt.execute("DROP TABLE SyncState");
+            stmt.execute("INSERT INTO Transactions (amount, date, category_id, payment_type_id, type_id) VALUES (5, '2025-01-01', 1, 1, 0)");
+            stmt.execute("CREATE TRIGGER sync_id_blocked BEFORE UPDATE OF sync_id ON Transactions BEGIN SELECT RAISE(ABORT, 'blocked'); END");
+        }
+
+        assertThrows(IllegalStateException.class, () -> DatabaseSchema.initialize(connection));
+        assertFalse(DatabaseSchema.tableExists(connection, "ChangeLog"));
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TRIGGER sync_id_blocked");
+        }
+        DatabaseSchema.initialize(connection);
+        expense(desktop, 3, "2025-01-02", "Logged");
+        assertEquals(2, desktop.getChangesSince(Map.of()).size());
+    }
+
+    @Test
+    void testSyncOverLoopbackServer() throws Exception {
+        try (LedgerServer server = LedgerServer.start(laptop, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), "secret")) {
+            URI base = URI.create("http://127.0.0.1:" + server.getPort());
+            LedgerSync sync = new LedgerSync(desktop);
+
+            assertEquals(2_000, sync.sync(LedgerSync.http(base, "secret")).getApplied());
+            expense(desktop, 9.99, "2025-02-01", "Coffee beans");
+            Transaction first = desktop.listTransactions(-1, null, null, null, 0, 10_000).stream()
+                    .filter(t -> !"Coffee beans".equals(t.getComment())).findFirst().orElseThrow();
+            assertTrue(desktop.deleteTransaction(first.getId()));
+
+            SyncResult result = sync.sync(LedgerSync.http(base, "secret"));
+            assertEquals(2, result.getPushed());
+            assertEquals(contents(desktop), contents(laptop));
+            assertEquals(2_000, laptop.getTotalTransactions());
+
+            assertThrows(java.io.IOException.class, () -> sync.sync(LedgerSync.http(base, "wrong")));
+        }
+    }
+}
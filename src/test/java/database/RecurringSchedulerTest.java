@@ -0,0 +1,103 @@
+package database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.model.RecurringTransaction;
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.util.DatabaseSchema;
+import org.ydanilenko.budgettracker.util.RecurringScheduler;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecurringSchedulerTest {
+    private TestLedger ledger;
+    private Connection connection;
+    private TransactionDAO dao;
+    private RecurringScheduler scheduler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ledger = TestLedger.create("budget-recurring")
+                .seed("Categories", "Housing", "Salary")
+                .seed("PaymentTypes", "Transfer")
+                .seed("Places", "Home", "Office")
+                .seed("Beneficiaries", "Landlord", "Employer");
+        connection = ledger.connect();
+        dao = new TransactionDAO(connection);
+        scheduler = new RecurringScheduler(dao);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ledger.close();
+    }
+
+    private RecurringTransaction rent(String endDate) {
+        RecurringTransaction rent = new RecurringTransaction(900, 1, 1, "Rent", 1, 1, 0, "1 * *", "2024-01-01", endDate);
+        assertTrue(dao.addRecurringTransaction(rent));
+        return rent;
+    }
+
+    @Test
+    void testCatchUpIsIdempotent() throws Exception {
+        rent(null);
+        RecurringTransaction salary = new RecurringTransaction(3000, 2, 1, "Salary", 2, 2, 1, "L * *", "2024-01-01", null);
+        salary.setLastGenerated("2024-01-31");
+        assertTrue(dao.addRecurringTransaction(salary));
+
+        LocalDate today = LocalDate.of(2024, 6, 15);
+        assertEquals(6 + 4, scheduler.catchUp(today));
+        assertEquals(0, scheduler.catchUp(today));
+        assertEquals(6, dao.getTransactionsByType(0).size());
+        assertEquals(4, dao.getTransactionsByType(1).size());
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("UPDATE RecurringTransactions SET last_generated = NULL WHERE rule = '1 * *'");
+        }
+        assertEquals(0, scheduler.catchUp(today));
+        assertEquals(10, dao.getTotalTransactions());
+
+        assertEquals(2, scheduler.catchUp(LocalDate.of(2024, 7, 1)));
+        assertTrue(dao.getTransactionsByType(0).stream().anyMatch(t -> "2024-07-01".equals(t.getDate())));
+    }
+
+    @Test
+    void testEndDateStopsGenerationAndForecastIsNotPersisted() {
+        rent("2024-03-15");
+        assertEquals(3, scheduler.catchUp(LocalDate.of(2025, 1, 1)));
+
+        RecurringTransaction open = rent(null);
+        List<Transaction> forecast = scheduler.forecast(LocalDate.of(2025, 1, 1), LocalDate.of(2034, 12, 31));
+        assertEquals(120, forecast.size());
+        assertEquals("Landlord", forecast.get(0).getBeneficiaryName());
+        assertEquals(3, dao.getTotalTransactions());
+
+        assertEquals(1, RecurringScheduler.forecast(open, LocalDate.of(2025, 5, 1), LocalDate.of(2025, 5, 31)).size());
+    }
+
+    @Test
+    void testLegacyOccurrenceKeysMoveToTheDefinitionUid() throws Exception {
+        rent(null);
+        LocalDate today = LocalDate.of(2024, 3, 15);
+        assertEquals(3, scheduler.catchUp(today));
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("UPDATE Transactions SET occurrence_key = 'R1:' || date");
+            stmt.execute("UPDATE RecurringTransactions SET last_generated = NULL");
+            stmt.execute("ALTER TABLE RecurringTransactions DROP COLUMN uid");
+        }
+        DatabaseSchema.initialize(connection);
+
+        String uid = dao.getRecurringTransactions().get(0).getUid();
+        assertNotNull(uid);
+        assertEquals(3, dao.getOccurrenceKeys("R" + uid + ":", LocalDate.of(2024, 1, 1)).size());
+        assertEquals(0, scheduler.catchUp(today));
+    }
+}
@@ -0,0 +1,109 @@
+package database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.util.LedgerGenerator;
+import org.ydanilenko.budgettracker.util.SlowQueryLog;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlowQueryLogTest {
+    private TestLedger ledger;
+    private Path dir;
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ledger = TestLedger.create("budget-slow");
+        dir = ledger.getDir();
+        connection = ledger.connect();
+        new LedgerGenerator(5, LocalDate.of(2023, 1, 1), LocalDate.of(2024, 12, 31)).writeTo(connection, 50_000);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ledger.close();
+    }
+
+    @Test
+    void testSlowStatementsAreLoggedWithParamsAndPlan() throws Exception {
+        Path file = dir.resolve("slow.log");
+        SlowQueryLog log = new SlowQueryLog(file, 1);
+        TransactionDAO dao = new TransactionDAO(log.wrap(connection));
+        try {
+            assertNotNull(dao.getTopBeneficiaryByCategory("Food"));
+            dao.addTransactions(new LedgerGenerator(6, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 6, 30)).generate(20_000));
+
+            assertEquals(dir.resolve("slow.log.0"), log.getFile());
+            String text = Files.readString(log.getFile());
+            assertTrue(log.getLoggedCount() >= 1);
+            assertTrue(text.contains("op=dao.getTopBeneficiaryByCategory"), text);
+            assertTrue(text.contains("Params: ['Food']"), text);
+            assertTrue(text.contains("  Plan:"), text);
+            assertTrue(text.contains("<-- full table scan") && text.contains("FULL-SCAN"), text);
+            assertTrue(text.contains("Params (last of 20000 batched rows): "), text);
+        } finally {
+            log.close();
+        }
+    }
+
+    @Test
+    void testFastStatementsAndDisabledLogAreSilent() throws Exception {
+        SlowQueryLog disabled = new SlowQueryLog(dir.resolve("off.log"), 0);
+        assertSame(connection, disabled.wrap(connection));
+
+        SlowQueryLog log = new SlowQueryLog(dir.resolve("slow.log"), 60_000);
+        TransactionDAO dao = new TransactionDAO(log.wrap(connection));
+        dao.getAllCategories();
+        dao.getCategoryIdByName("Food");
+        assertEquals(0, log.getLoggedCount());
+        assertFalse(Files.exists(log.getFile()));
+    }
+
+    @Test
+    void testTimeSpentOnRowsIsNotQueryTime() {
+        SlowQueryLog log = new SlowQueryLog(dir.resolve("slow.log"), 200);
+        TransactionDAO dao = new TransactionDAO(log.wrap(connection));
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        long[] seen = {0};
+        long rows = dao.forEachTransaction(0, day, day, transaction -> {
+            if (seen[0]++ > 0) return;
+            try {
+                Thread.sleep(250);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(rows > 1);
+        assertEquals(0, log.getLoggedCount());
+    }
+
+    @Test
+    void testIndexedLookupsAreReportedAndLogRotates() throws Exception {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE INDEX idx_transactions_category ON Transactions(category_id)");
+        }
+        SlowQueryLog log = new SlowQueryLog(dir.resolve("slow.log"), 1, 4096, 3);
+        TransactionDAO dao = new TransactionDAO(log.wrap(connection));
+        try {
+            for (int i = 0; i < 20; i++) {
+                dao.getTopBeneficiaryByCategory("Food");
+            }
+
+            String text = Files.readString(log.getFile());
+            assertTrue(text.contains("USING INDEX idx_transactions_category"), text);
+            assertTrue(Files.exists(dir.resolve("slow.log.1")), "log should rotate once it exceeds the size limit");
+            assertFalse(Files.exists(dir.resolve("slow.log.3")));
+        } finally {
+            log.close();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.io.ImportResult;
+import org.ydanilenko.budgettracker.io.StatementImporter;
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.model.TransactionListener;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatementImporterTest {
+    private TestLedger ledger;
+    private Path dir;
+    private Connection connection;
+    private TransactionDAO dao;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ledger = TestLedger.create("budget-import")
+                .seed("Categories", "Other", "Food")
+                .seed("PaymentTypes", "Card", "Cash")
+                .seed("Places", "Lidl");
+        dir = ledger.getDir();
+        connection = ledger.connect();
+        dao = new TransactionDAO(connection);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ledger.close();
+    }
+
+    @Test
+    void testCsvImportResolvesAndCreatesDimensions() throws Exception {
+        Path file = dir.resolve("statement.csv");
+        Files.writeString(file, """
+                Date,Amount,Category,Payment Type,Place,Beneficiary,Comment
+                2025-03-01,-12.50,Food,Cash,Lidl,Lidl,"Weekly, groceries"
+                2025-03-02,2500,,,Employer,Employer,Salary
+                not-a-date,1,,,,,
+
+                2025-03-03,-3.20,Unknown Category,,,,Coffee
+                """);
+
+        ImportResult result = new StatementImporter(dao, 1, 1).importFile(file, (done, total) -> {}, () -> false);
+
+        assertEquals(3, result.getImported());
+        assertEquals(1, result.getInvalid());
+        assertFalse(result.isCancelled());
+
+        List<Transaction> expenses = dao.getTransactionsByType(0);
+        assertEquals(2, expenses.size());
+        Transaction groceries = expenses.stream().filter(t -> t.getAmount() == 12.5).findFirst().orElseThrow();
+        assertEquals("Food", groceries.getCategoryName());
+        assertEquals("Cash", groceries.getPaymentType());
+        assertEquals("Weekly, groceries", groceries.getComment());
+
+        Transaction coffee = expenses.stream().filter(t -> t.getAmount() == 3.2).findFirst().orElseThrow();
+        assertEquals("Other", coffee.getCategoryName());
+        assertEquals("Unknown", coffee.getPlaceName());
+
+        assertEquals(1, dao.getTransactionsByType(1).size());
+        assertTrue(dao.getAllPlaces().containsAll(List.of("Lidl", "Employer", "Unknown")));
+        assertEquals(3, dao.getAllPlaces().size());
+    }
+
+    @Test
+    void testSemicolonCsvWithDecimalCommaAcrossManyChunks() throws Exception {
+        Path file = dir.resolve("bank.csv");
+        int rows = StatementImporter.CHUNK_SIZE * 3 + 17;
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("Buchungstag;Betrag;Empfänger;Verwendungszweck\n");
+            for (int i = 0; i < rows; i++) {
+                writer.write("01.03.2025;-1.234,50;Shop " + (i % 100) + ";Row " + i + "\n");
+            }
+        }
+
+        AtomicLong lastProgress = new AtomicLong();
+        ImportResult result = new StatementImporter(dao, 1, 1)
+                .importFile(file, (done, total) -> lastProgress.set(done * 100 / total), () -> false);
+
+        assertEquals(rows, result.getImported());
+        assertEquals(100, lastProgress.get());
+        assertEquals(rows, dao.getTotalTransactions());
+        assertEquals(1234.5 * rows, dao.getTotalExpense(), 1e-3);
+        assertEquals(101, dao.getAllPlaces().size());
+    }
+
+    @Test
+    void testOfxAndQifImports() throws Exception {
+        Path ofx = dir.resolve("statement.ofx");
+        Files.writeString(ofx, """
+                OFXHEADER:100
+                <OFX><BANKMSGSRSV1><STMTTRNRS><STMTRS><BANKTRANLIST>
+                <STMTTRN><TRNTYPE>DEBIT<DTPOSTED>20250301120000[0:GMT]<TRNAMT>-42.00<NAME>Rewe<MEMO>Food &amp; drinks</STMTTRN>
+                <STMTTRN>
+                <TRNTYPE>CREDIT
+                <DTPOSTED>20250305
+                <TRNAMT>100.00
+                <NAME>Refund
+                </STMTTRN>
+                </BANKTRANLIST></STMTRS></STMTTRNRS></BANKMSGSRSV1></OFX>
+                """);
+        Path qif = dir.resolve("statement.qif");
+        Files.writeString(qif, """
+                !Type:Bank
+                D3/ 7'25
+                T-9.99
+                PNetflix
+                MSubscription
+                LFood
+                ^
+                D03/08/2025
+                T1,000.00
+                PEmployer
+                ^
+                """);
+
+        assertEquals(2, new StatementImporter(dao, 1, 2).importFile(ofx, (d, t) -> {}, () -> false).getImported());
+        assertEquals(2, new StatementImporter(dao, 1, 2).importFile(qif, (d, t) -> {}, () -> false).getImported());
+
+        List<Transaction> expenses = dao.getTransactionsByType(0);
+        assertTrue(expenses.stream().anyMatch(t -> "Food & drinks".equals(t.getComment()) && "Rewe".equals(t.getBeneficiaryName())));
+        assertTrue(expenses.stream().anyMatch(t -> "2025-03-07".equals(t.getDate()) && "Food".equals(t.getCategoryName())));
+        assertEquals(1100.0, dao.getTotalIncome(), 1e-9);
+    }
+
+    @Test
+    void testCancelledImportStopsEarly() throws Exception {
+        Path file = dir.resolve("statement.csv");
+        Files.writeString(file, "date,amount\n2025-03-01,-1\n2025-03-02,-2\n");
+
+        ImportResult result = new StatementImporter(dao, 1, 1).importFile(file, (d, t) -> {}, () -> true);
+
+        assertTrue(result.isCancelled());
+        assertEquals(0, dao.getTotalTransactions());
+    }
+
+    @Test
+    void testImportKeepsTheSharedDaoCurrent() throws Exception {
+        // The import dialog runs the importer on the app's DAO, whose caches and listeners are already live.
+        dao.warmCaches();
+        List<Transaction> inserted = new ArrayList<>();
+        dao.addListener(new TransactionListener() {
+            @Override
+            public void onInserted(List<Transaction> transactions) {
+                inserted.addAll(transactions);
+            }
+        });
+        Path file = dir.resolve("statement.csv");
+        Files.writeString(file, "Date,Amount,Place,Comment\n2025-03-01,-12.50,Lidl,Groceries\n");
+
+        assertEquals(1, new StatementImporter(dao, 1, 1).importFile(file, (d, t) -> {}, () -> false).getImported());
+        assertEquals(1, inserted.size());
+
+        Transaction imported = dao.getTransactionById(inserted.get(0).getId());
+        Transaction typed = new Transaction(imported.getAmount(), imported.getDate(), imported.getCategoryId(),
+                imported.getPaymentTypeId(), imported.getComment(), imported.getPlaceId(), imported.getBeneficiaryId(),
+                imported.getTypeId());
+        assertTrue(dao.addTransaction(typed));
+        assertEquals(imported.getId(), typed.getDuplicateOf());
+    }
+
+    @Test
+    void testImportedNamesReachTheCachedSuggestions() throws Exception {
+        assertEquals(List.of("Lidl"), dao.getPlaceSuggestions().suggest("", 5));
+        assertEquals(List.of(), dao.getBeneficiarySuggestions().suggest("emp", 5));
+        Path file = dir.resolve("statement.csv");
+        Files.writeString(file, "Date,Amount,Place,Beneficiary\n2025-03-02,2500,Employer,Employer\n");
+
+        new StatementImporter(dao, 1, 1).importFile(file, (d, t) -> {}, () -> false);
+
+        assertEquals(List.of("Employer"), dao.getPlaceSuggestions().suggest("emp", 5));
+        assertEquals(List.of("Employer"), dao.getBeneficiarySuggestions().suggest("emp", 5));
+    }
+}
@@ -0,0 +1,90 @@
+package database;
+
+import org.ydanilenko.budgettracker.util.ConnectionPool;
+import org.ydanilenko.budgettracker.util.DatabaseSchema;
+import org.ydanilenko.budgettracker.util.LedgerGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.stream.Stream;
+
+// A throwaway ledger in its own temp directory. Connections and pools opened through it are closed, and the
+// directory deleted, by close().
+final class TestLedger implements AutoCloseable {
+    private final Path dir;
+    private final Deque<AutoCloseable> resources = new ArrayDeque<>();
+
+    private TestLedger(Path dir) {
+        this.dir = dir;
+    }
+
+    static TestLedger create(String prefix) throws IOException {
+        return new TestLedger(Files.createTempDirectory(prefix));
+    }
+
+    Path getDir() {
+        return dir;
+    }
+
+    Path getFile() {
+        return dir.resolve("ledger.db");
+    }
+
+    String getUrl() {
+        return "jdbc:sqlite:" + getFile();
+    }
+
+    // A connection to ledger.db with the schema in place.
+    Connection connect() throws SQLException {
+        Connection connection = track(DriverManager.getConnection(getUrl()));
+        DatabaseSchema.initialize(connection);
+        return connection;
+    }
+
+    ConnectionPool pool(int size) {
+        return track(new ConnectionPool(getUrl(), size));
+    }
+
+    // Inserts named rows such as categories or payment types, which get ids 1, 2, ... in order on a fresh ledger.
+    TestLedger seed(String table, String... names) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(getUrl())) {
+            DatabaseSchema.initialize(connection);
+            try (PreparedStatement ps = connection.prepareStatement("INSERT INTO " + table + " (name) VALUES (?)")) {
+                for (String name : names) {
+                    ps.setString(1, name);
+                    ps.executeUpdate();
+                }
+            }
+        }
+        return this;
+    }
+
+    // Writes a generated ledger to ledger.db, which must not exist yet.
+    TestLedger generate(LedgerGenerator generator, int rows) throws IOException, SQLException {
+        generator.writeTo(getFile(), rows);
+        return this;
+    }
+
+    <T extends AutoCloseable> T track(T resource) {
+        resources.push(resource);
+        return resource;
+    }
+
+    @Override
+    public void close() throws Exception {
+        while (!resources.isEmpty()) {
+            resources.pop().close();
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.io.ColumnarTransactionReader;
+import org.ydanilenko.budgettracker.io.CsvStatementParser;
+import org.ydanilenko.budgettracker.io.ExportFormat;
+import org.ydanilenko.budgettracker.io.StatementRow;
+import org.ydanilenko.budgettracker.io.TransactionExporter;
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.util.DatabaseSchema;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionExportTest {
+    private TestLedger ledger;
+    private Path dir;
+    private Connection connection;
+    private TransactionExporter exporter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ledger = TestLedger.create("budget-export")
+                .seed("Categories", "Food", "Salary")
+                .seed("PaymentTypes", "Card", "Cash")
+                .seed("Places", "Lidl", "Office")
+                .seed("Beneficiaries", "Lidl", "Employer");
+        dir = ledger.getDir();
+        connection = ledger.connect();
+
+        List<Transaction> rows = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            LocalDate date = LocalDate.of(2025, 1, 1).plusDays(i % 90);
+            String comment = i % 3 == 0 ? null : "Row " + i + (i % 7 == 0 ? ", \"quoted\"" : "");
+            rows.add(new Transaction(i + 0.25, date.toString(), 1 + i % 2, 1 + i % 2, comment, 1, 1, 0));
+        }
+        rows.add(new Transaction(3000, "2025-02-01", 2, 1, "Salary", 2, 2, 1));
+
+        TransactionDAO dao = new TransactionDAO(connection);
+        assertEquals(rows.size(), dao.addTransactions(rows));
+        exporter = new TransactionExporter(dao);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ledger.close();
+    }
+
+    @Test
+    void testColumnarRoundTripPreservesRowsAcrossRowGroups() throws Exception {
+        for (String name : List.of("ledger.btc", "ledger.btc.gz")) {
+            Path file = dir.resolve(name);
+            assertEquals(10_001, exporter.export(TransactionExporter.ALL_TYPES, null, null, file));
+
+            List<Transaction> read = new ArrayList<>();
+            assertEquals(10_001, ColumnarTransactionReader.read(file, read::add));
+            assertEquals(10_001, read.size());
+
+            Transaction salary = read.stream().filter(t -> t.getTypeId() == 1).findFirst().orElseThrow();
+            assertEquals(3000, salary.getAmount());
+            assertEquals("2025-02-01", salary.getDate());
+            assertEquals("Salary", salary.getCategoryName());
+            assertEquals("Employer", salary.getBeneficiaryName());
+
+            assertEquals(3334, read.stream().filter(t -> t.getComment() == null).count());
+            assertTrue(read.stream().anyMatch(t -> "Row 7, \"quoted\"".equals(t.getComment())));
+            for (int i = 1; i < read.size(); i++) {
+                assertTrue(read.get(i - 1).getDate().compareTo(read.get(i).getDate()) <= 0);
+            }
+        }
+    }
+
+    @Test
+    void testCsvExportIsReadableByStatementParser() throws Exception {
+        Path file = dir.resolve("expenses.csv.gz");
+        LocalDate start = LocalDate.of(2025, 1, 10);
+        LocalDate end = LocalDate.of(2025, 1, 19);
+
+        long exported = exporter.export(0, start, end, file);
+        assertTrue(exported > 0);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            CsvStatementParser parser = CsvStatementParser.fromHeader(reader.readLine());
+            long rows = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                StatementRow row = parser.parse(line);
+                assertNotNull(row);
+                assertEquals(0, row.getTypeId());
+                assertFalse(row.getDate().isBefore(start));
+                assertFalse(row.getDate().isAfter(end));
+                assertEquals("Lidl", row.getPlaceName());
+                rows++;
+            }
+            assertEquals(exported, rows);
+        }
+    }
+
+    @Test
+    void testCancelledExportLeavesNoFile() {
+        Path file = dir.resolve("cancelled.csv");
+        assertThrows(RuntimeException.class, () -> exporter.export(TransactionExporter.ALL_TYPES, null, null, file,
+                ExportFormat.CSV, false, () -> true));
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void testFailedReadKeepsThePreviousExport() throws Exception {
+        Path file = dir.resolve("ledger.csv");
+        long exported = exporter.export(TransactionExporter.ALL_TYPES, null, null, file);
+        byte[] previous = Files.readAllBytes(file);
+
+        // The connection goes away part-way through the cursor, as it would if the ledger file disappeared.
+        TransactionDAO failing = new TransactionDAO(connection) {
+            @Override
+            public long forEachTransaction(int typeId, LocalDate start, LocalDate end, Consumer<Transaction> consumer) {
+                int[] seen = {0};
+                return super.forEachTransaction(typeId, start, end, transaction -> {
+                    consumer.accept(transaction);
+                    if (++seen[0] == 500) {
+                        try {
+                            connection.close();
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                });
+            }
+        };
+        assertEquals(10_001, exported);
+        assertThrows(IOException.class,
+                () -> new TransactionExporter(failing).export(TransactionExporter.ALL_TYPES, null, null, file));
+        assertArrayEquals(previous, Files.readAllBytes(file));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(List.of(), files.filter(path -> path.toString().endsWith(".part")).toList());
+        }
+    }
+
+    @Test
+    void testLegacyUnpaddedDatesAreExportedInRange() throws Exception {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("INSERT INTO Transactions (amount, date, category_id, payment_type_id, type_id) VALUES " +
+                    "(1.5, '2025-4-1', 1, 1, 0), (2.5, '2025-4-10', 1, 1, 0), (3.5, '2025-12-3', 1, 1, 0)");
+        }
+        DatabaseSchema.initialize(connection);
+
+        List<String> dates = new ArrayList<>();
+        new TransactionDAO(connection).forEachTransaction(0, LocalDate.of(2025, 4, 1), LocalDate.of(2025, 12, 31),
+                transaction -> dates.add(transaction.getDate()));
+        assertEquals(List.of("2025-04-01", "2025-04-10", "2025-12-03"), dates);
+    }
+}
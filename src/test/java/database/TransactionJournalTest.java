@@ -0,0 +1,174 @@
+package database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.util.ConnectionPool;
+import org.ydanilenko.budgettracker.util.LedgerGenerator;
+import org.ydanilenko.budgettracker.util.TransactionJournal;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionJournalTest {
+    private TestLedger ledger;
+    private Path dir;
+    private Path journalFile;
+    private ConnectionPool pool;
+    private TransactionDAO dao;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ledger = TestLedger.create("budget-journal")
+                .generate(new LedgerGenerator(11, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31)), 2_000);
+        dir = ledger.getDir();
+        pool = ledger.pool(2);
+        dao = new TransactionDAO(pool);
+        journalFile = dir.resolve("ledger.db.journal");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ledger.close();
+    }
+
+    private static String describe(Transaction t) {
+        return t.getId() + " " + t.getAmount() + " " + t.getDate() + " " + t.getCategoryId() + " " + t.getPaymentTypeId()
+                + " " + t.getPlaceId() + " " + t.getBeneficiaryId() + " " + t.getTypeId() + " " + t.getComment();
+    }
+
+    private List<String> ledger() {
+        List<String> rows = new ArrayList<>();
+        dao.forEachTransactionRow(t -> rows.add(describe(t)));
+        return rows;
+    }
+
+    private static List<String> rows(Map<Integer, Transaction> state) {
+        return state.values().stream().map(TransactionJournalTest::describe).toList();
+    }
+
+    private static void tick() throws InterruptedException {
+        Thread.sleep(5);
+    }
+
+    @Test
+    void testPointInTimeViewsAndUndo() throws Exception {
+        List<String> original = ledger();
+        try (TransactionJournal journal = new TransactionJournal(journalFile, dao)) {
+            tick();
+            Instant start = Instant.now();
+            tick();
+
+            Transaction added = new Transaction(19.99, "2025-01-05", dao.getCategoryIdByName("Food"),
+                    dao.getPaymentTypeIdByName("Cash"), "Groceries", 0, 0, 0);
+            assertTrue(journal.recordUndoable(() -> dao.addTransaction(added)));
+            Transaction edited = dao.getTransactionById(5);
+            edited.setAmount(edited.getAmount() + 100);
+            edited.setComment("Corrected");
+            assertTrue(journal.recordUndoable(() -> dao.updateTransaction(edited)));
+            tick();
+            Instant middle = Instant.now();
+            tick();
+            assertTrue(journal.recordUndoable(() -> dao.deleteTransaction(9)));
+            List<String> edited3 = ledger();
+
+            assertEquals(original, rows(journal.stateAt(start)));
+            assertEquals(edited3, rows(journal.stateAt(Instant.now())));
+            Map<Integer, Transaction> atMiddle = journal.stateAt(middle);
+            assertTrue(atMiddle.containsKey(9));
+            assertEquals("Corrected", atMiddle.get(5).getComment());
+
+            assertEquals("Undo deleting", journal.describeUndo().substring(0, 13));
+            assertTrue(journal.undo());
+            assertTrue(journal.undo());
+            assertTrue(journal.undo());
+            assertFalse(journal.canUndo());
+            assertEquals(original, ledger());
+
+            assertTrue(journal.redo());
+            assertTrue(journal.redo());
+            assertTrue(journal.redo());
+            assertEquals(edited3, ledger());
+
+            // A new edit after an undo drops the redo history.
+            assertTrue(journal.undo());
+            Transaction other = dao.getTransactionById(7);
+            other.setComment("New edit");
+            assertTrue(journal.recordUndoable(() -> dao.updateTransaction(other)));
+            assertFalse(journal.canRedo());
+
+            List<TransactionJournal.Entry> entries = new ArrayList<>();
+            journal.replay(entries::add);
+            assertEquals(11, entries.size());
+            assertEquals(TransactionJournal.Kind.INSERT, entries.get(0).getKind());
+            assertEquals(edited.getAmount() - 100, entries.get(1).getBefore().getAmount(), 1e-9);
+        }
+
+        // A torn record at the tail is cut off when the journal is opened again.
+        long size = Files.size(journalFile);
+        Files.write(journalFile, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+        try (TransactionJournal journal = new TransactionJournal(journalFile, dao)) {
+            assertEquals(size, Files.size(journalFile));
+            assertEquals(ledger(), rows(journal.stateAt(Instant.now())));
+            assertFalse(journal.canUndo());
+        }
+    }
+
+    @Test
+    void testCurrencyEditsAreUndoneAndRedone() throws Exception {
+        try (TransactionJournal journal = new TransactionJournal(journalFile, dao)) {
+            Transaction edited = dao.getTransactionById(5);
+            String before = edited.getCurrency();
+            edited.setCurrency("chf");
+            assertTrue(journal.recordUndoable(() -> dao.updateTransaction(edited)));
+            assertEquals("CHF", dao.getTransactionById(5).getCurrency());
+
+            assertTrue(journal.undo());
+            assertEquals(before, dao.getTransactionById(5).getCurrency());
+            assertTrue(journal.redo());
+            assertEquals("CHF", dao.getTransactionById(5).getCurrency());
+        }
+    }
+
+    @Test
+    void testCheckpointsBoundReplay() throws Exception {
+        int records = 200_000;
+        try (TransactionJournal journal = new TransactionJournal(journalFile, dao, 50_000)) {
+            Transaction before = dao.getTransactionById(1);
+            Transaction after = dao.getTransactionById(1);
+            for (int i = 0; i < records; i++) {
+                after.setAmount(i);
+                journal.onUpdated(before, after);
+            }
+            journal.checkpoint();
+
+            long started = System.nanoTime();
+            long replayed = journal.replay(entry -> {});
+            double seconds = (System.nanoTime() - started) / 1e9;
+            System.out.printf("Replayed %d journal records in %.3f s (%.0f records/s)%n", replayed, seconds, replayed / seconds);
+            assertEquals(records, replayed);
+
+            started = System.nanoTime();
+            Map<Integer, Transaction> state = journal.stateAt(Instant.now());
+            System.out.printf("Rebuilt the current state from a checkpoint in %.3f s%n", (System.nanoTime() - started) / 1e9);
+            assertEquals(records - 1, state.get(1).getAmount());
+            assertEquals(2_000, state.size());
+        }
+
+        try (Stream<Path> files = Files.list(dir)) {
+            long checkpoints = files.filter(path -> path.getFileName().toString().endsWith(".ckpt")).count();
+            assertTrue(checkpoints >= 2 && checkpoints <= 3, checkpoints + " checkpoints");
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.model.TransactionDAO;
+import org.ydanilenko.budgettracker.util.CommentSearch;
+import org.ydanilenko.budgettracker.util.DatabaseSchema;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionSearchTest {
+    private TestLedger ledger;
+    private Connection connection;
+    private TransactionDAO dao;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ledger = TestLedger.create("budget-search")
+                .seed("Categories", "Food", "Rent")
+                .seed("PaymentTypes", "Card")
+                .seed("Places", "Berlin")
+                .seed("Beneficiaries", "Lidl");
+        connection = ledger.connect();
+        dao = new TransactionDAO(connection);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ledger.close();
+    }
+
+    @Test
+    void testMatchQueryUsesPrefixTerms() {
+        assertEquals("\"gro\"* \"caf\"*", CommentSearch.toMatchQuery("Gro, caf!"));
+        assertNull(CommentSearch.toMatchQuery("  --  "));
+    }
+
+    @Test
+    void testPrefixAndMultiTermSearchWithFilters() {
+        dao.addTransaction(new Transaction(10, "2025-03-01", 1, 1, "Weekly groceries at market", 1, 1, 0));
+        dao.addTransaction(new Transaction(20, "2025-04-01", 1, 1, "Groceries and coffee", 1, 1, 0));
+        dao.addTransaction(new Transaction(30, "2025-04-02", 2, 1, "Groceries refund", 1, 1, 1));
+
+        assertEquals(3, dao.searchTransactions("groc", -1, null, null, null, 0, 10).size());
+        assertEquals(2, dao.searchTransactions("groc", 0, null, null, null, 0, 10).size());
+
+        List<Transaction> both = dao.searchTransactions("groc coff", -1, null, null, null, 0, 10);
+        assertEquals(1, both.size());
+        assertEquals("Groceries and coffee", both.get(0).getComment());
+
+        assertEquals(1, dao.searchTransactions("groc", 0, LocalDate.of(2025, 4, 1), null, null, 0, 10).size());
+        assertEquals(1, dao.searchTransactions("groc", -1, null, null, "Rent", 0, 10).size());
+        assertEquals(1, dao.searchTransactions("groc", -1, null, null, null, 2, 10).size());
+    }
+
+    @Test
+    void testIndexFollowsUpdatesAndDeletes() throws Exception {
+        dao.addTransaction(new Transaction(10, "2025-03-01", 1, 1, "Old note", 1, 1, 0));
+        Transaction saved = dao.searchTransactions("old", 0, null, null, null, 0, 10).get(0);
+
+        connection.createStatement().executeUpdate("UPDATE Transactions SET comment = 'New note' WHERE id = " + saved.getId());
+
+        assertTrue(dao.searchTransactions("old", 0, null, null, null, 0, 10).isEmpty());
+        assertEquals(1, dao.searchTransactions("new", 0, null, null, null, 0, 10).size());
+
+        connection.createStatement().executeUpdate("DELETE FROM Transactions WHERE id = " + saved.getId());
+        assertTrue(dao.searchTransactions("new", 0, null, null, null, 0, 10).isEmpty());
+    }
+
+    @Test
+    void testSearchIndexWithoutDeferredStateIsMigrated() throws Exception {
+        dao.addTransaction(new Transaction(10, "2025-03-01", 1, 1, "Indexed before the upgrade", 1, 1, 0));
+        // A ledger indexed before bulk inserts could defer: no SearchIndexState and an unconditional insert trigger.
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TABLE SearchIndexState");
+            stmt.execute("DROP TRIGGER transactions_search_insert");
+            stmt.execute("CREATE TRIGGER transactions_search_insert AFTER INSERT ON Transactions BEGIN " +
+                    "INSERT INTO TransactionSearch(rowid, comment) VALUES (new.id, new.comment); END");
+        }
+
+        DatabaseSchema.initialize(connection);
+        assertTrue(DatabaseSchema.tableExists(connection, "SearchIndexState"));
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT sql FROM sqlite_master WHERE name = 'transactions_search_insert'")) {
+            assertTrue(rs.next());
+            assertTrue(rs.getString(1).contains("deferred"));
+        }
+
+        // Bulk rows are indexed once, by the deferred pass, and single inserts still go through the trigger.
+        assertEquals(2, dao.addTransactions(List.of(
+                new Transaction(20, "2025-03-02", 1, 1, "Bulk upgrade row", 1, 1, 0),
+                new Transaction(30, "2025-03-03", 1, 1, "Bulk upgrade row", 1, 1, 0))));
+        dao.addTransaction(new Transaction(40, "2025-03-04", 1, 1, "Single upgrade row", 1, 1, 0));
+        assertEquals(4, dao.searchTransactions("upgrade", 0, null, null, null, 0, 10).size());
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM TransactionSearch WHERE TransactionSearch MATCH 'bulk'")) {
+            assertEquals(2, rs.getInt(1));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.model.ExchangeRate;
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.util.CurrencyConverter;
+import org.ydanilenko.budgettracker.util.DateRangeIndex;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CurrencyConverterTest {
+
+    private static final List<ExchangeRate> RATES = List.of(
+            new ExchangeRate("USD", LocalDate.of(2025, 3, 10), 0.90),
+            new ExchangeRate("usd", LocalDate.of(2025, 3, 1), 0.95),
+            new ExchangeRate("PLN", LocalDate.of(2025, 3, 1), 0.23)
+    );
+
+    @Test
+    void testRateCarriesForwardAndClampsToKnownRange() {
+        CurrencyConverter converter = new CurrencyConverter(RATES);
+        long march1 = LocalDate.of(2025, 3, 1).toEpochDay();
+
+        assertEquals(0.95, converter.rate("USD", march1));
+        assertEquals(0.95, converter.rate("usd", march1 + 8));
+        assertEquals(0.90, converter.rate("USD", march1 + 9));
+        assertEquals(0.90, converter.rate("USD", march1 + 400));
+        assertEquals(0.95, converter.rate("USD", march1 - 30));
+        assertEquals(1.0, converter.rate(null, march1));
+        assertEquals(1.0, converter.rate("CHF", march1));
+        assertFalse(converter.hasRates("CHF"));
+        assertTrue(converter.hasRates(" pln "));
+    }
+
+    @Test
+    void testLookupConvertsMixedCurrencies() {
+        CurrencyConverter.Lookup lookup = new CurrencyConverter(RATES).lookup();
+        long day = LocalDate.of(2025, 3, 15).toEpochDay();
+
+        assertEquals(100.0, lookup.toBase(100, null, day));
+        assertEquals(90.0, lookup.toBase(100, "USD", day), 1e-9);
+        assertEquals(23.0, lookup.toBase(100, "PLN", day), 1e-9);
+        assertEquals(45.0, lookup.toBase(50, "USD", day), 1e-9);
+        assertEquals(100.0, lookup.toBase(100, "CHF", day));
+    }
+
+    @Test
+    void testDateRangeIndexTotalsInBaseCurrency() {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 1_000_000; i++) {
+            Transaction t = new Transaction(i, 10.0, "2025-03-" + (1 + i % 28), "Food", "Card", null, null, null);
+            if (i % 2 == 0) t.setCurrency("USD");
+            transactions.add(t);
+        }
+
+        DateRangeIndex index = new DateRangeIndex(transactions, new CurrencyConverter(RATES));
+
+        double expected = 0;
+        for (Transaction t : transactions) {
+            int dayOfMonth = Integer.parseInt(t.getDate().substring(8));
+            expected += t.getCurrency() == null ? 10.0 : dayOfMonth < 10 ? 9.5 : 9.0;
+        }
+        assertEquals(expected, index.total(null, null), 1e-3);
+        assertEquals(10.0, transactions.get(1).getBaseAmount());
+        assertEquals(9.5, transactions.get(0).getBaseAmount(), 1e-9);
+    }
+}
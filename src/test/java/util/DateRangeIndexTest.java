@@ -0,0 +1,58 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.util.DateRangeIndex;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DateRangeIndexTest {
+
+    private static Transaction tx(int id, double amount, String date) {
+        return new Transaction(id, amount, date, "Food", "Card", "", "Berlin", "Lidl");
+    }
+
+    private final DateRangeIndex index = new DateRangeIndex(List.of(
+            tx(1, 10.0, "2025-03-15"),
+            tx(2, 20.0, "2025-01-02"),
+            tx(3, 5.5, "2025-3-1"),
+            tx(4, 100.0, "2024-12-31"),
+            tx(5, 1.0, "not a date"),
+            tx(6, 7.0, "2025-03-15")
+    ));
+
+    @Test
+    void testSkipsInvalidDatesAndSortsByDate() {
+        assertEquals(5, index.size());
+        List<Integer> ids = index.getAll().stream().map(Transaction::getId).toList();
+        assertEquals(4, ids.get(0));
+        assertEquals(2, ids.get(1));
+        assertEquals(3, ids.get(2));
+    }
+
+    @Test
+    void testRangeTotalIsInclusive() {
+        assertEquals(42.5, index.total(LocalDate.of(2025, 1, 2), LocalDate.of(2025, 3, 15)), 1e-9);
+        assertEquals(17.0, index.total(LocalDate.of(2025, 3, 15), LocalDate.of(2025, 3, 15)), 1e-9);
+        assertEquals(0.0, index.total(LocalDate.of(2025, 2, 1), LocalDate.of(2025, 2, 28)), 1e-9);
+    }
+
+    @Test
+    void testOpenEndedRanges() {
+        assertEquals(142.5, index.total(null, null), 1e-9);
+        assertEquals(100.0, index.total(null, LocalDate.of(2025, 1, 1)), 1e-9);
+        assertEquals(22.5, index.total(LocalDate.of(2025, 3, 1), null), 1e-9);
+    }
+
+    @Test
+    void testSliceMatchesCountAndInvertedRangeIsEmpty() {
+        List<Transaction> march = index.slice(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31));
+        assertEquals(3, march.size());
+        assertEquals(3, index.count(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31)));
+        assertTrue(index.slice(LocalDate.of(2025, 4, 1), LocalDate.of(2025, 1, 1)).isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> march.add(tx(9, 1.0, "2025-03-02")));
+    }
+}
@@ -0,0 +1,62 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.util.FingerprintIndex;
+import org.ydanilenko.budgettracker.util.TransactionFingerprint;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FingerprintIndexTest {
+
+    @Test
+    void testFingerprintNormalizesInputs() {
+        long base = TransactionFingerprint.of(12.5, 0, "2025-03-01", 1, 2, "Weekly groceries");
+
+        assertEquals(base, TransactionFingerprint.of(12.500000001, 0, "2025-3-1", 1, 2, "  weekly   GROCERIES "));
+        assertNotEquals(base, TransactionFingerprint.of(12.51, 0, "2025-03-01", 1, 2, "Weekly groceries"));
+        assertNotEquals(base, TransactionFingerprint.of(12.5, 1, "2025-03-01", 1, 2, "Weekly groceries"));
+        assertNotEquals(base, TransactionFingerprint.of(12.5, 0, "2025-03-02", 1, 2, "Weekly groceries"));
+        assertNotEquals(base, TransactionFingerprint.of(12.5, 0, "2025-03-01", 3, 2, "Weekly groceries"));
+        assertNotEquals(base, TransactionFingerprint.of(12.5, 0, "2025-03-01", 1, 2, "Weeklygroceries"));
+        assertEquals(TransactionFingerprint.of(1, 0, "2025-03-01", 1, 1, null),
+                TransactionFingerprint.of(1, 0, "2025-03-01", 1, 1, null));
+    }
+
+    @Test
+    void testIndexKeepsFirstIdAndGrows() {
+        FingerprintIndex index = new FingerprintIndex();
+        int rows = 1_000_000;
+        for (int i = 1; i <= rows; i++) {
+            index.add(TransactionFingerprint.of(i, 0, "2025-01-01", 1, 1, "Row"), i);
+        }
+        index.add(TransactionFingerprint.of(5, 0, "2025-01-01", 1, 1, "row"), 42);
+
+        assertEquals(rows, index.size());
+        assertEquals(5, index.find(TransactionFingerprint.of(5, 0, "2025-01-01", 1, 1, "ROW")));
+        assertEquals(-1, index.find(TransactionFingerprint.of(5, 0, "2025-01-02", 1, 1, "Row")));
+        assertTrue(index.contains(TransactionFingerprint.of(rows, 0, "2025-01-01", 1, 1, "Row")));
+
+        index.add(0, 7);
+        assertEquals(7, index.find(0));
+    }
+
+    @Test
+    void testRemoveKeepsCollidingEntriesReachable() {
+        // A small table so the fingerprints share probe runs.
+        FingerprintIndex index = new FingerprintIndex();
+        for (int i = 1; i <= 500; i++) {
+            index.add(i * 1024L, i);
+        }
+        for (int i = 1; i <= 500; i += 2) {
+            assertTrue(index.remove(i * 1024L));
+        }
+        assertFalse(index.remove(1024L));
+        assertEquals(250, index.size());
+        for (int i = 1; i <= 500; i++) {
+            assertEquals(i % 2 == 0 ? i : -1, index.find(i * 1024L));
+        }
+
+        index.add(2048L, 1);
+        assertEquals(1, index.find(2048L));
+    }
+}
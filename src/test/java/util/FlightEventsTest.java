@@ -0,0 +1,81 @@
+package util;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.util.FlightRecording;
+import org.ydanilenko.budgettracker.util.Metrics;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlightEventsTest {
+
+    @Test
+    void testTimedCallsEmitFlightRecorderEvents() throws Exception {
+        Path file = Files.createTempFile("budget-flight", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("org.ydanilenko.budgettracker.DatabaseCall");
+            recording.enable("org.ydanilenko.budgettracker.UiOperation");
+            recording.start();
+
+            Metrics.time("dao.testQuery", () -> List.of("a", "b", "c"));
+            Metrics.time("ui.test.refresh", () -> Metrics.recordRows(7));
+            Metrics.time("dao.testFailure", () -> {
+                Metrics.recordError();
+                return false;
+            });
+
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            RecordedEvent query = find(events, "dao.testQuery");
+            assertEquals("org.ydanilenko.budgettracker.DatabaseCall", query.getEventType().getName());
+            assertEquals(3, query.getLong("rows"));
+            assertFalse(query.getBoolean("failed"));
+            assertEquals(Thread.currentThread().getName(), query.getThread().getJavaName());
+
+            RecordedEvent refresh = find(events, "ui.test.refresh");
+            assertEquals("org.ydanilenko.budgettracker.UiOperation", refresh.getEventType().getName());
+            assertEquals(7, refresh.getLong("rows"));
+
+            RecordedEvent failure = find(events, "dao.testFailure");
+            assertEquals(-1, failure.getLong("rows"));
+            assertTrue(failure.getBoolean("failed"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void testLaunchFlagStartsRingBufferRecording() throws Exception {
+        Path dir = Files.createTempDirectory("budget-flight");
+        Path file = dir.resolve("session.jfr");
+        try {
+            assertNull(FlightRecording.fromArgs(new String[]{"--other"}));
+
+            FlightRecording recording = FlightRecording.fromArgs(new String[]{"--jfr=" + file});
+            assertNotNull(recording);
+            Metrics.time("dao.flagged", () -> List.of(1));
+            recording.close();
+
+            assertTrue(RecordingFile.readAllEvents(file).stream()
+                    .anyMatch(e -> e.hasField("operation") && "dao.flagged".equals(e.getString("operation"))));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(dir);
+        }
+    }
+
+    private static RecordedEvent find(List<RecordedEvent> events, String operation) {
+        return events.stream()
+                .filter(e -> e.hasField("operation") && operation.equals(e.getString("operation")))
+                .findFirst()
+                .orElseThrow();
+    }
+}
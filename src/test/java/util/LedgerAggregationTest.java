@@ -0,0 +1,164 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.model.ExchangeRate;
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.util.CurrencyConverter;
+import org.ydanilenko.budgettracker.util.EpochDays;
+import org.ydanilenko.budgettracker.util.MonthlyTotals;
+import org.ydanilenko.budgettracker.util.PieSlice;
+import org.ydanilenko.budgettracker.util.TransactionLedger;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LedgerAggregationTest {
+
+    private static Transaction tx(double amount, String date, String category, String paymentType) {
+        return new Transaction(0, amount, date, category, paymentType, null, null, null);
+    }
+
+    private static Transaction tx(int id, double amount, String date, String category, String paymentType) {
+        return new Transaction(id, amount, date, category, paymentType, null, null, null);
+    }
+
+    @Test
+    void testEpochDaysMatchesLenientIsoDates() {
+        assertEquals(LocalDate.of(2025, 3, 1).toEpochDay(), EpochDays.parse("2025-03-01"));
+        assertEquals(LocalDate.of(2025, 3, 1).toEpochDay(), EpochDays.parse("2025-3-1"));
+        assertEquals(LocalDate.of(1969, 12, 31).toEpochDay(), EpochDays.parse("1969-12-31"));
+        assertEquals(EpochDays.INVALID, EpochDays.parse("2025-02-30"));
+        assertEquals(EpochDays.INVALID, EpochDays.parse("2025-03-01T10:00"));
+        assertEquals(EpochDays.INVALID, EpochDays.parse("25-03-01"));
+        assertEquals(EpochDays.INVALID, EpochDays.parse("not a date"));
+        assertEquals(EpochDays.INVALID, EpochDays.parse(null));
+        assertEquals(2025 * 12 + 2, EpochDays.monthIndex(EpochDays.parse("2025-03-31")));
+    }
+
+    @Test
+    void testLedgerSummarizesRanges() {
+        TransactionLedger ledger = new TransactionLedger(List.of(
+                tx(10, "2025-03-01", "Food", "Cash"),
+                tx(20, "2025-03-15", "Food", "Card"),
+                tx(5, "2025-04-02", "Transport", "Card"),
+                tx(99, "broken", "Food", "Cash")
+        ), CurrencyConverter.IDENTITY);
+
+        LocalDate start = LocalDate.of(2025, 3, 1);
+        LocalDate end = LocalDate.of(2025, 3, 31);
+        assertEquals(3, ledger.size());
+        assertEquals(2, ledger.slice(start, end).size());
+        assertEquals(30, ledger.total(start, end));
+        assertEquals(Map.of("Food", 30.0), ledger.totalsByCategory(start, end));
+        assertEquals(Map.of("Cash", 10.0, "Card", 25.0), ledger.totalsByPaymentType(null, null));
+    }
+
+    @Test
+    void testPointUpdatesMatchRebuild() {
+        String[] categories = {"Food", "Rent", "Transport"};
+        String[] paymentTypes = {"Cash", "Card"};
+        LocalDate first = LocalDate.of(2023, 1, 1);
+        Random random = new Random(11);
+
+        Map<Integer, Transaction> rows = new LinkedHashMap<>();
+        for (int id = 1; id <= 400; id++) {
+            rows.put(id, tx(id, random.nextInt(10_000) / 100.0, first.plusDays(random.nextInt(900)).toString(),
+                    categories[random.nextInt(3)], paymentTypes[random.nextInt(2)]));
+        }
+        TransactionLedger live = new TransactionLedger(new ArrayList<>(rows.values()), CurrencyConverter.IDENTITY);
+
+        // Inserts, edits that move rows across days and keys, and deletes, including rows outside the loaded range.
+        for (int i = 0; i < 600; i++) {
+            int id = 1 + random.nextInt(500);
+            if (random.nextInt(4) == 0) {
+                assertEquals(rows.remove(id) != null, live.remove(id));
+            } else {
+                Transaction row = tx(id, random.nextInt(10_000) / 100.0, first.plusDays(random.nextInt(1_400) - 200).toString(),
+                        categories[random.nextInt(3)], paymentTypes[random.nextInt(2)]);
+                rows.put(id, row);
+                live.add(row);
+            }
+        }
+        assertFalse(live.remove(9_999));
+
+        TransactionLedger rebuilt = new TransactionLedger(new ArrayList<>(rows.values()), CurrencyConverter.IDENTITY);
+        assertEquals(rebuilt.size(), live.size());
+        for (int from = -200; from < 1_300; from += 97) {
+            LocalDate start = first.plusDays(from);
+            LocalDate end = start.plusDays(random.nextInt(300));
+            assertEquals(rebuilt.total(start, end), live.total(start, end), 1e-6);
+            assertEquals(rebuilt.slice(start, end).size(), live.slice(start, end).size());
+            assertTotalsEqual(rebuilt.totalsByCategory(start, end), live.totalsByCategory(start, end));
+            assertTotalsEqual(rebuilt.totalsByPaymentType(start, end), live.totalsByPaymentType(start, end));
+        }
+        assertEquals(rebuilt.total(null, null), live.total(null, null), 1e-6);
+        List<Transaction> all = live.slice(null, null);
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue(all.get(i - 1).getDate().compareTo(all.get(i).getDate()) <= 0);
+        }
+    }
+
+    private static void assertTotalsEqual(Map<String, Double> expected, Map<String, Double> actual) {
+        for (String key : expected.keySet()) {
+            assertEquals(expected.get(key), actual.getOrDefault(key, 0.0), 1e-6, key);
+        }
+        for (String key : actual.keySet()) {
+            assertEquals(expected.getOrDefault(key, 0.0), actual.get(key), 1e-6, key);
+        }
+    }
+
+    @Test
+    void testValidateRange() {
+        LocalDate today = LocalDate.of(2025, 6, 1);
+        assertNull(TransactionLedger.validateRange(null, null, today));
+        assertNull(TransactionLedger.validateRange(today.minusDays(3), today, today));
+        assertEquals("End date cannot be later than today.", TransactionLedger.validateRange(null, today.plusDays(1), today));
+        assertEquals("Start date cannot be after end date.", TransactionLedger.validateRange(today, today.minusDays(1), today));
+    }
+
+    @Test
+    void testPieSlicesSkipEmptyEntriesAndLabelPercentages() {
+        Map<String, Double> totals = new LinkedHashMap<>();
+        totals.put("Food", 75.0);
+        totals.put("Refunds", 0.0);
+        totals.put("Rent", 25.0);
+
+        List<PieSlice> slices = PieSlice.of(totals, PieSlice.total(totals));
+
+        assertEquals(2, slices.size());
+        assertEquals("Food", slices.get(0).getName());
+        assertEquals("Food (" + String.format("%.2f", 75.0) + "%)", slices.get(0).getLabel());
+        assertEquals(25.0, slices.get(1).getValue());
+    }
+
+    @Test
+    void testMonthlyTotalsMergeIncomeAndExpense() {
+        Transaction dollars = tx(100, "2025-02-10", "Salary", "Card");
+        dollars.setCurrency("USD");
+        List<Transaction> incomes = List.of(tx(1000, "2025-01-31", "Salary", "Card"), dollars);
+        List<Transaction> expenses = List.of(
+                tx(10, "2025-01-01", "Food", "Cash"),
+                tx(15, "2025-1-20", "Food", "Cash"),
+                tx(7, "2025-04-01", "Food", "Cash"),
+                tx(1, "oops", "Food", "Cash")
+        );
+        CurrencyConverter converter = new CurrencyConverter(List.of(new ExchangeRate("USD", LocalDate.of(2025, 1, 1), 0.5)));
+
+        MonthlyTotals all = MonthlyTotals.of(incomes, expenses, null, null, converter);
+        assertEquals(List.of(YearMonth.of(2025, 1), YearMonth.of(2025, 2), YearMonth.of(2025, 4)), all.getMonths());
+        assertArrayEquals(new double[]{1000, 50, 0}, all.getIncome());
+        assertArrayEquals(new double[]{25, 0, 7}, all.getExpense());
+
+        MonthlyTotals february = MonthlyTotals.of(incomes, expenses, LocalDate.of(2025, 2, 1), LocalDate.of(2025, 3, 31), converter);
+        assertEquals(List.of(YearMonth.of(2025, 2)), february.getMonths());
+
+        assertTrue(MonthlyTotals.of(List.of(), List.of(), null, null, converter).getMonths().isEmpty());
+    }
+}
@@ -0,0 +1,95 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.util.LatencyHistogram;
+import org.ydanilenko.budgettracker.util.Metrics;
+import org.ydanilenko.budgettracker.util.MetricsReporter;
+import org.ydanilenko.budgettracker.util.MetricsSnapshot;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsTest {
+
+    @Test
+    void testHistogramPercentilesStayWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 100_000; nanos++) {
+            histogram.record(nanos * 1_000);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100_000, snapshot.getCount());
+        assertEquals(100_000_000, snapshot.getMax());
+        assertEquals(50_000_500.0, snapshot.getMean(), 1e-3);
+        assertEquals(50_000_000, snapshot.percentile(50), 50_000_000 * 0.0625);
+        assertEquals(99_000_000, snapshot.percentile(99), 99_000_000 * 0.0625);
+        assertEquals(100_000_000, snapshot.percentile(100));
+        assertTrue(snapshot.percentile(50) >= 50_000_000);
+
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().getCount());
+        assertEquals(0, histogram.snapshot().percentile(99));
+    }
+
+    @Test
+    void testConcurrentRecordingLosesNoCalls() throws Exception {
+        Metrics.Timer timer = Metrics.timer("test.concurrent");
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    timer.record(i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        assertEquals(80_000, timer.snapshot().getCalls());
+        assertSame(timer, Metrics.timer("test.concurrent"));
+    }
+
+    @Test
+    void testErrorsAreAttributedToInnermostTimer() {
+        int result = Metrics.time("test.outer", () -> Metrics.time("test.inner", () -> {
+            Metrics.recordError();
+            return 42;
+        }));
+        assertEquals(42, result);
+        assertThrows(IllegalStateException.class, () -> Metrics.time("test.outer", (Runnable) () -> {
+            throw new IllegalStateException("boom");
+        }));
+        Metrics.recordError();
+
+        MetricsSnapshot outer = Metrics.timer("test.outer").snapshot();
+        MetricsSnapshot inner = Metrics.timer("test.inner").snapshot();
+        assertEquals(2, outer.getCalls());
+        assertEquals(1, outer.getErrors());
+        assertEquals(1, inner.getCalls());
+        assertEquals(1, inner.getErrors());
+    }
+
+    @Test
+    void testReporterWritesSnapshotFile() throws Exception {
+        Path dir = Files.createTempDirectory("budget-metrics");
+        Path file = dir.resolve("metrics.csv");
+        try {
+            Metrics.time("test.report", () -> {});
+            MetricsReporter.write(file, Metrics.snapshot());
+
+            List<String> lines = Files.readAllLines(file);
+            assertTrue(lines.get(0).startsWith("# "));
+            assertEquals("name,calls,errors,mean_ms,p50_ms,p90_ms,p99_ms,max_ms", lines.get(1));
+            assertTrue(lines.stream().anyMatch(line -> line.startsWith("test.report,1,0,")));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(dir);
+        }
+    }
+}
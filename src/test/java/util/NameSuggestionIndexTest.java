@@ -0,0 +1,50 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.util.NameSuggestionIndex;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NameSuggestionIndexTest {
+
+    private NameSuggestionIndex index() {
+        LocalDate today = LocalDate.now();
+        NameSuggestionIndex index = new NameSuggestionIndex();
+        index.add("Lidl", 40, today.minusDays(2));
+        index.add("Lieferando", 5, today.minusDays(400));
+        index.add("Lidl Express", 3, today);
+        index.add("Aldi", 30, today.minusDays(1));
+        index.add("Rewe", 10, today);
+        index.add("Unused Shop", 0, null);
+        return index;
+    }
+
+    @Test
+    void testPrefixMatchesAreCaseInsensitiveAndRankedByUsage() {
+        assertEquals(List.of("Lidl", "Lidl Express", "Lieferando"), index().suggest("li", 10));
+        assertEquals(List.of("Lidl"), index().suggest("LI", 1));
+    }
+
+    @Test
+    void testTypoTolerantMatchesComeAfterExactPrefixes() {
+        assertEquals(List.of("Rewe"), index().suggest("rwe", 5));
+        assertTrue(index().suggest("aldu", 5).contains("Aldi"));
+        assertTrue(index().suggest("xyzq", 5).isEmpty());
+    }
+
+    @Test
+    void testEmptyQueryReturnsTopByUsageAndRecordUseUpdatesRanking() {
+        NameSuggestionIndex index = index();
+        assertEquals(List.of("Lidl", "Aldi"), index.suggest("", 2));
+
+        for (int i = 0; i < 100; i++) {
+            index.recordUse("Unused Shop", LocalDate.now());
+        }
+        index.recordUse("Brand New", LocalDate.now());
+        assertEquals("Unused Shop", index.suggest("", 1).get(0));
+        assertEquals(List.of("Brand New"), index.suggest("bra", 5));
+    }
+}
@@ -0,0 +1,66 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.model.Transaction;
+import org.ydanilenko.budgettracker.util.FenwickTree;
+import org.ydanilenko.budgettracker.util.RangeSumIndex;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RangeSumIndexTest {
+
+    private static Transaction tx(double amount, String date, String category, String paymentType) {
+        return new Transaction(0, amount, date, category, paymentType, "", "Berlin", "Lidl");
+    }
+
+    @Test
+    void testFenwickRangeSums() {
+        FenwickTree tree = new FenwickTree(new double[]{1, 2, 3, 4, 5});
+        assertEquals(15.0, tree.rangeSum(0, 4), 1e-9);
+        assertEquals(9.0, tree.rangeSum(1, 3), 1e-9);
+        tree.add(2, 10);
+        assertEquals(19.0, tree.rangeSum(1, 3), 1e-9);
+        assertEquals(0.0, tree.rangeSum(3, 1), 1e-9);
+        assertArrayEquals(new double[]{1, 2, 13, 4, 5}, tree.toArray(), 1e-9);
+    }
+
+    @Test
+    void testTotalsBetweenPerCategory() {
+        RangeSumIndex index = RangeSumIndex.byCategory(List.of(
+                tx(10, "2025-03-01", "Groceries", "Card"),
+                tx(20, "2025-05-10", "Groceries", "Cash"),
+                tx(30, "2025-08-01", "Groceries", "Card"),
+                tx(5, "2025-04-01", "Rent", "Card")
+        ));
+
+        assertEquals(30.0, index.total("Groceries", LocalDate.of(2025, 3, 1), LocalDate.of(2025, 7, 31)), 1e-9);
+
+        Map<String, Double> totals = index.totalsBetween(LocalDate.of(2025, 4, 1), LocalDate.of(2025, 5, 31));
+        assertEquals(2, totals.size());
+        assertEquals(20.0, totals.get("Groceries"), 1e-9);
+        assertEquals(5.0, totals.get("Rent"), 1e-9);
+    }
+
+    @Test
+    void testPointUpdatesAndGrowthInBothDirections() {
+        RangeSumIndex index = RangeSumIndex.byPaymentType(List.of(tx(10, "2025-03-01", "Food", "Card")));
+
+        Transaction old = tx(100, "2010-01-15", "Food", "Card");
+        index.add(old);
+        index.add(tx(1, "2031-06-30", "Food", "Cash"));
+        assertEquals(110.0, index.total("Card", null, null), 1e-9);
+        assertEquals(100.0, index.total("Card", LocalDate.of(2010, 1, 1), LocalDate.of(2010, 12, 31)), 1e-9);
+        assertEquals(1.0, index.total("Cash", LocalDate.of(2031, 6, 30), LocalDate.of(2031, 6, 30)), 1e-9);
+
+        index.update(old, tx(50, "2025-03-02", "Food", "Cash"));
+        assertEquals(10.0, index.total("Card", null, null), 1e-9);
+        assertEquals(51.0, index.total("Cash", null, null), 1e-9);
+
+        index.remove(tx(10, "2025-03-01", "Food", "Card"));
+        assertFalse(index.totalsBetween(null, null).containsKey("Card"));
+    }
+}
@@ -0,0 +1,63 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+import org.ydanilenko.budgettracker.util.RecurrenceRule;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecurrenceRuleTest {
+
+    @Test
+    void testMonthlyAndLastDayRules() {
+        RecurrenceRule firstOfMonth = RecurrenceRule.parse("@monthly");
+        List<LocalDate> dates = firstOfMonth.occurrences(LocalDate.of(2025, 1, 15), LocalDate.of(2025, 4, 1));
+        assertEquals(List.of(LocalDate.of(2025, 2, 1), LocalDate.of(2025, 3, 1), LocalDate.of(2025, 4, 1)), dates);
+
+        RecurrenceRule lastDay = RecurrenceRule.parse("L * *");
+        assertEquals(LocalDate.of(2024, 2, 29), lastDay.next(LocalDate.of(2024, 2, 1)));
+        assertEquals(LocalDate.of(2024, 4, 30), lastDay.next(LocalDate.of(2024, 3, 31)));
+        assertEquals(RecurrenceRule.parse("L * *").getExpression(),
+                RecurrenceRule.monthlyOn(LocalDate.of(2025, 1, 31)).getExpression());
+
+        RecurrenceRule thirtyFirst = RecurrenceRule.parse("31 * *");
+        assertEquals(LocalDate.of(2025, 3, 31), thirtyFirst.next(LocalDate.of(2025, 1, 31)));
+    }
+
+    @Test
+    void testRangesStepsNamesAndWeekdays() {
+        RecurrenceRule quarterly = RecurrenceRule.parse("15 */3 *");
+        assertEquals(4, quarterly.occurrences(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31)).size());
+        assertTrue(quarterly.matches(LocalDate.of(2025, 10, 15)));
+        assertFalse(quarterly.matches(LocalDate.of(2025, 2, 15)));
+
+        RecurrenceRule weekdays = RecurrenceRule.parse("* * MON-FRI");
+        assertEquals(5, weekdays.occurrences(LocalDate.of(2025, 3, 3), LocalDate.of(2025, 3, 9)).size());
+
+        RecurrenceRule sundays = RecurrenceRule.parse("* DEC 0");
+        assertTrue(sundays.occurrences(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31)).stream()
+                .allMatch(d -> d.getDayOfWeek() == DayOfWeek.SUNDAY && d.getMonthValue() == 12));
+        assertTrue(RecurrenceRule.parse("* * 7").matches(LocalDate.of(2025, 3, 9)));
+
+        RecurrenceRule either = RecurrenceRule.parse("1 * FRI");
+        assertTrue(either.matches(LocalDate.of(2025, 3, 1)));
+        assertTrue(either.matches(LocalDate.of(2025, 3, 7)));
+        assertFalse(either.matches(LocalDate.of(2025, 3, 8)));
+
+        assertEquals("Weekly on Wednesday", RecurrenceRule.weeklyOn(LocalDate.of(2025, 3, 5)).describe());
+        assertEquals("Monthly on day 5", RecurrenceRule.monthlyOn(LocalDate.of(2025, 3, 5)).describe());
+    }
+
+    @Test
+    void testInvalidRulesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("1 *"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("32 * *"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("5-1 * *"));
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse("1 FOO *"));
+        assertNull(RecurrenceRule.parse("30 FEB *").next(LocalDate.of(2025, 1, 1)));
+    }
+}